@@ -125,7 +125,10 @@ dependencies {
 
     implementation(fileTree("${rootProject.projectDir}\\libs") {
         include("*.aar")  // 只匹配 .aar 文件
+        // base使用源码模块，预编译的aar中没有IECV2等新接口
+        exclude("base-release-*.aar")
     })
+    implementation(project(":base"))
     implementation(project(":testing"))
     implementation(project(":core"))
 
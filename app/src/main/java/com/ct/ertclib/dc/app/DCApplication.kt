@@ -7,10 +7,13 @@ import androidx.camera.core.CameraXConfig
 import com.ct.ertclib.dc.app.manager.CallStateManager
 import com.ct.ertclib.dc.core.common.NewCallAppSdkInterface
 import com.ct.ertclib.dc.core.common.coreModule
+import com.ct.ertclib.dc.core.manager.call.CallForegroundLifecycleCallbacks
+import com.ct.ertclib.dc.core.utils.logger.AsyncLogWriter
 import com.ct.ertclib.dc.core.utils.common.WebViewUtil
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
+import org.koin.android.ext.android.get
 import org.koin.android.ext.koin.androidContext
 import org.koin.core.context.startKoin
 
@@ -18,6 +21,7 @@ class DCApplication : Application(), CameraXConfig.Provider {
 
     companion object {
         private const val TAG = "DCApplication"
+        private const val CRASH_LOG_FLUSH_MILLIS = 1000L
     }
 
     override fun onCreate() {
@@ -26,6 +30,8 @@ class DCApplication : Application(), CameraXConfig.Provider {
         Thread.setDefaultUncaughtExceptionHandler(object : Thread.UncaughtExceptionHandler {
             override fun uncaughtException(t: Thread, e: Throwable) {
                 NewCallAppSdkInterface.printLog(NewCallAppSdkInterface.DEBUG_LEVEL, TAG, "uncaughtException : ${e.message}")
+                // 日志在后台线程写出，进程退出前把队列里的日志写完
+                AsyncLogWriter.getInstance().flush(CRASH_LOG_FLUSH_MILLIS)
             }
         })
 
@@ -33,6 +39,8 @@ class DCApplication : Application(), CameraXConfig.Provider {
             androidContext(this@DCApplication)
             modules(coreModule)
         }
+        // 在第一个Activity启动前注册，通话前台状态不会漏掉已在前台的界面
+        registerActivityLifecycleCallbacks(CallForegroundLifecycleCallbacks(get()))
 
         CallStateManager.startListenCallState(this)
 
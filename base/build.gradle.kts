@@ -19,7 +19,7 @@ plugins {
     id("org.jetbrains.kotlin.android") // 必须添加 Kotlin 插件
     id("maven-publish")
 }
-val libraryVersion = "1.0.0"
+val libraryVersion = "1.1.0"
 android {
     namespace = "com.ct.ertclib.dc.base"
     defaultConfig {
@@ -14,6 +14,14 @@
  *   limitations under the License.
  */
 
-package com.ct.ertclib.dc.core.data.bridge
+package com.ct.ertclib.dc.base.port.ec
 
-data class JSRequest(val event: String, val function: String, val params: Map<String, Any>)
+import java.nio.ByteBuffer
+
+/**
+ * [IECV2.requestBatch]中的一条请求
+ */
+data class ECRequest(
+    val module: String,
+    val payload: ByteBuffer
+)
@@ -0,0 +1,33 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.base.port.ec
+
+import java.nio.ByteBuffer
+
+/**
+ * [IECV2]的回调，兼容[IECCallback]的字符串回调
+ */
+interface IECStreamCallback : IECCallback {
+
+    /**
+     * 投递一段二进制数据，callId或appId为空时按module广播
+     *
+     * @param payload 只读取position到limit之间的内容，返回后即可复用
+     * @return false表示接收方积压已满，本段数据未被接收，需等[IECV2.onWritable]后重发
+     */
+    fun onData(callId: String?, appId: String?, module: String, payload: ByteBuffer): Boolean
+}
@@ -0,0 +1,57 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.base.port.ec
+
+import android.content.Context
+import java.nio.ByteBuffer
+
+
+/**
+ * 拓展能力接口第2版，与[IEC]并存
+ *
+ * 请求和回调都使用二进制负载，支持批量提交和带流控的流式回调，
+ * 适合音频特征、传感器数据、AI推理结果等高频数据。只实现[IEC]的能力提供者由core自动适配。
+ */
+interface IECV2 {
+    companion object {
+        const val VERSION = 2
+    }
+
+    fun init(context: Context, callback: IECStreamCallback?)
+    fun getModuleList(): List<String>
+
+    /**
+     * @param payload 请求负载，调用返回后不再被引用，需要异步处理时自行拷贝
+     * @return 0成功，其他失败
+     */
+    fun request(context: Context, callId: String, appId: String, module: String, payload: ByteBuffer): Int
+
+    /**
+     * 批量提交，按列表顺序处理
+     *
+     * @return 成功提交的请求个数
+     */
+    fun requestBatch(context: Context, callId: String, appId: String, requests: List<ECRequest>): Int
+
+    /**
+     * [IECStreamCallback.onData]返回false后，接收方积压回落时通知能力提供者继续发送。
+     * 可能与返回false的那次onData并发到达，收到后重发即可
+     */
+    fun onWritable()
+    fun releaseMiniApp(context: Context, callId: String, miniAppId: String)
+    fun releaseAll(context: Context)
+}
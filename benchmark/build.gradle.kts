@@ -0,0 +1,70 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+plugins {
+    id("newcall.android.library")
+}
+
+// 基准测试以JVM单元测试的形式运行，不需要设备：./gradlew :benchmark:testDebugUnitTest
+// 结果写入build/benchmark-results/*.json，可通过-PbenchmarkCommit=<sha>标记对应的提交
+android {
+    namespace = "com.ct.ertclib.dc.feature.benchmark"
+
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+        unitTests.all {
+            it.maxHeapSize = "1g"
+            it.systemProperty(
+                "benchmark.resultsDir",
+                layout.buildDirectory.dir("benchmark-results").get().asFile.absolutePath
+            )
+            it.systemProperty(
+                "benchmark.commit",
+                providers.gradleProperty("benchmarkCommit").getOrElse("")
+            )
+            // 压测参数，如-PsocketLoad.peers=8 -PsocketLoad.size=16384
+            providers.gradlePropertiesPrefixedBy("socketLoad.").get().forEach { (key, value) ->
+                it.systemProperty(key, value)
+            }
+            // xstream 1.4.9在JDK 17上需要反射访问这些包
+            it.jvmArgs(
+                "--add-opens", "java.base/java.lang=ALL-UNNAMED",
+                "--add-opens", "java.base/java.lang.reflect=ALL-UNNAMED",
+                "--add-opens", "java.base/java.util=ALL-UNNAMED",
+                "--add-opens", "java.base/java.text=ALL-UNNAMED",
+                "--add-opens", "java.desktop/java.awt.font=ALL-UNNAMED"
+            )
+            it.testLogging.showStandardStreams = true
+            // 每次都重新测量
+            it.outputs.upToDateWhen { false }
+        }
+    }
+}
+
+dependencies {
+    testImplementation(project(":core"))
+    testImplementation(project(":testing"))
+    testImplementation(project(":oemec"))
+    testImplementation(project(":base"))
+    testImplementation(libs.junit4)
+    // BDCManager依赖Looper，BdcRequestBenchmark在Robolectric上运行
+    testImplementation(libs.robolectric)
+    testImplementation(libs.okhttp)
+    testImplementation(libs.gson)
+    // android.jar中的xmlpull只有桩实现，XmlUtils在JVM上需要真实的解析器
+    testImplementation(libs.xpp3)
+    testImplementation(files(rootProject.file("libs/DSBridge-Android-3.0.0.aar")))
+}
@@ -0,0 +1,162 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.constants.CommonConstants
+import com.ct.ertclib.dc.feature.testing.TestImsDataChannelImpl
+import com.ct.ertclib.dc.feature.testing.socket.DCFrame
+import com.ct.ertclib.dc.feature.testing.socket.DCSocketManager
+import com.ct.ertclib.dc.feature.testing.socket.NioSocketTransport
+import com.newcalllib.datachannel.V1_0.IDCSendDataCallback
+import com.newcalllib.datachannel.V1_0.IImsDCObserver
+import com.newcalllib.datachannel.V1_0.ImsDCStatus
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.BeforeClass
+import org.junit.Test
+import java.util.Random
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * ADC消息吞吐：TestImsDataChannelImpl经DCSocketManager连到本机的对端传输，
+ * 发送方向统计到对端收齐的速率，接收方向由对端发帧，经观察者回调到IImsDCObserver
+ */
+class AdcThroughputBenchmark {
+
+    companion object {
+        private const val LOCAL_LABEL = "local_benchmark"
+        private const val REMOTE_LABEL = "remote_benchmark"
+        private val MESSAGE_SIZES = intArrayOf(1024, 16 * 1024)
+        private const val OPS_PER_ROUND = 2000
+        private val runner = BenchmarkRunner("adc")
+        private val peerReceivedBytes = AtomicLong()
+        private lateinit var peer: NioSocketTransport
+
+        @JvmStatic
+        @BeforeClass
+        fun connectPeer() {
+            peer = NioSocketTransport(object : NioSocketTransport.Listener {
+                override fun onFrame(connection: NioSocketTransport.Connection, frame: DCFrame) {
+                    peerReceivedBytes.addAndGet(frame.payload.size.toLong())
+                }
+            })
+            val port = peer.listen(0, "127.0.0.1")
+            assertTrue(DCSocketManager.connect("127.0.0.1", port))
+            awaitCondition { peer.connections.isNotEmpty() }
+        }
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+            DCSocketManager.destroy()
+            peer.close()
+        }
+
+        private fun awaitCondition(condition: () -> Boolean) {
+            val deadline = System.nanoTime() + 10_000_000_000L
+            while (!condition()) {
+                check(System.nanoTime() < deadline) { "timeout" }
+                LockSupport.parkNanos(100_000)
+            }
+        }
+
+        /**
+         * 每轮最后一次操作等对端收齐，计时覆盖到投递完成而不只是入队
+         */
+        private fun awaitAtRoundEnd(op: Int, condition: () -> Boolean) {
+            if (op == OPS_PER_ROUND - 1) {
+                awaitCondition(condition)
+            }
+        }
+    }
+
+    private class CountingObserver : IImsDCObserver.Stub() {
+        val bytes = AtomicLong()
+
+        override fun onDataChannelStateChange(status: ImsDCStatus?, errCode: Int) {
+        }
+
+        override fun onMessage(data: ByteArray?, length: Int) {
+            bytes.addAndGet(length.toLong())
+        }
+    }
+
+    private class LastResultCallback : IDCSendDataCallback.Stub() {
+        @Volatile
+        var result = 0
+
+        override fun onSendDataResult(state: Int) {
+            result = state
+        }
+    }
+
+    private fun createChannel(label: String): TestImsDataChannelImpl {
+        return TestImsDataChannelImpl().apply {
+            setDcTyp(TestImsDataChannelImpl.DC_TYPE_ADC)
+            setDcLabel(label)
+            setStreamId("1")
+            setTelecomCallId("benchmark")
+        }
+    }
+
+    @Test
+    fun adcSend() {
+        val channel = createChannel(LOCAL_LABEL)
+        channel.registerObserver(CountingObserver())
+        val callback = LastResultCallback()
+        for (size in MESSAGE_SIZES) {
+            val message = ByteArray(size).also { Random(size.toLong()).nextBytes(it) }
+            var expected = peerReceivedBytes.get()
+            runner.run("adcSend", opsPerRound = OPS_PER_ROUND, params = mapOf("messageBytes" to size), bytesPerOp = size.toLong()) { i ->
+                channel.send(message, message.size, callback)
+                // 连接积压超过高水位时等待后重发
+                while (callback.result == CommonConstants.DC_SEND_DATA_CACHE_FULL) {
+                    LockSupport.parkNanos(20_000)
+                    channel.send(message, message.size, callback)
+                }
+                assertEquals(CommonConstants.DC_SEND_DATA_OK, callback.result)
+                expected += size
+                awaitAtRoundEnd(i) { peerReceivedBytes.get() >= expected }
+            }
+            assertEquals(expected, peerReceivedBytes.get())
+        }
+    }
+
+    @Test
+    fun adcReceive() {
+        // 对端以local_开头的label发出，DCSocketManager收到后换成remote_再投递
+        val channel = createChannel(REMOTE_LABEL)
+        val observer = CountingObserver()
+        channel.registerObserver(observer)
+        val connection = peer.connections.first()
+        for (size in MESSAGE_SIZES) {
+            val message = ByteArray(size).also { Random(size.toLong()).nextBytes(it) }
+            var expected = observer.bytes.get()
+            runner.run("adcReceive", opsPerRound = OPS_PER_ROUND, params = mapOf("messageBytes" to size), bytesPerOp = size.toLong()) { i ->
+                while (!connection.send(DCFrame.TYPE_DATA, LOCAL_LABEL, message)) {
+                    LockSupport.parkNanos(20_000)
+                }
+                expected += size
+                awaitAtRoundEnd(i) { observer.bytes.get() >= expected }
+            }
+            assertEquals(expected, observer.bytes.get())
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import android.content.Context
+import android.telecom.Call
+import com.blankj.utilcode.util.Utils
+import com.ct.ertclib.dc.core.common.NewCallAppSdkInterface
+import com.ct.ertclib.dc.core.constants.CommonConstants
+import com.ct.ertclib.dc.core.data.call.CallInfo
+import com.ct.ertclib.dc.core.data.event.MiniAppListGetEvent
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppList
+import com.ct.ertclib.dc.core.data.model.MiniAppInfo
+import com.ct.ertclib.dc.core.manager.call.BDCManager
+import com.ct.ertclib.dc.core.manager.call.CallForegroundTracker
+import com.ct.ertclib.dc.core.miniapp.MiniAppManager
+import com.ct.ertclib.dc.core.port.miniapp.IMiniAppStartCallback
+import com.ct.ertclib.dc.core.port.miniapp.IMiniAppStartManager
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import org.junit.After
+import org.junit.AfterClass
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.koin.core.context.startKoin
+import org.koin.core.context.stopKoin
+import org.koin.dsl.module
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import java.util.Random
+import java.util.concurrent.TimeUnit
+
+/**
+ * BDC请求的端到端开销：BDCManager编码HTTP请求，对端分片响应，BDCManager在自己的Handler线程上
+ * 逐片拼接并校验完整性、解码响应、解析小程序列表后交给MiniAppManager
+ *
+ * BDCManager依赖Looper和Koin，在Robolectric上运行
+ */
+@RunWith(RobolectricTestRunner::class)
+class BdcRequestBenchmark {
+
+    companion object {
+        private const val APP_COUNT = 200
+        private const val ICON_BYTES = 4 * 1024
+        private const val MTU = 16 * 1024
+        private const val ETAG = "\"v1.0.0\""
+        private const val RESPONSE_TIMEOUT_SECONDS = 10L
+        private val runner = BenchmarkRunner("bdc")
+        private var callCount = 0
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+    }
+
+    private class NoopStartManager : IMiniAppStartManager {
+        override fun startMiniApp(context: Context, miniAppInfo: MiniAppInfo, callInfo: CallInfo?, miniAppListInfo: MiniAppList?, callback: IMiniAppStartCallback?) {}
+
+        override fun stopMiniApp(context: Context, callId: String, appId: String) {}
+
+        override fun clearBackgroundTaskList() {}
+
+        override fun moveMiniAppToFront(context: Context, appId: String) {}
+    }
+
+    private val appJsonList = List(APP_COUNT) { FakeBdcPeer.createAppJson(it, ICON_BYTES) }
+    private val managers = ArrayList<BDCManager>()
+
+    @Before
+    fun setUp() {
+        Utils.init(RuntimeEnvironment.getApplication())
+        startKoin {
+            modules(module { single { CallForegroundTracker({ null }) } })
+        }
+    }
+
+    @After
+    fun tearDown() {
+        managers.forEach { it.onImsCallRemovedBDCClose() }
+        MiniAppManager.release()
+        stopKoin()
+    }
+
+    @Test
+    fun appListFetch() {
+        val callId = "call${callCount++}"
+        val peer = FakeBdcPeer(callId, appJsonList, ByteArray(0), ETAG, MTU)
+        val subscribers = NewCallAppSdkInterface.miniAppListEventFlow.subscriptionCount.value
+        connect(peer)
+        runBlocking {
+            withTimeout(TimeUnit.SECONDS.toMillis(RESPONSE_TIMEOUT_SECONDS)) {
+                NewCallAppSdkInterface.miniAppListEventFlow.subscriptionCount.first { it > subscribers }
+            }
+        }
+        val refresh = MiniAppList(0, null, 0, callId, true, null, 0)
+        runner.run(
+            "appListFetch",
+            opsPerRound = 200,
+            params = mapOf("pageSize" to CommonConstants.MINI_APP_LIST_PAGE_SIZE, "iconBytes" to ICON_BYTES)
+        ) {
+            // MiniAppListGetEvent没有重写equals，每次新建的事件不会被distinctUntilChanged过滤
+            runBlocking { NewCallAppSdkInterface.miniAppListEventFlow.emit(MiniAppListGetEvent(0, MiniAppListGetEvent.TO_REFRESH, refresh)) }
+            awaitResponse(peer)
+        }
+    }
+
+    @Test
+    fun zipDownload() {
+        val miniAppInfo = JsonUtil.fromJson(FakeBdcPeer.createAppJson(0, 16), MiniAppInfo::class.java)!!
+        for (zipSize in intArrayOf(256 * 1024, 2 * 1024 * 1024)) {
+            val zipBytes = ByteArray(zipSize).also { Random(zipSize.toLong()).nextBytes(it) }
+            val peer = FakeBdcPeer("call${callCount++}", appJsonList, zipBytes, ETAG, MTU)
+            val manager = connect(peer)
+            runner.run(
+                "zipDownload",
+                opsPerRound = if (zipSize > 1024 * 1024) 5 else 40,
+                params = mapOf("zipBytes" to zipSize, "mtu" to MTU),
+                bytesPerOp = zipSize.toLong()
+            ) {
+                manager.downloadMiniApp(miniAppInfo)
+                awaitResponse(peer)
+            }
+        }
+    }
+
+    /**
+     * 建立BDC后BDCManager会先请求一次小程序列表，等它处理完再开始测量
+     */
+    private fun connect(peer: FakeBdcPeer): BDCManager {
+        val callId = peer.telecomCallId
+        val callInfo = CallInfo(0, callId, Call.STATE_ACTIVE, "10086", "10000", 0, false, true, true)
+        val manager = BDCManager(callInfo, MiniAppManager(callInfo, NoopStartManager()))
+        managers.add(manager)
+        manager.onDataChannelCreated(callId, "0", peer)
+        awaitResponse(peer)
+        return manager
+    }
+
+    private fun awaitResponse(peer: FakeBdcPeer) {
+        assertTrue(peer.responses.tryAcquire(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.google.gson.GsonBuilder
+import java.io.File
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+
+/**
+ * 基准测试执行器
+ *
+ * 每个场景先预热若干轮，再测量若干轮，每轮执行固定次数的操作，统计每次操作的耗时。
+ * 一个测试类对应一个suite，[writeResults]把结果写成JSON，文件名固定，便于跨提交对比。
+ */
+class BenchmarkRunner(private val suite: String) {
+
+    companion object {
+        private const val DEFAULT_WARM_UP_ROUNDS = 3
+        private const val DEFAULT_MEASURE_ROUNDS = 5
+        private const val NANOS_PER_SECOND = 1_000_000_000.0
+        private const val BYTES_PER_MB = 1024.0 * 1024.0
+    }
+
+    data class BenchmarkResult(
+        val name: String,
+        val params: Map<String, Any>,
+        val warmUpRounds: Int,
+        val rounds: Int,
+        val opsPerRound: Int,
+        val nsPerOp: Double,
+        val minNsPerOp: Double,
+        val maxNsPerOp: Double,
+        val stdDevNsPerOp: Double,
+        val opsPerSecond: Double,
+        val mbPerSecond: Double?
+    )
+
+    private val results = mutableListOf<BenchmarkResult>()
+
+    private val reports = linkedMapOf<String, Any>()
+
+    /**
+     * 防止JIT把无副作用的操作优化掉
+     */
+    @Volatile
+    private var sink = 0
+
+    /**
+     * @param bytesPerOp 每次操作处理的字节数，大于0时额外输出吞吐
+     * @param op 参数为本轮内的操作序号，返回值只用于防止死代码消除
+     */
+    fun run(
+        name: String,
+        opsPerRound: Int,
+        params: Map<String, Any> = emptyMap(),
+        bytesPerOp: Long = 0,
+        warmUpRounds: Int = DEFAULT_WARM_UP_ROUNDS,
+        measureRounds: Int = DEFAULT_MEASURE_ROUNDS,
+        op: (Int) -> Any?
+    ): BenchmarkResult {
+        repeat(warmUpRounds) { runRound(opsPerRound, op) }
+        val nsPerOpRounds = DoubleArray(measureRounds) {
+            runRound(opsPerRound, op).toDouble() / opsPerRound
+        }
+        val mean = nsPerOpRounds.average()
+        val variance = nsPerOpRounds.sumOf { (it - mean) * (it - mean) } / nsPerOpRounds.size
+        val result = BenchmarkResult(
+            name = name,
+            params = params,
+            warmUpRounds = warmUpRounds,
+            rounds = measureRounds,
+            opsPerRound = opsPerRound,
+            nsPerOp = mean,
+            minNsPerOp = nsPerOpRounds.minOrNull() ?: 0.0,
+            maxNsPerOp = nsPerOpRounds.maxOrNull() ?: 0.0,
+            stdDevNsPerOp = Math.sqrt(variance),
+            opsPerSecond = if (mean > 0) NANOS_PER_SECOND / mean else 0.0,
+            mbPerSecond = if (bytesPerOp > 0 && mean > 0) bytesPerOp * NANOS_PER_SECOND / mean / BYTES_PER_MB else null
+        )
+        results.add(result)
+        println(String.format(Locale.US, "[%s] %s %s: %.1f ns/op (+-%.1f)%s", suite, name, params, mean, result.stdDevNsPerOp,
+            result.mbPerSecond?.let { String.format(Locale.US, ", %.2f MB/s", it) } ?: ""))
+        return result
+    }
+
+    /**
+     * 记录自带统计的场景（如压测工具的报告），原样写入JSON的reports字段
+     */
+    fun addReport(name: String, report: Any) {
+        reports[name] = report
+    }
+
+    fun writeResults(): File {
+        val dir = File(System.getProperty("benchmark.resultsDir") ?: "build/benchmark-results")
+        dir.mkdirs()
+        val report = linkedMapOf(
+            "suite" to suite,
+            "commit" to (System.getProperty("benchmark.commit")?.takeIf { it.isNotEmpty() } ?: System.getenv("GIT_COMMIT") ?: ""),
+            "timestamp" to SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US).format(Date()),
+            "jvm" to "${System.getProperty("java.vm.name")} ${System.getProperty("java.version")}",
+            "os" to "${System.getProperty("os.name")} ${System.getProperty("os.arch")}",
+            "availableProcessors" to Runtime.getRuntime().availableProcessors(),
+            "results" to results,
+            "reports" to reports
+        )
+        val file = File(dir, "$suite.json")
+        file.writeText(GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(report))
+        println("[$suite] results written to ${file.absolutePath}")
+        return file
+    }
+
+    private fun runRound(opsPerRound: Int, op: (Int) -> Any?): Long {
+        var hash = 0
+        val start = System.nanoTime()
+        for (i in 0 until opsPerRound) {
+            hash = hash * 31 + System.identityHashCode(op(i))
+        }
+        val elapsed = System.nanoTime() - start
+        sink = sink xor hash
+        return elapsed
+    }
+}
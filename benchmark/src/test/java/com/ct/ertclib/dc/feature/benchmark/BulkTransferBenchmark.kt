@@ -0,0 +1,114 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.manager.context.MiniAppBulkCodec
+import com.ct.ertclib.dc.core.manager.context.MiniAppBulkRegionPool
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.nio.ByteBuffer
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * 跨进程大包：64KB~16MB payload分块走binder与写共享内存只传句柄的吞吐对比
+ *
+ * binder事务用固定耗时模拟，分块路径每块一次事务，共享内存路径整包一次事务
+ */
+class BulkTransferBenchmark {
+
+    companion object {
+        private const val OWNER = "benchmark"
+        private const val KB = 1024
+        private const val MB = 1024 * 1024
+        private val PAYLOAD_SIZES = intArrayOf(64 * KB, 256 * KB, MB, 4 * MB, 16 * MB)
+        // 单次事务留出余量，binder缓冲区整个进程共享1MB
+        private const val CHUNK_CHARS = 128 * KB
+        private const val TRANSACTION_NANOS = 30_000L
+        private val runner = BenchmarkRunner("bulkTransfer")
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+    }
+
+    private val pool = MiniAppBulkRegionPool<ByteBuffer>(allocate = { ByteBuffer.allocateDirect(it) }, free = {})
+
+    @Test
+    fun sharedMemoryVersusChunkedBinder() {
+        for (size in PAYLOAD_SIZES) {
+            val payload = mapOf("data" to "a".repeat(size))
+            assertEquals(payload, sendChunked(payload))
+            assertEquals(payload, sendBulk(payload))
+            val opsPerRound = maxOf(1, 16 * MB / size)
+            val params = mapOf("payloadBytes" to size)
+            runner.run("chunkedBinder", opsPerRound, params, bytesPerOp = size.toLong(), warmUpRounds = 2, measureRounds = 3) {
+                sendChunked(payload)
+            }
+            runner.run("sharedMemory", opsPerRound, params, bytesPerOp = size.toLong(), warmUpRounds = 2, measureRounds = 3) {
+                sendBulk(payload)
+            }
+        }
+        assertEquals(0, pool.leasedCount)
+    }
+
+    /**
+     * 分块路径：字符串按UTF-16写进Parcel，拆成多次事务，每次事务由内核拷贝到对端缓冲区，对端再拼接
+     */
+    private fun sendChunked(payload: Map<String, Any?>): Map<String, Any?> {
+        val received = HashMap<String, Any?>()
+        payload.forEach { (key, value) ->
+            val text = value as String
+            val builder = StringBuilder(text.length)
+            var offset = 0
+            while (offset < text.length) {
+                val end = minOf(offset + CHUNK_CHARS, text.length)
+                val parcel = CharArray(end - offset)
+                text.toCharArray(parcel, 0, offset, end)
+                val remote = parcel.copyOf()
+                transact()
+                builder.append(String(remote))
+                offset = end
+            }
+            received[key] = builder.toString()
+        }
+        return received
+    }
+
+    /**
+     * 共享内存路径：编码写入池化区域，binder只传句柄，对端读出后回一个释放信封
+     */
+    private fun sendBulk(payload: Map<String, Any?>): Map<String, Any?> {
+        val encoded = MiniAppBulkCodec.encode(payload)
+        val lease = pool.acquire(OWNER, encoded.size)
+        lease.region.clear()
+        encoded.writeTo(lease.region)
+        transact()
+        val mapped = lease.region.asReadOnlyBuffer()
+        mapped.flip()
+        val received = MiniAppBulkCodec.decode(mapped)
+        // 释放信封是oneway且随其他信封批量发出，不在读取方的关键路径上
+        pool.release(lease.id)
+        return received
+    }
+
+    private fun transact() {
+        LockSupport.parkNanos(TRANSACTION_NANOS)
+    }
+}
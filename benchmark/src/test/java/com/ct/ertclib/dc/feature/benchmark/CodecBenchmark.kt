@@ -0,0 +1,116 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.data.miniapp.DataChannel
+import com.ct.ertclib.dc.core.data.miniapp.DataChannelApp
+import com.ct.ertclib.dc.core.data.miniapp.DataChannelAppInfo
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppList
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import com.ct.ertclib.dc.core.utils.common.XmlUtils
+import com.ct.ertclib.dc.core.utils.httpstack.HttpStackHelper
+import okhttp3.Request
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+/**
+ * 编解码开销：小程序列表JSON、ADC描述XML（与DCManager.createNewXml相同的解析-过滤-序列化流程）、BDC请求编码
+ */
+class CodecBenchmark {
+
+    companion object {
+        private const val APP_COUNT = 50
+        private const val ICON_BYTES = 4 * 1024
+        private const val CHANNEL_COUNT = 8
+        private val XML_CLASSES = arrayOf<Class<*>>(DataChannelAppInfo::class.java, DataChannelApp::class.java, DataChannel::class.java)
+        private val runner = BenchmarkRunner("codec")
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+    }
+
+    @Test
+    fun miniAppListJson() {
+        val json = "{\"appNum\":$APP_COUNT,\"applications\":[" +
+                List(APP_COUNT) { FakeBdcPeer.createAppJson(it, ICON_BYTES) }.joinToString(",") +
+                "],\"beginIndex\":0,\"callId\":\"call\",\"ifPeerSupportDC\":true,\"totalAppNum\":$APP_COUNT}"
+        val params = mapOf("apps" to APP_COUNT, "iconBytes" to ICON_BYTES)
+        runner.run("miniAppListFromJson", opsPerRound = 200, params = params, bytesPerOp = json.length.toLong()) {
+            JsonUtil.fromJson(json, MiniAppList::class.java)
+        }
+        val miniAppList = JsonUtil.fromJson(json, MiniAppList::class.java)!!
+        assertEquals(APP_COUNT, miniAppList.applications?.size)
+        runner.run("miniAppListToJson", opsPerRound = 200, params = params) {
+            JsonUtil.toJson(miniAppList)
+        }
+    }
+
+    @Test
+    fun dataChannelXml() {
+        val description = createDescription()
+        val labels = Array(CHANNEL_COUNT / 2) { "label$it" }
+        val params = mapOf("channels" to CHANNEL_COUNT)
+        runner.run("descriptionParseXml", opsPerRound = 500, params = params, bytesPerOp = description.length.toLong()) {
+            XmlUtils.parseXml(description, XML_CLASSES, DataChannelAppInfo::class.java)
+        }
+        runner.run("descriptionFilterXml", opsPerRound = 500, params = params) {
+            val appInfo = XmlUtils.parseXml(description, XML_CLASSES, DataChannelAppInfo::class.java)
+            appInfo.dataChannelApp.dataChannelList = appInfo.dataChannelApp.dataChannelList.filter { labels.contains(it.dcLabel) }
+            XmlUtils.toXml(appInfo, XML_CLASSES)
+        }
+        val filtered = XmlUtils.parseXml(description, XML_CLASSES, DataChannelAppInfo::class.java)
+        assertEquals(CHANNEL_COUNT, filtered.dataChannelApp.dataChannelList.size)
+    }
+
+    @Test
+    fun bdcRequestEncode() {
+        val request = Request.Builder()
+            .url("http:/applicationlist?begin-index=0&app-num=10&sdkVersion=1.0")
+            .method("GET", null).build()
+        runner.run("bdcRequestEncode", opsPerRound = 5000) {
+            HttpStackHelper.getRequestData(request)
+        }
+    }
+
+    private fun createDescription(): String {
+        val appInfo = DataChannelAppInfo()
+        appInfo.dataChannelApp = DataChannelApp().apply {
+            appId = "app0"
+            repeat(CHANNEL_COUNT) { index ->
+                addDataChannel(DataChannel().apply {
+                    dcId = "$index"
+                    dcLabel = "label$index"
+                    useCase = "1"
+                    subProtocol = "http"
+                    ordered = "1"
+                    maxRetr = "3"
+                    maxTime = "300"
+                    priority = "1"
+                    autoAcceptDcSetup = "1"
+                    bandwidth = "1000"
+                    qosHint = "loss=0.01;latency=100"
+                    streamId = "${index + 1000}"
+                })
+            }
+        }
+        return XmlUtils.toXml(appInfo, XML_CLASSES)
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.data.event.NotifyEvent
+import com.ct.ertclib.dc.core.data.miniapp.AppRequest
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppEnvelope
+import com.ct.ertclib.dc.core.manager.context.MiniAppEnvelopeOutbox
+import com.ct.ertclib.dc.core.manager.context.MiniAppPendingReplies
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * 小程序跨进程消息：模拟binder下旧字符串接口与信封协议的事务数、往返耗时对比
+ */
+class EnvelopeBenchmark {
+
+    companion object {
+        private const val PRODUCERS = 8
+        private const val CALLS_PER_PRODUCER = 200
+        private const val CALL_INTERVAL_NANOS = 50_000L
+        private const val BINDER_THREADS = 4
+        private const val TRANSACTION_NANOS = 30_000L
+        private const val ENVELOPE_NANOS = 500L
+        private const val LEGACY_ROUND_TRIP = "benchmark.legacy.round_trip"
+        private val runner = BenchmarkRunner("envelope")
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+    }
+
+    /**
+     * 模拟一个进程的binder：固定的事务开销加上按信封数计的拷贝开销，接收端线程池有上限
+     */
+    private class SimulatedBinder {
+        val transactions = AtomicLong()
+        private val pool = Semaphore(BINDER_THREADS)
+
+        fun transact(envelopes: Int, onReceive: () -> Unit) {
+            transactions.incrementAndGet()
+            pool.acquire()
+            try {
+                // 事务耗时主要是等待对端线程调度，用park模拟，不占CPU
+                LockSupport.parkNanos(TRANSACTION_NANOS + envelopes * ENVELOPE_NANOS)
+                onReceive()
+            } finally {
+                pool.release()
+            }
+        }
+    }
+
+    private val registry = MetricsRegistry.instance
+
+    @Test
+    fun chattyWorkload() {
+        val total = PRODUCERS * CALLS_PER_PRODUCER
+        // 预热
+        runLegacy()
+        runEnvelope()
+        registry.reset()
+
+        val legacyTransactions = runLegacy()
+        val envelopeTransactions = runEnvelope()
+        val legacy = registry.histogram(LEGACY_ROUND_TRIP).snapshot()
+        val envelope = registry.histogram(MetricNames.AIDL_ENVELOPE_ROUND_TRIP).snapshot()
+        runner.addReport("chattyWorkload", linkedMapOf(
+            "requests" to total,
+            "legacyTransactions" to legacyTransactions,
+            "legacyP50Micros" to legacy.p50Nanos / 1000,
+            "legacyP99Micros" to legacy.p99Nanos / 1000,
+            "envelopeTransactions" to envelopeTransactions,
+            "envelopeP50Micros" to envelope.p50Nanos / 1000,
+            "envelopeP99Micros" to envelope.p99Nanos / 1000
+        ))
+        assertEquals(total * 3L, legacyTransactions)
+        assertEquals(total.toLong(), envelope.count)
+        assertTrue(envelopeTransactions < legacyTransactions)
+    }
+
+    /**
+     * 旧接口：每个请求一次双向调用，回调再走一次事务，每条通知一次事务
+     *
+     * @return binder事务数
+     */
+    private fun runLegacy(): Long {
+        val parent = SimulatedBinder()
+        val mini = SimulatedBinder()
+        val latency = registry.histogram(LEGACY_ROUND_TRIP)
+        val done = CountDownLatch(PRODUCERS * CALLS_PER_PRODUCER * 2)
+        runChatty { notify ->
+            if (notify) {
+                mini.transact(1) { done.countDown() }
+            } else {
+                val start = latency.start()
+                parent.transact(1) {
+                    mini.transact(1) {
+                        latency.recordSince(start)
+                        done.countDown()
+                    }
+                }
+            }
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS))
+        return parent.transactions.get() + mini.transactions.get()
+    }
+
+    /**
+     * 信封：请求、回复、通知都进发件箱，按批oneway发出
+     *
+     * @return binder事务数
+     */
+    private fun runEnvelope(): Long {
+        val parent = SimulatedBinder()
+        val mini = SimulatedBinder()
+        val replies = MiniAppPendingReplies()
+        val done = CountDownLatch(PRODUCERS * CALLS_PER_PRODUCER * 2)
+        val parentExecutor = Executors.newSingleThreadExecutor()
+        val miniExecutor = Executors.newSingleThreadExecutor()
+        val request = AppRequest("callAppEvent", "isMuted", mapOf("telecomCallId" to "call"))
+        val event = NotifyEvent("callStatusChange", mapOf("callState" to 4))
+        lateinit var parentOutbox: MiniAppEnvelopeOutbox
+        val miniOutbox = MiniAppEnvelopeOutbox(miniExecutor) { batch ->
+            parent.transact(batch.size) {
+                batch.forEach { parentOutbox.post(MiniAppEnvelope.reply(it.requestId, "ok")) }
+            }
+        }
+        parentOutbox = MiniAppEnvelopeOutbox(parentExecutor) { batch ->
+            mini.transact(batch.size) {
+                batch.forEach {
+                    if (it.type == MiniAppEnvelope.TYPE_REPLY) replies.complete(it.requestId, it.message) else done.countDown()
+                }
+            }
+        }
+        runChatty { notify ->
+            if (notify) {
+                parentOutbox.post(MiniAppEnvelope.notify(MiniAppEnvelope.NO_REPLY, event))
+            } else {
+                val requestId = replies.register("parent") { done.countDown() }
+                miniOutbox.post(MiniAppEnvelope.request(requestId, request))
+            }
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS))
+        parentExecutor.shutdown()
+        miniExecutor.shutdown()
+        return parent.transactions.get() + mini.transactions.get()
+    }
+
+    /**
+     * 多个生产者高频发请求，每个请求伴随一条主进程通知
+     */
+    private fun runChatty(send: (notify: Boolean) -> Unit) {
+        val start = CountDownLatch(1)
+        val threads = List(PRODUCERS) {
+            Thread {
+                start.await()
+                repeat(CALLS_PER_PRODUCER) {
+                    send(false)
+                    send(true)
+                    LockSupport.parkNanos(CALL_INTERVAL_NANOS)
+                }
+            }.apply { start() }
+        }
+        start.countDown()
+        threads.forEach { it.join() }
+    }
+}
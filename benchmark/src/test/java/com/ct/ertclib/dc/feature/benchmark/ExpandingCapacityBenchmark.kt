@@ -0,0 +1,238 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import android.content.Context
+import android.content.ContextWrapper
+import com.ct.ertclib.dc.base.port.ec.IEC
+import com.ct.ertclib.dc.base.port.ec.IECCallback
+import com.ct.ertclib.dc.core.data.common.ECBaseData
+import com.ct.ertclib.dc.core.manager.common.ECRouting
+import com.ct.ertclib.dc.core.manager.common.ExpandingCapacityManager
+import com.ct.ertclib.dc.core.port.expandcapacity.IExpandingCapacityListener
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import com.ct.oemec.test.TestAudioFeature
+import com.ct.oemec.test.TestECManager
+import com.ct.oemec.test.TestECV2
+import com.newcalllib.expandingCapacity.IExpandingCapacityCallback
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.nio.ByteBuffer
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * 拓展能力请求路由：对比Gson整体解析+重新序列化与只读路由字段两种方式的单次开销，
+ * 并以每秒1000次请求的速率驱动oemec的TestECManager，统计请求到小程序收到回调的延迟；
+ * 另外对比同一音频特征流经字符串接口（IEC）和二进制接口（IECV2）的吞吐
+ */
+class ExpandingCapacityBenchmark {
+
+    companion object {
+        private const val CALL_ID = "call1"
+        private const val APP_COUNT = 4
+        private const val REQUESTS_PER_SECOND = 1000
+        private const val DURATION_SECONDS = 5
+        private const val MODULE = "AIVideo"
+        private const val STREAM_FRAMES = 20_000
+
+        private val runner = BenchmarkRunner("expandingCapacity")
+
+        private val REQUEST = """{"provider":"OEM","module":"AIVideo","func":"detect","data":{"frame":"${"A".repeat(512)}","width":1280,"height":720,"tags":["face","text"]}}"""
+        private val CALLBACK = """{"module":"AIVideo","func":"detectCallback","data":{"isAI":true,"boxes":[${(0 until 16).joinToString(",") { """{"x":$it,"y":$it,"w":32,"h":32}""" }}]}}"""
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+    }
+
+    /**
+     * 直接调用TestECManager的Binder实现，省去bindService
+     */
+    private class TestECProvider : IEC {
+        override fun init(context: Context, callback: IECCallback?) {
+            TestECManager.mTestExpandingCapacity.setCallback(object : IExpandingCapacityCallback.Stub() {
+                override fun onCallback(content: String?) {
+                    callback?.onCallback(null, null, content)
+                }
+            })
+        }
+
+        override fun getModuleList(): List<String> = listOf(MODULE, TestAudioFeature.MODULE)
+
+        override fun request(context: Context, callId: String, appId: String, content: String): Int {
+            TestECManager.mTestExpandingCapacity.request(content)
+            return 0
+        }
+
+        override fun releaseMiniApp(context: Context, callId: String, miniAppId: String) {
+        }
+
+        override fun releaseAll(context: Context) {
+            TestECManager.onUnbind()
+        }
+    }
+
+    @Test
+    fun routeRequest() {
+        val params = mapOf("bytes" to REQUEST.length)
+        runner.run("requestGson", 20_000, params) {
+            val data = JsonUtil.fromJson(REQUEST, ECBaseData::class.java)!!
+            data.provider to JsonUtil.removeJsonFieldWithGson(REQUEST, "provider")
+        }
+        runner.run("requestStreaming", 20_000, params) {
+            val route = ECRouting.parse(REQUEST)!!
+            route.provider to ECRouting.removeProvider(REQUEST, route)
+        }
+        val route = ECRouting.parse(REQUEST)!!
+        assertEquals(JsonUtil.removeJsonFieldWithGson(REQUEST, "provider"), ECRouting.removeProvider(REQUEST, route))
+    }
+
+    @Test
+    fun routeCallback() {
+        val params = mapOf("bytes" to CALLBACK.length)
+        runner.run("callbackGson", 20_000, params) {
+            val data = JsonUtil.fromJson(CALLBACK, ECBaseData::class.java)!!
+            data.provider = ExpandingCapacityManager.OEM
+            JsonUtil.toJson(data)
+        }
+        runner.run("callbackStreaming", 20_000, params) {
+            ECRouting.withProvider(CALLBACK, ECRouting.parse(CALLBACK)!!, ExpandingCapacityManager.OEM)
+        }
+    }
+
+    @Test
+    fun testECManagerAtFixedRate() {
+        val context = ContextWrapper(null)
+        val manager = ExpandingCapacityManager()
+        manager.registerProvider(context, ExpandingCapacityManager.OEM, TestECProvider())
+        val total = REQUESTS_PER_SECOND * DURATION_SECONDS
+        val sendTimes = LongArray(total)
+        val latency = MetricsRegistry().histogram("ec.latency")
+        val malformed = AtomicInteger()
+        val done = CountDownLatch(APP_COUNT * total)
+        repeat(APP_COUNT) { app ->
+            val received = AtomicInteger()
+            val modules = ConcurrentHashMap<String, ArrayList<String>>()
+            modules[ExpandingCapacityManager.OEM] = arrayListOf(MODULE)
+            manager.registerECListener(CALL_ID, "app$app", modules, object : IExpandingCapacityListener {
+                override fun onCallback(content: String?) {
+                    // TestECManager同步回调，第i个回调对应第i个请求
+                    val index = received.getAndIncrement()
+                    latency.record(System.nanoTime() - sendTimes[index])
+                    if (content?.startsWith("{\"provider\":\"OEM\"") != true) {
+                        malformed.incrementAndGet()
+                    }
+                    done.countDown()
+                }
+            })
+        }
+
+        val intervalNanos = TimeUnit.SECONDS.toNanos(1) / REQUESTS_PER_SECOND
+        val start = System.nanoTime()
+        var late = 0
+        for (i in 0 until total) {
+            val due = start + i * intervalNanos
+            var now = System.nanoTime()
+            while (now < due) {
+                LockSupport.parkNanos(due - now)
+                now = System.nanoTime()
+            }
+            if (now - due > intervalNanos) {
+                late++
+            }
+            sendTimes[i] = now
+            assertEquals(0, manager.request(context, CALL_ID, "app${i % APP_COUNT}", REQUEST))
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS))
+        val elapsedSeconds = (System.nanoTime() - start) / 1e9
+        manager.release(context)
+
+        val snapshot = latency.snapshot()
+        val report = linkedMapOf(
+            "requests" to total,
+            "callbacks" to snapshot.count,
+            "apps" to APP_COUNT,
+            "targetRequestsPerSecond" to REQUESTS_PER_SECOND,
+            "achievedRequestsPerSecond" to total / elapsedSeconds,
+            "lateRequests" to late,
+            "p50Micros" to snapshot.p50Nanos / 1e3,
+            "p90Micros" to snapshot.p90Nanos / 1e3,
+            "p99Micros" to snapshot.p99Nanos / 1e3,
+            "maxMicros" to snapshot.maxNanos / 1e3
+        )
+        assertEquals(0, malformed.get())
+        assertEquals(APP_COUNT.toLong() * total, snapshot.count)
+        runner.addReport("testECManagerAtFixedRate", report)
+    }
+
+    @Test
+    fun audioFeatureStream() {
+        val frameBytes = TestAudioFeature.DEFAULT_FRAME_BYTES
+        runStream("audioFeatureIEC", frameBytes) { manager, context ->
+            manager.registerProvider(context, ExpandingCapacityManager.OEM, TestECProvider())
+        }
+        runStream("audioFeatureIECV2", frameBytes) { manager, context ->
+            manager.registerProvider(context, ExpandingCapacityManager.OEM, TestECV2)
+        }
+    }
+
+    private fun runStream(name: String, frameBytes: Int, register: (ExpandingCapacityManager, Context) -> Unit) {
+        val context = ContextWrapper(null)
+        val manager = ExpandingCapacityManager()
+        register(manager, context)
+        val modules = ConcurrentHashMap<String, ArrayList<String>>()
+        modules[ExpandingCapacityManager.OEM] = arrayListOf(TestAudioFeature.MODULE)
+        val done = CountDownLatch(STREAM_FRAMES)
+        val received = AtomicInteger()
+        manager.registerECListener(CALL_ID, "app0", modules, object : IExpandingCapacityListener {
+            override fun onCallback(content: String?) {
+                received.incrementAndGet()
+                done.countDown()
+            }
+
+            override fun onData(provider: String, module: String, payload: ByteBuffer) {
+                if (payload.getInt(0) == received.get()) {
+                    received.incrementAndGet()
+                }
+                done.countDown()
+            }
+        })
+        val request = """{"provider":"OEM","module":"${TestAudioFeature.MODULE}","func":"${TestAudioFeature.FUNC_START}","data":{"count":$STREAM_FRAMES,"frameBytes":$frameBytes}}"""
+        val start = System.nanoTime()
+        assertEquals(0, manager.request(context, CALL_ID, "app0", request))
+        assertTrue(done.await(60, TimeUnit.SECONDS))
+        val elapsedSeconds = (System.nanoTime() - start) / 1e9
+        manager.release(context)
+        assertEquals(STREAM_FRAMES, received.get())
+        val report = linkedMapOf<String, Any>(
+            "frames" to STREAM_FRAMES,
+            "frameBytes" to frameBytes,
+            "framesPerSecond" to STREAM_FRAMES / elapsedSeconds,
+            "mbPerSecond" to STREAM_FRAMES.toDouble() * frameBytes / elapsedSeconds / (1024 * 1024)
+        )
+        runner.addReport(name, report)
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import android.os.Handler
+import android.os.Looper
+import com.newcalllib.datachannel.V1_0.IDCSendDataCallback
+import com.newcalllib.datachannel.V1_0.IImsDCObserver
+import com.newcalllib.datachannel.V1_0.IImsDataChannel
+import com.newcalllib.datachannel.V1_0.ImsDCStatus
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.Semaphore
+
+/**
+ * BDC对端的JVM替身
+ *
+ * 请求解析和响应格式与testing模块TestImsDataChannelImpl的BDC分支一致（先发响应头，再发响应体），
+ * 区别是数据直接由构造参数给出，不再经过SPUtils读取本地配置，响应体按[mtu]切分成多条消息，
+ * 模拟BDC分片到达的情况。
+ *
+ * 响应在调用方的Looper上逐片回调给观察者，发完后再向同一个Looper投递一条消息释放[responses]，
+ * 这条消息排在所有分片之后，被执行时调用方已经处理完整个响应。
+ */
+class FakeBdcPeer(
+    private val callId: String,
+    private val appJsonList: List<String>,
+    private val zipBytes: ByteArray,
+    private val eTag: String,
+    private val mtu: Int
+) : IImsDataChannel.Stub() {
+
+    companion object {
+        private const val STR_RN = "\r\n"
+        private const val SEND_RESULT_OK = 20000
+
+        /**
+         * 生成一条小程序列表项，[iconBytes]模拟列表里内嵌的base64图标
+         */
+        fun createAppJson(index: Int, iconBytes: Int): String {
+            val icon = java.util.Base64.getEncoder().encodeToString(ByteArray(iconBytes) { (it * 31 + index).toByte() })
+            return "{\"appid\":\"app$index\",\"appName\":\"MiniApp $index\",\"appIcon\":\"$icon\"," +
+                    "\"autolaunch\":false,\"autoload\":true,\"callId\":\"call\",\"etag\":\"etag$index\"," +
+                    "\"ifWorkWithoutPeerDC\":true,\"isOutgoingCall\":true,\"phase\":\"IN_CALL\"," +
+                    "\"qos-hint\":\"loss=0.01;latency=100\",\"slotId\":0,\"supportScene\":1}"
+        }
+    }
+
+    val responses = Semaphore(0)
+
+    @Volatile
+    private var observer: IImsDCObserver? = null
+
+    override fun registerObserver(l: IImsDCObserver?) {
+        observer = l
+    }
+
+    override fun unregisterObserver() {
+        observer = null
+    }
+
+    override fun send(data: ByteArray, length: Int, l: IDCSendDataCallback?): Boolean {
+        l?.onSendDataResult(SEND_RESULT_OK)
+        handle(data) { message -> observer?.onMessage(message, message.size) }
+        val looper = Looper.myLooper()
+        if (looper == null) {
+            responses.release()
+        } else {
+            Handler(looper).post { responses.release() }
+        }
+        return true
+    }
+
+    override fun close() {
+        observer = null
+    }
+
+    override fun getDcLabel(): String = "bdc"
+
+    override fun getSubProtocol(): String = ""
+
+    override fun bufferedAmount(): Long = 0
+
+    override fun getDCType(): Int = 1
+
+    override fun getState(): ImsDCStatus = ImsDCStatus.DC_STATE_OPEN
+
+    override fun getTelecomCallId(): String = callId
+
+    override fun getStreamId(): String = "0"
+
+    override fun getPhoneNumber(): String = ""
+
+    private fun handle(request: ByteArray, onMessage: (ByteArray) -> Unit) {
+        val requestString = String(request, StandardCharsets.UTF_8)
+        if (requestString.contains("applicationlist")) {
+            val query = requestString.split("applicationlist?begin-index=")[1]
+            val beginIndex = query.substringBefore("&app-num=").toInt()
+            val pageSize = query.substringAfter("&app-num=").substringBefore("&sdkVersion=").toInt()
+            val page = appJsonList.drop(beginIndex).take(pageSize)
+            val body = ("{\"appNum\":${page.size},\"applications\":[${page.joinToString(",")}],\"beginIndex\":$beginIndex," +
+                    "\"callId\":\"call\",\"ifPeerSupportDC\":true,\"totalAppNum\":${appJsonList.size}}").toByteArray()
+            onMessage(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + body.size + STR_RN + STR_RN).toByteArray())
+            sendInChunks(body, onMessage)
+        } else if (requestString.contains("applications?appid=")) {
+            val header = "HTTP/1.1 200 OK\r\nContent-Type: application/zip\r\nContent-Length: " + zipBytes.size + STR_RN +
+                    "etag: " + eTag + STR_RN + STR_RN
+            onMessage(header.toByteArray())
+            sendInChunks(zipBytes, onMessage)
+        } else {
+            onMessage("HTTP/1.1 404 not found\r\n\r\n\r\n".toByteArray())
+        }
+    }
+
+    private fun sendInChunks(body: ByteArray, onMessage: (ByteArray) -> Unit) {
+        var offset = 0
+        while (offset < body.size) {
+            val end = minOf(offset + mtu, body.size)
+            onMessage(body.copyOfRange(offset, end))
+            offset = end
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import android.content.ContextWrapper
+import com.ct.ertclib.dc.core.data.model.MiniAppInfo
+import com.ct.ertclib.dc.core.port.manager.IFileDownloadManager
+import com.ct.ertclib.dc.core.port.manager.IMiniAppKvStore
+import com.ct.ertclib.dc.core.port.manager.IMiniAppLocationService
+import com.ct.ertclib.dc.core.port.manager.IMiniToParentManager
+import com.ct.ertclib.dc.core.port.manager.IModelManager
+import com.ct.ertclib.dc.core.port.usecase.mini.IPermissionUseCase
+import com.ct.ertclib.dc.core.usecase.miniapp.FileMiniUseCase
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import org.junit.AfterClass
+import org.junit.Assert.assertTrue
+import org.junit.ClassRule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.lang.reflect.Proxy
+
+/**
+ * 文件列表开销：FileMiniUseCase.getFileList在大目录下的过滤、排序、分页和序列化
+ */
+class FileListBenchmark {
+
+    companion object {
+        private const val FILE_COUNT = 2000
+        private const val PAGE_SIZE = 50
+        private val runner = BenchmarkRunner("fileList")
+
+        @JvmField
+        @ClassRule
+        val folder = TemporaryFolder()
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+
+        /**
+         * 用动态代理实现用例依赖的接口，[answer]返回null时按返回类型给出默认值
+         */
+        private inline fun <reified T> fake(crossinline answer: (String) -> Any? = { null }): T {
+            return Proxy.newProxyInstance(T::class.java.classLoader, arrayOf(T::class.java)) { _, method, _ ->
+                answer(method.name) ?: when (method.returnType) {
+                    java.lang.Boolean.TYPE -> false
+                    Integer.TYPE -> 0
+                    java.lang.Long.TYPE -> 0L
+                    else -> null
+                }
+            } as T
+        }
+    }
+
+    private val miniAppInfo = JsonUtil.fromJson(FakeBdcPeer.createAppJson(0, 16), MiniAppInfo::class.java)
+
+    private val useCase = FileMiniUseCase(
+        fake<IMiniToParentManager> { if (it == "getMiniAppInfo") miniAppInfo else null },
+        fake<IPermissionUseCase> { if (it == "checkPermissionAndRecord") true else null },
+        fake<IModelManager>(),
+        fake<IFileDownloadManager>(),
+        fake<IMiniAppKvStore>(),
+        fake<IMiniAppLocationService>()
+    )
+
+    @Test
+    fun getFileList() {
+        val dir = createFolder()
+        for (sortType in arrayOf("", "sizeSort", "timeSort")) {
+            val params = mapOf(
+                "folderPath" to dir.absolutePath,
+                "offset" to "100",
+                "count" to "$PAGE_SIZE",
+                "fileType" to "1",
+                "suffix" to ".txt||.jpg",
+                "sortType" to sortType,
+                "sortOrder" to "1",
+                "folderPosition" to "1"
+            )
+            val response = useCase.getFileList(ContextWrapper(null), params)
+            assertTrue(response, response!!.contains("\"code\":\"0\""))
+            runner.run("getFileList", opsPerRound = 20, params = mapOf("files" to FILE_COUNT, "page" to PAGE_SIZE, "sortType" to sortType)) {
+                useCase.getFileList(ContextWrapper(null), params)
+            }
+        }
+    }
+
+    private fun createFolder(): File {
+        val dir = folder.newFolder("files")
+        val suffixes = arrayOf(".txt", ".jpg", ".mp4", ".pdf")
+        repeat(FILE_COUNT) { index ->
+            val file = File(dir, "file$index${suffixes[index % suffixes.size]}")
+            file.writeBytes(ByteArray(index % 512))
+            file.setLastModified(1_700_000_000_000L + index * 1000L)
+        }
+        repeat(20) { File(dir, "folder$it").mkdir() }
+        return dir
+    }
+}
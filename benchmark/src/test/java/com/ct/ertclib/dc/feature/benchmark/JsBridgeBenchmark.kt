@@ -0,0 +1,201 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import android.content.Context
+import android.content.ContextWrapper
+import com.ct.ertclib.dc.core.constants.MiniAppConstants
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_DC
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_FILE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_MINI_APP
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_CHECK_FILE_EXISTS
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_CALL_STATE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_FILE_INFO
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_MINI_APP_INFO
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_SCREEN_INFO
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_SDK_INFO
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_IS_PEER_SUPPORT_DC
+import com.ct.ertclib.dc.core.data.bridge.JsParamSpec
+import com.ct.ertclib.dc.core.data.bridge.JsRoute
+import com.ct.ertclib.dc.core.data.bridge.jsRoutes
+import com.ct.ertclib.dc.core.dispatcher.js.DCJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.ECJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.FileJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.MiniAppJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.ScreenShareJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.SystemJsEventDispatcher
+import com.ct.ertclib.dc.core.miniapp.bridge.JsBatchExecutor
+import com.ct.ertclib.dc.core.miniapp.bridge.JsBridgeRouter
+import com.ct.ertclib.dc.core.port.dispatcher.IJsEventDispatcher
+import com.google.gson.Gson
+import kotlinx.coroutines.runBlocking
+import org.junit.AfterClass
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import wendu.dsbridge.CompletionHandler
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * JS桥：全部function上单次分发的开销，整包Gson反序列化后查表与路由表按需解码对比；
+ * 小程序页面初始化的一组查询逐个调用与批量调用的耗时对比
+ */
+class JsBridgeBenchmark {
+
+    companion object {
+        private const val HANDLER_LATENCY_MILLIS = 5L
+        private val runner = BenchmarkRunner("jsBridge")
+        private val callbackExecutor = Executors.newSingleThreadScheduledExecutor()
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+            callbackExecutor.shutdown()
+        }
+    }
+
+    private data class LegacyRequest(val event: String, val function: String, val params: Map<String, Any>)
+
+    private val router = JsBridgeRouter(
+        listOf(
+            DCJsEventDispatcher(),
+            MiniAppJsEventDispatcher(),
+            FileJsEventDispatcher(),
+            ScreenShareJsEventDispatcher(),
+            ECJsEventDispatcher(),
+            SystemJsEventDispatcher()
+        )
+    )
+
+    /**
+     * 每个可调用的function生成一条消息，params包含多余的字段
+     */
+    private fun allCalls(): List<String> {
+        val params = """{"dcLabel":"label","data":"${"d".repeat(128)}","appId":"app","path":"/sdcard/a.txt","number":13800000000,"list":[1,2,3],"extra":{"a":true}}"""
+        val events = MiniAppConstants::class.java.declaredFields
+            .filter { it.name.startsWith("EVENT_") || it.name == "SYSTEM_EVENT" }
+            .map { it.isAccessible = true; it.get(null) as String }
+        return MiniAppConstants::class.java.declaredFields
+            .filter { it.name.startsWith("FUNCTION_") && !it.name.contains("NOTIFY") }
+            .flatMap { field ->
+                field.isAccessible = true
+                val function = field.get(null) as String
+                events.filter { router.find(it, function) != null }
+                    .map { event -> """{"event":"$event","function":"$function","params":$params}""" }
+            }
+    }
+
+    @Test
+    fun dispatch() {
+        val gson = Gson()
+        val messages = allCalls()
+        assertTrue(messages.isNotEmpty())
+        val legacyTable = HashMap<String, HashMap<String, Any>>()
+        messages.forEach {
+            val request = gson.fromJson(it, LegacyRequest::class.java)
+            legacyTable.getOrPut(request.event) { HashMap() }[request.function] = request
+        }
+        val params = mapOf("functions" to messages.size)
+        runner.run("dispatchGson", opsPerRound = messages.size * 100, params = params) { i ->
+            val request = gson.fromJson(messages[i % messages.size], LegacyRequest::class.java)
+            legacyTable[request.event]?.get(request.function)
+        }
+        runner.run("dispatchRouter", opsPerRound = messages.size * 100, params = params) { i ->
+            router.decode(messages[i % messages.size]).params
+        }
+    }
+
+    @Test
+    fun pageInit() {
+        val context: Context = ContextWrapper(null)
+        val router = JsBridgeRouter(latencyDispatchers())
+        val calls = listOf(
+            call(EVENT_MINI_APP, FUNCTION_GET_MINI_APP_INFO),
+            call(EVENT_MINI_APP, FUNCTION_GET_SDK_INFO),
+            call(EVENT_MINI_APP, FUNCTION_GET_SCREEN_INFO),
+            call(EVENT_MINI_APP, FUNCTION_GET_CALL_STATE),
+            call(EVENT_DC, FUNCTION_IS_PEER_SUPPORT_DC)
+        ) + (1..7).flatMap {
+            listOf(
+                call(EVENT_FILE, FUNCTION_CHECK_FILE_EXISTS, """{"path":"/f$it"}"""),
+                call(EVENT_FILE, FUNCTION_GET_FILE_INFO, """{"path":"/f$it"}""")
+            )
+        }
+        val params = mapOf("calls" to calls.size, "handlerLatencyMillis" to HANDLER_LATENCY_MILLIS)
+        // 逐个调用：每个调用单独解码、分发并等待结果，与页面依次await每个桥调用一致
+        runner.run("pageInitSequential", opsPerRound = 2, params = params, warmUpRounds = 2, measureRounds = 5) {
+            calls.forEach { msg ->
+                val call = router.decode(msg)
+                if (call.route.sync != null) {
+                    call.invokeSync(context)
+                } else {
+                    val latch = CountDownLatch(1)
+                    call.invokeAsync(context, object : CompletionHandler<String?> {
+                        override fun complete(retValue: String?) = latch.countDown()
+                        override fun complete() = latch.countDown()
+                        override fun setProgressData(value: String?) {}
+                    })
+                    latch.await()
+                }
+            }
+        }
+        val executor = JsBatchExecutor(router)
+        val batchMsg = """{"calls":[${calls.joinToString(",")}]}"""
+        runner.run("pageInitBatched", opsPerRound = 2, params = params, warmUpRounds = 2, measureRounds = 5) {
+            runBlocking { executor.execute(context, batchMsg) }
+        }
+    }
+
+    private fun call(event: String, function: String, params: String = "{}") =
+        """{"event":"$event","function":"$function","params":$params}"""
+
+    /**
+     * 模拟分发器：同步查询阻塞一段时间，异步查询在其他线程延迟回调
+     */
+    private fun latencyDispatchers(): List<IJsEventDispatcher> = listOf(
+        object : IJsEventDispatcher {
+            override fun routes(): List<JsRoute> = jsRoutes(EVENT_MINI_APP) {
+                route(FUNCTION_GET_MINI_APP_INFO, JsParamSpec.NONE, independent = true, async = { _, _, handler -> completeLater(handler, "{\"appId\":\"app\"}") })
+                route(FUNCTION_GET_SDK_INFO, JsParamSpec.NONE, independent = true, sync = { _, _ -> blocking("{\"sdk\":1}") })
+                route(FUNCTION_GET_SCREEN_INFO, JsParamSpec.NONE, independent = true, sync = { _, _ -> blocking("{\"width\":1080}") })
+                route(FUNCTION_GET_CALL_STATE, JsParamSpec.NONE, independent = true, sync = { _, _ -> blocking("{\"state\":2}") })
+            }
+        },
+        object : IJsEventDispatcher {
+            override fun routes(): List<JsRoute> = jsRoutes(EVENT_DC) {
+                route(FUNCTION_IS_PEER_SUPPORT_DC, JsParamSpec.NONE, independent = true, async = { _, _, handler -> completeLater(handler, "true") })
+            }
+        },
+        object : IJsEventDispatcher {
+            override fun routes(): List<JsRoute> = jsRoutes(EVENT_FILE) {
+                route(FUNCTION_CHECK_FILE_EXISTS, JsParamSpec.of("path"), independent = true, sync = { _, params -> blocking("{\"path\":\"${params["path"]}\"}") })
+                route(FUNCTION_GET_FILE_INFO, JsParamSpec.of("path"), independent = true, sync = { _, params -> blocking("{\"size\":${params["path"].toString().length}}") })
+            }
+        }
+    )
+
+    private fun blocking(result: String): String {
+        Thread.sleep(HANDLER_LATENCY_MILLIS)
+        return result
+    }
+
+    private fun completeLater(handler: CompletionHandler<String?>, result: String) {
+        callbackExecutor.schedule({ handler.complete(result) }, HANDLER_LATENCY_MILLIS, TimeUnit.MILLISECONDS)
+    }
+}
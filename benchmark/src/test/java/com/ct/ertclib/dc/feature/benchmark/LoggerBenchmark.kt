@@ -0,0 +1,110 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.utils.logger.AndroidAppender
+import com.ct.ertclib.dc.core.utils.logger.Appender
+import com.ct.ertclib.dc.core.utils.logger.AsyncLogWriter
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import org.junit.AfterClass
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 日志：启用/关闭级别下多线程竞争时日志调用的开销
+ */
+class LoggerBenchmark {
+
+    companion object {
+        private const val TAG = "LoggerBenchmark"
+        private const val WARM_UP_ROUNDS = 3
+        private const val MEASURE_ROUNDS = 5
+        private const val OPS_PER_THREAD = 100_000
+        private val THREAD_COUNTS = intArrayOf(1, 4)
+        private val runner = BenchmarkRunner("logger")
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            Logger.clearTagLevel(TAG)
+            AsyncLogWriter.getInstance().setAppenders(arrayOf(AndroidAppender()))
+            runner.writeResults()
+        }
+    }
+
+    private class CountingAppender : Appender() {
+        val count = AtomicLong()
+
+        override fun printTrace(classname: String, level: Int, trace: String) {
+            count.incrementAndGet()
+        }
+    }
+
+    @Test
+    fun logCallUnderContention() {
+        val appender = CountingAppender()
+        val writer = AsyncLogWriter.getInstance()
+        writer.setAppenders(arrayOf(appender))
+        val logger = Logger.getLogger(TAG)
+        Logger.setTagLevel(TAG, Logger.INFO_LEVEL)
+        val payload = "x".repeat(256)
+
+        for (threads in THREAD_COUNTS) {
+            val disabled = measure(threads) { logger.debug { "payload:$payload" } }
+            val droppedBefore = writer.getDroppedCount()
+            val writtenBefore = appender.count.get()
+            val enabled = measure(threads) { logger.info("payload") }
+            assertTrue(writer.flush(10_000))
+            val dropped = writer.getDroppedCount() - droppedBefore
+            runner.addReport("threads$threads", linkedMapOf(
+                "disabledNsPerOp" to disabled,
+                "enabledNsPerOp" to enabled,
+                "dropped" to dropped
+            ))
+            val issued = (WARM_UP_ROUNDS + MEASURE_ROUNDS).toLong() * threads * OPS_PER_THREAD
+            // 写入的日志包括丢弃统计的提示行
+            assertTrue(appender.count.get() - writtenBefore + dropped >= issued)
+        }
+    }
+
+    private fun measure(threads: Int, op: () -> Unit): Double {
+        repeat(WARM_UP_ROUNDS) { runRound(threads, op) }
+        var total = 0L
+        repeat(MEASURE_ROUNDS) { total += runRound(threads, op) }
+        return total.toDouble() / (MEASURE_ROUNDS.toLong() * threads * OPS_PER_THREAD)
+    }
+
+    private fun runRound(threads: Int, op: () -> Unit): Long {
+        val start = CountDownLatch(1)
+        val done = CountDownLatch(threads)
+        val elapsed = AtomicLong()
+        repeat(threads) {
+            Thread {
+                start.await()
+                val begin = System.nanoTime()
+                repeat(OPS_PER_THREAD) { op() }
+                elapsed.addAndGet(System.nanoTime() - begin)
+                done.countDown()
+            }.start()
+        }
+        start.countDown()
+        done.await()
+        return elapsed.get()
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import org.junit.AfterClass
+import org.junit.Test
+
+/**
+ * 指标：直方图记录和计数器累加的单次开销
+ */
+class MetricsBenchmark {
+
+    companion object {
+        private const val OPS_PER_ROUND = 1_000_000
+        private val runner = BenchmarkRunner("metrics")
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+    }
+
+    private val registry = MetricsRegistry()
+
+    @Test
+    fun histogramRecord() {
+        val histogram = registry.histogram("benchmark.histogram")
+        runner.run("histogramRecord", opsPerRound = OPS_PER_ROUND) { i ->
+            histogram.record(i.toLong() * 1_000)
+        }
+    }
+
+    @Test
+    fun counterIncrement() {
+        val counter = registry.counter("benchmark.counter")
+        runner.run("counterIncrement", opsPerRound = OPS_PER_ROUND) {
+            counter.increment()
+        }
+    }
+}
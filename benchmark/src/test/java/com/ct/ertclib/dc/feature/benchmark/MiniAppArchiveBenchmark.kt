@@ -0,0 +1,92 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.miniapp.archive.MiniAppArchive
+import org.junit.AfterClass
+import org.junit.ClassRule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+import kotlin.random.Random
+
+/**
+ * 小程序包：整包解压与直接打开包读取首页的耗时对比，包内400个32KB的资源
+ */
+class MiniAppArchiveBenchmark {
+
+    companion object {
+        private const val INDEX = "<html><body>hello</body></html>"
+        private const val ASSET_COUNT = 400
+        private const val ASSET_SIZE = 32 * 1024
+        private val PARAMS = mapOf("assets" to ASSET_COUNT, "assetSize" to ASSET_SIZE)
+        private val runner = BenchmarkRunner("miniAppArchive")
+
+        @JvmField
+        @ClassRule
+        val folder = TemporaryFolder()
+
+        private val zip: File by lazy { writePackage() }
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+
+        private fun writePackage(): File {
+            val random = Random(7)
+            val file = folder.newFile("package.zip")
+            ZipOutputStream(file.outputStream()).use { out ->
+                out.putNextEntry(ZipEntry("index.html"))
+                out.write(INDEX.toByteArray())
+                out.closeEntry()
+                repeat(ASSET_COUNT) {
+                    out.putNextEntry(ZipEntry("assets/$it.bin"))
+                    out.write(random.nextBytes(ASSET_SIZE))
+                    out.closeEntry()
+                }
+            }
+            return file
+        }
+    }
+
+    @Test
+    fun extractAll() {
+        val target = folder.newFolder("unzipped")
+        runner.run("extractAll", opsPerRound = 1, params = PARAMS) {
+            ZipFile(zip).use { zipFile ->
+                zipFile.entries().asSequence().forEach { entry ->
+                    val out = File(target, entry.name)
+                    out.parentFile?.mkdirs()
+                    zipFile.getInputStream(entry).use { input -> out.outputStream().use { input.copyTo(it) } }
+                }
+            }
+        }
+    }
+
+    @Test
+    fun firstPageFromArchive() {
+        runner.run("firstPageFromArchive", opsPerRound = 1, params = PARAMS) {
+            MiniAppArchive(zip, "demo").use { it.open("index.html")!!.stream.use { stream -> stream.readBytes() } }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.miniapp.store.MiniAppBlobStore
+import org.junit.AfterClass
+import org.junit.Assert.assertTrue
+import org.junit.ClassRule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+import kotlin.random.Random
+
+/**
+ * 4个小程序各3个版本，共用一套框架文件，每次更新改动约10%的文件：
+ * 整包解压与内容寻址存储的磁盘占用、全部安装和仅更新安装的耗时。
+ */
+class MiniAppBlobStoreBenchmark {
+
+    companion object {
+        private const val APP_COUNT = 4
+        private const val VERSION_COUNT = 3
+        private const val FRAMEWORK_FILES = 40
+        private const val APP_FILES = 20
+        private const val FILE_SIZE = 16 * 1024
+        private const val WARM_UP_ROUNDS = 2
+        private const val MEASURE_ROUNDS = 3
+        private val PARAMS = mapOf("apps" to APP_COUNT, "versions" to VERSION_COUNT, "fileSize" to FILE_SIZE)
+        private val runner = BenchmarkRunner("miniAppBlobStore")
+
+        @JvmField
+        @ClassRule
+        val folder = TemporaryFolder()
+
+        private val packages: List<Package> by lazy { writePackages() }
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+
+        private fun writePackages(): List<Package> {
+            val random = Random(42)
+            // 所有小程序共用的框架文件
+            val framework = (0 until FRAMEWORK_FILES).associate { "lib/framework$it.js" to random.nextBytes(FILE_SIZE) }
+            return (0 until APP_COUNT).flatMap { app ->
+                var files: Map<String, ByteArray> = HashMap(framework).apply {
+                    put("index.html", "<html>$app</html>".toByteArray())
+                    repeat(APP_FILES) { put("app/$app-$it.png", random.nextBytes(FILE_SIZE)) }
+                }
+                (0 until VERSION_COUNT).map { version ->
+                    if (version > 0) {
+                        files = HashMap(files).apply {
+                            keys.filter { it.startsWith("app/") }.take(APP_FILES / 10 * 2).forEach { put(it, random.nextBytes(FILE_SIZE)) }
+                        }
+                    }
+                    Package("app$app", "$version", writeZip("app$app-$version", files))
+                }
+            }
+        }
+
+        private fun writeZip(name: String, files: Map<String, ByteArray>): File {
+            val file = folder.newFile("$name.zip")
+            ZipOutputStream(file.outputStream()).use { out ->
+                files.forEach { (path, bytes) ->
+                    out.putNextEntry(ZipEntry(path))
+                    out.write(bytes)
+                    out.closeEntry()
+                }
+            }
+            return file
+        }
+
+        private fun extract(zip: File, target: File): Long {
+            var bytes = 0L
+            ZipFile(zip).use { zipFile ->
+                zipFile.entries().asSequence().forEach { entry ->
+                    val out = File(target, entry.name)
+                    out.parentFile?.mkdirs()
+                    zipFile.getInputStream(entry).use { input -> out.outputStream().use { bytes += input.copyTo(it) } }
+                }
+            }
+            return bytes
+        }
+    }
+
+    private class Package(val appId: String, val version: String, val zip: File)
+
+    @Test
+    fun footprint() {
+        val extractRoot = folder.newFolder("footprint-extract")
+        val extractBytes = packages.sumOf { extract(it.zip, File(extractRoot, "${it.appId}/${it.version}")) }
+        val root = folder.newFolder("footprint-store")
+        val store = MiniAppBlobStore(File(root, "objects"), File(root, "miniApps"))
+        var written = 0
+        var reused = 0
+        packages.forEach {
+            val result = store.install(it.zip, File(root, "miniApps/${it.appId}/${it.version}"))
+            written += result.writtenBlobs
+            reused += result.reusedBlobs
+        }
+        val storeBytes = store.footprintBytes()
+        val packageBytes = packages.sumOf { it.zip.length() }
+        runner.addReport("footprint", linkedMapOf(
+            "extractBytes" to extractBytes,
+            "packageBytes" to packageBytes,
+            "blobStoreBytes" to storeBytes,
+            "writtenBlobs" to written,
+            "reusedBlobs" to reused
+        ))
+        assertTrue(storeBytes * 3 < extractBytes)
+    }
+
+    @Test
+    fun installAll() {
+        runner.run("extractAll", opsPerRound = 1, params = PARAMS, warmUpRounds = WARM_UP_ROUNDS, measureRounds = MEASURE_ROUNDS) {
+            val root = folder.newFolder()
+            packages.sumOf { extract(it.zip, File(root, "${it.appId}/${it.version}")) }
+        }
+        runner.run("blobStoreAll", opsPerRound = 1, params = PARAMS, warmUpRounds = WARM_UP_ROUNDS, measureRounds = MEASURE_ROUNDS) {
+            val root = folder.newFolder()
+            val store = MiniAppBlobStore(File(root, "objects"), File(root, "miniApps"))
+            packages.forEach { store.install(it.zip, File(root, "miniApps/${it.appId}/${it.version}")) }
+            store
+        }
+    }
+
+    @Test
+    fun installUpdate() {
+        // 每个小程序已装有前面的版本，只计最后一个版本的安装
+        val updates = packages.filter { it.version == "${VERSION_COUNT - 1}" }
+        val previous = packages - updates.toSet()
+        runner.run("extractUpdate", opsPerRound = 1, params = PARAMS, warmUpRounds = WARM_UP_ROUNDS, measureRounds = MEASURE_ROUNDS) {
+            val root = folder.newFolder()
+            updates.sumOf { extract(it.zip, File(root, "${it.appId}/${it.version}")) }
+        }
+        // 存储在进程内是单例，引用计数在装前面的版本时已经重建
+        val stores = ArrayDeque<Pair<File, MiniAppBlobStore>>()
+        repeat(WARM_UP_ROUNDS + MEASURE_ROUNDS) {
+            val root = folder.newFolder()
+            val store = MiniAppBlobStore(File(root, "objects"), File(root, "miniApps"))
+            previous.forEach { store.install(it.zip, File(root, "miniApps/${it.appId}/${it.version}")) }
+            stores.addLast(root to store)
+        }
+        runner.run("blobStoreUpdate", opsPerRound = 1, params = PARAMS, warmUpRounds = WARM_UP_ROUNDS, measureRounds = MEASURE_ROUNDS) {
+            val (root, store) = stores.removeFirst()
+            updates.forEach { store.install(it.zip, File(root, "miniApps/${it.appId}/${it.version}")) }
+            store
+        }
+    }
+}
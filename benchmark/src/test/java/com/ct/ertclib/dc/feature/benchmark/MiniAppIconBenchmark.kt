@@ -0,0 +1,144 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.manager.common.MiniAppIconStore
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.ClassRule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.awt.image.BufferedImage
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.util.Base64
+import java.util.Random
+import javax.imageio.ImageIO
+
+/**
+ * 200个小程序的列表：图标内嵌base64与存为文件后，MiniAppInfo的Parcel大小、数据库行大小，以及每次启动的解码开销。
+ * JVM上没有可用的Parcel和BitmapFactory，Parcel大小按writeString的UTF-16编码计算，解码用ImageIO代替。
+ */
+class MiniAppIconBenchmark {
+
+    companion object {
+        private const val APP_COUNT = 200
+        private const val ICON_SIZE = 96
+        // 最近启动过的小程序个数
+        private const val RECENT_APPS = 20
+        private val PARAMS = mapOf("apps" to APP_COUNT, "iconSize" to ICON_SIZE)
+        private val runner = BenchmarkRunner("miniAppIcon")
+
+        @JvmField
+        @ClassRule
+        val folder = TemporaryFolder()
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+
+        /**
+         * Parcel.writeString：4字节长度，UTF-16内容加结束符，按4字节对齐
+         */
+        private fun parcelStringBytes(value: String?): Long {
+            if (value == null) {
+                return 4
+            }
+            return 4 + ((value.length + 1) * 2 + 3) / 4 * 4L
+        }
+    }
+
+    private object ImageDecoder : MiniAppIconStore.Decoder<BufferedImage> {
+        override fun decode(file: File): BufferedImage? = ImageIO.read(file)
+
+        override fun sizeOf(icon: BufferedImage): Int = icon.width * icon.height * 4
+    }
+
+    private val icons = Array(APP_COUNT) { createIcon(it) }
+
+    private fun createIcon(index: Int): String {
+        val random = Random(index.toLong())
+        val image = BufferedImage(ICON_SIZE, ICON_SIZE, BufferedImage.TYPE_INT_ARGB)
+        for (y in 0 until ICON_SIZE) {
+            for (x in 0 until ICON_SIZE) {
+                // 渐变加少量噪声，压缩率接近真实图标
+                val noise = random.nextInt(16)
+                image.setRGB(x, y, (0xff shl 24) or ((x * 2 + index + noise) and 0xff shl 16) or ((y * 2 + noise) and 0xff shl 8) or (index * 7 and 0xff))
+            }
+        }
+        val out = ByteArrayOutputStream()
+        ImageIO.write(image, "png", out)
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(out.toByteArray())
+    }
+
+    @Test
+    fun iconStore() {
+        val store = MiniAppIconStore(folder.newFolder("icons"), ImageDecoder)
+        var refs = emptyArray<String>()
+        runner.run("internOnReceipt", opsPerRound = 1, params = PARAMS, warmUpRounds = 0, measureRounds = 1) {
+            refs = Array(APP_COUNT) { store.intern("app$it", icons[it])!! }
+        }
+        runner.run("internRepeat", opsPerRound = APP_COUNT, params = PARAMS) { store.intern("app$it", icons[it]) }
+
+        val uncached = MiniAppIconStore(folder.root.resolve("icons"), ImageDecoder, maxCacheBytes = 0)
+        runner.run("launchUncached", opsPerRound = APP_COUNT, params = PARAMS) { uncached.getIcon("app$it", refs[it]) }
+        runner.run("launchCached", opsPerRound = APP_COUNT, params = PARAMS) {
+            val index = it % RECENT_APPS
+            store.getIcon("app$index", refs[index])
+        }
+
+        var inlineParcel = 0L
+        var refParcel = 0L
+        var inlineRow = 0L
+        var refRow = 0L
+        for (i in 0 until APP_COUNT) {
+            inlineParcel += parcelStringBytes(icons[i])
+            refParcel += parcelStringBytes(refs[i])
+            inlineRow += icons[i].toByteArray().size
+            refRow += refs[i].toByteArray().size
+        }
+        runner.addReport("appIconField", linkedMapOf(
+            "apps" to APP_COUNT,
+            "inlineParcelBytes" to inlineParcel,
+            "referenceParcelBytes" to refParcel,
+            "inlineDbRowBytes" to inlineRow,
+            "referenceDbRowBytes" to refRow,
+            "cachedLaunchDecodes" to store.decodeCount,
+            "cachedLaunchHits" to store.hitCount
+        ))
+        println("[miniAppIcon] appIcon field for $APP_COUNT apps, parcel: $inlineParcel -> $refParcel bytes, db rows: $inlineRow -> $refRow bytes, " +
+                "decodes for ${store.hitCount + store.decodeCount} launches of $RECENT_APPS recent apps: ${store.decodeCount}")
+        assertEquals(RECENT_APPS, store.decodeCount)
+        assertTrue(refParcel * 10 < inlineParcel)
+    }
+
+    @Test
+    fun legacyInlineIcon() {
+        // 旧版每次启动都要base64解码再解码图片
+        runner.run("legacyLaunch", opsPerRound = APP_COUNT, params = PARAMS) {
+            val icon = icons[it]
+            val bytes = Base64.getDecoder().decode(icon.substring(icon.indexOf("base64,") + "base64,".length))
+            ImageIO.read(ByteArrayInputStream(bytes))
+        }
+    }
+}
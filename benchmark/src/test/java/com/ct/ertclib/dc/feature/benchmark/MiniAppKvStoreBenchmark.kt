@@ -0,0 +1,130 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.manager.common.MiniAppKvStore
+import com.ct.ertclib.dc.core.manager.common.SPManager
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.ClassRule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+/**
+ * 小程序键值存储：10万个带有效期的key下put、get、过期清理的单次开销，
+ * 与旧版SPManager把有效期索引拼在一个SP字符串里的做法对比（旧版不含SP重写XML文件的开销，是下限）
+ */
+class MiniAppKvStoreBenchmark {
+
+    companion object {
+        private const val APP_ID = "app"
+        private const val KEY_COUNT = 100_000
+        private const val VALUE = "value-0123456789"
+        private const val TTL_MILLIS = 24L * 3600 * 1000
+        private val PARAMS = mapOf("keys" to KEY_COUNT)
+        private val runner = BenchmarkRunner("miniAppKvStore")
+
+        @JvmField
+        @ClassRule
+        val folder = TemporaryFolder()
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+    }
+
+    /**
+     * 旧版SPManager的有效期索引，SP本身用HashMap代替
+     */
+    private class LegacyExpiryIndex {
+        val values = HashMap<String, String>()
+        var index = ""
+
+        fun put(key: String, value: String, expiryTime: Long) {
+            values[key] = value
+            val builder = StringBuilder(index)
+            if (builder.isNotEmpty()) {
+                builder.append(SPManager.MINI_APP_SP_EXPIRY_ITEM_SPLIT_KEY)
+            }
+            builder.append("$key${SPManager.MINI_APP_SP_EXPIRY_SPLIT_KEY}$expiryTime")
+            index = builder.toString()
+        }
+
+        fun clearExpired(now: Long): Int {
+            var removed = 0
+            val builder = StringBuilder()
+            index.split(SPManager.MINI_APP_SP_EXPIRY_ITEM_SPLIT_KEY).forEach { item ->
+                val parts = item.split(SPManager.MINI_APP_SP_EXPIRY_SPLIT_KEY)
+                if (now < parts[1].toLong()) {
+                    if (builder.isNotEmpty()) {
+                        builder.append(SPManager.MINI_APP_SP_EXPIRY_ITEM_SPLIT_KEY)
+                    }
+                    builder.append(item)
+                } else {
+                    values.remove(parts[0])
+                    removed++
+                }
+            }
+            index = builder.toString()
+            return removed
+        }
+    }
+
+    private val keys = Array(KEY_COUNT) { "key$it" }
+
+    @Test
+    fun kvStore() {
+        var now = 1_000_000L
+        val store = MiniAppKvStore(folder.newFolder("kv"), quotaBytes = Long.MAX_VALUE, clock = { now })
+        repeat(KEY_COUNT) { store.put(APP_ID, keys[it], VALUE, TTL_MILLIS) }
+        store.flush()
+
+        runner.run("put", opsPerRound = KEY_COUNT, params = PARAMS) { store.put(APP_ID, keys[it], VALUE, TTL_MILLIS) }
+        store.flush()
+        runner.run("get", opsPerRound = KEY_COUNT, params = PARAMS) { store.get(APP_ID, keys[it]) }
+        // 每次操作写入一个马上过期的key再清理，其余10万个key不受影响
+        runner.run("expire", opsPerRound = KEY_COUNT, params = PARAMS) {
+            store.put(APP_ID, "short", VALUE, 1)
+            now += 1
+            store.purgeExpired(APP_ID)
+        }
+        store.flush()
+        assertNull(store.get(APP_ID, "short"))
+        assertEquals(VALUE, store.get(APP_ID, keys[KEY_COUNT - 1]))
+
+        val reloaded = MiniAppKvStore(folder.root.resolve("kv"), quotaBytes = Long.MAX_VALUE, clock = { now })
+        runner.run("load", opsPerRound = 1, params = PARAMS, warmUpRounds = 0, measureRounds = 1) { reloaded.get(APP_ID, keys[0]) }
+    }
+
+    @Test
+    fun legacyExpiryIndex() {
+        val now = 1_000_000L
+        val legacy = LegacyExpiryIndex()
+        // 逐个put预填是O(n^2)，直接拼出同样的索引
+        keys.forEach { legacy.values[it] = VALUE }
+        legacy.index = keys.joinToString(SPManager.MINI_APP_SP_EXPIRY_ITEM_SPLIT_KEY) { "$it${SPManager.MINI_APP_SP_EXPIRY_SPLIT_KEY}${now + TTL_MILLIS}" }
+
+        runner.run("legacyPut", opsPerRound = 20, params = PARAMS) { legacy.put(keys[it], VALUE, now + TTL_MILLIS) }
+        runner.run("legacyGet", opsPerRound = KEY_COUNT, params = PARAMS) { legacy.values[keys[it]] }
+        // 旧版只能在启动时扫描整个索引
+        runner.run("legacyExpire", opsPerRound = 1, params = PARAMS) { legacy.clearExpired(now) }
+    }
+}
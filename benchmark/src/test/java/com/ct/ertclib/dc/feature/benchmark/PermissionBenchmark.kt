@@ -0,0 +1,123 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppPermissions
+import com.ct.ertclib.dc.core.data.model.PermissionGrantEntity
+import com.ct.ertclib.dc.core.data.model.PermissionUsageEntity
+import com.ct.ertclib.dc.core.manager.common.PermissionUsageRecorder
+import com.ct.ertclib.dc.core.port.miniapp.IPermissionDbRepo
+import com.ct.ertclib.dc.core.usecase.common.MiniAppPermissionCache
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.emptyFlow
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * 小程序权限：100个小程序的权限缓存下，每次JS调用前权限校验的开销，以及使用记录逐条落库与批量写入的对比
+ */
+class PermissionBenchmark {
+
+    companion object {
+        private const val APP_COUNT = 100
+        private const val CHECKS_PER_ROUND = 1_000_000
+        // 30Hz持续2分钟
+        private const val USAGE_CALLS = 30 * 60 * 2
+        private const val TRANSACTION_COST_NANOS = 20_000L
+        private const val USAGE_PERMISSION = "android.permission.READ_PHONE_STATE"
+        private val PARAMS = mapOf("apps" to APP_COUNT)
+        private val runner = BenchmarkRunner("permission")
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+    }
+
+    /**
+     * 内存实现的数据库，每个事务模拟固定的SQLite写入耗时
+     */
+    private class FakePermissionDbRepo : IPermissionDbRepo {
+        var rowCount = 0L
+        var transactionCount = 0
+
+        override fun insertPermissionUsages(permissionUsages: List<PermissionUsageEntity>) {
+            synchronized(this) {
+                transactionCount++
+                val end = System.nanoTime() + TRANSACTION_COST_NANOS
+                while (System.nanoTime() < end) {
+                    // 模拟事务耗时
+                }
+                rowCount += permissionUsages.sumOf { it.usageCount }
+            }
+        }
+
+        override fun savePermissions(appId: String, permissionMap: Map<String, Boolean>) {}
+
+        override fun getAll(): Flow<List<PermissionGrantEntity>> = emptyFlow()
+
+        override fun getPermissionsById(appId: String): Map<String, Boolean> = emptyMap()
+
+        override fun getPermissionUsageCount(appId: String, permissionName: String, timeStamp: Long): Long = rowCount
+
+        override fun getPermissionUsageById(appId: String): MutableList<PermissionUsageEntity> = mutableListOf()
+
+        override fun getPermissionUsageByIdWithInTime(appId: String, timeStamp: Long): MutableList<PermissionUsageEntity> = mutableListOf()
+    }
+
+    private val appIds = Array(APP_COUNT) { "app$it" }
+
+    @Test
+    fun permissionCheck() {
+        val cache = MiniAppPermissionCache()
+        appIds.forEachIndexed { index, appId ->
+            cache.put(appId, mapOf(MiniAppPermissions.MINIAPP_GET_CALL_STATE to true, MiniAppPermissions.MINIAPP_EXTERNAL_STORAGE to (index % 2 == 0)))
+        }
+        val permissions = listOf(MiniAppPermissions.MINIAPP_GET_CALL_STATE, MiniAppPermissions.MINIAPP_EXTERNAL_STORAGE)
+        var granted = 0
+        runner.run("check", opsPerRound = CHECKS_PER_ROUND, params = PARAMS) {
+            if (cache.isAllGranted(appIds[it % APP_COUNT], permissions) == true) granted++
+        }
+        assertEquals(0, granted % (CHECKS_PER_ROUND / 2))
+    }
+
+    @Test
+    fun usageRecord() {
+        val params = mapOf("calls" to USAGE_CALLS, "transactionNanos" to TRANSACTION_COST_NANOS)
+        val directRepo = FakePermissionDbRepo()
+        runner.run("usageDirectInsert", opsPerRound = USAGE_CALLS, params = params, measureRounds = 3) {
+            directRepo.insertPermissionUsages(listOf(PermissionUsageEntity(appIds[0], USAGE_PERMISSION, it.toLong())))
+        }
+        val batchedRepo = FakePermissionDbRepo()
+        var now = 0L
+        val recorder = PermissionUsageRecorder(batchedRepo, clock = { now })
+        runner.run("usageRecorder", opsPerRound = USAGE_CALLS, params = params, measureRounds = 3) {
+            recorder.record(appIds[0], USAGE_PERMISSION)
+            now += 1000L / 30
+        }
+        recorder.flushBlocking()
+        runner.addReport("usageTransactions", linkedMapOf(
+            "directInsert" to directRepo.transactionCount,
+            "recorder" to batchedRepo.transactionCount
+        ))
+        assertTrue(batchedRepo.transactionCount * 10 < directRepo.transactionCount)
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.utils.screenshare.FrameDiffEncoder
+import com.ct.ertclib.dc.core.utils.screenshare.FramePatchDecoder
+import org.junit.AfterClass
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+
+/**
+ * 屏幕共享帧差分：合成帧序列上补丁字节数、编码与应用耗时，与每帧整帧压缩对比
+ *
+ * 背景是色块加细密纹理的界面，场景分为静止（光标闪烁）、列表滚动、局部视频和全屏运动，帧序列循环播放
+ */
+class ScreenFrameDiffBenchmark {
+
+    companion object {
+        private const val WIDTH = 720
+        private const val HEIGHT = 1280
+        private const val SEQUENCE_FRAMES = 8
+
+        private val runner = BenchmarkRunner("screenFrameDiff")
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+
+        private fun background(random: Random): IntArray {
+            val frame = IntArray(WIDTH * HEIGHT)
+            for (y in 0 until HEIGHT) {
+                val band = (y / 96) % 4
+                for (x in 0 until WIDTH) {
+                    // 模拟文字的细纹理
+                    val text = if (y % 96 in 30..60 && x in 40..600 && (x * 7 + y * 3) % 11 < 4) 0xFF202020.toInt() else 0
+                    frame[y * WIDTH + x] = if (text != 0) text else 0xFFF0F0F0.toInt() - band * 0x101010
+                }
+            }
+            repeat(20) { fillRect(frame, random.nextInt(WIDTH), random.nextInt(HEIGHT), 40 + random.nextInt(120), random.nextInt() or 0xFF000000.toInt()) }
+            return frame
+        }
+
+        private fun fillRect(frame: IntArray, left: Int, top: Int, size: Int, color: Int) {
+            for (y in top until minOf(top + size, HEIGHT)) {
+                frame.fill(color, y * WIDTH + left, y * WIDTH + minOf(left + size, WIDTH))
+            }
+        }
+
+        private fun sequence(scenario: String, seed: Long): List<IntArray> {
+            val random = Random(seed)
+            val base = background(random)
+            return List(SEQUENCE_FRAMES) { index ->
+                val frame = base.copyOf()
+                when (scenario) {
+                    "static" -> if (index % 2 == 0) fillRect(frame, 300, 700, 3, 0xFF000000.toInt())
+                    "scroll" -> {
+                        // 中间600行的列表每帧上移24行
+                        val top = 300
+                        val shift = (index * 24) % 600
+                        for (y in 0 until 600) {
+                            System.arraycopy(base, (top + (y + shift) % 600) * WIDTH, frame, (top + y) * WIDTH, WIDTH)
+                        }
+                    }
+                    "video" -> for (y in 400 until 720) {
+                        for (x in 120 until 600) {
+                            frame[y * WIDTH + x] = random.nextInt() or 0xFF000000.toInt()
+                        }
+                    }
+                    else -> for (i in frame.indices) {
+                        frame[i] = frame[i] xor (random.nextInt(16) * 0x010101)
+                    }
+                }
+                frame
+            }
+        }
+    }
+
+    @Test
+    fun bytesAndLatency() {
+        for (scenario in listOf("static", "scroll", "video", "fullMotion")) {
+            val frames = sequence(scenario, 20250601L)
+            // 每帧都是关键帧，即不做差分的整帧压缩
+            val fullEncoder = FrameDiffEncoder(WIDTH, HEIGHT, keyframeInterval = 0)
+            val diffEncoder = FrameDiffEncoder(WIDTH, HEIGHT)
+            val decoder = FramePatchDecoder()
+            var fullBytes = 0L
+            var diffBytes = 0L
+            var emitted = 0
+            // 第一轮包含关键帧，从第二轮开始统计
+            repeat(2) { round ->
+                for (frame in frames) {
+                    val full = fullEncoder.encode(frame)
+                    val patch = diffEncoder.encode(frame)
+                    if (patch != null) {
+                        assertTrue(decoder.apply(patch))
+                        assertArrayEquals(frame, decoder.frame)
+                    }
+                    if (round == 1) {
+                        fullBytes += full?.size ?: 0
+                        diffBytes += patch?.size ?: 0
+                        if (patch != null) {
+                            emitted++
+                        }
+                    }
+                }
+            }
+            val report = linkedMapOf<String, Any>(
+                "frames" to frames.size,
+                "emittedPatches" to emitted,
+                "fullFrameBytesPerFrame" to fullBytes.toDouble() / frames.size,
+                "diffBytesPerFrame" to diffBytes.toDouble() / frames.size
+            )
+            println("[screenFrameDiff] $scenario $report")
+            runner.addReport(scenario, report)
+            assertTrue(diffBytes <= fullBytes)
+
+            val params = mapOf("scenario" to scenario, "width" to WIDTH, "height" to HEIGHT)
+            runner.run("encode_$scenario", frames.size, params, measureRounds = 3) { diffEncoder.encode(frames[it]) }
+            // 以关键帧开头的补丁链，每轮从关键帧重新应用
+            diffEncoder.requestKeyframe()
+            val chain = frames.mapNotNull { diffEncoder.encode(it) }
+            runner.run("apply_$scenario", chain.size, params, measureRounds = 3) { decoder.apply(chain[it]) }
+        }
+    }
+}
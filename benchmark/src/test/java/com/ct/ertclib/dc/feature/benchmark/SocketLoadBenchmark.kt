@@ -0,0 +1,84 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * 按参数组运行[SocketLoadGenerator]
+ *
+ * 默认跑几组典型配置；指定了-PsocketLoad.peers=8 -PsocketLoad.size=16384等参数时只跑这一组，
+ * 未指定的项取[SocketLoadGenerator.Config]的默认值
+ */
+@RunWith(Parameterized::class)
+class SocketLoadBenchmark(private val config: SocketLoadGenerator.Config) {
+
+    companion object {
+        private const val PROPERTY_PREFIX = "socketLoad."
+        private val runner = BenchmarkRunner("socketLoad")
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "{0}")
+        fun configs(): List<SocketLoadGenerator.Config> {
+            val overridden = System.getProperties().stringPropertyNames().any { it.startsWith(PROPERTY_PREFIX) }
+            if (overridden) {
+                val defaults = SocketLoadGenerator.Config()
+                return listOf(
+                    SocketLoadGenerator.Config(
+                        peers = intProperty("peers", defaults.peers),
+                        labelsPerPeer = intProperty("labels", defaults.labelsPerPeer),
+                        messagesPerPeer = intProperty("messages", defaults.messagesPerPeer),
+                        messageBytes = intProperty("size", defaults.messageBytes),
+                        window = intProperty("window", defaults.window)
+                    )
+                )
+            }
+            return listOf(
+                SocketLoadGenerator.Config(),
+                SocketLoadGenerator.Config(messagesPerPeer = 5_000, messageBytes = 16 * 1024),
+                SocketLoadGenerator.Config(peers = 8, labelsPerPeer = 1, window = 16)
+            )
+        }
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+
+        private fun intProperty(name: String, default: Int): Int {
+            return System.getProperty("$PROPERTY_PREFIX$name")?.toIntOrNull() ?: default
+        }
+    }
+
+    @Test
+    fun echoOverLocalhost() {
+        // 预热一次
+        SocketLoadGenerator.run(config.copy(messagesPerPeer = minOf(config.messagesPerPeer, 5000)))
+        val report = SocketLoadGenerator.run(config)
+        println("[socketLoad] $report")
+        assertEquals(config.peers.toLong() * config.messagesPerPeer, report.messages)
+        runner.addReport(
+            "echoOverLocalhost[peers=${config.peers},labels=${config.labelsPerPeer},size=${config.messageBytes},window=${config.window}]",
+            report
+        )
+    }
+}
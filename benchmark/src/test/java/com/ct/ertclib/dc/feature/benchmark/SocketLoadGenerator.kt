@@ -0,0 +1,136 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import com.ct.ertclib.dc.feature.testing.socket.DCFrame
+import com.ct.ertclib.dc.feature.testing.socket.NioSocketTransport
+import java.nio.ByteBuffer
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * 测试桥接传输的本机压测工具
+ *
+ * 回显服务端和若干客户端连接跑在localhost上，每个连接按label复用，发送线程以固定窗口保持在途消息数，
+ * 统计回显的消息速率和往返时延分位数。由[SocketLoadBenchmark]按参数组运行。
+ */
+object SocketLoadGenerator {
+
+    data class Config(
+        val peers: Int = 4,
+        val labelsPerPeer: Int = 4,
+        val messagesPerPeer: Int = 20_000,
+        val messageBytes: Int = 1024,
+        val window: Int = 64
+    ) {
+        init {
+            require(peers > 0 && labelsPerPeer > 0 && messagesPerPeer > 0 && window > 0)
+            require(messageBytes >= Long.SIZE_BYTES) { "messageBytes must hold a timestamp" }
+        }
+    }
+
+    data class Report(
+        val config: Config,
+        val messages: Long,
+        val elapsedMillis: Double,
+        val messagesPerSecond: Double,
+        val mbPerSecond: Double,
+        val p50Micros: Double,
+        val p90Micros: Double,
+        val p99Micros: Double,
+        val maxMicros: Double,
+        val backpressureWaits: Long
+    ) {
+        override fun toString(): String = String.format(
+            Locale.US,
+            "%d msgs in %.1f ms: %.0f msg/s, %.2f MB/s, rtt p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus, backpressure waits=%d",
+            messages, elapsedMillis, messagesPerSecond, mbPerSecond, p50Micros, p90Micros, p99Micros, maxMicros, backpressureWaits
+        )
+    }
+
+    fun run(config: Config): Report {
+        val registry = MetricsRegistry()
+        val rtt = registry.histogram("socket.rtt")
+        val total = config.peers.toLong() * config.messagesPerPeer
+        val done = CountDownLatch(config.peers * config.messagesPerPeer)
+        val windows = ConcurrentHashMap<NioSocketTransport.Connection, Semaphore>()
+        val backpressureWaits = AtomicLong()
+
+        // 回显端的积压上限覆盖所有在途消息，不会因背压丢弃回显
+        val serverWatermark = config.peers.toLong() * config.window * (config.messageBytes + 64) * 2
+        val server = NioSocketTransport(object : NioSocketTransport.Listener {
+            override fun onFrame(connection: NioSocketTransport.Connection, frame: DCFrame) {
+                check(connection.send(frame.type, frame.label, frame.payload)) { "echo backlog overflow" }
+            }
+        }, highWatermark = maxOf(serverWatermark, NioSocketTransport.DEFAULT_HIGH_WATERMARK), threadName = "LoadServer")
+        val client = NioSocketTransport(object : NioSocketTransport.Listener {
+            override fun onFrame(connection: NioSocketTransport.Connection, frame: DCFrame) {
+                rtt.recordSince(ByteBuffer.wrap(frame.payload).getLong(0))
+                windows[connection]?.release()
+                done.countDown()
+            }
+        }, threadName = "LoadClient")
+        try {
+            val port = server.listen(0, "127.0.0.1")
+            val connections = List(config.peers) { client.connect("127.0.0.1", port) }
+            connections.forEach { windows[it] = Semaphore(config.window) }
+            val labels = List(config.labelsPerPeer) { "local_load$it" }
+            val start = System.nanoTime()
+            val senders = connections.map { connection ->
+                Thread {
+                    val window = windows.getValue(connection)
+                    val payload = ByteArray(config.messageBytes)
+                    val buffer = ByteBuffer.wrap(payload)
+                    for (i in 0 until config.messagesPerPeer) {
+                        window.acquire()
+                        buffer.putLong(0, rtt.start())
+                        while (!connection.send(DCFrame.TYPE_DATA, labels[i % labels.size], payload)) {
+                            backpressureWaits.incrementAndGet()
+                            LockSupport.parkNanos(50_000)
+                        }
+                    }
+                }.apply { start() }
+            }
+            senders.forEach { it.join() }
+            check(done.await(60, TimeUnit.SECONDS)) { "timeout, ${done.count} echoes missing" }
+            val elapsedNanos = System.nanoTime() - start
+            val snapshot = rtt.snapshot()
+            val seconds = elapsedNanos / 1e9
+            return Report(
+                config = config,
+                messages = total,
+                elapsedMillis = elapsedNanos / 1e6,
+                messagesPerSecond = total / seconds,
+                mbPerSecond = total * config.messageBytes / seconds / (1024.0 * 1024.0),
+                p50Micros = snapshot.p50Nanos / 1e3,
+                p90Micros = snapshot.p90Nanos / 1e3,
+                p99Micros = snapshot.p99Nanos / 1e3,
+                maxMicros = snapshot.maxNanos / 1e3,
+                backpressureWaits = backpressureWaits.get()
+            )
+        } finally {
+            client.close()
+            server.close()
+        }
+    }
+}
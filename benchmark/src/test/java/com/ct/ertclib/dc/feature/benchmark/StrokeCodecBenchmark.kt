@@ -0,0 +1,133 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.benchmark
+
+import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
+import com.ct.ertclib.dc.core.data.screenshare.PointBean
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import com.ct.ertclib.dc.core.utils.sketch.StrokeDecoder
+import com.ct.ertclib.dc.core.utils.sketch.StrokeEncoder
+import org.junit.AfterClass
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Base64
+import java.util.Random
+import kotlin.math.cos
+import kotlin.math.sin
+
+/**
+ * 涂鸦笔画编码：JSON（现有drawingInfo）与stroke-v1的单笔字节数和编解码耗时对比
+ *
+ * 轨迹按触屏采样的特征生成（约120Hz、手写曲率、1像素内的抖动），固定种子，结果可复现
+ */
+class StrokeCodecBenchmark {
+
+    companion object {
+        private const val TRACE_STROKES = 500
+        private const val STREAM_BATCH_POINTS = 8
+        private val COLORS = listOf("#ffff4444", "#ff2196f3", "#ff4caf50", "#ff000000")
+
+        private val runner = BenchmarkRunner("strokeCodec")
+        private val traces = recordTraces(TRACE_STROKES, 20250101L)
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            runner.writeResults()
+        }
+
+        private fun recordTraces(count: Int, seed: Long): List<DrawingInfo> {
+            val random = Random(seed)
+            return List(count) {
+                var x = 100f + random.nextFloat() * 880f
+                var y = 200f + random.nextFloat() * 1600f
+                var heading = random.nextDouble() * Math.PI * 2
+                val speed = 2f + random.nextFloat() * 10f
+                val points = MutableList(40 + random.nextInt(260)) {
+                    heading += (random.nextGaussian() * 0.15)
+                    x += (cos(heading) * speed).toFloat() + (random.nextFloat() - 0.5f)
+                    y += (sin(heading) * speed).toFloat() + (random.nextFloat() - 0.5f)
+                    PointBean(x, y)
+                }
+                DrawingInfo(8f, COLORS[random.nextInt(COLORS.size)], points)
+            }
+        }
+    }
+
+    @Test
+    fun bytesPerStroke() {
+        val totalPoints = traces.sumOf { it.pointList.size }
+        val json = traces.sumOf { JsonUtil.toJson(it).toByteArray().size.toLong() }
+        val report = linkedMapOf<String, Any>(
+            "strokes" to traces.size,
+            "pointsPerStroke" to totalPoints.toDouble() / traces.size,
+            "json" to json.toDouble() / traces.size
+        )
+        for (tolerance in floatArrayOf(0f, 0.5f, 1f)) {
+            val encoder = StrokeEncoder(tolerance = tolerance)
+            var binary = 0L
+            var base64 = 0L
+            for (stroke in traces) {
+                val bytes = encoder.encodeStroke(stroke)
+                binary += bytes.size
+                base64 += Base64.getEncoder().encodeToString(bytes).length
+            }
+            report["binaryTolerance$tolerance"] = binary.toDouble() / traces.size
+            report["base64Tolerance$tolerance"] = base64.toDouble() / traces.size
+        }
+        // 边画边发，每8个点一条消息
+        val streamEncoder = StrokeEncoder(tolerance = 1f)
+        var streamed = 0L
+        for (stroke in traces) {
+            val id = streamEncoder.nextStrokeId()
+            streamed += streamEncoder.begin(id, stroke.width, stroke.color, stroke.pointList[0]).size
+            val rest = stroke.pointList.subList(1, stroke.pointList.size).chunked(STREAM_BATCH_POINTS)
+            rest.dropLast(1).forEach { streamed += streamEncoder.append(id, it).size }
+            streamed += streamEncoder.end(id, rest.lastOrNull() ?: emptyList()).size
+        }
+        report["streamedTolerance1.0"] = streamed.toDouble() / traces.size
+        println("[strokeCodec] $report")
+        assertTrue((report["binaryTolerance0.0"] as Double) * 5 < json / traces.size.toDouble())
+        runner.addReport("bytesPerStroke", report)
+    }
+
+    @Test
+    fun encodeDecode() {
+        val params = mapOf("strokes" to traces.size)
+        runner.run("jsonEncode", traces.size, params) { JsonUtil.toJson(traces[it]) }
+        val jsonStrokes = traces.map { JsonUtil.toJson(it) }
+        runner.run("jsonDecode", traces.size, params) { JsonUtil.fromJson(jsonStrokes[it], DrawingInfo::class.java) }
+
+        // 每轮用新的编码器，调色板首次下发的开销计入
+        var encoder = StrokeEncoder(tolerance = 1f)
+        runner.run("binaryEncode", traces.size, params) {
+            if (it == 0) {
+                encoder = StrokeEncoder(tolerance = 1f)
+            }
+            encoder.encodeStroke(traces[it])
+        }
+        val binaryEncoder = StrokeEncoder(tolerance = 1f)
+        val binaryStrokes = traces.map { binaryEncoder.encodeStroke(it) }
+        var decoder = StrokeDecoder()
+        runner.run("binaryDecode", traces.size, params) {
+            if (it == 0) {
+                decoder = StrokeDecoder()
+            }
+            decoder.decode(binaryStrokes[it])
+        }
+    }
+}
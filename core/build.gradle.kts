@@ -68,7 +68,7 @@ android {
 
 dependencies {
     compileOnly(files("${rootProject.projectDir}\\libs\\ctec-release-1.0.0.aar"))
-    compileOnly(files("${rootProject.projectDir}\\libs\\base-release-1.0.0.aar"))
+    compileOnly(project(":base"))
     implementation(project(":nativelibs"))
     implementation(project(":oemec"))
     api(libs.appcompat)
@@ -101,6 +101,9 @@ dependencies {
     api(libs.androidutils)
 
     testImplementation(libs.junit4)
+    testImplementation(project(":base"))
+    testImplementation(libs.okhttp.mockwebserver)
+    testImplementation(libs.robolectric)
     androidTestImplementation(libs.androidx.test.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation(libs.apache.compress)
@@ -16,20 +16,47 @@
 
 package com.ct.ertclib.dc.core.common
 
+import android.content.Context
+import android.graphics.Bitmap
+import com.ct.ertclib.dc.core.dispatcher.js.DCJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.ECJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.FileJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.MiniAppJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.ScreenShareJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.SystemJsEventDispatcher
+import com.ct.ertclib.dc.core.manager.call.CallForegroundTracker
+import com.ct.ertclib.dc.core.manager.call.ContactsManager
+import com.ct.ertclib.dc.core.manager.call.ContentResolverContactsSource
+import com.ct.ertclib.dc.core.manager.common.AndroidLocationSource
 import com.ct.ertclib.dc.core.manager.common.FileDownloadManager
+import com.ct.ertclib.dc.core.manager.common.MiniAppHttpManager
+import com.ct.ertclib.dc.core.manager.common.BitmapIconDecoder
+import com.ct.ertclib.dc.core.manager.common.MiniAppIconStore
+import com.ct.ertclib.dc.core.manager.common.MiniAppKvStore
+import com.ct.ertclib.dc.core.manager.common.MiniAppLocationService
 import com.ct.ertclib.dc.core.manager.common.ModelManager
+import com.ct.ertclib.dc.core.manager.common.PermissionUsageRecorder
 import com.ct.ertclib.dc.core.manager.context.ActivityManager
 import com.ct.ertclib.dc.core.manager.context.AppServiceManager
 import com.ct.ertclib.dc.core.manager.context.MiniToParentManager
 import com.ct.ertclib.dc.core.manager.screenshare.ScreenShareManager
 import com.ct.ertclib.dc.core.manager.screenshare.SketchManager
+import com.ct.ertclib.dc.core.miniapp.bridge.JsBatchExecutor
+import com.ct.ertclib.dc.core.miniapp.bridge.JsBridgeRouter
 import com.ct.ertclib.dc.core.miniapp.db.PermissionDbRepo
+import com.ct.ertclib.dc.core.miniapp.store.MiniAppBlobStore
 import com.ct.ertclib.dc.core.port.common.IActivityManager
 import com.ct.ertclib.dc.core.port.common.IParentToMiniNotify
 import com.ct.ertclib.dc.core.port.manager.IAppServiceManager
+import com.ct.ertclib.dc.core.port.manager.IContactsManager
 import com.ct.ertclib.dc.core.port.manager.IFileDownloadManager
+import com.ct.ertclib.dc.core.port.manager.IMiniAppHttpManager
+import com.ct.ertclib.dc.core.port.manager.IMiniAppIconStore
+import com.ct.ertclib.dc.core.port.manager.IMiniAppKvStore
+import com.ct.ertclib.dc.core.port.manager.IMiniAppLocationService
 import com.ct.ertclib.dc.core.port.manager.IMiniToParentManager
 import com.ct.ertclib.dc.core.port.manager.IModelManager
+import com.ct.ertclib.dc.core.port.manager.IPermissionUsageRecorder
 import com.ct.ertclib.dc.core.port.manager.IScreenShareManager
 import com.ct.ertclib.dc.core.port.manager.ISketchManager
 import com.ct.ertclib.dc.core.port.miniapp.IPermissionDbRepo
@@ -51,16 +78,41 @@ import com.ct.ertclib.dc.core.usecase.common.PermissionUseCase
 import com.ct.ertclib.dc.core.usecase.miniapp.ECUseCase
 import com.ct.ertclib.dc.core.usecase.miniapp.SystemMiniUseCase
 import com.ct.ertclib.dc.core.usecase.miniapp.ScreenShareMiniUseCase
+import com.ct.ertclib.dc.core.utils.common.UsageStateUtils
 import org.koin.android.ext.koin.androidContext
 import org.koin.dsl.module
+import java.io.File
 
 val coreModule = module {
 
     single<IDCMiniEventUseCase> { DCMiniUseCase(get()) }
     single<IECUseCase> { ECUseCase(get()) }
-
-
-    single<IAppMiniUseCase> { AppMiniUseCase(get(), get()) }
+    single(createdAtStart = true) {
+        JsBridgeRouter(
+            listOf(
+                DCJsEventDispatcher(),
+                MiniAppJsEventDispatcher(),
+                FileJsEventDispatcher(),
+                ScreenShareJsEventDispatcher(),
+                ECJsEventDispatcher(),
+                SystemJsEventDispatcher()
+            )
+        )
+    }
+    single {
+        val permissionUseCase = get<IPermissionUseCase>()
+        val miniToParentManager = get<IMiniToParentManager>()
+        JsBatchExecutor(get(), warmUp = {
+            // 整批调用共用一次权限加载，避免各调用在权限未加载时按未授权处理
+            miniToParentManager.getMiniAppInfo()?.appId?.let { permissionUseCase.getPermission(it) }
+        })
+    }
+
+
+    single<IAppMiniUseCase> { AppMiniUseCase(get(), get(), get(), get(), get()) }
+    single { CallForegroundTracker(UsageStateUtils::queryTopClassName) }
+    single<IContactsManager> { ContactsManager(ContentResolverContactsSource(androidContext())) }
+    single<IMiniAppHttpManager> { MiniAppHttpManager(File(androidContext().cacheDir, "miniapp_http")) }
     single<IScreenShareMiniUseCase> { ScreenShareMiniUseCase(get()) }
     single<IMiniToParentManager> { MiniToParentManager() }
 
@@ -74,16 +126,22 @@ val coreModule = module {
 
     single<ISketchManager> { SketchManager(androidContext(), get()) }
 
-    single<IPermissionUseCase> { PermissionUseCase(androidContext(), get(), get(), get()) }
+    single<IPermissionUseCase> { PermissionUseCase(androidContext(), get(), get(), get(), get()) }
 
     single<IPermissionDbRepo> { PermissionDbRepo() }
 
+    single<IPermissionUsageRecorder> { PermissionUsageRecorder(get()) }
+
     single<IActivityManager> { ActivityManager() }
 
     single<IModelManager> { ModelManager() }
 
-    single<IFileDownloadManager> { FileDownloadManager(androidContext()) }
+    single<IFileDownloadManager> { FileDownloadManager(File(androidContext().filesDir, "download_state")) }
 
     single<ISystemMiniUseCase> { SystemMiniUseCase(get(), get()) }
-    single<IFileMiniEventUseCase> { FileMiniUseCase(get(), get(), get(), get()) }
+    single<IMiniAppKvStore> { MiniAppKvStore(File(androidContext().filesDir, "miniapp_kv")) }
+    single { MiniAppBlobStore(File(androidContext().filesDir, "miniapp_blobs"), androidContext().getDir("miniApps", Context.MODE_PRIVATE)) }
+    single<IMiniAppIconStore<Bitmap>> { MiniAppIconStore(File(androidContext().filesDir, MiniAppIconStore.DEFAULT_DIR), BitmapIconDecoder) }
+    single<IMiniAppLocationService> { MiniAppLocationService(AndroidLocationSource(androidContext())) }
+    single<IFileMiniEventUseCase> { FileMiniUseCase(get(), get(), get(), get(), get(), get()) }
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ package com.ct.ertclib.dc.core.common
 import android.annotation.SuppressLint
 import android.content.Context
 import android.content.Intent
+import android.graphics.Bitmap
 import androidx.lifecycle.MutableLiveData
 import com.blankj.utilcode.util.SPUtils
 import com.ct.ertclib.dc.core.common.sdkpermission.SDKPermissionUtils
@@ -40,11 +41,14 @@ import com.ct.ertclib.dc.core.manager.common.LicenseManager
 import com.ct.ertclib.dc.core.miniapp.MiniAppStartManager
 import com.ct.ertclib.dc.core.miniapp.MiniAppManager
 import com.ct.ertclib.dc.core.miniapp.db.MiniAppDbRepo
+import com.ct.ertclib.dc.core.port.manager.IMiniAppIconStore
 import com.ct.ertclib.dc.core.port.miniapp.IStartAppCallback
 import com.ct.ertclib.dc.core.ui.activity.StyleSettingActivity
 import com.ct.ertclib.dc.core.utils.common.LogUtils
 import com.ct.ertclib.dc.core.utils.common.ScreenUtils
 import com.ct.ertclib.dc.core.utils.extension.startSettingsActivity
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import com.ct.ertclib.dc.core.utils.metrics.MetricsSnapshot
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
@@ -53,10 +57,13 @@ import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.launch
 import org.koin.android.ext.koin.androidContext
+import org.koin.core.component.KoinComponent
+import org.koin.core.component.inject
 import org.koin.core.context.startKoin
+import java.io.PrintWriter
 
 @SuppressLint("StaticFieldLeak")
-object NewCallAppSdkInterface {
+object NewCallAppSdkInterface : KoinComponent {
 
     private const val TAG = "NewCallAppSdkInterface"
     const val PERMISSION_TYPE_BEFORE_CALL = 1
@@ -95,6 +102,9 @@ object NewCallAppSdkInterface {
     val callStateFlow = MutableSharedFlow<Int>()
 
     private var androidContext: Context? = null
+
+    private val iconStore: IMiniAppIconStore<Bitmap> by inject()
+
     var floatPositionX: Int = 0
     var floatPositionY: Int = 0
     private val scope = CoroutineScope(Dispatchers.Default + SupervisorJob())
@@ -324,6 +334,30 @@ object NewCallAppSdkInterface {
         }
     }
 
+    /**
+     * 调试接口：获取当前进程的SDK指标快照（BDC请求、ADC创建、小程序启动等耗时）
+     */
+    @JvmStatic
+    fun getMetricsSnapshot(): MetricsSnapshot {
+        return MetricsRegistry.instance.snapshot()
+    }
+
+    /**
+     * 调试接口：以dumpsys格式输出当前进程的SDK指标
+     */
+    @JvmStatic
+    fun dumpMetrics(writer: PrintWriter) {
+        MetricsRegistry.instance.dump(writer)
+    }
+
+    /**
+     * 调试接口：开关指标采集
+     */
+    @JvmStatic
+    fun setMetricsEnabled(enabled: Boolean) {
+        MetricsRegistry.instance.isEnabled = enabled
+    }
+
     /**
      * 启动设置页面
      */
@@ -339,7 +373,9 @@ object NewCallAppSdkInterface {
     @JvmStatic
     fun parseImgData(img:String):String {
         LogUtils.debug(TAG, "parseImgData")
-        return LicenseManager.getInstance().parseImgData(img)
+        // 列表中的图标已存为文件，隐写内容要从原始图片数据中解析
+        val inlineImg = iconStore.toInlineIcon(img) ?: return ""
+        return LicenseManager.getInstance().parseImgData(inlineImg)
     }
 
     /**
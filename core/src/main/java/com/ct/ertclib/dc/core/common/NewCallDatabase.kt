@@ -36,15 +36,16 @@ import com.ct.ertclib.dc.core.data.model.FileEntity
 import com.ct.ertclib.dc.core.data.model.MessageEntity
 import com.ct.ertclib.dc.core.data.model.MiniAppInfo
 import com.ct.ertclib.dc.core.data.model.ModelEntity
-import com.ct.ertclib.dc.core.data.model.PermissionModel
+import com.ct.ertclib.dc.core.data.model.PermissionGrantEntity
 import com.ct.ertclib.dc.core.data.model.PermissionUsageEntity
 import com.ct.ertclib.dc.core.port.dao.FileDao
 import com.ct.ertclib.dc.core.port.dao.ModelDao
 import com.ct.ertclib.dc.core.port.dao.PermissionDao
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
 
 @Database(
-    entities = [MiniAppInfo::class, MessageEntity::class, ContactEntity::class, ConversationEntity::class, DataChannelPropertyEntity::class, PermissionModel::class, FileEntity::class, ModelEntity::class, PermissionUsageEntity::class],
-    version = 13,
+    entities = [MiniAppInfo::class, MessageEntity::class, ContactEntity::class, ConversationEntity::class, DataChannelPropertyEntity::class, PermissionGrantEntity::class, FileEntity::class, ModelEntity::class, PermissionUsageEntity::class],
+    version = 15,
     exportSchema = false
 )
 abstract class NewCallDatabase : RoomDatabase() {
@@ -249,6 +250,55 @@ abstract class NewCallDatabase : RoomDatabase() {
                         )
                     }
                 })
+                .addMigrations(object : Migration(13, 14) {
+                    override fun migrate(database: SupportSQLiteDatabase) {
+                        LogUtils.i("NewCallDatabase update 13-14")
+                        // 权限使用记录按(appId, permissionName, 分钟)聚合计数
+                        database.execSQL(
+                            "CREATE TABLE IF NOT EXISTS permission_usage_table_new (" +
+                                    "appId TEXT NOT NULL," +
+                                    "permissionName TEXT NOT NULL," +
+                                    "permissionUsageTimeStamp INTEGER NOT NULL," +
+                                    "usageCount INTEGER NOT NULL DEFAULT 1," +
+                                    "PRIMARY KEY(appId, permissionName, permissionUsageTimeStamp))"
+                        )
+                        database.execSQL(
+                            "INSERT INTO permission_usage_table_new (appId, permissionName, permissionUsageTimeStamp, usageCount) " +
+                                    "SELECT appId, permissionName, (permissionUsageTimeStamp / 60000) * 60000, COUNT(*) " +
+                                    "FROM permission_usage_table " +
+                                    "GROUP BY appId, permissionName, permissionUsageTimeStamp / 60000"
+                        )
+                        database.execSQL("DROP TABLE permission_usage_table")
+                        database.execSQL("ALTER TABLE permission_usage_table_new RENAME TO permission_usage_table")
+                    }
+                })
+                .addMigrations(object : Migration(14, 15) {
+                    override fun migrate(database: SupportSQLiteDatabase) {
+                        LogUtils.i("NewCallDatabase update 14-15")
+                        // 权限授予结果由每个小程序一个JSON串改为每个权限一行
+                        database.execSQL(
+                            "CREATE TABLE IF NOT EXISTS permission_grant_table (" +
+                                    "appId TEXT NOT NULL," +
+                                    "permissionName TEXT NOT NULL," +
+                                    "granted INTEGER NOT NULL," +
+                                    "PRIMARY KEY(appId, permissionName))"
+                        )
+                        database.query("SELECT appId, permissionMapString FROM permission_table").use { cursor ->
+                            while (cursor.moveToNext()) {
+                                val appId = cursor.getString(0)
+                                val map = JsonUtil.fromJson(cursor.getString(1), Map::class.java)
+                                map?.forEach { (permissionName, value) ->
+                                    val granted = value as? Boolean ?: return@forEach
+                                    database.execSQL(
+                                        "INSERT OR REPLACE INTO permission_grant_table (appId, permissionName, granted) VALUES (?, ?, ?)",
+                                        arrayOf<Any>(appId, permissionName.toString(), if (granted) 1 else 0)
+                                    )
+                                }
+                            }
+                        }
+                        database.execSQL("DROP TABLE IF EXISTS permission_table")
+                    }
+                })
                 .addCallback(object : Callback() {
                     override fun onCreate(db: SupportSQLiteDatabase) {
                         super.onCreate(db)
@@ -16,7 +16,6 @@
 
 package com.ct.ertclib.dc.core.common
 
-import com.ct.ertclib.dc.core.utils.common.JsonUtil
 import com.ct.ertclib.dc.core.data.event.NotifyEvent
 import com.ct.ertclib.dc.core.miniapp.MiniAppStartManager
 import com.ct.ertclib.dc.core.miniapp.aidl.IMessageCallback
@@ -25,7 +24,6 @@ import com.ct.ertclib.dc.core.port.common.IParentToMiniNotify
 class ParentToMiniNotifier : IParentToMiniNotify {
 
     override fun notifyEvent(callId: String, appID:String, event: NotifyEvent, callback: IMessageCallback?) {
-        val message = JsonUtil.toJson(event)
-        MiniAppStartManager.sendMessageToMiniApp(callId, appID, message, callback)
+        MiniAppStartManager.notifyMiniApp(callId, appID, event, callback)
     }
 }
\ No newline at end of file
@@ -28,6 +28,7 @@ import com.blankj.utilcode.util.SPUtils
 import com.ct.ertclib.dc.core.ui.activity.WebActivity
 import com.ct.ertclib.dc.core.constants.CommonConstants
 import com.ct.ertclib.dc.core.data.common.PolicyValue
+import com.ct.ertclib.dc.core.utils.common.HttpUtils
 import com.ct.ertclib.dc.core.utils.common.JsonUtil
 import com.ct.ertclib.dc.core.utils.common.LogUtils
 import kotlinx.coroutines.CoroutineScope
@@ -36,7 +37,6 @@ import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.launch
 import okhttp3.Call
 import okhttp3.Callback
-import okhttp3.OkHttpClient
 import okhttp3.Request
 import okhttp3.Response
 import okio.IOException
@@ -150,7 +150,7 @@ object SDKPermissionUtils {
     // 更新隐私条款版本号，如果和本地不一致，就取消之前的授权，以触发重新弹窗；并缓存新的版本号
     fun updatePrivacyVersion() {
         scope.launch(Dispatchers.IO) {
-            val client = OkHttpClient()
+            val client = HttpUtils.sharedClient
             val request = Request.Builder()
                 .url(CommonConstants.SDK_PRIVACY_VERSION_URL)
                 .build()
@@ -92,7 +92,11 @@ object CommonConstants {
 
     const val APP_RESPONSE_CODE_SUCCESS = 0
     const val APP_RESPONSE_MESSAGE_SUCCESS = "success"
+    const val APP_RESPONSE_CODE_FAILED = -1
+    const val APP_RESPONSE_MESSAGE_DISCONNECTED = "disconnected"
     const val APP_DRAWING_INFO_PARAMS = "drawingInfo"
+    const val APP_STROKE_DATA_PARAMS = "strokeData"
+    const val APP_STROKE_FORMATS_PARAMS = "strokeFormats"
     const val APP_COLOR_PARAMS = "paintColor"
     const val APP_WIDTH_PARAMS = "paintWidth"
     const val APP_REMOTE_WIDTH_PARAM = "width"
@@ -68,6 +68,7 @@ object MiniAppConstants {
     const val FUNCTION_QUICK_SEARCH_FILE = "quickSearchFile"
     const val FUNCTION_QUICK_SEARCH_KEY_WORDS = "quickSearchFileWithKeyWords"
     const val FUNCTION_FILE_DOWNLOAD = "fileDownload"
+    const val FUNCTION_CANCEL_FILE_DOWNLOAD = "cancelFileDownload"
 
     //function for miniapp
     const val FUNCTION_GET_MINI_APP_INFO = "getMiniAppInfo"
@@ -120,6 +121,7 @@ object MiniAppConstants {
     const val FUNCTION_AUDIO_DEVICE_NOTIFY = "audioDeviceChangeNotify"
     const val FUNCTION_VIDEO_WINDOW_NOTIFY = "videoWindowNotify"
     const val FUNCTION_IME_HEIGHT_NOTIFY = "imeHeightNotify"
+    const val FUNCTION_DOWNLOAD_PROGRESS_NOTIFY = "downloadProgressNotify"
 
     //response status
     const val RESPONSE_SUCCESS_CODE = "0"
@@ -149,9 +151,13 @@ object MiniAppConstants {
     const val GET_CONTACT_NAME_NUMBER_PARAM = "contactNumber"
     const val GET_CONTACT_LIST_OFFSET_PARAM = "offset"
     const val GET_CONTACT_LIST_LIMIT_PARAM = "limit"
+    const val GET_CONTACT_LIST_CURSOR_PARAM = "cursor"
     const val KEY_PARAM = "key"
     const val VALUE_PARAM = "value"
     const val TTL = "ttl"
+    const val LOCATION_MAX_AGE = "maxAge"
+    const val LOCATION_ACCURACY = "accuracy"
+    const val LOCATION_TIMEOUT = "timeout"
     const val DIGIT = "digit"
     const val SPEAKERPHONE_ON = "speakerphoneOn"
     const val MUTED = "muted"
@@ -175,6 +181,7 @@ object MiniAppConstants {
     const val PARAMS_MODEL = "model"
     const val PARAMS_FILE = "file"
     const val PARAMS_EXTRA_INFO = "extraInfo"
+    const val PARAMS_TASK_ID = "taskId"
 
     const val LICENSE = "license"
     const val API = "api"
@@ -187,6 +194,8 @@ object MiniAppConstants {
 
     const val NOTIFY_STATUS_PARAM = "status"
     const val NOTIFY_DRAWING_INFO_PARAM = "drawingInfo"
+    const val NOTIFY_STROKE_DATA_PARAM = "strokeData"
+    const val NOTIFY_STROKE_FORMAT_PARAM = "strokeFormat"
     const val NOTIFY_WIDTH_PARAM = "width"
     const val NOTIFY_HEIGHT_PARAM = "height"
 
@@ -197,4 +206,10 @@ object MiniAppConstants {
     const val HTTP_POST_WAY = "POST"
     const val MEDIA_TYPE_DEFAULT = "application/json;charset=utf-8"
     const val PARAMS_RESPONSE = "response"
+    const val PARAMS_SAVE_TO_FILE = "saveToFile"
+    const val PARAMS_STATUS_CODE = "statusCode"
+    const val PARAMS_CONTENT_LENGTH = "contentLength"
+    const val PARAMS_STREAMED = "streamed"
+    const val PARAMS_CHUNK = "chunk"
+    const val PARAMS_OFFSET = "offset"
 }
\ No newline at end of file
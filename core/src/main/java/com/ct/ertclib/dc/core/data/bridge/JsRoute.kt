@@ -0,0 +1,81 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.data.bridge
+
+import android.content.Context
+import wendu.dsbridge.CompletionHandler
+
+typealias JsAsyncHandler = (context: Context, params: Map<String, Any>, handler: CompletionHandler<String?>) -> Unit
+
+typealias JsSyncHandler = (context: Context, params: Map<String, Any>) -> String?
+
+/**
+ * JS桥参数解码规则
+ * @param keys 处理器读取的参数名，null表示解码全部参数，空集合表示整个params直接跳过
+ */
+class JsParamSpec private constructor(val keys: Set<String>?) {
+
+    companion object {
+        @JvmField
+        val ALL = JsParamSpec(null)
+
+        @JvmField
+        val NONE = JsParamSpec(emptySet())
+
+        fun of(vararg keys: String): JsParamSpec = JsParamSpec(keys.toHashSet())
+    }
+
+    fun accepts(key: String): Boolean = keys == null || keys.contains(key)
+
+    val skipsAll: Boolean
+        get() = keys != null && keys.isEmpty()
+}
+
+/**
+ * JS桥路由项，启动时登记一次，分发时按event和function直接查表
+ * @param independent 只读查询类接口，不依赖也不改变其他调用的状态，批量调用时可以并行执行
+ */
+class JsRoute(
+    val event: String,
+    val function: String,
+    val params: JsParamSpec,
+    val async: JsAsyncHandler?,
+    val sync: JsSyncHandler?,
+    val independent: Boolean = false
+)
+
+class JsRouteBuilder(private val event: String) {
+
+    private val routes = ArrayList<JsRoute>()
+
+    /**
+     * @param params 处理器读取的参数，必须显式声明；只有把params原样转发给主进程的接口才用[JsParamSpec.ALL]
+     */
+    fun route(
+        function: String,
+        params: JsParamSpec,
+        independent: Boolean = false,
+        async: JsAsyncHandler? = null,
+        sync: JsSyncHandler? = null
+    ) {
+        routes.add(JsRoute(event, function, params, async, sync, independent))
+    }
+
+    fun build(): List<JsRoute> = routes
+}
+
+fun jsRoutes(event: String, block: JsRouteBuilder.() -> Unit): List<JsRoute> = JsRouteBuilder(event).apply(block).build()
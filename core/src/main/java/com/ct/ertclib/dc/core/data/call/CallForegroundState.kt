@@ -0,0 +1,28 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.data.call
+
+/**
+ * 通话期间的前台状态，只在取值变化时通知
+ * @param inCallOnTop 通话界面是否在栈顶
+ * @param expandedShown 小程序展开列表是否在栈顶
+ */
+data class CallForegroundState(
+    val inCallOnTop: Boolean = false,
+    val expandedShown: Boolean = false
+)
@@ -1,8 +1,12 @@
 package com.ct.ertclib.dc.core.data.common
 
+import java.io.File
+
+/**
+ * @param unzipTo 不为空时边下载边解压到该目录，目录原有内容会被清除
+ */
 data class DownloadData(
     var url: String,
-    var title: String,
-    var description: String,
-    var fileName: String
+    var destination: File,
+    var unzipTo: File? = null
 )
@@ -0,0 +1,127 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.data.miniapp
+
+import android.os.Build
+import android.os.Parcel
+import android.os.ParcelFileDescriptor
+import android.os.Parcelable
+import android.os.SharedMemory
+import androidx.annotation.RequiresApi
+import java.io.DataInputStream
+import java.nio.ByteBuffer
+
+/**
+ * 大块payload的跨进程句柄
+ *
+ * binder上只传文件描述符和长度，数据在共享内存（API 27+）或管道里。共享内存区域归发送方的池所有，
+ * 接收方读完后按[leaseId]回一个释放信封；管道读完即关闭，不需要释放。
+ */
+class MiniAppBulkHandle(
+    val leaseId: Long,
+    val length: Int,
+    val sharedMemory: SharedMemory? = null,
+    val pipe: ParcelFileDescriptor? = null
+) : Parcelable {
+
+    companion object {
+        // 管道没有租约
+        const val NO_LEASE = 0L
+
+        private const val KIND_SHARED_MEMORY = 0
+        private const val KIND_PIPE = 1
+
+        @JvmField
+        val CREATOR = object : Parcelable.Creator<MiniAppBulkHandle> {
+            override fun createFromParcel(parcel: Parcel): MiniAppBulkHandle {
+                val leaseId = parcel.readLong()
+                val length = parcel.readInt()
+                return if (parcel.readInt() == KIND_SHARED_MEMORY) {
+                    MiniAppBulkHandle(leaseId, length, sharedMemory = parcel.readParcelable(SharedMemory::class.java.classLoader))
+                } else {
+                    MiniAppBulkHandle(leaseId, length, pipe = parcel.readParcelable(ParcelFileDescriptor::class.java.classLoader))
+                }
+            }
+
+            override fun newArray(size: Int): Array<MiniAppBulkHandle?> {
+                return arrayOfNulls(size)
+            }
+        }
+    }
+
+    /**
+     * 读取数据并关闭本端的描述符，只能调用一次；[reader]返回后buffer失效
+     */
+    fun <T> read(reader: (ByteBuffer) -> T): T {
+        return read(true, reader)
+    }
+
+    /**
+     * 读取数据但不关闭共享内存，发送方取回没送达的数据时使用，区域仍归发送方的池管理；管道只能读一次，读完即关闭
+     */
+    fun <T> peek(reader: (ByteBuffer) -> T): T {
+        return read(false, reader)
+    }
+
+    private fun <T> read(closeMemory: Boolean, reader: (ByteBuffer) -> T): T {
+        sharedMemory?.let {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                return readSharedMemory(it, closeMemory, reader)
+            }
+        }
+        val bytes = ByteArray(length)
+        val source = pipe ?: throw IllegalStateException("bulk handle has no data")
+        DataInputStream(ParcelFileDescriptor.AutoCloseInputStream(source)).use { it.readFully(bytes) }
+        return reader(ByteBuffer.wrap(bytes))
+    }
+
+    @RequiresApi(Build.VERSION_CODES.O_MR1)
+    private fun <T> readSharedMemory(memory: SharedMemory, closeMemory: Boolean, reader: (ByteBuffer) -> T): T {
+        val buffer = memory.mapReadOnly()
+        try {
+            buffer.limit(length)
+            return reader(buffer)
+        } finally {
+            SharedMemory.unmap(buffer)
+            if (closeMemory) {
+                memory.close()
+            }
+        }
+    }
+
+    override fun writeToParcel(parcel: Parcel, flags: Int) {
+        parcel.writeLong(leaseId)
+        parcel.writeInt(length)
+        if (sharedMemory != null) {
+            parcel.writeInt(KIND_SHARED_MEMORY)
+            parcel.writeParcelable(sharedMemory, flags)
+        } else {
+            parcel.writeInt(KIND_PIPE)
+            // 管道读端交给对端后本端即关闭
+            parcel.writeParcelable(pipe, flags or Parcelable.PARCELABLE_WRITE_RETURN_VALUE)
+        }
+    }
+
+    override fun describeContents(): Int {
+        return Parcelable.CONTENTS_FILE_DESCRIPTOR
+    }
+
+    override fun toString(): String {
+        return "MiniAppBulkHandle(lease:$leaseId, length:$length, ${if (sharedMemory != null) "shm" else "pipe"})"
+    }
+}
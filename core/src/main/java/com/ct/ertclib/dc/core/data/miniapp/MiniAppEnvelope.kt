@@ -0,0 +1,196 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.data.miniapp
+
+import android.os.Parcel
+import android.os.Parcelable
+import com.ct.ertclib.dc.core.data.event.NotifyEvent
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+
+/**
+ * 小程序进程与主进程之间的二进制消息信封
+ *
+ * 请求、回复、通知共用一种结构，按[requestId]关联异步回复。序列化时先写版本号和长度，
+ * 读取方按长度跳过自己不认识的尾部字段，新增字段只能追加在末尾。
+ * payload能直接写入Parcel时走Parcel原生类型，否则退化为JSON；超过阈值的payload放在[bulk]里走共享内存，
+ * 这时payload为空。
+ */
+class MiniAppEnvelope(
+    val type: Int,
+    val requestId: Long,
+    val eventName: String,
+    val actionName: String,
+    val payload: Map<String, Any?>,
+    val message: String? = null,
+    val version: Int = PROTOCOL_VERSION,
+    val bulk: MiniAppBulkHandle? = null
+) : Parcelable {
+
+    companion object {
+        // 2：新增bulk字段和释放信封
+        const val PROTOCOL_VERSION = 2
+        const val MIN_BULK_VERSION = 2
+
+        const val TYPE_REQUEST = 1
+        const val TYPE_REPLY = 2
+        const val TYPE_NOTIFY = 3
+        // 接收方读完bulk后归还共享内存，requestId为租约id
+        const val TYPE_RELEASE = 4
+
+        // 不需要回复
+        const val NO_REPLY = 0L
+
+        private const val PAYLOAD_PARCEL = 0
+        private const val PAYLOAD_JSON = 1
+
+        fun request(requestId: Long, request: AppRequest): MiniAppEnvelope {
+            return MiniAppEnvelope(TYPE_REQUEST, requestId, request.eventName, request.actionName, request.map)
+        }
+
+        fun notify(requestId: Long, event: NotifyEvent): MiniAppEnvelope {
+            return MiniAppEnvelope(TYPE_NOTIFY, requestId, event.eventName, "", event.map)
+        }
+
+        fun reply(requestId: Long, message: String?): MiniAppEnvelope {
+            return MiniAppEnvelope(TYPE_REPLY, requestId, "", "", emptyMap(), message)
+        }
+
+        fun release(leaseId: Long): MiniAppEnvelope {
+            return MiniAppEnvelope(TYPE_RELEASE, leaseId, "", "", emptyMap())
+        }
+
+        /**
+         * 按字符数粗估payload序列化后的大小，用来跳过小payload的JSON编码
+         */
+        fun estimateSize(value: Any?): Long {
+            return when (value) {
+                null -> 4
+                is CharSequence -> value.length + 2L
+                is Map<*, *> -> value.entries.sumOf { (key, item) -> estimateSize(key) + estimateSize(item) + 2 } + 2
+                is Collection<*> -> value.sumOf { estimateSize(it) + 1 } + 2
+                is ByteArray -> value.size * 4L
+                else -> 16
+            }
+        }
+
+        /**
+         * Parcel.writeValue能原样写入并读回的类型，其余对象走JSON
+         */
+        fun isParcelSafe(value: Any?): Boolean {
+            return when (value) {
+                null, is String, is Boolean, is Int, is Long, is Double, is Float, is Short, is Byte -> true
+                is Map<*, *> -> value.all { (key, item) -> key is String && isParcelSafe(item) }
+                is List<*> -> value.all { isParcelSafe(it) }
+                else -> false
+            }
+        }
+
+        @JvmField
+        val CREATOR = object : Parcelable.Creator<MiniAppEnvelope> {
+            override fun createFromParcel(parcel: Parcel): MiniAppEnvelope {
+                val version = parcel.readInt()
+                val start = parcel.dataPosition()
+                val size = parcel.readInt()
+                val type = parcel.readInt()
+                val requestId = parcel.readLong()
+                val eventName = parcel.readString() ?: ""
+                val actionName = parcel.readString() ?: ""
+                val payload = readPayload(parcel)
+                val message = parcel.readString()
+                // v1发送方没有这个字段
+                val bulk = if (parcel.dataPosition() < start + size && parcel.readInt() != 0) {
+                    MiniAppBulkHandle.CREATOR.createFromParcel(parcel)
+                } else {
+                    null
+                }
+                parcel.setDataPosition(start + size)
+                return MiniAppEnvelope(type, requestId, eventName, actionName, payload, message, version, bulk)
+            }
+
+            override fun newArray(size: Int): Array<MiniAppEnvelope?> {
+                return arrayOfNulls(size)
+            }
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        private fun readPayload(parcel: Parcel): Map<String, Any?> {
+            return when (parcel.readInt()) {
+                PAYLOAD_PARCEL -> parcel.readHashMap(MiniAppEnvelope::class.java.classLoader) as? Map<String, Any?>
+                else -> parcel.readString()?.let { JsonUtil.fromJson(it, Map::class.java) as? Map<String, Any?> }
+            } ?: emptyMap()
+        }
+    }
+
+    val expectsReply: Boolean
+        get() = requestId != NO_REPLY
+
+    /**
+     * 粗估整个信封的大小，走共享内存的payload不计入
+     */
+    fun estimateSize(): Long {
+        return estimateSize(eventName) + estimateSize(actionName) + estimateSize(payload) + estimateSize(message) + 16
+    }
+
+    fun toAppRequest(): AppRequest = AppRequest(eventName, actionName, payload)
+
+    fun toNotifyEvent(): NotifyEvent = NotifyEvent(eventName, payload)
+
+    fun withBulk(handle: MiniAppBulkHandle): MiniAppEnvelope {
+        return MiniAppEnvelope(type, requestId, eventName, actionName, emptyMap(), message, version, handle)
+    }
+
+    fun withPayload(payload: Map<String, Any?>): MiniAppEnvelope {
+        return MiniAppEnvelope(type, requestId, eventName, actionName, payload, message, version)
+    }
+
+    override fun writeToParcel(parcel: Parcel, flags: Int) {
+        parcel.writeInt(version)
+        val start = parcel.dataPosition()
+        parcel.writeInt(0)
+        parcel.writeInt(type)
+        parcel.writeLong(requestId)
+        parcel.writeString(eventName)
+        parcel.writeString(actionName)
+        if (isParcelSafe(payload)) {
+            parcel.writeInt(PAYLOAD_PARCEL)
+            parcel.writeMap(payload)
+        } else {
+            parcel.writeInt(PAYLOAD_JSON)
+            parcel.writeString(JsonUtil.toJson(payload))
+        }
+        parcel.writeString(message)
+        if (bulk != null) {
+            parcel.writeInt(1)
+            bulk.writeToParcel(parcel, flags)
+        } else {
+            parcel.writeInt(0)
+        }
+        val end = parcel.dataPosition()
+        parcel.setDataPosition(start)
+        parcel.writeInt(end - start)
+        parcel.setDataPosition(end)
+    }
+
+    override fun describeContents(): Int {
+        return bulk?.describeContents() ?: 0
+    }
+
+    override fun toString(): String {
+        return "MiniAppEnvelope(v$version, type:$type, id:$requestId, $eventName/$actionName${if (bulk != null) ", $bulk" else ""})"
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.data.miniapp
+
+import java.io.File
+
+/**
+ * 小程序发起的HTTP请求
+ *
+ * @param saveTo 不为空时响应体写入该文件
+ */
+data class MiniAppHttpRequest(
+    val appId: String,
+    val url: String,
+    val method: String = "GET",
+    val headers: Map<String, String> = emptyMap(),
+    val body: ByteArray? = null,
+    val mediaType: String? = null,
+    val saveTo: File? = null
+)
+
+/**
+ * @param body 缓冲的响应体，分块推送或写入文件时为空
+ * @param streamed 响应体已通过onChunk分块推送
+ * @param coalesced 与其他相同的GET请求共用了一次网络请求
+ */
+data class MiniAppHttpResponse(
+    val code: Int,
+    val headers: Map<String, String>,
+    val body: ByteArray?,
+    val file: File?,
+    val contentLength: Long,
+    val streamed: Boolean,
+    val fromCache: Boolean,
+    val coalesced: Boolean
+)
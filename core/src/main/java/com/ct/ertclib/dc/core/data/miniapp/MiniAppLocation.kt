@@ -0,0 +1,48 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.data.miniapp
+
+/**
+ * 小程序定位请求
+ *
+ * @param maxAgeMillis 可以直接返回的缓存结果的最大时长
+ * @param accuracyMeters 可以接受的最大误差
+ * @param timeoutMillis 等待满足条件的结果的最长时间
+ */
+data class MiniAppLocationRequest(
+    val maxAgeMillis: Long = DEFAULT_MAX_AGE_MILLIS,
+    val accuracyMeters: Float = ANY_ACCURACY,
+    val timeoutMillis: Long = DEFAULT_TIMEOUT_MILLIS
+) {
+    companion object {
+        const val DEFAULT_MAX_AGE_MILLIS = 10_000L
+        const val DEFAULT_TIMEOUT_MILLIS = 10_000L
+        const val ANY_ACCURACY = Float.MAX_VALUE
+    }
+}
+
+/**
+ * @param timeMillis 定位时间，与[System.currentTimeMillis]同一时间基准
+ * @param accuracyMeters 误差，未知时为[MiniAppLocationRequest.ANY_ACCURACY]
+ */
+data class MiniAppLocationFix(
+    val latitude: Double,
+    val longitude: Double,
+    val accuracyMeters: Float,
+    val timeMillis: Long
+)
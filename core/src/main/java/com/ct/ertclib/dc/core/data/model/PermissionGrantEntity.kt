@@ -17,16 +17,13 @@
 package com.ct.ertclib.dc.core.data.model
 
 import androidx.room.Entity
-import androidx.room.PrimaryKey
-import com.google.gson.annotations.SerializedName
 
-@Entity(
-    tableName = "permission_table"
-)
-
-data class PermissionModel(
-    @PrimaryKey
-    @SerializedName("appid")
+/**
+ * 小程序权限授予结果，每个(appId, permissionName)一行
+ */
+@Entity(tableName = "permission_grant_table", primaryKeys = ["appId", "permissionName"])
+data class PermissionGrantEntity(
     var appId: String,
-    var permissionMapString: String
+    var permissionName: String,
+    var granted: Boolean
 )
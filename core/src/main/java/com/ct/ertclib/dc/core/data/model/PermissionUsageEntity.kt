@@ -1,10 +1,16 @@
 package com.ct.ertclib.dc.core.data.model
 
+import androidx.room.ColumnInfo
 import androidx.room.Entity
 
-@Entity(tableName = "permission_usage_table", primaryKeys = ["appId", "permissionUsageTimeStamp"])
+/**
+ * 权限使用记录，同一小程序同一权限在同一分钟内的使用合并为一行，permissionUsageTimeStamp为该分钟的起始时间，usageCount为使用次数
+ */
+@Entity(tableName = "permission_usage_table", primaryKeys = ["appId", "permissionName", "permissionUsageTimeStamp"])
 data class PermissionUsageEntity(
     var appId: String,
     var permissionName: String,
-    var permissionUsageTimeStamp: Long
+    var permissionUsageTimeStamp: Long,
+    @ColumnInfo(defaultValue = "1")
+    var usageCount: Int = 1
 )
@@ -28,6 +28,8 @@ import com.ct.ertclib.dc.core.constants.CommonConstants.ACTION_START_SCREEN_SHAR
 import com.ct.ertclib.dc.core.constants.CommonConstants.ACTION_STOP_SCREEN_SHARE
 import com.ct.ertclib.dc.core.constants.CommonConstants.APP_COLOR_PARAMS
 import com.ct.ertclib.dc.core.constants.CommonConstants.APP_DRAWING_INFO_PARAMS
+import com.ct.ertclib.dc.core.constants.CommonConstants.APP_STROKE_DATA_PARAMS
+import com.ct.ertclib.dc.core.constants.CommonConstants.APP_STROKE_FORMATS_PARAMS
 import com.ct.ertclib.dc.core.constants.CommonConstants.APP_IS_ENABLE
 import com.ct.ertclib.dc.core.constants.CommonConstants.APP_LICENSE_PARAM
 import com.ct.ertclib.dc.core.constants.CommonConstants.APP_REMOTE_HEIGHT_PARAM
@@ -65,10 +67,16 @@ class ScreenAppServiceDispatcher : IAppServiceEventDispatcher, KoinComponent {
             ACTION_OPEN_SKETCH_BOARD -> {
                 val paintColor = appRequest.map[APP_COLOR_PARAMS].toString()
                 val paintWidth = appRequest.map[APP_WIDTH_PARAMS].toString().toFloat()
-                sketchBoardUseCase.openSketchBoard(telecomCallId, appId, paintColor, paintWidth)
+                val strokeFormats = (appRequest.map[APP_STROKE_FORMATS_PARAMS] as? List<*>)?.map { it.toString() }
+                sketchBoardUseCase.openSketchBoard(telecomCallId, appId, paintColor, paintWidth, strokeFormats)
             }
             ACTION_CLOSE_SKETCH_BOARD -> sketchBoardUseCase.closeSketchBoard(needNotifyToMini = false)
             ACTION_ADD_DRAWING_INFO -> {
+                val strokeData = appRequest.map[APP_STROKE_DATA_PARAMS]
+                if (strokeData != null) {
+                    sketchBoardUseCase.addStrokeData(strokeData.toString())
+                    return
+                }
                 val drawingInfo = appRequest.map[APP_DRAWING_INFO_PARAMS]
                 drawingInfo?.let {
                     sketchBoardUseCase.addDrawingInfo(JsonUtil.toJson(it))
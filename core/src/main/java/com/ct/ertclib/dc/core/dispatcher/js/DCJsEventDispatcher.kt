@@ -16,37 +16,43 @@
 
 package com.ct.ertclib.dc.core.dispatcher.js
 
-import android.content.Context
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_DC
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_CLOSE_DATA_CHANNEL
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_CREATE_DATA_CHANNEL
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_BUFFER_AMOUNT
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_IS_PEER_SUPPORT_DC
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_SEND_DATA
-import com.ct.ertclib.dc.core.data.bridge.JSRequest
+import com.ct.ertclib.dc.core.data.bridge.JsParamSpec
+import com.ct.ertclib.dc.core.data.bridge.JsRoute
+import com.ct.ertclib.dc.core.data.bridge.jsRoutes
 import com.ct.ertclib.dc.core.port.dispatcher.IJsEventDispatcher
 import com.ct.ertclib.dc.core.port.usecase.mini.IDCMiniEventUseCase
 import org.koin.core.component.KoinComponent
 import org.koin.core.component.inject
-import wendu.dsbridge.CompletionHandler
 
 class DCJsEventDispatcher : IJsEventDispatcher, KoinComponent {
 
-    private val dcEventUseCase : IDCMiniEventUseCase by inject()
-
-    override fun dispatchAsyncMessage(context: Context, request: JSRequest, handler: CompletionHandler<String?>) {
-        when (request.function) {
-            FUNCTION_CREATE_DATA_CHANNEL -> { dcEventUseCase.createAppDataChannel(context, request.params, handler) }
-            FUNCTION_CLOSE_DATA_CHANNEL -> { dcEventUseCase.closeAppDataChannel(context, request.params, handler) }
-            FUNCTION_SEND_DATA -> { dcEventUseCase.sendData(context, request.params, handler) }
-            FUNCTION_IS_PEER_SUPPORT_DC -> { dcEventUseCase.isPeerSupportDC(context, request.params, handler) }
-            FUNCTION_GET_BUFFER_AMOUNT -> { dcEventUseCase.getBufferedAmountAsync(context, request.params,handler) }
-        }
+    companion object {
+        private const val PARAM_DC_LABEL = "dcLabel"
+        private const val PARAM_DC_LABELS = "dcLabels"
+        private const val PARAM_DATA = "data"
+        private const val PARAM_APP_INFO_XML = "DataChannelAppInfoXml"
+        private const val PARAM_APP_INFO_JSON = "DataChannelAppInfoJson"
     }
 
-    override fun dispatchSyncMessage(context: Context, request: JSRequest): String? {
-        return when (request.function) {
-            FUNCTION_GET_BUFFER_AMOUNT -> dcEventUseCase.getBufferedAmount(context, request.params)
-            else -> ""
-        }
+    private val dcEventUseCase : IDCMiniEventUseCase by inject()
+
+    override fun routes(): List<JsRoute> = jsRoutes(EVENT_DC) {
+        route(FUNCTION_CREATE_DATA_CHANNEL, JsParamSpec.of(PARAM_DC_LABELS, PARAM_APP_INFO_XML, PARAM_APP_INFO_JSON),
+            async = { context, params, handler -> dcEventUseCase.createAppDataChannel(context, params, handler) })
+        route(FUNCTION_CLOSE_DATA_CHANNEL, JsParamSpec.of(PARAM_DC_LABEL),
+            async = { context, params, handler -> dcEventUseCase.closeAppDataChannel(context, params, handler) })
+        route(FUNCTION_SEND_DATA, JsParamSpec.of(PARAM_DC_LABEL, PARAM_DATA),
+            async = { context, params, handler -> dcEventUseCase.sendData(context, params, handler) })
+        route(FUNCTION_IS_PEER_SUPPORT_DC, JsParamSpec.NONE, independent = true,
+            async = { context, params, handler -> dcEventUseCase.isPeerSupportDC(context, params, handler) })
+        route(FUNCTION_GET_BUFFER_AMOUNT, JsParamSpec.of(PARAM_DC_LABEL), independent = true,
+            async = { context, params, handler -> dcEventUseCase.getBufferedAmountAsync(context, params, handler) },
+            sync = { context, params -> dcEventUseCase.getBufferedAmount(context, params) })
     }
-}
\ No newline at end of file
+}
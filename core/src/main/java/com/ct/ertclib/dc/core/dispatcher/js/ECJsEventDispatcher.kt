@@ -16,34 +16,31 @@
 
 package com.ct.ertclib.dc.core.dispatcher.js
 
-import android.content.Context
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_EC
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_EC_QUERY
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_EC_REGISTER
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_EC_REQUEST
-import com.ct.ertclib.dc.core.data.bridge.JSRequest
+import com.ct.ertclib.dc.core.data.bridge.JsParamSpec
+import com.ct.ertclib.dc.core.data.bridge.JsRoute
+import com.ct.ertclib.dc.core.data.bridge.jsRoutes
 import com.ct.ertclib.dc.core.port.dispatcher.IJsEventDispatcher
 import com.ct.ertclib.dc.core.port.usecase.mini.IECUseCase
 import org.koin.core.component.KoinComponent
 import org.koin.core.component.inject
-import wendu.dsbridge.CompletionHandler
 
 class ECJsEventDispatcher : IJsEventDispatcher, KoinComponent {
 
     private val ecUseCase : IECUseCase by inject()
 
-    override fun dispatchAsyncMessage(context: Context, request: JSRequest, handler: CompletionHandler<String?>) {
-        when (request.function) {
-            FUNCTION_EC_QUERY -> ecUseCase.queryEC(context, handler)
-            FUNCTION_EC_REGISTER -> ecUseCase.registerAsync(context, request.params, handler)
-            FUNCTION_EC_REQUEST -> ecUseCase.requestAsync(context, request.params, handler)
-        }
+    override fun routes(): List<JsRoute> = jsRoutes(EVENT_EC) {
+        route(FUNCTION_EC_QUERY, JsParamSpec.NONE, independent = true,
+            async = { context, _, handler -> ecUseCase.queryEC(context, handler) })
+        // 注册和请求把params原样转发给主进程
+        route(FUNCTION_EC_REGISTER, JsParamSpec.ALL,
+            async = { context, params, handler -> ecUseCase.registerAsync(context, params, handler) },
+            sync = { context, params -> ecUseCase.register(context, params) })
+        route(FUNCTION_EC_REQUEST, JsParamSpec.ALL,
+            async = { context, params, handler -> ecUseCase.requestAsync(context, params, handler) },
+            sync = { context, params -> ecUseCase.request(context, params) })
     }
-
-    override fun dispatchSyncMessage(context: Context, request: JSRequest): String? {
-        return when (request.function) {
-            FUNCTION_EC_REGISTER -> ecUseCase.register(context, request.params)
-            FUNCTION_EC_REQUEST -> ecUseCase.request(context, request.params)
-            else -> ""
-        }
-    }
-}
\ No newline at end of file
+}
@@ -16,7 +16,8 @@
 
 package com.ct.ertclib.dc.core.dispatcher.js
 
-import android.content.Context
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_FILE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_CANCEL_FILE_DOWNLOAD
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_CHECK_FILE_EXISTS
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_DECOMPRESS_FILE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_DELETE_FILE
@@ -41,65 +42,119 @@ import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_START_SAVE_FIL
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_STOP_PLAY_VOICE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_STOP_READ_FILE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_STOP_SAVE_FILE
-import com.ct.ertclib.dc.core.data.bridge.JSRequest
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.KEY_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.LOCATION_ACCURACY
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.LOCATION_MAX_AGE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.LOCATION_TIMEOUT
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_DOWNLOAD_EVENT
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_DOWNLOAD_URL
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_EXTRA_INFO
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_FILE_NAME
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_FILE_PATH
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_TASK_ID
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.TTL
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.VALUE_PARAM
+import com.ct.ertclib.dc.core.data.bridge.JsParamSpec
+import com.ct.ertclib.dc.core.data.bridge.JsRoute
+import com.ct.ertclib.dc.core.data.bridge.jsRoutes
 import com.ct.ertclib.dc.core.port.dispatcher.IJsEventDispatcher
 import com.ct.ertclib.dc.core.port.usecase.mini.IFileMiniEventUseCase
 import org.koin.core.component.KoinComponent
 import org.koin.core.component.inject
-import wendu.dsbridge.CompletionHandler
 
 class FileJsEventDispatcher : IJsEventDispatcher, KoinComponent {
 
-    private val fileEventUseCase: IFileMiniEventUseCase by inject()
-
-    override fun dispatchAsyncMessage(context: Context, request: JSRequest, handler: CompletionHandler<String?>) {
-        when (request.function) {
-            FUNCTION_GET_LOCATION -> { fileEventUseCase.getLocation(context, handler) }
-            FUNCTION_SELECT_FILE -> { fileEventUseCase.selectFile(context, handler) }
-            FUNCTION_SAVE_FILE -> { fileEventUseCase.saveFile(context, request.params, handler) }
-            FUNCTION_READ_FILE -> { fileEventUseCase.readFile(context, request.params, handler) }
-            FUNCTION_DECOMPRESS_FILE -> { fileEventUseCase.decompressFile(context, request.params, handler) }
-            FUNCTION_GET_FILE_INFO_ASYNC -> { fileEventUseCase.getFileInfoAsync(context, request.params, handler) }
-            FUNCTION_QUICK_SEARCH_FILE -> { fileEventUseCase.quickSearchFile(context,request.params,  handler) }
-            FUNCTION_QUICK_SEARCH_KEY_WORDS -> { fileEventUseCase.quickSearchFileWithKeyWords(context, request.params, handler) }
-            FUNCTION_FILE_DOWNLOAD -> { fileEventUseCase.fileDownload(context, request.params, handler) }
-
-            FUNCTION_GET_FILE_LIST -> { fileEventUseCase.getFileListAsync(context, request.params, handler) }
-            FUNCTION_GET_PRIVATE_FOLDER -> { fileEventUseCase.getPrivateFolderAsync(context, request.params, handler) }
-            FUNCTION_START_SAVE_FILE -> { fileEventUseCase.startSaveFileAsync(context, request.params, handler) }
-            FUNCTION_STOP_SAVE_FILE -> { fileEventUseCase.stopSaveFileAsync(context, handler) }
-            FUNCTION_DELETE_FILE -> { fileEventUseCase.deleteFileAsync(context, request.params, handler) }
-            FUNCTION_START_READ_FILE -> { fileEventUseCase.startReadFileAsync(context, request.params, handler) }
-            FUNCTION_STOP_READ_FILE -> { fileEventUseCase.stopReadFileAsync(context, handler) }
-            FUNCTION_CHECK_FILE_EXISTS -> { fileEventUseCase.checkFileOrFolderExistsAsync(context, request.params, handler) }
-            FUNCTION_GET_FILE_INFO -> { fileEventUseCase.getFileInfoAsync(context, request.params, handler) }
-            FUNCTION_SAVE_UPDATE_KEY_VALUE -> { fileEventUseCase.saveUpdateKeyValueAsync(context, request.params, handler) }
-            FUNCTION_SAVE_UPDATE_KEY_VALUE_WITH_EXPIRY -> { fileEventUseCase.saveUpdateKeyValueWithExpiryAsync(context, request.params, handler) }
-            FUNCTION_GET_KEY_VALUE -> { fileEventUseCase.getKeyValueAsync(context, request.params, handler) }
-            FUNCTION_DELETE_KEY_VALUE -> { fileEventUseCase.deleteKeyValueAsync(context, request.params, handler) }
-            FUNCTION_PLAY_VOICE -> { fileEventUseCase.playVoiceAsync(context, request.params, handler) }
-            FUNCTION_STOP_PLAY_VOICE -> { fileEventUseCase.stopPlayVoiceAsync(context, request.params, handler) }
-        }
+    companion object {
+        private const val PARAM_PATH = "path"
+        private const val PARAM_DATA = "data"
+        private const val PARAM_LENGTH = "length"
+        private const val PARAM_APPEND = "append"
+        private const val PARAM_SRC_PATH = "srcPath"
+        private const val PARAM_DES_PATH = "desPath"
+        private const val PARAM_COMPRESS_TYPE = "compressType"
+        private const val PARAM_NAME = "name"
+        private const val PARAM_KEYWORDS = "keywords"
+        private const val PARAM_TYPE = "type"
+        private const val PARAM_FOLDER_PATH = "folderPath"
+        private const val PARAM_OFFSET = "offset"
+        private const val PARAM_COUNT = "count"
+        private const val PARAM_FILE_TYPE = "fileType"
+        private const val PARAM_SUFFIX = "suffix"
+        private const val PARAM_SORT_TYPE = "sortType"
+        private const val PARAM_SORT_ORDER = "sortOrder"
+        private const val PARAM_FOLDER_POSITION = "folderPosition"
     }
 
-    override fun dispatchSyncMessage(context: Context, request: JSRequest): String? {
-        when (request.function) {
-            FUNCTION_GET_FILE_LIST -> { return fileEventUseCase.getFileList(context, request.params) }
-            FUNCTION_GET_PRIVATE_FOLDER -> { return fileEventUseCase.getPrivateFolder(context, request.params) }
-            FUNCTION_START_SAVE_FILE -> { return fileEventUseCase.startSaveFile(context, request.params) }
-            FUNCTION_STOP_SAVE_FILE -> { return fileEventUseCase.stopSaveFile(context) }
-            FUNCTION_DELETE_FILE -> { return fileEventUseCase.deleteFile(context, request.params) }
-            FUNCTION_START_READ_FILE -> { return fileEventUseCase.startReadFile(context, request.params) }
-            FUNCTION_STOP_READ_FILE -> { return fileEventUseCase.stopReadFile(context) }
-            FUNCTION_CHECK_FILE_EXISTS -> { return fileEventUseCase.checkFileOrFolderExists(context, request.params) }
-            FUNCTION_GET_FILE_INFO -> { return fileEventUseCase.getFileInfo(context, request.params) }
-            FUNCTION_SAVE_UPDATE_KEY_VALUE -> { return fileEventUseCase.saveUpdateKeyValue(context, request.params) }
-            FUNCTION_SAVE_UPDATE_KEY_VALUE_WITH_EXPIRY -> { return fileEventUseCase.saveUpdateKeyValueWithExpiry(context, request.params) }
-            FUNCTION_GET_KEY_VALUE -> { return fileEventUseCase.getKeyValue(context, request.params) }
-            FUNCTION_DELETE_KEY_VALUE -> { return fileEventUseCase.deleteKeyValue(context, request.params) }
-            FUNCTION_PLAY_VOICE -> { return fileEventUseCase.playVoice(context, request.params) }
-            FUNCTION_STOP_PLAY_VOICE -> { return fileEventUseCase.stopPlayVoice(context, request.params) }
-        }
-        return ""
+    private val fileEventUseCase: IFileMiniEventUseCase by inject()
+
+    override fun routes(): List<JsRoute> = jsRoutes(EVENT_FILE) {
+        route(FUNCTION_GET_LOCATION, JsParamSpec.of(LOCATION_MAX_AGE, LOCATION_ACCURACY, LOCATION_TIMEOUT),
+            async = { context, params, handler -> fileEventUseCase.getLocation(context, params, handler) })
+        route(FUNCTION_SELECT_FILE, JsParamSpec.NONE,
+            async = { context, _, handler -> fileEventUseCase.selectFile(context, handler) })
+        route(FUNCTION_SAVE_FILE, JsParamSpec.of(PARAM_DATA),
+            async = { context, params, handler -> fileEventUseCase.saveFile(context, params, handler) })
+        route(FUNCTION_READ_FILE, JsParamSpec.of(PARAM_LENGTH),
+            async = { context, params, handler -> fileEventUseCase.readFile(context, params, handler) })
+        route(FUNCTION_DECOMPRESS_FILE, JsParamSpec.of(PARAM_SRC_PATH, PARAM_DES_PATH, PARAM_COMPRESS_TYPE),
+            async = { context, params, handler -> fileEventUseCase.decompressFile(context, params, handler) })
+        route(FUNCTION_GET_FILE_INFO_ASYNC, JsParamSpec.of(PARAM_PATH), independent = true,
+            async = { context, params, handler -> fileEventUseCase.getFileInfoAsync(context, params, handler) })
+        route(FUNCTION_QUICK_SEARCH_FILE, JsParamSpec.of(PARAM_NAME), independent = true,
+            async = { context, params, handler -> fileEventUseCase.quickSearchFile(context, params, handler) })
+        route(FUNCTION_QUICK_SEARCH_KEY_WORDS, JsParamSpec.of(PARAM_KEYWORDS), independent = true,
+            async = { context, params, handler -> fileEventUseCase.quickSearchFileWithKeyWords(context, params, handler) })
+        route(FUNCTION_FILE_DOWNLOAD,
+            JsParamSpec.of(PARAMS_DOWNLOAD_EVENT, PARAMS_DOWNLOAD_URL, PARAMS_EXTRA_INFO, PARAMS_FILE_PATH, PARAMS_FILE_NAME),
+            async = { context, params, handler -> fileEventUseCase.fileDownload(context, params, handler) })
+        route(FUNCTION_CANCEL_FILE_DOWNLOAD, JsParamSpec.of(PARAMS_TASK_ID),
+            async = { context, params, handler -> fileEventUseCase.cancelFileDownloadAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.cancelFileDownload(context, params) })
+        route(FUNCTION_GET_FILE_LIST, JsParamSpec.of(PARAM_FOLDER_PATH, PARAM_OFFSET, PARAM_COUNT, PARAM_FILE_TYPE,
+            PARAM_SUFFIX, PARAM_SORT_TYPE, PARAM_SORT_ORDER, PARAM_FOLDER_POSITION), independent = true,
+            async = { context, params, handler -> fileEventUseCase.getFileListAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.getFileList(context, params) })
+        route(FUNCTION_GET_PRIVATE_FOLDER, JsParamSpec.of(PARAM_TYPE), independent = true,
+            async = { context, params, handler -> fileEventUseCase.getPrivateFolderAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.getPrivateFolder(context, params) })
+        route(FUNCTION_START_SAVE_FILE, JsParamSpec.of(PARAM_PATH, PARAM_APPEND),
+            async = { context, params, handler -> fileEventUseCase.startSaveFileAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.startSaveFile(context, params) })
+        route(FUNCTION_STOP_SAVE_FILE, JsParamSpec.NONE,
+            async = { context, _, handler -> fileEventUseCase.stopSaveFileAsync(context, handler) },
+            sync = { context, _ -> fileEventUseCase.stopSaveFile(context) })
+        route(FUNCTION_DELETE_FILE, JsParamSpec.of(PARAM_PATH),
+            async = { context, params, handler -> fileEventUseCase.deleteFileAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.deleteFile(context, params) })
+        route(FUNCTION_START_READ_FILE, JsParamSpec.of(PARAM_PATH),
+            async = { context, params, handler -> fileEventUseCase.startReadFileAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.startReadFile(context, params) })
+        route(FUNCTION_STOP_READ_FILE, JsParamSpec.NONE,
+            async = { context, _, handler -> fileEventUseCase.stopReadFileAsync(context, handler) },
+            sync = { context, _ -> fileEventUseCase.stopReadFile(context) })
+        route(FUNCTION_CHECK_FILE_EXISTS, JsParamSpec.of(PARAM_PATH), independent = true,
+            async = { context, params, handler -> fileEventUseCase.checkFileOrFolderExistsAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.checkFileOrFolderExists(context, params) })
+        route(FUNCTION_GET_FILE_INFO, JsParamSpec.of(PARAM_PATH), independent = true,
+            async = { context, params, handler -> fileEventUseCase.getFileInfoAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.getFileInfo(context, params) })
+        route(FUNCTION_SAVE_UPDATE_KEY_VALUE, JsParamSpec.of(KEY_PARAM, VALUE_PARAM),
+            async = { context, params, handler -> fileEventUseCase.saveUpdateKeyValueAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.saveUpdateKeyValue(context, params) })
+        route(FUNCTION_SAVE_UPDATE_KEY_VALUE_WITH_EXPIRY, JsParamSpec.of(KEY_PARAM, VALUE_PARAM, TTL),
+            async = { context, params, handler -> fileEventUseCase.saveUpdateKeyValueWithExpiryAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.saveUpdateKeyValueWithExpiry(context, params) })
+        route(FUNCTION_GET_KEY_VALUE, JsParamSpec.of(KEY_PARAM), independent = true,
+            async = { context, params, handler -> fileEventUseCase.getKeyValueAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.getKeyValue(context, params) })
+        route(FUNCTION_DELETE_KEY_VALUE, JsParamSpec.of(KEY_PARAM),
+            async = { context, params, handler -> fileEventUseCase.deleteKeyValueAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.deleteKeyValue(context, params) })
+        route(FUNCTION_PLAY_VOICE, JsParamSpec.of(PARAM_PATH),
+            async = { context, params, handler -> fileEventUseCase.playVoiceAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.playVoice(context, params) })
+        route(FUNCTION_STOP_PLAY_VOICE, JsParamSpec.NONE,
+            async = { context, params, handler -> fileEventUseCase.stopPlayVoiceAsync(context, params, handler) },
+            sync = { context, params -> fileEventUseCase.stopPlayVoice(context, params) })
     }
-}
\ No newline at end of file
+}
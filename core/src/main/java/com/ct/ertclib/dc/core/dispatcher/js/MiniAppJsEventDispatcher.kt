@@ -16,7 +16,12 @@
 
 package com.ct.ertclib.dc.core.dispatcher.js
 
-import android.content.Context
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.ADD_CONTACT_MODE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.ADD_CONTACT_NAME_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.ADD_CONTACT_NUMBER_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.API
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.DIGIT
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_MINI_APP
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_ADD_CONTACT
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_ANSWER
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_CALL_STATE
@@ -41,66 +46,111 @@ import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_SET_SYSTEM_API
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_SET_WINDOW
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_START_APP
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_STOP_APP
-import com.ct.ertclib.dc.core.data.bridge.JSRequest
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.GET_CONTACT_LIST_CURSOR_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.GET_CONTACT_LIST_LIMIT_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.GET_CONTACT_LIST_OFFSET_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.GET_CONTACT_NAME_NUMBER_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.HTTP_WAY
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.LICENSE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.MUTED
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_FILE_NAME
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_HEADER
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_JSON
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_MEDIA_TYPE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_SAVE_TO_FILE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.SPEAKERPHONE_ON
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.TITLE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.URL
+import com.ct.ertclib.dc.core.data.bridge.JsParamSpec
+import com.ct.ertclib.dc.core.data.bridge.JsRoute
+import com.ct.ertclib.dc.core.data.bridge.jsRoutes
 import com.ct.ertclib.dc.core.port.dispatcher.IJsEventDispatcher
 import com.ct.ertclib.dc.core.port.usecase.mini.IAppMiniUseCase
 import org.koin.core.component.KoinComponent
 import org.koin.core.component.inject
-import wendu.dsbridge.CompletionHandler
 
 class MiniAppJsEventDispatcher : IJsEventDispatcher, KoinComponent {
 
-    private val miniAppEventUseCase : IAppMiniUseCase by inject()
-
-    override fun dispatchAsyncMessage(context: Context, request: JSRequest, handler: CompletionHandler<String?>) {
-        when (request.function) {
-            FUNCTION_GET_MINI_APP_INFO -> miniAppEventUseCase.getMiniAppInfo(context, request.params, handler)
-            FUNCTION_START_APP -> miniAppEventUseCase.startApp(context, request.params, handler)
-            FUNCTION_SET_WINDOW -> miniAppEventUseCase.setWindow(context, request.params, handler)
-            FUNCTION_GET_REMOTE_NUMBER -> miniAppEventUseCase.getRemoteNumber(context, handler)
-            FUNCTION_GET_HTTP_RESULT -> miniAppEventUseCase.getHttpResult(request.params, handler)
-            FUNCTION_GET_CONTACT_LIST -> miniAppEventUseCase.getContactList(context, request.params,handler)
-            FUNCTION_IS_SPEAKERPHONE_ON -> miniAppEventUseCase.isSpeakerphoneOn(context, request.params,handler)
-            FUNCTION_IS_MUTED -> miniAppEventUseCase.isMuted(context, request.params,handler)
-
-            FUNCTION_ADD_CONTACT -> miniAppEventUseCase.addOrEditContactAsync(context, request.params,handler)
-            FUNCTION_GET_CONTACT_NAME -> miniAppEventUseCase.getContactNameAsync(context, request.params,handler)
-            FUNCTION_GET_SDK_INFO -> miniAppEventUseCase.getSDKInfoAsync(context, request.params,handler)
-            FUNCTION_GET_SCREEN_INFO -> miniAppEventUseCase.getScreenInfoAsync(context, request.params,handler)
-            FUNCTION_HANG_UP -> miniAppEventUseCase.hangupAsync(context,handler)
-            FUNCTION_GET_CALL_STATE -> miniAppEventUseCase.getCallStateAsync(context,handler)
-            FUNCTION_REQUEST_START_ADVERSE_APP -> miniAppEventUseCase.requestStartAdverseAppAsync(context,handler)
-            FUNCTION_SET_SYSTEM_API_LICENSE -> miniAppEventUseCase.setSystemApiLicenseAsync(context, request.params,handler)
-            FUNCTION_OPEN_WEB ->  miniAppEventUseCase.openWebAsync(context, request.params,handler)
-            FUNCTION_MOVE_TO_FRONT -> miniAppEventUseCase.moveToFrontAsync(handler)
-            FUNCTION_STOP_APP -> miniAppEventUseCase.stopAppAsync(handler)
-            FUNCTION_GET_SHARE_TYPE_NAME -> miniAppEventUseCase.getShareTypeNameAsync(context, request.params,handler)
-            FUNCTION_PLAY_DTMF_TONE -> miniAppEventUseCase.playDtmfToneAsync(context, request.params,handler)
-            FUNCTION_SET_SPEAKERPHONE -> miniAppEventUseCase.setSpeakerphoneAsync(context, request.params,handler)
-            FUNCTION_SET_MUTED -> miniAppEventUseCase.setMutedAsync(context, request.params,handler)
-            FUNCTION_ANSWER ->  miniAppEventUseCase.answerAsync(context,handler)
-        }
+    companion object {
+        private const val PARAM_APP_TYPE = "appType"
+        private const val PARAM_EXTRA = "extra"
+        private const val PARAM_HIDDEN = "hidden"
+        private const val PARAM_IS_FULL_SCREEN = "isFullScreen"
+        private const val PARAM_STATUS_BAR_COLOR = "statusBarColor"
+        private const val PARAM_STATUS_BAR_TITLE_COLOR = "statusBarTitleColor"
+        private const val PARAM_NAVIGATION_BAR_COLOR = "navigationBarColor"
+        private const val PARAM_PAGE_NAME = "pageName"
     }
 
-    override fun dispatchSyncMessage(context: Context, request: JSRequest): String? {
-        when (request.function) {
-            FUNCTION_ADD_CONTACT -> return miniAppEventUseCase.addOrEditContact(context, request.params)
-            FUNCTION_GET_CONTACT_NAME -> return miniAppEventUseCase.getContactName(context, request.params)
-            FUNCTION_GET_SDK_INFO -> miniAppEventUseCase.getSDKInfo(context, request.params)
-            FUNCTION_GET_SCREEN_INFO -> miniAppEventUseCase.getScreenInfo(context, request.params)
-            FUNCTION_HANG_UP -> return miniAppEventUseCase.hangup(context)
-            FUNCTION_GET_CALL_STATE -> return miniAppEventUseCase.getCallState(context)
-            FUNCTION_REQUEST_START_ADVERSE_APP -> return miniAppEventUseCase.requestStartAdverseApp(context)
-            FUNCTION_SET_SYSTEM_API_LICENSE -> return miniAppEventUseCase.setSystemApiLicense(context, request.params)
-            FUNCTION_OPEN_WEB -> return miniAppEventUseCase.openWeb(context, request.params)
-            FUNCTION_MOVE_TO_FRONT -> return miniAppEventUseCase.moveToFront()
-            FUNCTION_STOP_APP -> miniAppEventUseCase.stopApp()
-            FUNCTION_GET_SHARE_TYPE_NAME -> miniAppEventUseCase.getShareTypeName(context, request.params)
-            FUNCTION_PLAY_DTMF_TONE -> miniAppEventUseCase.playDtmfTone(context, request.params)
-            FUNCTION_SET_SPEAKERPHONE -> miniAppEventUseCase.setSpeakerphone(context, request.params)
-            FUNCTION_SET_MUTED -> miniAppEventUseCase.setMuted(context, request.params)
-            FUNCTION_ANSWER -> return miniAppEventUseCase.answer(context)
-        }
-        return ""
+    private val miniAppEventUseCase : IAppMiniUseCase by inject()
+
+    override fun routes(): List<JsRoute> = jsRoutes(EVENT_MINI_APP) {
+        route(FUNCTION_GET_MINI_APP_INFO, JsParamSpec.NONE, independent = true,
+            async = { context, params, handler -> miniAppEventUseCase.getMiniAppInfo(context, params, handler) })
+        route(FUNCTION_START_APP, JsParamSpec.of(PARAM_APP_TYPE, PARAM_EXTRA),
+            async = { context, params, handler -> miniAppEventUseCase.startApp(context, params, handler) })
+        route(FUNCTION_SET_WINDOW, JsParamSpec.of(PARAM_HIDDEN, PARAM_IS_FULL_SCREEN, PARAM_STATUS_BAR_COLOR,
+            PARAM_STATUS_BAR_TITLE_COLOR, PARAM_NAVIGATION_BAR_COLOR, PARAM_PAGE_NAME),
+            async = { context, params, handler -> miniAppEventUseCase.setWindow(context, params, handler) })
+        route(FUNCTION_GET_REMOTE_NUMBER, JsParamSpec.NONE, independent = true,
+            async = { context, _, handler -> miniAppEventUseCase.getRemoteNumber(context, handler) })
+        route(FUNCTION_GET_HTTP_RESULT,
+            JsParamSpec.of(URL, HTTP_WAY, PARAMS_JSON, PARAMS_MEDIA_TYPE, PARAMS_HEADER, PARAMS_SAVE_TO_FILE, PARAMS_FILE_NAME),
+            async = { _, params, handler -> miniAppEventUseCase.getHttpResult(params, handler) })
+        route(FUNCTION_GET_CONTACT_LIST,
+            JsParamSpec.of(GET_CONTACT_LIST_OFFSET_PARAM, GET_CONTACT_LIST_LIMIT_PARAM, GET_CONTACT_LIST_CURSOR_PARAM), independent = true,
+            async = { context, params, handler -> miniAppEventUseCase.getContactList(context, params, handler) })
+        route(FUNCTION_IS_SPEAKERPHONE_ON, JsParamSpec.NONE, independent = true,
+            async = { context, params, handler -> miniAppEventUseCase.isSpeakerphoneOn(context, params, handler) })
+        route(FUNCTION_IS_MUTED, JsParamSpec.NONE, independent = true,
+            async = { context, params, handler -> miniAppEventUseCase.isMuted(context, params, handler) })
+        route(FUNCTION_ADD_CONTACT, JsParamSpec.of(ADD_CONTACT_MODE, ADD_CONTACT_NAME_PARAM, ADD_CONTACT_NUMBER_PARAM),
+            async = { context, params, handler -> miniAppEventUseCase.addOrEditContactAsync(context, params, handler) },
+            sync = { context, params -> miniAppEventUseCase.addOrEditContact(context, params) })
+        route(FUNCTION_GET_CONTACT_NAME, JsParamSpec.of(GET_CONTACT_NAME_NUMBER_PARAM), independent = true,
+            async = { context, params, handler -> miniAppEventUseCase.getContactNameAsync(context, params, handler) },
+            sync = { context, params -> miniAppEventUseCase.getContactName(context, params) })
+        route(FUNCTION_GET_SDK_INFO, JsParamSpec.NONE, independent = true,
+            async = { context, params, handler -> miniAppEventUseCase.getSDKInfoAsync(context, params, handler) },
+            sync = { context, params -> miniAppEventUseCase.getSDKInfo(context, params) })
+        route(FUNCTION_GET_SCREEN_INFO, JsParamSpec.NONE, independent = true,
+            async = { context, params, handler -> miniAppEventUseCase.getScreenInfoAsync(context, params, handler) },
+            sync = { context, params -> miniAppEventUseCase.getScreenInfo(context, params) })
+        route(FUNCTION_HANG_UP, JsParamSpec.NONE,
+            async = { context, _, handler -> miniAppEventUseCase.hangupAsync(context, handler) },
+            sync = { context, _ -> miniAppEventUseCase.hangup(context) })
+        route(FUNCTION_GET_CALL_STATE, JsParamSpec.NONE, independent = true,
+            async = { context, _, handler -> miniAppEventUseCase.getCallStateAsync(context, handler) },
+            sync = { context, _ -> miniAppEventUseCase.getCallState(context) })
+        route(FUNCTION_REQUEST_START_ADVERSE_APP, JsParamSpec.NONE,
+            async = { context, _, handler -> miniAppEventUseCase.requestStartAdverseAppAsync(context, handler) },
+            sync = { context, _ -> miniAppEventUseCase.requestStartAdverseApp(context) })
+        route(FUNCTION_SET_SYSTEM_API_LICENSE, JsParamSpec.of(LICENSE, API),
+            async = { context, params, handler -> miniAppEventUseCase.setSystemApiLicenseAsync(context, params, handler) },
+            sync = { context, params -> miniAppEventUseCase.setSystemApiLicense(context, params) })
+        route(FUNCTION_OPEN_WEB, JsParamSpec.of(URL, TITLE),
+            async = { context, params, handler -> miniAppEventUseCase.openWebAsync(context, params, handler) },
+            sync = { context, params -> miniAppEventUseCase.openWeb(context, params) })
+        route(FUNCTION_MOVE_TO_FRONT, JsParamSpec.NONE,
+            async = { _, _, handler -> miniAppEventUseCase.moveToFrontAsync(handler) },
+            sync = { _, _ -> miniAppEventUseCase.moveToFront() })
+        route(FUNCTION_STOP_APP, JsParamSpec.NONE,
+            async = { _, _, handler -> miniAppEventUseCase.stopAppAsync(handler) },
+            sync = { _, _ -> miniAppEventUseCase.stopApp() })
+        route(FUNCTION_GET_SHARE_TYPE_NAME, JsParamSpec.NONE, independent = true,
+            async = { context, params, handler -> miniAppEventUseCase.getShareTypeNameAsync(context, params, handler) },
+            sync = { context, params -> miniAppEventUseCase.getShareTypeName(context, params) })
+        route(FUNCTION_PLAY_DTMF_TONE, JsParamSpec.of(DIGIT, LICENSE),
+            async = { context, params, handler -> miniAppEventUseCase.playDtmfToneAsync(context, params, handler) },
+            sync = { context, params -> miniAppEventUseCase.playDtmfTone(context, params) })
+        route(FUNCTION_SET_SPEAKERPHONE, JsParamSpec.of(SPEAKERPHONE_ON),
+            async = { context, params, handler -> miniAppEventUseCase.setSpeakerphoneAsync(context, params, handler) },
+            sync = { context, params -> miniAppEventUseCase.setSpeakerphone(context, params) })
+        route(FUNCTION_SET_MUTED, JsParamSpec.of(MUTED),
+            async = { context, params, handler -> miniAppEventUseCase.setMutedAsync(context, params, handler) },
+            sync = { context, params -> miniAppEventUseCase.setMuted(context, params) })
+        route(FUNCTION_ANSWER, JsParamSpec.NONE,
+            async = { context, _, handler -> miniAppEventUseCase.answerAsync(context, handler) },
+            sync = { context, _ -> miniAppEventUseCase.answer(context) })
     }
-}
\ No newline at end of file
+}
@@ -16,7 +16,7 @@
 
 package com.ct.ertclib.dc.core.dispatcher.js
 
-import android.content.Context
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_SCREEN_SHARE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_CLOSE_SKETCH_BOARD
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_DRAWING_INFO
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_OPEN_SKETCH_BOARD
@@ -26,43 +26,44 @@ import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_REQUEST_SCREEN
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_SET_PRIVACY_MODE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_START_SCREEN_SHARE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_STOP_SCREEN_SHARE
-import com.ct.ertclib.dc.core.data.bridge.JSRequest
+import com.ct.ertclib.dc.core.data.bridge.JsParamSpec
+import com.ct.ertclib.dc.core.data.bridge.JsRoute
+import com.ct.ertclib.dc.core.data.bridge.jsRoutes
 import com.ct.ertclib.dc.core.port.dispatcher.IJsEventDispatcher
 import com.ct.ertclib.dc.core.port.usecase.mini.IScreenShareMiniUseCase
 import org.koin.core.component.KoinComponent
 import org.koin.core.component.inject
-import wendu.dsbridge.CompletionHandler
 
 class ScreenShareJsEventDispatcher : IJsEventDispatcher, KoinComponent {
 
     private val screenShareUseCase : IScreenShareMiniUseCase by inject()
 
-    override fun dispatchAsyncMessage(context: Context, request: JSRequest, handler: CompletionHandler<String?>) {
-        when (request.function) {
-            FUNCTION_START_SCREEN_SHARE -> screenShareUseCase.startScreenShare(context, request.params,handler)
-            FUNCTION_REQUEST_SCREEN_SHARE_ABILITY -> screenShareUseCase.requestScreenShareAbility(handler)
-
-            FUNCTION_STOP_SCREEN_SHARE -> screenShareUseCase.stopScreenShareAsync(context,handler)
-            FUNCTION_OPEN_SKETCH_BOARD -> screenShareUseCase.openSketchBoardAsync(request.params,handler)
-            FUNCTION_CLOSE_SKETCH_BOARD -> screenShareUseCase.closeSketchBoardAsync(handler)
-            FUNCTION_DRAWING_INFO -> screenShareUseCase.addDrawingInfoAsync(request.params,handler)
-            FUNCTION_REMOTE_SIZE_INFO -> screenShareUseCase.addRemoteSizeInfoAsync(request.params,handler)
-            FUNCTION_SET_PRIVACY_MODE -> screenShareUseCase.setPrivacyModeAsync(request.params,handler)
-            FUNCTION_REMOTE_WINDOW_SIZE_INFO -> screenShareUseCase.addRemoteWindowSizeInfoAsync(request.params,handler)
-        }
-    }
-
-    override fun dispatchSyncMessage(context: Context, request: JSRequest): String {
-        return when (request.function) {
-            FUNCTION_STOP_SCREEN_SHARE -> screenShareUseCase.stopScreenShare(context)
-            FUNCTION_OPEN_SKETCH_BOARD -> screenShareUseCase.openSketchBoard(request.params)
-            FUNCTION_CLOSE_SKETCH_BOARD -> screenShareUseCase.closeSketchBoard()
-            FUNCTION_DRAWING_INFO -> screenShareUseCase.addDrawingInfo(request.params)
-            FUNCTION_REMOTE_SIZE_INFO -> screenShareUseCase.addRemoteSizeInfo(request.params)
-            FUNCTION_SET_PRIVACY_MODE -> screenShareUseCase.setPrivacyMode(request.params)
-            FUNCTION_REMOTE_WINDOW_SIZE_INFO -> screenShareUseCase.addRemoteWindowSizeInfo(request.params)
-            else -> ""
-        }
-
+    override fun routes(): List<JsRoute> = jsRoutes(EVENT_SCREEN_SHARE) {
+        // 以下接口把params原样转发给主进程处理
+        route(FUNCTION_START_SCREEN_SHARE, JsParamSpec.ALL,
+            async = { context, params, handler -> screenShareUseCase.startScreenShare(context, params, handler) })
+        route(FUNCTION_REQUEST_SCREEN_SHARE_ABILITY, JsParamSpec.NONE,
+            async = { _, _, handler -> screenShareUseCase.requestScreenShareAbility(handler) })
+        route(FUNCTION_STOP_SCREEN_SHARE, JsParamSpec.NONE,
+            async = { context, _, handler -> screenShareUseCase.stopScreenShareAsync(context, handler) },
+            sync = { context, _ -> screenShareUseCase.stopScreenShare(context) })
+        route(FUNCTION_OPEN_SKETCH_BOARD, JsParamSpec.ALL,
+            async = { _, params, handler -> screenShareUseCase.openSketchBoardAsync(params, handler) },
+            sync = { _, params -> screenShareUseCase.openSketchBoard(params) })
+        route(FUNCTION_CLOSE_SKETCH_BOARD, JsParamSpec.NONE,
+            async = { _, _, handler -> screenShareUseCase.closeSketchBoardAsync(handler) },
+            sync = { _, _ -> screenShareUseCase.closeSketchBoard() })
+        route(FUNCTION_DRAWING_INFO, JsParamSpec.ALL,
+            async = { _, params, handler -> screenShareUseCase.addDrawingInfoAsync(params, handler) },
+            sync = { _, params -> screenShareUseCase.addDrawingInfo(params) })
+        route(FUNCTION_REMOTE_SIZE_INFO, JsParamSpec.ALL,
+            async = { _, params, handler -> screenShareUseCase.addRemoteSizeInfoAsync(params, handler) },
+            sync = { _, params -> screenShareUseCase.addRemoteSizeInfo(params) })
+        route(FUNCTION_SET_PRIVACY_MODE, JsParamSpec.ALL,
+            async = { _, params, handler -> screenShareUseCase.setPrivacyModeAsync(params, handler) },
+            sync = { _, params -> screenShareUseCase.setPrivacyMode(params) })
+        route(FUNCTION_REMOTE_WINDOW_SIZE_INFO, JsParamSpec.ALL,
+            async = { _, params, handler -> screenShareUseCase.addRemoteWindowSizeInfoAsync(params, handler) },
+            sync = { _, params -> screenShareUseCase.addRemoteWindowSizeInfo(params) })
     }
-}
\ No newline at end of file
+}
@@ -51,7 +51,8 @@ import com.ct.ertclib.dc.core.manager.common.StateFlowManager
 import com.ct.ertclib.dc.core.miniapp.MiniAppManager
 import com.ct.ertclib.dc.core.port.call.ICallInfoUpdateListener
 import com.ct.ertclib.dc.core.port.dc.IDcCreateListener
-import com.ct.ertclib.dc.core.utils.common.UsageStateUtils
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
 import com.newcalllib.datachannel.V1_0.IDCSendDataCallback
 import com.newcalllib.datachannel.V1_0.IImsDCObserver
 import com.newcalllib.datachannel.V1_0.IImsDataChannel
@@ -60,12 +61,13 @@ import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.SupervisorJob
-import kotlinx.coroutines.delay
+import kotlinx.coroutines.channels.Channel
 import kotlinx.coroutines.flow.distinctUntilChanged
-import kotlinx.coroutines.isActive
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
 import okhttp3.Request
 import org.koin.core.component.KoinComponent
+import org.koin.core.component.inject
 import java.util.concurrent.LinkedBlockingDeque
 
 
@@ -77,9 +79,20 @@ class BDCManager(
 
     companion object {
         private const val TAG = "BDCManager"
+        private const val CALL_INFO_REFRESH_MIN_MS = 300L
+        private const val CALL_INFO_REFRESH_MAX_MS = 5_000L
     }
 
     private val sLogger: Logger = Logger.getLogger(TAG)
+    private val foregroundTracker: CallForegroundTracker by inject()
+
+    private val metrics = MetricsRegistry.instance
+    private val appListLatency = metrics.histogram(MetricNames.BDC_REQUEST_APP_LIST)
+    private val appLatency = metrics.histogram(MetricNames.BDC_REQUEST_APP)
+    private val retryCounter = metrics.counter(MetricNames.BDC_REQUEST_RETRY)
+    private val failedCounter = metrics.counter(MetricNames.BDC_REQUEST_FAILED)
+    private val responseBytesCounter = metrics.counter(MetricNames.BDC_RESPONSE_BYTES)
+    private val requestQueueGauge = metrics.gauge(MetricNames.BDC_REQUEST_QUEUE)
 
     private val mTag: String = "BDCManager[${callInfo.telecomCallId}]"
     private val mHandlerThread = HandlerThread(mTag)
@@ -89,6 +102,8 @@ class BDCManager(
     private val scope = CoroutineScope(Dispatchers.Default + SupervisorJob())
     private var job1 :Job ?= null
     private var job2 :Job ?= null
+    private var foregroundPolling = false
+    private val callInfoWakeup = Channel<Unit>(Channel.CONFLATED)
 
     init {
         mAskToUnlock = false
@@ -155,21 +170,38 @@ class BDCManager(
             return
         }
         sLogger.info("${mTag}checkTopActivityTask...")
+        // 通话界面属于其他应用时才需要轮询，本进程的界面由生命周期回调更新
+        foregroundPolling = SDKPermissionUtils.isFellowDialer() && FlavorUtils.getChannelName() != FlavorUtils.CHANNEL_DIALER
+        if (foregroundPolling) {
+            foregroundTracker.startPolling()
+        }
         job2 = scope.launch {
-            while (isActive && mDc?.state == ImsDCStatus.DC_STATE_OPEN && callInfo.state!=Call.STATE_DISCONNECTED) {
-                // 利用定时任务顺便刷新一下通话信息
-                StateFlowManager.emitCallInfoFlow(
-                    CallStateData(
-                        callInfo,
-                        SystemClock.currentThreadTimeMillis()
-                    )
-                )
+            launch { refreshCallInfo() }
+            foregroundTracker.state.collect {
                 updateMiniAppEntryHolder()
-                delay(300)
+                callInfoWakeup.trySend(Unit)
             }
         }
     }
 
+    /**
+     * slotId在授权后才能取到，取到之前按退避间隔请求刷新通话信息。
+     * 授权弹窗关闭时前台状态会变化，这时立即刷新并重置间隔
+     */
+    private suspend fun refreshCallInfo() {
+        var interval = CALL_INFO_REFRESH_MIN_MS
+        while (callInfo.slotId == -1 && mDc?.state == ImsDCStatus.DC_STATE_OPEN && callInfo.state != Call.STATE_DISCONNECTED) {
+            StateFlowManager.emitCallInfoFlow(
+                CallStateData(
+                    callInfo,
+                    SystemClock.currentThreadTimeMillis()
+                )
+            )
+            val woken = withTimeoutOrNull(interval) { callInfoWakeup.receive() } != null
+            interval = if (woken) CALL_INFO_REFRESH_MIN_MS else (interval * 2).coerceAtMost(CALL_INFO_REFRESH_MAX_MS)
+        }
+    }
+
     private fun handleReceiveMsg(telecomCallId: String, data: ByteArray) {
         if (mRequestMessageQueue.isEmpty()) {
             sLogger.info("$mTag handleReceiveMsg-request is null, data:${data}")
@@ -195,8 +227,10 @@ class BDCManager(
         }
 
         sendNextRequest()
+        recordRequestCompleted(requestMessage)
         val decodeHttpResponse = HttpStackHelper.decode(requestMessage.request, requestMessage.data!!)
         if (decodeHttpResponse == null) {
+            failedCounter.increment()
             if (sLogger.isDebugActivated) {
                 sLogger.debug("${mTag}handleReceiveMsg decodeHttpResp is null")
             }
@@ -205,6 +239,7 @@ class BDCManager(
             }
             notifyDownloadFailed(appId = requestMessage.appId!!, null)
         } else if (!decodeHttpResponse.isSuccessful) {
+            failedCounter.increment()
             if (sLogger.isDebugActivated) {
                 sLogger.debug("${mTag}handleReceiveMsg decodeHttpResp code: ${decodeHttpResponse.code()}")
             }
@@ -221,6 +256,12 @@ class BDCManager(
         }
     }
 
+    private fun recordRequestCompleted(requestMessage: RequestMessage) {
+        val histogram = if (MessageType.TYPE_GET_MINI_APP_LIST == requestMessage.messageType) appListLatency else appLatency
+        histogram.recordSince(requestMessage.startNanos)
+        responseBytesCounter.add((requestMessage.data?.size ?: 0).toLong())
+    }
+
     private fun notifyDownloadFailed(appId: String, errorMsg: String?) {
 
         val miniAppDownloadResult =
@@ -313,10 +354,12 @@ class BDCManager(
             if (sLogger.isDebugActivated) {
                 sLogger.debug("$mTag requestMessage ${firstRequestMessage.messageType} retry too many")
             }
+            failedCounter.increment()
             sendNextRequest()
             return
         }
         firstRequestMessage.status = RequestMessageStatus.RETRY
+        retryCounter.increment()
         if (mHandlerThreadQuited) {
             sLogger.info("handleSendDataResult DcMessageHandler has been quitted.")
             return
@@ -333,6 +376,7 @@ class BDCManager(
             return
         }
         mRequestMessageQueue.removeFirst()
+        requestQueueGauge.set(mRequestMessageQueue.size.toLong())
         sendRequest()
     }
 
@@ -456,6 +500,7 @@ class BDCManager(
         var data: ByteArray? = null
         var retryCount: Int = 0
         var status: RequestMessageStatus = RequestMessageStatus.IDLE
+        var startNanos: Long = 0
 
         override fun toString(): String {
             return "RequestMessage(dc=$dc, messageTye=$messageType, appId=$appId, request='$request', data=${data?.contentToString()}, retryCount=$retryCount, status=$status)"
@@ -528,11 +573,16 @@ class BDCManager(
         job2?.cancel()
         job1 = null
         job2 = null
+        if (foregroundPolling) {
+            foregroundPolling = false
+            foregroundTracker.stopPolling()
+        }
         mDc = null
         miniAppManager.onImsBDCClose()
         miniAppManager.unregisterMiniAppListLoadedCallback()
         updateMiniAppEntryHolder()
         mRequestMessageQueue.clear()
+        requestQueueGauge.set(0)
         if (!mHandlerThreadQuited){
             mHandlerThreadQuited = mHandlerThread.quitSafely()
         }
@@ -557,7 +607,9 @@ class BDCManager(
 
     private fun addRequestMessageToSend(requestMessage: RequestMessage) {
         sLogger.info("$mTag, addRequestMessageToSend $requestMessage")
+        requestMessage.startNanos = metrics.nanoTime()
         mRequestMessageQueue.add(requestMessage)
+        requestQueueGauge.set(mRequestMessageQueue.size.toLong())
         sendRequest()
     }
 
@@ -651,6 +703,7 @@ class BDCManager(
             return
         }
         this.callInfo.state = state
+        foregroundTracker.poke()
         updateMiniAppEntryHolder()
         NewCallAppSdkInterface.emitCallInfoEventFlow(callInfo)
     }
@@ -680,13 +733,13 @@ class BDCManager(
                 hideReason = 1
             }
             hideMiniAppEntryHolder()
-        } else if (SDKPermissionUtils.isFellowDialer() && !UsageStateUtils.isInCallOnTop() &&  FlavorUtils.getChannelName() != FlavorUtils.CHANNEL_DIALER) {
+        } else if (SDKPermissionUtils.isFellowDialer() && !foregroundTracker.state.value.inCallOnTop &&  FlavorUtils.getChannelName() != FlavorUtils.CHANNEL_DIALER) {
             if (hideReason != 2){
                 sLogger.info("$mTag updateMiniAppEntryHolder hide when in call not top")
                 hideReason = 2
             }
             hideMiniAppEntryHolder()
-        } else if (!SDKPermissionUtils.isFellowDialer() && UsageStateUtils.isMiniAppExpandedActivityShow() && FlavorUtils.getChannelName() != FlavorUtils.CHANNEL_DIALER) {
+        } else if (!SDKPermissionUtils.isFellowDialer() && foregroundTracker.state.value.expandedShown && FlavorUtils.getChannelName() != FlavorUtils.CHANNEL_DIALER) {
             if (hideReason != 3){
                 sLogger.info("$mTag updateMiniAppEntryHolder hide when expended list")
                 hideReason = 3
@@ -0,0 +1,48 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.call
+
+import android.app.Activity
+import android.app.Application
+import android.os.Bundle
+
+/**
+ * 把本进程Activity的前后台切换同步给[CallForegroundTracker]
+ */
+class CallForegroundLifecycleCallbacks(
+    private val tracker: CallForegroundTracker
+) : Application.ActivityLifecycleCallbacks {
+
+    override fun onActivityResumed(activity: Activity) {
+        tracker.onActivityResumed(activity.javaClass.name)
+    }
+
+    override fun onActivityPaused(activity: Activity) {
+        tracker.onActivityPaused(activity.javaClass.name)
+    }
+
+    override fun onActivityCreated(activity: Activity, savedInstanceState: Bundle?) {}
+
+    override fun onActivityStarted(activity: Activity) {}
+
+    override fun onActivityStopped(activity: Activity) {}
+
+    override fun onActivitySaveInstanceState(activity: Activity, outState: Bundle) {}
+
+    override fun onActivityDestroyed(activity: Activity) {}
+}
@@ -0,0 +1,168 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.call
+
+import com.ct.ertclib.dc.core.data.call.CallForegroundState
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
+
+/**
+ * 通话前台状态跟踪
+ *
+ * 本进程的Activity由生命周期回调直接更新状态，InCallService回调和通话状态变化通过[poke]触发一次探测。
+ * 只有通话界面属于其他应用时才需要[startPolling]轮询[probe]，间隔在状态不变时从[minIntervalMs]
+ * 倍增到[maxIntervalMs]，状态变化或有事件时回到最小间隔。状态用StateFlow保存，相同的值不会重复通知。
+ *
+ * @param probe 查询最近进入前台的Activity类名，没有新的记录时返回null
+ */
+class CallForegroundTracker(
+    private val probe: () -> String?,
+    private val minIntervalMs: Long = MIN_INTERVAL_MS,
+    private val maxIntervalMs: Long = MAX_INTERVAL_MS,
+    dispatcher: CoroutineDispatcher = Dispatchers.Default,
+    metrics: MetricsRegistry = MetricsRegistry.instance
+) {
+
+    companion object {
+        private const val TAG = "CallForegroundTracker"
+        private const val MIN_INTERVAL_MS = 300L
+        private const val MAX_INTERVAL_MS = 5_000L
+        private const val EXPANDED_ACTIVITY = "com.ct.ertclib.dc.app.ui.activity.MiniAppExpandedActivity"
+        private val IN_CALL_ACTIVITIES = setOf(
+            "com.android.incallui.InCallActivity",
+            "com.android.incallui.LegacyInCallActivity",
+            "com.ct.ertclib.dc.app.MainActivity",
+            "com.ct.ertclib.dc.feature.testing.LocalTestingMainActivity",
+            "com.android.incallui.OplusInCallActivity",
+            "com.android.incallui.call.InCallActivity"
+        )
+    }
+
+    private val sLogger: Logger = Logger.getLogger(TAG)
+
+    private val probeCounter = metrics.counter(MetricNames.CALL_FOREGROUND_PROBE)
+    private val changeCounter = metrics.counter(MetricNames.CALL_FOREGROUND_CHANGE)
+
+    private val scope = CoroutineScope(dispatcher + SupervisorJob())
+    private val wakeup = Channel<Unit>(Channel.CONFLATED)
+    private val lock = Any()
+    private var pollingClients = 0
+    private var pollJob: Job? = null
+
+    private val _state = MutableStateFlow(CallForegroundState())
+    val state: StateFlow<CallForegroundState> = _state
+
+    fun onActivityResumed(className: String) {
+        update(className)
+    }
+
+    fun onActivityPaused(className: String) {
+        // 没有轮询时poke不会探测，离开前台的界面要在这里清掉；接下来进入前台的界面会再更新
+        val current = _state.value
+        if (current.expandedShown && className == EXPANDED_ACTIVITY || current.inCallOnTop && IN_CALL_ACTIVITIES.contains(className)) {
+            update(null)
+        }
+        poke()
+    }
+
+    /**
+     * 有事件时立即探测一次，并把轮询间隔重置为最小值
+     */
+    fun poke() {
+        wakeup.trySend(Unit)
+    }
+
+    /**
+     * 需要跟踪其他应用的通话界面时调用，与[stopPolling]成对使用
+     */
+    fun startPolling() {
+        synchronized(lock) {
+            pollingClients++
+            if (pollJob == null) {
+                sLogger.info("startPolling")
+                pollJob = scope.launch { pollLoop() }
+            }
+        }
+    }
+
+    fun stopPolling() {
+        synchronized(lock) {
+            if (pollingClients == 0) {
+                return
+            }
+            pollingClients--
+            if (pollingClients == 0) {
+                sLogger.info("stopPolling")
+                pollJob?.cancel()
+                pollJob = null
+            }
+        }
+    }
+
+    private suspend fun CoroutineScope.pollLoop() {
+        var interval = minIntervalMs
+        var woken = true
+        while (isActive) {
+            probeCounter.increment()
+            val className = try {
+                probe()
+            } catch (e: Exception) {
+                sLogger.warn("probe error: ${e.message}")
+                null
+            }
+            val changed = className != null && update(className)
+            interval = nextInterval(interval, changed || woken)
+            woken = withTimeoutOrNull(interval) { wakeup.receive() } != null
+        }
+    }
+
+    internal fun nextInterval(interval: Long, active: Boolean): Long {
+        return if (active) minIntervalMs else (interval * 2).coerceAtMost(maxIntervalMs)
+    }
+
+    /**
+     * @return 状态是否变化
+     */
+    private fun update(topClassName: String?): Boolean {
+        val newState = CallForegroundState(
+            inCallOnTop = topClassName != null && IN_CALL_ACTIVITIES.contains(topClassName),
+            expandedShown = EXPANDED_ACTIVITY == topClassName
+        )
+        val oldState = _state.value
+        if (oldState == newState || !_state.compareAndSet(oldState, newState)) {
+            return false
+        }
+        changeCounter.increment()
+        if (sLogger.isDebugActivated) {
+            sLogger.debug("foreground changed: $newState, top: $topClassName")
+        }
+        return true
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.call
+
+import com.ct.ertclib.dc.core.data.call.Contact
+import com.ct.ertclib.dc.core.data.call.ContactPage
+import com.ct.ertclib.dc.core.port.manager.IContactsManager
+import com.ct.ertclib.dc.core.utils.logger.Logger
+
+/**
+ * 通讯录快照
+ *
+ * 首次查询时一次联表查询加载全部联系人并按姓名排序，之后分页和总数都从内存快照返回。
+ * 通讯录变化时由ContentObserver标记失效，下次查询按CONTACT_LAST_UPDATED_TIMESTAMP和删除时间
+ * 只重新加载变化的联系人，变化过多时整体重新加载。
+ */
+class ContactsManager(private val source: ContactsSource) : IContactsManager {
+
+    companion object {
+        private const val TAG = "ContactsManager"
+        private const val MAX_INCREMENTAL_CHANGES = 200
+        private const val CURSOR_SEPARATOR = ':'
+
+        private val ORDER = compareBy<Contact>({ it.name }, { it.id })
+    }
+
+    /**
+     * @param updatedMark 快照中最新的联系人更新时间
+     * @param deletedMark 已处理的最新删除时间
+     */
+    private class Snapshot(val contacts: List<Contact>, val updatedMark: Long, val deletedMark: Long)
+
+    private val sLogger: Logger = Logger.getLogger(TAG)
+    private val lock = Any()
+
+    @Volatile
+    private var snapshot: Snapshot? = null
+
+    @Volatile
+    private var dirty = true
+    private var observing = false
+
+    override fun getContacts(offset: Int, limit: Int): ContactPage {
+        val contacts = ensureSnapshot().contacts
+        val from = offset.coerceIn(0, contacts.size)
+        return page(contacts, from, limit)
+    }
+
+    override fun getContactsAfter(cursor: String?, limit: Int): ContactPage {
+        val contacts = ensureSnapshot().contacts
+        val from = cursor?.let { positionAfter(contacts, it) } ?: 0
+        return page(contacts, from, limit)
+    }
+
+    override fun invalidate() {
+        dirty = true
+    }
+
+    private fun page(contacts: List<Contact>, from: Int, limit: Int): ContactPage {
+        val to = from + minOf(contacts.size - from, limit.coerceAtLeast(0))
+        val list = ArrayList(contacts.subList(from, to))
+        val nextCursor = if (to < contacts.size && to > from) cursorOf(contacts[to - 1]) else null
+        return ContactPage(list, contacts.size, nextCursor)
+    }
+
+    private fun cursorOf(contact: Contact): String = "${contact.id}$CURSOR_SEPARATOR${contact.name}"
+
+    private fun positionAfter(contacts: List<Contact>, cursor: String): Int {
+        val separator = cursor.indexOf(CURSOR_SEPARATOR)
+        val id = if (separator > 0) cursor.substring(0, separator).toLongOrNull() else null
+        if (id == null) {
+            sLogger.warn("invalid cursor: $cursor")
+            return 0
+        }
+        val key = Contact(id, cursor.substring(separator + 1), null)
+        val index = contacts.binarySearch(key, ORDER)
+        // 游标对应的联系人已删除时，从它原来的位置继续
+        return if (index >= 0) index + 1 else -index - 1
+    }
+
+    private fun ensureSnapshot(): Snapshot {
+        if (!dirty) {
+            snapshot?.let { return it }
+        }
+        synchronized(lock) {
+            if (!observing) {
+                source.observe { dirty = true }
+                observing = true
+            }
+            val current = snapshot
+            if (!dirty && current != null) {
+                return current
+            }
+            // 先清标记再查询，查询期间的变化会再次标记
+            dirty = false
+            val next = if (current == null) load(0) else refresh(current)
+            snapshot = next
+            return next
+        }
+    }
+
+    private fun load(deletedSince: Long): Snapshot {
+        val rows = source.queryContacts(null)
+        val deleted = source.queryDeletedSince(deletedSince)
+        val contacts = build(rows)
+        contacts.sortWith(ORDER)
+        sLogger.debug { "load contacts: ${contacts.size}" }
+        return Snapshot(contacts, rows.maxOfOrNull { it.lastUpdated } ?: 0, deleted.values.maxOrNull() ?: deletedSince)
+    }
+
+    private fun refresh(current: Snapshot): Snapshot {
+        val updated = source.queryUpdatedSince(current.updatedMark)
+        val deleted = source.queryDeletedSince(current.deletedMark)
+        if (updated.isEmpty() && deleted.isEmpty()) {
+            return current
+        }
+        if (updated.size + deleted.size > MAX_INCREMENTAL_CHANGES) {
+            return load(current.deletedMark)
+        }
+        val changed = if (updated.isEmpty()) emptyList() else build(source.queryContacts(updated.keys))
+        val merged = ArrayList<Contact>(current.contacts.size + changed.size)
+        current.contacts.filterTo(merged) { !updated.containsKey(it.id) && !deleted.containsKey(it.id) }
+        merged.addAll(changed)
+        merged.sortWith(ORDER)
+        sLogger.debug { "refresh contacts, updated: ${updated.size}, deleted: ${deleted.size}" }
+        return Snapshot(
+            merged,
+            maxOf(current.updatedMark, updated.values.maxOrNull() ?: 0),
+            maxOf(current.deletedMark, deleted.values.maxOrNull() ?: 0)
+        )
+    }
+
+    /**
+     * 同一联系人的多行合并为一条，电话取第一个
+     */
+    private fun build(rows: List<ContactsSource.Row>): ArrayList<Contact> {
+        val byId = LinkedHashMap<Long, Contact>(rows.size)
+        for (row in rows) {
+            val existing = byId[row.contactId]
+            if (existing == null) {
+                byId[row.contactId] = Contact(row.contactId, row.name ?: "", row.phoneNumber)
+            } else if (existing.phoneNumber == null && row.phoneNumber != null) {
+                byId[row.contactId] = existing.copy(phoneNumber = row.phoneNumber)
+            }
+        }
+        return ArrayList(byId.values)
+    }
+}
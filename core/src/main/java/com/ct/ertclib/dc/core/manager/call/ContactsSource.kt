@@ -0,0 +1,55 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.call
+
+/**
+ * 通讯录数据源，屏蔽ContentResolver，便于在JVM上测试[ContactsManager]
+ */
+interface ContactsSource {
+
+    /**
+     * Data表的一行，phoneNumber只在电话号码行上有值
+     */
+    class Row(
+        val contactId: Long,
+        val name: String?,
+        val phoneNumber: String?,
+        val lastUpdated: Long
+    )
+
+    /**
+     * 一次联表查询取出联系人的姓名和电话
+     *
+     * @param contactIds 为空时查询全部联系人
+     */
+    fun queryContacts(contactIds: Collection<Long>?): List<Row>
+
+    /**
+     * @return 更新时间晚于timestamp的联系人id到更新时间
+     */
+    fun queryUpdatedSince(timestamp: Long): Map<Long, Long>
+
+    /**
+     * @return 删除时间晚于timestamp的联系人id到删除时间
+     */
+    fun queryDeletedSince(timestamp: Long): Map<Long, Long>
+
+    /**
+     * 通讯录变化时回调，可能在任意线程
+     */
+    fun observe(onChange: () -> Unit)
+}
@@ -0,0 +1,92 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.call
+
+import android.content.Context
+import android.database.ContentObserver
+import android.net.Uri
+import android.provider.ContactsContract
+import android.provider.ContactsContract.CommonDataKinds.Phone
+import android.provider.ContactsContract.CommonDataKinds.StructuredName
+
+class ContentResolverContactsSource(private val context: Context) : ContactsSource {
+
+    companion object {
+        private val DATA_PROJECTION = arrayOf(
+            ContactsContract.Data.CONTACT_ID,
+            ContactsContract.Data.DISPLAY_NAME,
+            ContactsContract.Data.MIMETYPE,
+            Phone.NUMBER,
+            ContactsContract.Data.CONTACT_LAST_UPDATED_TIMESTAMP
+        )
+        private const val DATA_SELECTION = "${ContactsContract.Data.MIMETYPE} IN (?, ?)"
+        private val DATA_SELECTION_ARGS = arrayOf(Phone.CONTENT_ITEM_TYPE, StructuredName.CONTENT_ITEM_TYPE)
+    }
+
+    override fun queryContacts(contactIds: Collection<Long>?): List<ContactsSource.Row> {
+        val selection = if (contactIds == null) {
+            DATA_SELECTION
+        } else {
+            // id为数字，直接拼接，避免超过SQLite的参数个数上限
+            "$DATA_SELECTION AND ${ContactsContract.Data.CONTACT_ID} IN (${contactIds.joinToString(",")})"
+        }
+        val rows = ArrayList<ContactsSource.Row>()
+        context.contentResolver.query(ContactsContract.Data.CONTENT_URI, DATA_PROJECTION, selection, DATA_SELECTION_ARGS, null)?.use {
+            while (it.moveToNext()) {
+                val isPhone = it.getString(2) == Phone.CONTENT_ITEM_TYPE
+                rows.add(ContactsSource.Row(it.getLong(0), it.getString(1), if (isPhone) it.getString(3) else null, it.getLong(4)))
+            }
+        }
+        return rows
+    }
+
+    override fun queryUpdatedSince(timestamp: Long): Map<Long, Long> {
+        return queryTimestamps(
+            ContactsContract.Contacts.CONTENT_URI,
+            ContactsContract.Contacts._ID,
+            ContactsContract.Contacts.CONTACT_LAST_UPDATED_TIMESTAMP,
+            timestamp
+        )
+    }
+
+    override fun queryDeletedSince(timestamp: Long): Map<Long, Long> {
+        return queryTimestamps(
+            ContactsContract.DeletedContacts.CONTENT_URI,
+            ContactsContract.DeletedContacts.CONTACT_ID,
+            ContactsContract.DeletedContacts.CONTACT_DELETED_TIMESTAMP,
+            timestamp
+        )
+    }
+
+    override fun observe(onChange: () -> Unit) {
+        context.contentResolver.registerContentObserver(ContactsContract.Contacts.CONTENT_URI, true, object : ContentObserver(null) {
+            override fun onChange(selfChange: Boolean) {
+                onChange()
+            }
+        })
+    }
+
+    private fun queryTimestamps(uri: Uri, idColumn: String, timestampColumn: String, timestamp: Long): Map<Long, Long> {
+        val result = HashMap<Long, Long>()
+        context.contentResolver.query(uri, arrayOf(idColumn, timestampColumn), "$timestampColumn > ?", arrayOf(timestamp.toString()), null)?.use {
+            while (it.moveToNext()) {
+                result[it.getLong(0)] = it.getLong(1)
+            }
+        }
+        return result
+    }
+}
@@ -38,6 +38,8 @@ import com.ct.ertclib.dc.core.manager.common.StateFlowManager
 import com.ct.ertclib.dc.core.port.dc.IAdverseDcCreateListener
 import com.ct.ertclib.dc.core.utils.common.DCUtils
 import com.ct.ertclib.dc.core.utils.common.XmlUtils
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
 import com.newcalllib.datachannel.V1_0.ImsDCStatus
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
@@ -61,6 +63,14 @@ class DCManager: ICallStateListener, ImsDcServiceConnectionCallback {
 
     private val sLogger: Logger = Logger.getLogger(TAG)
 
+    private val metrics = MetricsRegistry.instance
+    private val adcCreateLatency = metrics.histogram(MetricNames.ADC_CREATE)
+    private val adcQueueWaitLatency = metrics.histogram(MetricNames.ADC_CREATE_QUEUE_WAIT)
+    private val adcFromCacheCounter = metrics.counter(MetricNames.ADC_CREATE_FROM_CACHE)
+    private val adcFailedCounter = metrics.counter(MetricNames.ADC_CREATE_FAILED)
+    // adcKey -> 小程序发起创建的时间
+    private val mAdcCreateStartMap = ConcurrentHashMap<String, Long>()
+
     private val mBdcCreateListenerMap = ConcurrentHashMap<String, IDcCreateListener>()
     private val mAdcCreateListenerMap = ConcurrentHashMap<String, IDcCreateListener>()
     private val mControlAdcCreateListenerMap = ConcurrentHashMap<String, IControlDcCreateListener>()
@@ -151,6 +161,7 @@ class DCManager: ICallStateListener, ImsDcServiceConnectionCallback {
                 sLogger.debug("onCallRemoved remove $key")
             }
         }
+        mAdcCreateStartMap.keys.removeIf { it.startsWith(telecomCallId) }
         if (mIsDataChannelServiceConnected) {
             DCServiceManager.setDcCallback(null, callInfo.slotId, telecomCallId)
             mImsDcCallbackMap.remove(getImsDcCallbackKey(callInfo.slotId,callInfo.telecomCallId))
@@ -231,6 +242,7 @@ class DCManager: ICallStateListener, ImsDcServiceConnectionCallback {
                 sLogger.debug("onApplicationDataChannelResponse telecomCallId:$callId, DcStatus:$state, appIdFromDcLabel:$appIdFromDcLabel, dcLabel:${dc.dcLabel},streamId:${dc.streamId}")
             }
             mAdcMap[getAdcKey(callId, dc.dcLabel)] = dc
+            mAdcCreateStartMap.remove(getAdcKey(callId, dc.dcLabel))?.let { adcCreateLatency.recordSince(it) }
             val adcListenerKey = getAdcListenerKey(callId, appIdFromDcLabel)
 
             // 有些ADC不用回调给小程序
@@ -338,6 +350,8 @@ class DCManager: ICallStateListener, ImsDcServiceConnectionCallback {
         }
 
         if (mIsDataChannelServiceConnected) {
+            val startNanos = metrics.nanoTime()
+            labels.forEach { mAdcCreateStartMap.putIfAbsent(getAdcKey(callId, it), startNanos) }
             createAdcQueue.add(CreateAdcParams(slotId, callId, remoteNumber,labels, description))
             return 0
         }
@@ -445,6 +459,9 @@ class DCManager: ICallStateListener, ImsDcServiceConnectionCallback {
         // 检查是否有adc缓存，有的话就直接返回缓存adc，不用再次创建
         val imsDcCallback = mImsDcCallbackMap[getImsDcCallbackKey(slotId,callId)]
         sLogger.debug("createApplicationDataChannels mAdcMap.size: ${mAdcMap.size}")
+        labels.firstOrNull()?.let { label ->
+            mAdcCreateStartMap[getAdcKey(callId, label)]?.let { adcQueueWaitLatency.recordSince(it) }
+        }
         labels.forEach {
             val adcKey = getAdcKey(callId,it)
             val dc = mAdcMap[adcKey]
@@ -454,6 +471,7 @@ class DCManager: ICallStateListener, ImsDcServiceConnectionCallback {
             if (DCServiceManager.bindDcServiceResult() && imsDcCallback!=null && dc != null && dc.state != null && dc.state != ImsDCStatus.DC_STATE_CLOSED){
                 if (dc.state == ImsDCStatus.DC_STATE_CONNECTING || dc.state == ImsDCStatus.DC_STATE_OPEN){
                     sLogger.debug("createApplicationDataChannels from caches $adcKey")
+                    adcFromCacheCounter.increment()
                     imsDcCallback.onApplicationDataChannelResponse(dc)
                 } else {
                     // 相同dcLabel的dc正在关闭
@@ -476,6 +494,8 @@ class DCManager: ICallStateListener, ImsDcServiceConnectionCallback {
         sLogger.debug("createApplicationDataChannels shouldCreateLabels:$shouldCreateLabels, shouldCreateDescription:$shouldCreateDescription")
         val result = DCServiceManager.createImsDc(shouldCreateLabels.toTypedArray(), shouldCreateDescription, slotId, callId, remoteNumber)
         if (result == 1){
+            adcFailedCounter.increment()
+            shouldCreateLabels.forEach { mAdcCreateStartMap.remove(getAdcKey(callId, it)) }
             canCreateADC = true
         }
     }
@@ -0,0 +1,120 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import android.annotation.SuppressLint
+import android.content.Context
+import android.location.Location
+import android.location.LocationListener
+import android.location.LocationManager
+import android.os.Looper
+import android.os.SystemClock
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppLocationFix
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppLocationRequest
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import java.util.concurrent.TimeUnit
+
+/**
+ * 基于LocationManager的定位来源，高精度时同时订阅GPS和网络定位，否则只订阅网络定位
+ */
+@SuppressLint("MissingPermission")
+class AndroidLocationSource(context: Context) : MiniAppLocationService.Source {
+
+    companion object {
+        private const val TAG = "AndroidLocationSource"
+        private const val MIN_TIME_MILLIS = 1000L
+        private val CACHED_PROVIDERS = listOf(
+            LocationManager.PASSIVE_PROVIDER,
+            LocationManager.GPS_PROVIDER,
+            LocationManager.NETWORK_PROVIDER
+        )
+    }
+
+    private val sLogger: Logger = Logger.getLogger(TAG)
+    private val locationManager = context.getSystemService(LocationManager::class.java)
+    private var locationListener: LocationListener? = null
+
+    override fun isEnabled(): Boolean {
+        return locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER)
+                || locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)
+    }
+
+    override fun lastKnownFix(): MiniAppLocationFix? {
+        var best: Location? = null
+        for (provider in CACHED_PROVIDERS) {
+            val location = try {
+                locationManager.getLastKnownLocation(provider)
+            } catch (e: Exception) {
+                sLogger.warn("lastKnownFix, provider: $provider, ${e.message}")
+                null
+            } ?: continue
+            if (best == null || location.elapsedRealtimeNanos > best.elapsedRealtimeNanos) {
+                best = location
+            }
+        }
+        return best?.let { toFix(it) }
+    }
+
+    @Synchronized
+    override fun start(highAccuracy: Boolean, listener: (MiniAppLocationFix) -> Unit) {
+        stop()
+        val locationListener = LocationListener { listener(toFix(it)) }
+        this.locationListener = locationListener
+        val providers = if (highAccuracy) {
+            listOf(LocationManager.GPS_PROVIDER, LocationManager.NETWORK_PROVIDER)
+        } else {
+            listOf(LocationManager.NETWORK_PROVIDER, LocationManager.GPS_PROVIDER)
+                .firstOrNull { locationManager.isProviderEnabled(it) }?.let { listOf(it) } ?: emptyList()
+        }
+        for (provider in providers) {
+            if (!locationManager.isProviderEnabled(provider)) {
+                continue
+            }
+            try {
+                locationManager.requestLocationUpdates(provider, MIN_TIME_MILLIS, 0f, locationListener, Looper.getMainLooper())
+            } catch (e: Exception) {
+                sLogger.error(e.message, e)
+            }
+        }
+    }
+
+    @Synchronized
+    override fun stop() {
+        locationListener?.let {
+            try {
+                locationManager.removeUpdates(it)
+            } catch (e: Exception) {
+                sLogger.error(e.message, e)
+            }
+        }
+        locationListener = null
+    }
+
+    /**
+     * 按开机时间换算定位时间，不受系统时间调整影响
+     */
+    private fun toFix(location: Location): MiniAppLocationFix {
+        val ageMillis = TimeUnit.NANOSECONDS.toMillis(SystemClock.elapsedRealtimeNanos() - location.elapsedRealtimeNanos)
+        return MiniAppLocationFix(
+            latitude = location.latitude,
+            longitude = location.longitude,
+            accuracyMeters = if (location.hasAccuracy()) location.accuracy else MiniAppLocationRequest.ANY_ACCURACY,
+            timeMillis = System.currentTimeMillis() - ageMillis
+        )
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import java.io.File
+
+/**
+ * 图标解码为Bitmap，缓存按Bitmap实际占用的字节数计算
+ */
+object BitmapIconDecoder : MiniAppIconStore.Decoder<Bitmap> {
+
+    override fun decode(file: File): Bitmap? = BitmapFactory.decodeFile(file.absolutePath)
+
+    override fun sizeOf(icon: Bitmap): Int = icon.allocationByteCount
+}
@@ -0,0 +1,80 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * 下载带宽令牌桶，所有下载线程共用
+ *
+ * 令牌不足时先记为欠账再按欠账时长等待，等待不占用锁，多个线程按到达顺序分摊带宽。
+ * 桶容量为[BURST_MILLIS]内的流量。
+ *
+ * @param sleep 等待指定的纳秒数
+ */
+class DownloadRateLimiter(
+    bytesPerSecond: Long = UNLIMITED,
+    private val clock: () -> Long = System::nanoTime,
+    private val sleep: (Long) -> Unit = ::parkUntilElapsed
+) {
+
+    companion object {
+        const val UNLIMITED = 0L
+        private const val BURST_MILLIS = 100L
+
+        private fun parkUntilElapsed(nanos: Long) {
+            val deadline = System.nanoTime() + nanos
+            var remaining = nanos
+            while (remaining > 0) {
+                LockSupport.parkNanos(remaining)
+                remaining = deadline - System.nanoTime()
+            }
+        }
+    }
+
+    private var rate = bytesPerSecond
+    private var available = 0.0
+    private var lastRefillNanos = clock()
+
+    @Synchronized
+    fun setRate(bytesPerSecond: Long) {
+        rate = bytesPerSecond
+        available = 0.0
+        lastRefillNanos = clock()
+    }
+
+    /**
+     * 消耗[bytes]个令牌，超出速率时阻塞到可用
+     */
+    fun acquire(bytes: Int) {
+        val waitNanos = synchronized(this) {
+            if (rate <= UNLIMITED) {
+                return
+            }
+            val now = clock()
+            val burst = rate * BURST_MILLIS / 1000.0
+            available = minOf(burst, available + (now - lastRefillNanos) * rate / 1e9)
+            lastRefillNanos = now
+            available -= bytes
+            if (available >= 0) 0L else (-available * 1e9 / rate).toLong()
+        }
+        if (waitNanos > 0) {
+            sleep(waitNanos)
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipInputStream
+
+/**
+ * 下载文件的解压，流式解压用于与下载并行，不支持的压缩格式由调用方在下载完成后按文件解压
+ */
+object DownloadUnzipper {
+
+    private const val BUFFER_SIZE = 64 * 1024
+
+    /**
+     * 按顺序读取压缩流并解压
+     *
+     * @throws java.util.zip.ZipException 需要读取中央目录才能解压的条目，例如带数据描述符的STORED条目
+     */
+    fun unzip(input: InputStream, targetDir: File) {
+        val buffer = ByteArray(BUFFER_SIZE)
+        val zip = ZipInputStream(input)
+        while (true) {
+            val entry = zip.nextEntry ?: break
+            extract(entry, zip, targetDir, buffer)
+        }
+    }
+
+    fun unzip(zipFile: File, targetDir: File) {
+        val buffer = ByteArray(BUFFER_SIZE)
+        ZipFile(zipFile).use { zip ->
+            for (entry in zip.entries()) {
+                zip.getInputStream(entry).use { extract(entry, it, targetDir, buffer) }
+            }
+        }
+    }
+
+    private fun extract(entry: ZipEntry, input: InputStream, targetDir: File, buffer: ByteArray) {
+        val target = File(targetDir, entry.name)
+        if (!target.canonicalPath.startsWith(targetDir.canonicalPath + File.separator)) {
+            throw IOException("illegal entry: ${entry.name}")
+        }
+        if (entry.isDirectory) {
+            target.mkdirs()
+            return
+        }
+        target.parentFile?.mkdirs()
+        FileOutputStream(target).use { output ->
+            while (true) {
+                val read = input.read(buffer)
+                if (read < 0) {
+                    break
+                }
+                output.write(buffer, 0, read)
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * 按key保序的回调队列
+ *
+ * 每个key（通话+小程序）一条串行队列，共享同一个线程池：同一小程序的回调严格按投递顺序执行，
+ * 不同小程序之间互不阻塞。每次调度最多连续执行[MAX_TASKS_PER_RUN]个任务，避免一个小程序占住线程。
+ */
+class ECCallbackQueue(private val executor: Executor) {
+
+    companion object {
+        private const val TAG = "ECCallbackQueue"
+        private const val MAX_TASKS_PER_RUN = 64
+    }
+
+    private val sLogger: Logger = Logger.getLogger(TAG)
+
+    private val queues = ConcurrentHashMap<String, KeyQueue>()
+
+    fun post(key: String, task: Runnable) {
+        queues.computeIfAbsent(key) { KeyQueue() }.post(task)
+    }
+
+    /**
+     * 小程序注销后不再接收新的回调，已排队的仍会执行完
+     */
+    fun remove(key: String) {
+        queues.remove(key)
+    }
+
+    fun clear() {
+        queues.clear()
+    }
+
+    private inner class KeyQueue : Runnable {
+        private val tasks = ConcurrentLinkedQueue<Runnable>()
+        private val scheduled = AtomicBoolean()
+
+        fun post(task: Runnable) {
+            tasks.offer(task)
+            schedule()
+        }
+
+        private fun schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this)
+            }
+        }
+
+        override fun run() {
+            var count = 0
+            while (count < MAX_TASKS_PER_RUN) {
+                val task = tasks.poll() ?: break
+                try {
+                    task.run()
+                } catch (e: Exception) {
+                    sLogger.error("callback failed", e)
+                }
+                count++
+            }
+            scheduled.set(false)
+            // 执行期间或让出线程前又有新任务
+            if (!tasks.isEmpty()) {
+                schedule()
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.common
+
+/**
+ * 拓展能力消息的路由字段
+ *
+ * 只扫描顶层对象，读出provider、module、callId、appId，其余字段直接跳过，不建树也不反序列化。
+ * 同时记下provider字段在原文中的位置，去掉或填充provider时只做一次字符串拼接，其余内容原样转发。
+ */
+class ECRoute internal constructor(
+    val provider: String?,
+    val module: String?,
+    val callId: String?,
+    val appId: String?,
+    // 左花括号之后的位置
+    internal val bodyStart: Int,
+    internal val memberCount: Int,
+    // provider字段（含前后分隔的逗号）待删除的区间，以及它的值所在的区间
+    internal val providerRemoveStart: Int,
+    internal val providerRemoveEnd: Int,
+    internal val providerValueStart: Int,
+    internal val providerValueEnd: Int
+)
+
+object ECRouting {
+
+    private const val FIELD_PROVIDER = "provider"
+    private const val FIELD_MODULE = "module"
+    private const val FIELD_CALL_ID = "callId"
+    private const val FIELD_APP_ID = "appId"
+
+    /**
+     * @return 不是合法的JSON对象时返回null
+     */
+    fun parse(content: String): ECRoute? {
+        return try {
+            Scanner(content).scan()
+        } catch (e: IllegalArgumentException) {
+            null
+        }
+    }
+
+    /**
+     * 去掉provider字段，给能力提供方的参数不带provider
+     */
+    fun removeProvider(content: String, route: ECRoute): String {
+        if (route.providerRemoveStart < 0) {
+            return content
+        }
+        return StringBuilder(content.length)
+            .append(content, 0, route.providerRemoveStart)
+            .append(content, route.providerRemoveEnd, content.length)
+            .toString()
+    }
+
+    /**
+     * 填充provider字段，已有则替换其值，没有则作为第一个字段插入
+     */
+    fun withProvider(content: String, route: ECRoute, provider: String): String {
+        val quoted = quote(provider)
+        val builder = StringBuilder(content.length + quoted.length + FIELD_PROVIDER.length + 4)
+        if (route.providerValueStart >= 0) {
+            return builder.append(content, 0, route.providerValueStart)
+                .append(quoted)
+                .append(content, route.providerValueEnd, content.length)
+                .toString()
+        }
+        builder.append(content, 0, route.bodyStart)
+            .append('"').append(FIELD_PROVIDER).append("\":").append(quoted)
+        if (route.memberCount > 0) {
+            builder.append(',')
+        }
+        return builder.append(content, route.bodyStart, content.length).toString()
+    }
+
+    private fun quote(value: String): String {
+        val builder = StringBuilder(value.length + 2).append('"')
+        for (c in value) {
+            when {
+                c == '"' || c == '\\' -> builder.append('\\').append(c)
+                c < ' ' -> builder.append(String.format("\\u%04x", c.code))
+                else -> builder.append(c)
+            }
+        }
+        return builder.append('"').toString()
+    }
+
+    private class Scanner(private val text: String) {
+        private var pos = 0
+
+        fun scan(): ECRoute {
+            skipWhitespace()
+            expect('{')
+            val bodyStart = pos
+            var provider: String? = null
+            var module: String? = null
+            var callId: String? = null
+            var appId: String? = null
+            var memberCount = 0
+            var removeStart = -1
+            var removeEnd = -1
+            var valueStart = -1
+            var valueEnd = -1
+            // 上一个字段值结束的位置，provider是最后一个字段时连同它前面的逗号一起删掉
+            var previousValueEnd = -1
+            var removePending = false
+            skipWhitespace()
+            if (peek() == '}') {
+                pos++
+            } else {
+                while (true) {
+                    skipWhitespace()
+                    val memberStart = pos
+                    if (removePending) {
+                        removeEnd = memberStart
+                        removePending = false
+                    }
+                    val key = readString()
+                    skipWhitespace()
+                    expect(':')
+                    skipWhitespace()
+                    val start = pos
+                    val isRouting = key == FIELD_PROVIDER || key == FIELD_MODULE || key == FIELD_CALL_ID || key == FIELD_APP_ID
+                    val value = if (isRouting) readPrimitive() else {
+                        skipValue()
+                        null
+                    }
+                    val end = pos
+                    when (key) {
+                        FIELD_PROVIDER -> {
+                            provider = value
+                            valueStart = start
+                            valueEnd = end
+                            removeStart = memberStart
+                            removePending = true
+                        }
+                        FIELD_MODULE -> module = value
+                        FIELD_CALL_ID -> callId = value
+                        FIELD_APP_ID -> appId = value
+                    }
+                    memberCount++
+                    skipWhitespace()
+                    when (next()) {
+                        ',' -> previousValueEnd = end
+                        '}' -> {
+                            if (removePending) {
+                                // provider是最后一个字段
+                                removeEnd = end
+                                if (previousValueEnd >= 0 && removeStart == memberStart) {
+                                    removeStart = previousValueEnd
+                                }
+                            }
+                            break
+                        }
+                        else -> throw IllegalArgumentException("expect , or } at ${pos - 1}")
+                    }
+                }
+            }
+            return ECRoute(provider, module, callId, appId, bodyStart, memberCount, removeStart, removeEnd, valueStart, valueEnd)
+        }
+
+        private fun peek(): Char {
+            require(pos < text.length) { "unexpected end" }
+            return text[pos]
+        }
+
+        private fun next(): Char {
+            val c = peek()
+            pos++
+            return c
+        }
+
+        private fun expect(c: Char) {
+            require(next() == c) { "expect $c at ${pos - 1}" }
+        }
+
+        private fun skipWhitespace() {
+            while (pos < text.length) {
+                val c = text[pos]
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                    return
+                }
+                pos++
+            }
+        }
+
+        /**
+         * 读取字符串，不含转义时直接截取原文
+         */
+        private fun readString(): String {
+            expect('"')
+            val start = pos
+            while (true) {
+                val c = next()
+                if (c == '"') {
+                    return text.substring(start, pos - 1)
+                }
+                if (c == '\\') {
+                    pos = start
+                    return readEscapedString()
+                }
+            }
+        }
+
+        private fun readEscapedString(): String {
+            val builder = StringBuilder()
+            while (true) {
+                val c = next()
+                when (c) {
+                    '"' -> return builder.toString()
+                    '\\' -> when (val escaped = next()) {
+                        'n' -> builder.append('\n')
+                        'r' -> builder.append('\r')
+                        't' -> builder.append('\t')
+                        'b' -> builder.append('\b')
+                        'f' -> builder.append('\u000c')
+                        'u' -> {
+                            require(pos + 4 <= text.length) { "bad unicode escape" }
+                            builder.append(text.substring(pos, pos + 4).toInt(16).toChar())
+                            pos += 4
+                        }
+                        else -> builder.append(escaped)
+                    }
+                    else -> builder.append(c)
+                }
+            }
+        }
+
+        /**
+         * 路由字段按字符串读取，数字等字面量取原文，对象或数组视为缺失
+         */
+        private fun readPrimitive(): String? {
+            return when (peek()) {
+                '"' -> readString()
+                '{', '[' -> {
+                    skipValue()
+                    null
+                }
+                else -> {
+                    val start = pos
+                    skipLiteral()
+                    text.substring(start, pos).takeIf { it != "null" }
+                }
+            }
+        }
+
+        private fun skipValue() {
+            when (peek()) {
+                '"' -> skipString()
+                '{', '[' -> skipContainer()
+                else -> skipLiteral()
+            }
+        }
+
+        private fun skipString() {
+            expect('"')
+            while (true) {
+                when (next()) {
+                    '"' -> return
+                    '\\' -> pos++
+                }
+            }
+        }
+
+        private fun skipContainer() {
+            var depth = 0
+            while (true) {
+                when (peek()) {
+                    '"' -> {
+                        skipString()
+                        continue
+                    }
+                    '{', '[' -> depth++
+                    '}', ']' -> depth--
+                }
+                pos++
+                if (depth == 0) {
+                    return
+                }
+            }
+        }
+
+        private fun skipLiteral() {
+            val start = pos
+            while (pos < text.length) {
+                val c = text[pos]
+                if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                    break
+                }
+                pos++
+            }
+            require(pos > start) { "expect value at $start" }
+        }
+    }
+}
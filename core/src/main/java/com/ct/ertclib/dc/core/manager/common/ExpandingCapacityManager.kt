@@ -19,17 +19,18 @@ package com.ct.ertclib.dc.core.manager.common
 import android.content.Context
 import com.ct.ctec.CtEC
 import com.ct.ertclib.dc.core.utils.logger.Logger
-import com.ct.ertclib.dc.core.data.common.ECBaseData
 import com.ct.ertclib.dc.core.port.expandcapacity.IExpandingCapacityListener
+import com.ct.ertclib.dc.base.port.ec.ECRequest
 import com.ct.ertclib.dc.base.port.ec.IEC
-import com.ct.ertclib.dc.base.port.ec.IECCallback
-import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import com.ct.ertclib.dc.base.port.ec.IECStreamCallback
+import com.ct.ertclib.dc.base.port.ec.IECV2
 import com.ct.oemec.OemEC
-import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.SupervisorJob
-import kotlinx.coroutines.launch
+import kotlinx.coroutines.asExecutor
+import java.nio.ByteBuffer
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
 import kotlin.collections.component1
 import kotlin.collections.component2
 
@@ -41,6 +42,9 @@ class ExpandingCapacityManager {
         const val CU = "CU"
         const val OEM = "OEM"
         private const val TAG = "ExpandingCapacityManager"
+        // 二进制回调积压超过高水位时拒收，回落到低水位后通知能力提供者继续发送
+        private const val STREAM_HIGH_WATERMARK = 1024 * 1024L
+        private const val STREAM_LOW_WATERMARK = STREAM_HIGH_WATERMARK / 4
 
         val instance: ExpandingCapacityManager by lazy {
             ExpandingCapacityManager()
@@ -50,8 +54,10 @@ class ExpandingCapacityManager {
 
     private val mECListenerMap = ConcurrentHashMap<String, IExpandingCapacityListener>()
     private val mECModulesMap = ConcurrentHashMap<String, ConcurrentHashMap<String, ArrayList<String>>>()//防止能力提供者胡乱回调
-    private val scope = CoroutineScope(Dispatchers.Default + SupervisorJob())
-    private val mProviderMap = ConcurrentHashMap<String, IEC>()
+    // 回调按小程序保序投递
+    private val mCallbackQueue = ECCallbackQueue(Dispatchers.Default.asExecutor())
+    // 只实现IEC的能力提供者包装为LegacyECAdapter
+    private val mProviderMap = ConcurrentHashMap<String, IECV2>()
 
     fun getProviderModulesMap(): Map<String, List<String>> {
         val map = ConcurrentHashMap<String, List<String>>()
@@ -84,20 +90,26 @@ class ExpandingCapacityManager {
         }
         mECListenerMap.remove(callId+appId)
         mECModulesMap.remove(callId+appId)
+        mCallbackQueue.remove(callId+appId)
     }
 
     fun init(context: Context) {
         sLogger.info("init")
         // 添加OEM拓展能力
-        mProviderMap[OEM] = OemEC.instance
+        registerProvider(context, OEM, OemEC.instance)
         // 添加电信拓展能力
-        mProviderMap[CT] = CtEC.instance
+        registerProvider(context, CT, CtEC.instance)
         // todo 添加其他
+    }
 
-        // 初始化
-        mProviderMap.forEach { (provider, instance) ->
-            instance.init(context, ECCallback(provider))
-        }
+    fun registerProvider(context: Context, provider: String, instance: IEC) {
+        registerProvider(context, provider, LegacyECAdapter(instance))
+    }
+
+    fun registerProvider(context: Context, provider: String, instance: IECV2) {
+        sLogger.info("registerProvider provider: $provider, v2: ${instance !is LegacyECAdapter}")
+        mProviderMap[provider] = instance
+        instance.init(context, ECCallback(provider))
     }
 
     fun release(context: Context) {
@@ -109,18 +121,22 @@ class ExpandingCapacityManager {
         mProviderMap.clear()
         mECListenerMap.clear()
         mECModulesMap.clear()
-
+        mCallbackQueue.clear()
     }
 
     fun request(context: Context,callId:String, appId:String, content: String?): Int {
         try {
-            sLogger.info("request callId: $callId, appId: $appId, content: $content")
-            val requestData = content?.let { JsonUtil.fromJson(it, ECBaseData::class.java) }
-            if (requestData!=null){
-                // 给能力提供方的参数要去掉content中的provider字段
-                if (mECModulesMap[callId+appId]?.get(requestData.provider)?.contains(requestData.module)  == true){
-                    val contentToSend = JsonUtil.removeJsonFieldWithGson(content, "provider")
-                    return mProviderMap[requestData.provider]?.request(context,callId,appId,contentToSend)!!
+            sLogger.debug { "request callId: $callId, appId: $appId, content: $content" }
+            // 只读路由字段，原文去掉provider字段后转发给能力提供方
+            val route = content?.let { ECRouting.parse(it) }
+            if (route?.provider != null && route.module != null){
+                if (mECModulesMap[callId+appId]?.get(route.provider)?.contains(route.module)  == true){
+                    val contentToSend = ECRouting.removeProvider(content, route)
+                    return when (val instance = mProviderMap[route.provider]) {
+                        null -> -1
+                        is LegacyECAdapter -> instance.legacy.request(context,callId,appId,contentToSend)
+                        else -> instance.request(context,callId,appId,route.module,ByteBuffer.wrap(contentToSend.toByteArray()))
+                    }
                 }
             }
         } catch (e:Exception){
@@ -129,41 +145,114 @@ class ExpandingCapacityManager {
         return -1
     }
 
+    /**
+     * 二进制请求，只有IEC的能力提供者会收到UTF-8解码后的字符串
+     */
+    fun request(context: Context, callId: String, appId: String, provider: String, module: String, payload: ByteBuffer): Int {
+        try {
+            if (mECModulesMap[callId+appId]?.get(provider)?.contains(module) == true) {
+                return mProviderMap[provider]?.request(context, callId, appId, module, payload) ?: -1
+            }
+        } catch (e: Exception) {
+            sLogger.error("request provider: $provider, module: $module", e)
+        }
+        return -1
+    }
 
+    /**
+     * 批量提交二进制请求，未授权的module会被跳过
+     *
+     * @return 成功提交的请求个数
+     */
+    fun requestBatch(context: Context, callId: String, appId: String, provider: String, requests: List<ECRequest>): Int {
+        try {
+            val instance = mProviderMap[provider] ?: return 0
+            val modules = mECModulesMap[callId+appId]?.get(provider) ?: return 0
+            val allowed = requests.filter { modules.contains(it.module) }
+            if (allowed.isEmpty()) {
+                return 0
+            }
+            return instance.requestBatch(context, callId, appId, allowed)
+        } catch (e: Exception) {
+            sLogger.error("requestBatch provider: $provider", e)
+        }
+        return 0
+    }
 
     // 其他能力提供者能关联callId和appId
-    inner class ECCallback(val provider: String) : IECCallback {
+    inner class ECCallback(val provider: String) : IECStreamCallback {
+        private val pendingBytes = AtomicLong()
+        private val paused = AtomicBoolean()
+
         override fun onCallback(callId:String?, appId:String?,content: String?) {
-            sLogger.debug("ECCallback onCallback content: $content")
+            sLogger.debug { "ECCallback onCallback content: $content" }
             dealCallback(callId,appId,this.provider,content)
         }
+
+        override fun onData(callId: String?, appId: String?, module: String, payload: ByteBuffer): Boolean {
+            if (pendingBytes.get() >= STREAM_HIGH_WATERMARK) {
+                paused.set(true)
+                // 置位后积压可能已经清空，再检查一次，避免能力提供者永远等不到onWritable
+                if (pendingBytes.get() >= STREAM_HIGH_WATERMARK || !paused.compareAndSet(true, false)) {
+                    return false
+                }
+            }
+            val keys = if (callId == null || appId == null) {
+                mECListenerMap.keys.filter { mECModulesMap[it]?.get(provider)?.contains(module) == true }
+            } else {
+                listOf(callId+appId).filter { mECModulesMap[it]?.get(provider)?.contains(module) == true }
+            }
+            if (keys.isEmpty()) {
+                return true
+            }
+            // 能力提供者返回后会复用payload，拷贝一次，各小程序共享只读视图
+            val bytes = ByteArray(payload.remaining())
+            payload.duplicate().get(bytes)
+            pendingBytes.addAndGet(bytes.size.toLong() * keys.size)
+            for (key in keys) {
+                mCallbackQueue.post(key) {
+                    try {
+                        mECListenerMap[key]?.onData(provider, module, ByteBuffer.wrap(bytes).asReadOnlyBuffer())
+                    } finally {
+                        onDelivered(bytes.size.toLong())
+                    }
+                }
+            }
+            return true
+        }
+
+        private fun onDelivered(size: Long) {
+            if (pendingBytes.addAndGet(-size) <= STREAM_LOW_WATERMARK && paused.compareAndSet(true, false)) {
+                mProviderMap[provider]?.onWritable()
+            }
+        }
     }
 
     private fun dealCallback(callId:String?,appId:String?,provider:String,content: String?){
         try {
-            val callbackData = content?.let { JsonUtil.fromJson(it, ECBaseData::class.java) }
-            if (callbackData!=null){
-                // 能力提供方的返回数据要填充content中的provider字段值
-                callbackData.provider = provider
-                val contentToBack = JsonUtil.toJson(callbackData)
-                if (callId == null || appId == null){
-                    // 不区分小程序，按module进行广播
-                    mECListenerMap.forEach{ (key, listener) ->
-                        if (mECModulesMap[key]?.get(provider)?.contains(callbackData.module)  == true){
-                            scope.launch {
-                                sLogger.debug("OEMECCallback onCallback key :$key contentToBack: $contentToBack")
-                                listener.onCallback(content)
-                            }
+            val route = content?.let { ECRouting.parse(it) } ?: return
+            val module = route.module ?: return
+            // 能力提供方的返回数据要填充content中的provider字段值
+            val contentToBack = ECRouting.withProvider(content, route, provider)
+            val targetCallId = callId ?: route.callId
+            val targetAppId = appId ?: route.appId
+            if (targetCallId == null || targetAppId == null){
+                // 不区分小程序，按module进行广播
+                mECListenerMap.forEach{ (key, listener) ->
+                    if (mECModulesMap[key]?.get(provider)?.contains(module)  == true){
+                        mCallbackQueue.post(key) {
+                            sLogger.debug { "ECCallback onCallback key :$key contentToBack: $contentToBack" }
+                            listener.onCallback(contentToBack)
                         }
                     }
-                } else {
-                    // 指定小程序
-                    val key = callId+appId
-                    if (mECModulesMap[key]?.get(provider)?.contains(callbackData.module)  == true){
-                        scope.launch {
-                            sLogger.debug("ECCallback onCallback key :$key contentToBack: $contentToBack")
-                            mECListenerMap[key]?.onCallback(contentToBack)
-                        }
+                }
+            } else {
+                // 指定小程序
+                val key = targetCallId+targetAppId
+                if (mECModulesMap[key]?.get(provider)?.contains(module)  == true){
+                    mCallbackQueue.post(key) {
+                        sLogger.debug { "ECCallback onCallback key :$key contentToBack: $contentToBack" }
+                        mECListenerMap[key]?.onCallback(contentToBack)
                     }
                 }
             }
@@ -171,4 +260,4 @@ class ExpandingCapacityManager {
             e.printStackTrace()
         }
     }
-}
\ No newline at end of file
+}
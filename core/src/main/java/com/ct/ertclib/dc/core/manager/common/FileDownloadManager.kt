@@ -1,111 +1,629 @@
 package com.ct.ertclib.dc.core.manager.common
 
-import android.annotation.SuppressLint
-import android.app.DownloadManager
-import android.content.Context
-import android.os.Environment
 import com.ct.ertclib.dc.core.data.common.DownloadData
-import com.ct.ertclib.dc.core.utils.common.LogUtils
-import androidx.core.net.toUri
 import com.ct.ertclib.dc.core.port.listener.IDownloadListener
 import com.ct.ertclib.dc.core.port.manager.IFileDownloadManager
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.SupervisorJob
-import kotlinx.coroutines.delay
-import kotlinx.coroutines.isActive
-import kotlinx.coroutines.launch
+import com.ct.ertclib.dc.core.utils.common.HttpUtils
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import okhttp3.Call
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import java.io.BufferedInputStream
+import java.io.EOFException
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.security.MessageDigest
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.ReentrantLock
+import java.util.zip.ZipException
+import kotlin.concurrent.withLock
 
-class FileDownloadManager(private val context: Context): IFileDownloadManager {
+/**
+ * 小程序文件和模型下载
+ *
+ * 基于[HttpUtils.sharedClient]，最多同时进行[maxConcurrentTasks]个任务，所有任务共用[DownloadRateLimiter]的带宽上限。
+ * 服务器支持Range时大文件拆成最多[maxSegments]段并行下载，各段进度定期写入[stateDir]，进程退出后再次下载同一文件时
+ * 从已下载的位置继续；连接中断时按段重试。需要解压的文件在下载的同时按已连续下载的部分流式解压。
+ */
+class FileDownloadManager(
+    private val stateDir: File,
+    private val client: OkHttpClient = HttpUtils.sharedClient,
+    private val maxConcurrentTasks: Int = DEFAULT_MAX_CONCURRENT_TASKS,
+    private val maxSegments: Int = DEFAULT_MAX_SEGMENTS,
+    private val minSegmentBytes: Long = DEFAULT_MIN_SEGMENT_BYTES,
+    private val maxRetries: Int = DEFAULT_MAX_RETRIES,
+    private val retryDelayMillis: Long = DEFAULT_RETRY_DELAY_MILLIS,
+    private val progressIntervalMillis: Long = DEFAULT_PROGRESS_INTERVAL_MILLIS,
+    private val rateLimiter: DownloadRateLimiter = DownloadRateLimiter(DEFAULT_BANDWIDTH_LIMIT)
+) : IFileDownloadManager {
 
     companion object {
         private const val TAG = "FileDownloadManager"
-        private const val QUERY_INTERVAL_TIME = 5000L
+        const val DEFAULT_MAX_CONCURRENT_TASKS = 3
+        const val DEFAULT_MAX_SEGMENTS = 4
+        const val DEFAULT_MIN_SEGMENT_BYTES = 2L * 1024 * 1024
+        const val DEFAULT_MAX_RETRIES = 3
+        const val DEFAULT_RETRY_DELAY_MILLIS = 500L
+        const val DEFAULT_PROGRESS_INTERVAL_MILLIS = 200L
+        // 通话期间下载与通话媒体共用网络，所有下载合计默认不超过4MB/s
+        const val DEFAULT_BANDWIDTH_LIMIT = 4L * 1024 * 1024
+        private const val BUFFER_SIZE = 64 * 1024
+        // 每下载这么多字节保存一次进度
+        private const val STATE_SYNC_BYTES = 1024 * 1024L
+        private const val STALE_STATE_MILLIS = 7L * 24 * 60 * 60 * 1000
+        private const val STATE_SUFFIX = ".json"
+        private const val PART_SUFFIX = ".part"
+        private const val TEMP_SUFFIX = ".tmp"
+        private const val UNZIP_WAIT_MILLIS = 100L
+        private val CONTENT_RANGE = Regex("bytes (\\d+)-(\\d+)/(\\d+)")
     }
 
-    private val downloadManager = context.getSystemService(Context.DOWNLOAD_SERVICE) as? DownloadManager
-    private val downloadListeners = mutableMapOf<Long, IDownloadListener>()
+    /**
+     * 下载的一段，[downloaded]只由下载该段的线程修改
+     */
+    private class Segment(val start: Long, val end: Long) {
+        @Volatile
+        var downloaded = 0L
 
-    private val scope = CoroutineScope(Dispatchers.Default + SupervisorJob())
-    @Volatile
-    override var isDownloading = false
+        val length: Long
+            get() = end - start + 1
 
-    override fun startDownload(downloadData: DownloadData, downloadListener: IDownloadListener) {
-        kotlin.runCatching {
-            downloadManager?.let {
-                val request = DownloadManager.Request(downloadData.url.toUri())
-                request.setTitle(downloadData.title)
-                request.setDescription(downloadData.description)
-                request.setDestinationInExternalPublicDir(Environment.DIRECTORY_DOWNLOADS, downloadData.fileName)
-                request.setAllowedNetworkTypes(DownloadManager.Request.NETWORK_WIFI)
-                request.setNotificationVisibility(DownloadManager.Request.VISIBILITY_VISIBLE)
-                val downloadId = it.enqueue(request)
-                downloadListeners[downloadId] = downloadListener
-                startQueryStatus()
+        val isComplete: Boolean
+            get() = downloaded >= length
+    }
+
+    /**
+     * 持久化的下载进度
+     *
+     * @param validator ETag或Last-Modified，续传时作为If-Range，文件变化时服务器返回完整内容
+     */
+    private class State(
+        val url: String,
+        val totalBytes: Long,
+        val validator: String?,
+        val segments: List<Segment>
+    )
+
+    private class Probe(val totalBytes: Long, val validator: String?, val response: Response?)
+
+    /**
+     * 不可重试的错误，例如文件已变化
+     */
+    private class FatalDownloadException(message: String) : IOException(message)
+
+    private inner class Task(val id: String, val data: DownloadData) {
+        val listeners = CopyOnWriteArrayList<IDownloadListener>()
+        val calls: MutableSet<Call> = ConcurrentHashMap.newKeySet()
+        val lock = ReentrantLock()
+        val bytesAvailable = lock.newCondition()
+        val stateFile = File(stateDir, id + STATE_SUFFIX)
+        val partFile = File(data.destination.path + PART_SUFFIX)
+        private val lastProgressNanos = AtomicLong()
+        private val unsyncedBytes = AtomicLong()
+
+        @Volatile
+        var state: State? = null
+
+        // 不支持Range时已写入的字节数
+        @Volatile
+        var streamedBytes = 0L
+
+        @Volatile
+        var streamTotalBytes = -1L
+
+        @Volatile
+        var finished = false
+
+        @Volatile
+        var stopped = false
+
+        @Volatile
+        var cancelled = false
+
+        @Volatile
+        var failure: IOException? = null
+
+        @Volatile
+        private var unzipWaiting = false
+
+        fun totalBytes(): Long = state?.totalBytes ?: streamTotalBytes
+
+        fun downloadedBytes(): Long = state?.segments?.sumOf { it.downloaded } ?: streamedBytes
+
+        /**
+         * 从文件头开始连续下载完成的字节数，流式解压只读取这部分
+         */
+        fun contiguousBytes(): Long {
+            val state = state ?: return streamedBytes
+            for (segment in state.segments) {
+                if (!segment.isComplete) {
+                    return segment.start + segment.downloaded
+                }
+            }
+            return state.totalBytes
+        }
+
+        fun checkActive() {
+            failure?.let { throw IOException("download aborted", it) }
+            if (stopped) {
+                throw IOException(if (cancelled) "download cancelled" else "download stopped")
+            }
+        }
+
+        fun newCall(request: Request): Call {
+            val call = client.newCall(request)
+            calls.add(call)
+            if (stopped || failure != null) {
+                call.cancel()
+            }
+            return call
+        }
+
+        fun stop(cause: IOException?) {
+            if (cause != null && failure == null) {
+                failure = cause
+            } else {
+                stopped = true
+            }
+            calls.forEach { it.cancel() }
+            signal()
+        }
+
+        fun onBytes(count: Int) {
+            if (unsyncedBytes.addAndGet(count.toLong()) >= STATE_SYNC_BYTES) {
+                unsyncedBytes.set(0)
+                saveState(this)
+            }
+            val now = System.nanoTime()
+            val last = lastProgressNanos.get()
+            if (now - last >= TimeUnit.MILLISECONDS.toNanos(progressIntervalMillis) && lastProgressNanos.compareAndSet(last, now)) {
+                notifyProgress()
+            }
+            if (unzipWaiting) {
+                signal()
+            }
+        }
+
+        fun notifyProgress() {
+            val downloaded = downloadedBytes()
+            val total = totalBytes()
+            listeners.forEach { dispatch(it) { onDownloadProgress(downloaded, total) } }
+        }
+
+        fun signal() {
+            lock.withLock { bytesAvailable.signalAll() }
+        }
+
+        /**
+         * 等待[position]之后的数据下载完成
+         *
+         * @return 当前连续下载完成的字节数，不大于[position]时表示已到文件末尾
+         */
+        fun awaitBytes(position: Long): Long {
+            while (true) {
+                val available = contiguousBytes()
+                if (available > position || finished) {
+                    return available
+                }
+                checkActive()
+                lock.withLock {
+                    unzipWaiting = true
+                    try {
+                        if (contiguousBytes() <= position && !finished && failure == null && !stopped) {
+                            bytesAvailable.await(UNZIP_WAIT_MILLIS, TimeUnit.MILLISECONDS)
+                        }
+                    } finally {
+                        unzipWaiting = false
+                    }
+                }
             }
-        }.onFailure {
-            LogUtils.debug(TAG, "startDownload failed: $it")
         }
     }
 
-    override fun removeDownload(downloadId: Long) {
-        downloadManager?.remove(downloadId)
-        downloadListeners.remove(downloadId)
-        if (downloadListeners.isEmpty()) {
-            isDownloading = false
+    /**
+     * 读取正在下载的文件，读到尚未下载的位置时阻塞
+     */
+    private class TaskInputStream(private val task: Task) : InputStream() {
+        private val file = RandomAccessFile(task.partFile, "r")
+        private var position = 0L
+
+        override fun read(): Int {
+            val single = ByteArray(1)
+            return if (read(single, 0, 1) < 0) -1 else single[0].toInt() and 0xFF
+        }
+
+        override fun read(b: ByteArray, off: Int, len: Int): Int {
+            if (len == 0) {
+                return 0
+            }
+            val available = task.awaitBytes(position)
+            if (available <= position) {
+                return -1
+            }
+            file.seek(position)
+            val read = file.read(b, off, minOf(len.toLong(), available - position).toInt())
+            if (read > 0) {
+                position += read
+            }
+            return read
+        }
+
+        override fun close() {
+            file.close()
         }
     }
 
-    private fun startQueryStatus() {
-        if (!isDownloading) {
-            isDownloading = true
-            scope.launch {
-                while (isDownloading && scope.isActive) {
-                    delay(QUERY_INTERVAL_TIME)
-                    updateDownloadProgress()
+    private val sLogger: Logger = Logger.getLogger(TAG)
+    private val tasks = HashMap<String, Task>()
+    private val taskExecutor = Executors.newFixedThreadPool(maxConcurrentTasks) {
+        Thread(it, "MiniAppDownloadTask").apply { isDaemon = true }
+    }
+    private val segmentExecutor = Executors.newCachedThreadPool {
+        Thread(it, "MiniAppDownloadSegment").apply { isDaemon = true }
+    }
+
+    init {
+        taskExecutor.execute { purgeStaleStates() }
+    }
+
+    override fun startDownload(downloadData: DownloadData, downloadListener: IDownloadListener): String {
+        val id = taskIdOf(downloadData)
+        synchronized(tasks) {
+            tasks[id]?.let {
+                it.listeners.add(downloadListener)
+                sLogger.debug { "startDownload joined, id: $id" }
+                return id
+            }
+            val task = Task(id, downloadData)
+            task.listeners.add(downloadListener)
+            tasks[id] = task
+            taskExecutor.execute { runTask(task) }
+        }
+        sLogger.info("startDownload, id: $id, url: ${downloadData.url}")
+        return id
+    }
+
+    override fun taskIdOf(downloadData: DownloadData): String {
+        val digest = MessageDigest.getInstance("MD5")
+            .digest((downloadData.url + "\n" + downloadData.destination.absolutePath).toByteArray())
+        return digest.joinToString("") { "%02x".format(it) }
+    }
+
+    override fun cancelDownload(taskId: String) {
+        val task = synchronized(tasks) { tasks[taskId] }
+        if (task != null) {
+            task.cancelled = true
+            task.stop(null)
+            return
+        }
+        // 未在进行的任务只删除保留的进度
+        val stateFile = File(stateDir, taskId + STATE_SUFFIX)
+        loadState(stateFile)?.let { File(it.first + PART_SUFFIX).delete() }
+        stateFile.delete()
+    }
+
+    override fun setBandwidthLimit(bytesPerSecond: Long) {
+        rateLimiter.setRate(bytesPerSecond)
+    }
+
+    override fun release() {
+        synchronized(tasks) { ArrayList(tasks.values) }.forEach { task ->
+            task.stop(null)
+            // 进程可能随即退出，不等任务线程结束，先保存进度
+            task.state?.let { saveState(task) }
+        }
+    }
+
+    private fun runTask(task: Task) {
+        var unzip: Future<Boolean>? = null
+        try {
+            task.checkActive()
+            task.data.destination.parentFile?.mkdirs()
+            val probe = probe(task)
+            if (probe.response != null) {
+                task.streamTotalBytes = probe.totalBytes
+                FileOutputStream(task.partFile).use { output ->
+                    unzip = startUnzip(task)
+                    stream(task, probe.response, output)
                 }
+            } else {
+                downloadSegments(task, probe) { unzip = startUnzip(task) }
+            }
+            task.finished = true
+            task.signal()
+            task.notifyProgress()
+            replace(task.partFile, task.data.destination)
+            task.data.unzipTo?.let { dir ->
+                if (!awaitUnzip(unzip!!)) {
+                    // 流式解压失败的文件按中央目录重新解压
+                    dir.deleteRecursively()
+                    dir.mkdirs()
+                    DownloadUnzipper.unzip(task.data.destination, dir)
+                }
+            }
+            task.stateFile.delete()
+            complete(task) { onDownloadSuccess() }
+        } catch (e: Exception) {
+            // 非IO异常（如非法URL）不能重试，同样要结束任务，否则后续相同的请求会合并到这个不会结束的任务上
+            val error = e as? IOException ?: FatalDownloadException(e.toString())
+            task.stop(error)
+            unzip?.let { runCatching { it.get() } }
+            if (task.cancelled || error is FatalDownloadException) {
+                task.partFile.delete()
+                task.stateFile.delete()
+            } else {
+                task.state?.let { saveState(task) }
             }
+            sLogger.warn("download failed, id: ${task.id}, $e")
+            complete(task) { onDownloadFailed(error.message ?: error.toString()) }
         }
     }
 
-    @SuppressLint("Range")
-    private fun updateDownloadProgress() {
-        kotlin.runCatching {
-            downloadListeners.forEach { (downloadId, listener) ->
-                val query = DownloadManager.Query().setFilterById(downloadId)
-                downloadManager?.let {
-                    val cursor = downloadManager.query(query)
-                    if (cursor.moveToFirst()) {
-                        val status = cursor.getInt(cursor.getColumnIndex(DownloadManager.COLUMN_STATUS))
-                        LogUtils.debug(TAG, "updateDownloadProgress status: $status")
-                        when (status) {
-                            DownloadManager.STATUS_SUCCESSFUL -> {
-                                listener.onDownloadSuccess()
-                                scope.launch {
-                                    delay(500L)
-                                    downloadListeners.remove(downloadId)
-                                    isDownloading = false
-                                }
-                            }
-                            DownloadManager.STATUS_FAILED -> {
-                                listener.onDownloadFailed()
-                            }
-                            else -> {
-                                val bytesDownloaded = cursor.getLong(cursor.getColumnIndex(DownloadManager.COLUMN_BYTES_DOWNLOADED_SO_FAR))
-                                val totalSize = cursor.getLong(cursor.getColumnIndex(DownloadManager.COLUMN_TOTAL_SIZE_BYTES))
-                                if (totalSize > 0) {
-                                    val progress = (bytesDownloaded * 100 / totalSize).toInt()
-                                    listener.onDownloadProgress(progress)
-                                } else {
-                                    listener.onDownloadProgress(0)
-                                }
-                            }
+    /**
+     * 请求第一个字节，判断服务器是否支持Range，同时取得长度和校验值；不支持Range时直接使用该响应
+     */
+    private fun probe(task: Task): Probe {
+        var failures = 0
+        while (true) {
+            task.checkActive()
+            val request = Request.Builder().url(task.data.url).header("Range", "bytes=0-0").build()
+            try {
+                val response = execute(task, request)
+                when {
+                    response.code == 206 -> response.use {
+                        val total = CONTENT_RANGE.find(it.header("Content-Range").orEmpty())?.groupValues?.get(3)?.toLong()
+                            ?: throw FatalDownloadException("invalid Content-Range")
+                        val etag = it.header("ETag")?.takeUnless { tag -> tag.startsWith("W/") }
+                        return Probe(total, etag ?: it.header("Last-Modified"), null)
+                    }
+                    response.isSuccessful -> return Probe(response.body?.contentLength() ?: -1, null, response)
+                    response.code == 416 -> {
+                        // 空文件
+                        response.close()
+                        val full = execute(task, Request.Builder().url(task.data.url).build())
+                        if (!full.isSuccessful) {
+                            full.close()
+                            throw FatalDownloadException("http ${full.code}")
                         }
+                        return Probe(full.body?.contentLength() ?: -1, null, full)
+                    }
+                    else -> {
+                        response.close()
+                        throw FatalDownloadException("http ${response.code}")
                     }
                 }
+            } catch (e: IOException) {
+                if (e is FatalDownloadException || task.stopped || ++failures > maxRetries) {
+                    throw e
+                }
+                sLogger.warn("probe failed, id: ${task.id}, retry: $failures, $e")
+                Thread.sleep(retryDelayMillis * failures)
+            }
+        }
+    }
+
+    private fun downloadSegments(task: Task, probe: Probe, onLayoutReady: () -> Unit) {
+        val saved = loadState(task.stateFile)?.second
+        val state = if (saved != null && saved.url == task.data.url && saved.totalBytes == probe.totalBytes
+            && saved.validator == probe.validator && task.partFile.length() == probe.totalBytes) {
+            sLogger.info("resume, id: ${task.id}, downloaded: ${saved.segments.sumOf { it.downloaded }}")
+            saved
+        } else {
+            task.partFile.delete()
+            State(task.data.url, probe.totalBytes, probe.validator, planSegments(probe.totalBytes))
+        }
+        task.state = state
+        RandomAccessFile(task.partFile, "rw").use { file ->
+            file.setLength(state.totalBytes)
+            saveState(task)
+            onLayoutReady()
+            val futures = state.segments.filter { !it.isComplete }.map { segment ->
+                segmentExecutor.submit(Callable { downloadSegment(task, segment, file.channel) })
+            }
+            for (future in futures) {
+                try {
+                    future.get()
+                } catch (e: ExecutionException) {
+                    val cause = e.cause as? IOException ?: IOException(e.cause)
+                    // 一段失败时结束其他段，保留已下载的部分
+                    task.stop(cause)
+                    futures.forEach { runCatching { it.get() } }
+                    throw cause
+                }
+            }
+            file.channel.force(false)
+        }
+    }
+
+    private fun planSegments(totalBytes: Long): List<Segment> {
+        if (totalBytes <= 0) {
+            return emptyList()
+        }
+        val count = (totalBytes / minSegmentBytes).coerceIn(1, maxSegments.toLong()).toInt()
+        val size = (totalBytes + count - 1) / count
+        return (0 until count).map { index ->
+            val start = index * size
+            Segment(start, minOf(totalBytes, start + size) - 1)
+        }
+    }
+
+    private fun downloadSegment(task: Task, segment: Segment, channel: FileChannel) {
+        val buffer = ByteArray(BUFFER_SIZE)
+        val validator = task.state?.validator
+        var failures = 0
+        while (!segment.isComplete) {
+            task.checkActive()
+            val from = segment.start + segment.downloaded
+            val builder = Request.Builder().url(task.data.url).header("Range", "bytes=$from-${segment.end}")
+            validator?.let { builder.header("If-Range", it) }
+            try {
+                execute(task, builder.build()).use { response ->
+                    if (response.code != 206) {
+                        throw FatalDownloadException("range not satisfied, http ${response.code}")
+                    }
+                    val range = CONTENT_RANGE.find(response.header("Content-Range").orEmpty())
+                    if (range?.groupValues?.get(1)?.toLong() != from) {
+                        throw FatalDownloadException("unexpected Content-Range")
+                    }
+                    val source = response.body?.source() ?: throw IOException("empty body")
+                    while (!segment.isComplete) {
+                        task.checkActive()
+                        val read = source.read(buffer, 0, minOf(buffer.size.toLong(), segment.length - segment.downloaded).toInt())
+                        if (read < 0) {
+                            throw EOFException("segment truncated at ${segment.start + segment.downloaded}")
+                        }
+                        rateLimiter.acquire(read)
+                        write(channel, buffer, read, segment.start + segment.downloaded)
+                        segment.downloaded += read
+                        failures = 0
+                        task.onBytes(read)
+                    }
+                }
+            } catch (e: IOException) {
+                if (e is FatalDownloadException || task.stopped || task.failure != null || ++failures > maxRetries) {
+                    throw e
+                }
+                sLogger.warn("segment failed, id: ${task.id}, from: ${segment.start + segment.downloaded}, retry: $failures, $e")
+                Thread.sleep(retryDelayMillis * failures)
+            }
+        }
+    }
+
+    /**
+     * 不支持Range的服务器只能整体下载，失败后从头开始
+     */
+    private fun stream(task: Task, response: Response, output: FileOutputStream) {
+        response.use {
+            val source = it.body?.source() ?: throw IOException("empty body")
+            val buffer = ByteArray(BUFFER_SIZE)
+            while (true) {
+                task.checkActive()
+                val read = source.read(buffer)
+                if (read < 0) {
+                    break
+                }
+                rateLimiter.acquire(read)
+                output.write(buffer, 0, read)
+                task.streamedBytes += read
+                task.onBytes(read)
+            }
+            output.fd.sync()
+        }
+    }
+
+    private fun startUnzip(task: Task): Future<Boolean>? {
+        val dir = task.data.unzipTo ?: return null
+        return segmentExecutor.submit(Callable {
+            dir.deleteRecursively()
+            dir.mkdirs()
+            try {
+                BufferedInputStream(TaskInputStream(task), BUFFER_SIZE).use { DownloadUnzipper.unzip(it, dir) }
+                true
+            } catch (e: ZipException) {
+                sLogger.info("streaming unzip unsupported, id: ${task.id}, $e")
+                false
             }
-        }.onFailure {
-            LogUtils.error(TAG, "updateDownloadProgress failed: $it")
+        })
+    }
+
+    private fun awaitUnzip(unzip: Future<Boolean>): Boolean {
+        try {
+            return unzip.get()
+        } catch (e: ExecutionException) {
+            throw e.cause as? IOException ?: IOException(e.cause)
+        }
+    }
+
+    /**
+     * 任务结束前保留所有请求，停止任务时取消正在读取的响应
+     */
+    private fun execute(task: Task, request: Request): Response {
+        return task.newCall(request).execute()
+    }
+
+    private fun write(channel: FileChannel, buffer: ByteArray, length: Int, position: Long) {
+        val byteBuffer = ByteBuffer.wrap(buffer, 0, length)
+        var offset = position
+        while (byteBuffer.hasRemaining()) {
+            offset += channel.write(byteBuffer, offset)
+        }
+    }
+
+    private fun replace(source: File, target: File) {
+        if (!source.renameTo(target)) {
+            target.delete()
+            if (!source.renameTo(target)) {
+                throw IOException("rename failed: $target")
+            }
+        }
+    }
+
+    private fun complete(task: Task, action: IDownloadListener.() -> Unit) {
+        val listeners = synchronized(tasks) {
+            tasks.remove(task.id)
+            ArrayList(task.listeners)
+        }
+        listeners.forEach { dispatch(it, action) }
+    }
+
+    private fun saveState(task: Task) {
+        val state = task.state ?: return
+        synchronized(task) {
+            try {
+                stateDir.mkdirs()
+                val temp = File(task.stateFile.path + TEMP_SUFFIX)
+                temp.writeText(task.data.destination.path + "\n" + JsonUtil.toJson(state))
+                replace(temp, task.stateFile)
+            } catch (e: IOException) {
+                sLogger.warn("saveState failed, id: ${task.id}, $e")
+            }
+        }
+    }
+
+    /**
+     * @return 目标文件和下载进度
+     */
+    private fun loadState(file: File): Pair<String, State>? {
+        if (!file.exists()) {
+            return null
+        }
+        return try {
+            val text = file.readText()
+            val separator = text.indexOf('\n')
+            JsonUtil.fromJson(text.substring(separator + 1), State::class.java)?.let { text.substring(0, separator) to it }
+        } catch (e: Exception) {
+            sLogger.warn("loadState failed: $file, $e")
+            null
+        }
+    }
+
+    private fun purgeStaleStates() {
+        val deadline = System.currentTimeMillis() - STALE_STATE_MILLIS
+        stateDir.listFiles()?.filter { it.lastModified() < deadline }?.forEach { file ->
+            loadState(file)?.let { File(it.first + PART_SUFFIX).delete() }
+            file.delete()
+        }
+    }
+
+    private inline fun dispatch(listener: IDownloadListener, action: IDownloadListener.() -> Unit) {
+        try {
+            listener.action()
+        } catch (e: RuntimeException) {
+            sLogger.error("listener failed", e)
         }
     }
-}
\ No newline at end of file
+}
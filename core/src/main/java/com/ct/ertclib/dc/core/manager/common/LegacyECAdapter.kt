@@ -0,0 +1,73 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.common
+
+import android.content.Context
+import com.ct.ertclib.dc.base.port.ec.ECRequest
+import com.ct.ertclib.dc.base.port.ec.IEC
+import com.ct.ertclib.dc.base.port.ec.IECStreamCallback
+import com.ct.ertclib.dc.base.port.ec.IECV2
+import java.nio.ByteBuffer
+
+/**
+ * 把只实现[IEC]的能力提供者适配为[IECV2]
+ *
+ * 二进制负载按UTF-8解码为JSON字符串后交给[IEC.request]，批量请求逐条提交；
+ * 字符串请求由[ExpandingCapacityManager]直接转给[legacy]，不经过编解码。
+ */
+class LegacyECAdapter(val legacy: IEC) : IECV2 {
+
+    override fun init(context: Context, callback: IECStreamCallback?) {
+        legacy.init(context, callback)
+    }
+
+    override fun getModuleList(): List<String> = legacy.getModuleList()
+
+    override fun request(context: Context, callId: String, appId: String, module: String, payload: ByteBuffer): Int {
+        return legacy.request(context, callId, appId, decode(payload))
+    }
+
+    override fun requestBatch(context: Context, callId: String, appId: String, requests: List<ECRequest>): Int {
+        var accepted = 0
+        for (request in requests) {
+            if (request(context, callId, appId, request.module, request.payload) == 0) {
+                accepted++
+            }
+        }
+        return accepted
+    }
+
+    override fun onWritable() {
+        // 字符串回调不做流控
+    }
+
+    override fun releaseMiniApp(context: Context, callId: String, miniAppId: String) {
+        legacy.releaseMiniApp(context, callId, miniAppId)
+    }
+
+    override fun releaseAll(context: Context) {
+        legacy.releaseAll(context)
+    }
+
+    private fun decode(payload: ByteBuffer): String {
+        val buffer = payload.duplicate()
+        if (buffer.hasArray()) {
+            return String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), Charsets.UTF_8)
+        }
+        return Charsets.UTF_8.decode(buffer).toString()
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppHttpRequest
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppHttpResponse
+import com.ct.ertclib.dc.core.port.listener.IHttpResultListener
+import com.ct.ertclib.dc.core.port.manager.IMiniAppHttpManager
+import com.ct.ertclib.dc.core.utils.common.HttpUtils
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import okhttp3.Cache
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.MediaType.Companion.toMediaTypeOrNull
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.Response
+import okio.BufferedSource
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 小程序网络请求
+ *
+ * 所有小程序共用[HttpUtils.sharedClient]的连接池和线程池，每个小程序有独立配额的HTTP磁盘缓存。
+ * 相同的GET请求在收到响应头之前合并为一次网络请求。响应体超过[maxBufferedBytes]时改为按[chunkSize]分块回调，
+ * 请求指定了saveTo时直接写入文件。
+ */
+class MiniAppHttpManager(
+    private val rootDir: File,
+    private val baseClient: OkHttpClient = HttpUtils.sharedClient,
+    private val cacheQuotaBytes: Long = DEFAULT_CACHE_QUOTA,
+    private val maxBufferedBytes: Int = DEFAULT_MAX_BUFFERED_BYTES,
+    private val chunkSize: Int = DEFAULT_CHUNK_SIZE
+) : IMiniAppHttpManager {
+
+    companion object {
+        private const val TAG = "MiniAppHttpManager"
+        const val DEFAULT_CACHE_QUOTA = 10L * 1024 * 1024
+        const val DEFAULT_MAX_BUFFERED_BYTES = 512 * 1024
+        const val DEFAULT_CHUNK_SIZE = 64 * 1024
+        private const val CACHE_DIR = "cache"
+        private const val DOWNLOAD_DIR = "download"
+        private const val PART_SUFFIX = ".part"
+        private val UNSAFE_NAME_CHARS = Regex("[^A-Za-z0-9._-]")
+    }
+
+    /**
+     * 一次网络请求及等待它的监听者，收到响应头后不再接受合并
+     */
+    private class Flight(val key: String?) {
+        val listeners = ArrayList<IHttpResultListener>(1)
+        var started = false
+    }
+
+    private val sLogger: Logger = Logger.getLogger(TAG)
+    private val appClients = ConcurrentHashMap<String, OkHttpClient>()
+    private val inFlight = HashMap<String, Flight>()
+
+    override fun execute(request: MiniAppHttpRequest, listener: IHttpResultListener) {
+        val httpRequest = try {
+            buildRequest(request)
+        } catch (e: IllegalArgumentException) {
+            listener.onFailure(IOException("invalid request: ${request.url}", e))
+            return
+        }
+        val key = if (canCoalesce(request)) flightKey(request) else null
+        val flight: Flight
+        synchronized(inFlight) {
+            val existing = key?.let { inFlight[it] }
+            if (existing != null && !existing.started) {
+                existing.listeners.add(listener)
+                sLogger.debug { "execute coalesced, appId: ${request.appId}, url: ${request.url}" }
+                return
+            }
+            flight = Flight(key)
+            flight.listeners.add(listener)
+            if (key != null) {
+                inFlight[key] = flight
+            }
+        }
+        clientFor(request.appId).newCall(httpRequest).enqueue(FlightCallback(flight, request.saveTo))
+    }
+
+    override fun getDownloadDir(appId: String): File {
+        return File(rootDir, "$DOWNLOAD_DIR/${dirName(appId)}")
+    }
+
+    override fun release() {
+        appClients.values.forEach { client -> client.cache?.let { closeCache(it) } }
+        appClients.clear()
+    }
+
+    private fun clientFor(appId: String): OkHttpClient {
+        return appClients.getOrPut(appId) {
+            baseClient.newBuilder()
+                .cache(Cache(File(rootDir, "$CACHE_DIR/${dirName(appId)}"), cacheQuotaBytes))
+                .build()
+        }
+    }
+
+    private fun closeCache(cache: Cache) {
+        try {
+            cache.close()
+        } catch (e: IOException) {
+            sLogger.warn("closeCache failed: $e")
+        }
+    }
+
+    private fun buildRequest(request: MiniAppHttpRequest): Request {
+        val builder = Request.Builder().url(request.url)
+        request.headers.forEach { (name, value) -> builder.addHeader(name, value) }
+        val method = request.method.uppercase()
+        if (method == "GET" || method == "HEAD") {
+            builder.method(method, null)
+        } else {
+            val body = (request.body ?: ByteArray(0)).toRequestBody(request.mediaType?.toMediaTypeOrNull())
+            builder.method(method, body)
+        }
+        return builder.build()
+    }
+
+    private fun canCoalesce(request: MiniAppHttpRequest): Boolean {
+        return request.method.equals("GET", ignoreCase = true) && request.body == null && request.saveTo == null
+    }
+
+    private fun flightKey(request: MiniAppHttpRequest): String {
+        val key = StringBuilder(request.appId).append('\n').append(request.url)
+        request.headers.entries.sortedBy { it.key }.forEach { key.append('\n').append(it.key).append(':').append(it.value) }
+        return key.toString()
+    }
+
+    private fun dirName(appId: String): String = UNSAFE_NAME_CHARS.replace(appId, "_")
+
+    /**
+     * 收到响应头或失败时调用，之后的同类请求发起新的网络请求
+     */
+    private fun start(flight: Flight): List<IHttpResultListener> {
+        synchronized(inFlight) {
+            flight.started = true
+            if (flight.key != null && inFlight[flight.key] === flight) {
+                inFlight.remove(flight.key)
+            }
+            return ArrayList(flight.listeners)
+        }
+    }
+
+    private inner class FlightCallback(private val flight: Flight, private val saveTo: File?) : Callback {
+
+        override fun onFailure(call: Call, e: IOException) {
+            sLogger.warn("request failed, url: ${call.request().url}, $e")
+            start(flight).forEach { dispatch(it) { onFailure(e) } }
+        }
+
+        override fun onResponse(call: Call, response: Response) {
+            val listeners = start(flight)
+            try {
+                response.use { deliver(it, listeners) }
+            } catch (e: IOException) {
+                sLogger.warn("read response failed, url: ${call.request().url}, $e")
+                listeners.forEach { dispatch(it) { onFailure(e) } }
+            }
+        }
+
+        private fun deliver(response: Response, listeners: List<IHttpResultListener>) {
+            val body = response.body ?: throw IOException("empty body")
+            val contentLength = body.contentLength()
+            val headers = response.headers.toMultimap().mapValues { it.value.joinToString(",") }
+            val fromCache = response.networkResponse == null && response.cacheResponse != null
+            val coalesced = listeners.size > 1
+            if (saveTo != null) {
+                val total = writeToFile(body.source(), saveTo)
+                val result = MiniAppHttpResponse(response.code, headers, null, saveTo, total, false, fromCache, coalesced)
+                listeners.forEach { dispatch(it) { onResponse(result) } }
+                return
+            }
+            val chunk = ByteArray(chunkSize)
+            val source = body.source()
+            var streamed = contentLength > maxBufferedBytes
+            val buffered = if (streamed) null else ByteArrayOutputStream(if (contentLength > 0) contentLength.toInt() else chunkSize)
+            var offset = 0L
+            while (true) {
+                val read = readFully(source, chunk)
+                if (read <= 0) {
+                    break
+                }
+                if (!streamed) {
+                    buffered!!.write(chunk, 0, read)
+                    if (buffered.size() > maxBufferedBytes) {
+                        // 长度未知的响应读到上限后改为分块，已缓冲的部分先推送
+                        streamed = true
+                        val bytes = buffered.toByteArray()
+                        buffered.reset()
+                        var start = 0
+                        while (start < bytes.size) {
+                            val length = minOf(chunkSize, bytes.size - start)
+                            val piece = bytes.copyOfRange(start, start + length)
+                            listeners.forEach { dispatch(it) { onChunk(piece, length, offset) } }
+                            offset += length
+                            start += length
+                        }
+                    }
+                    continue
+                }
+                listeners.forEach { dispatch(it) { onChunk(chunk, read, offset) } }
+                offset += read
+            }
+            val bytes = if (streamed) null else buffered!!.toByteArray()
+            val result = MiniAppHttpResponse(response.code, headers, bytes, null, bytes?.size?.toLong() ?: offset, streamed, fromCache, coalesced)
+            listeners.forEach { dispatch(it) { onResponse(result) } }
+        }
+
+        private fun writeToFile(source: BufferedSource, target: File): Long {
+            target.parentFile?.mkdirs()
+            val part = File(target.path + PART_SUFFIX)
+            val chunk = ByteArray(chunkSize)
+            var total = 0L
+            part.outputStream().use { output ->
+                while (true) {
+                    val read = source.read(chunk)
+                    if (read < 0) {
+                        break
+                    }
+                    output.write(chunk, 0, read)
+                    total += read
+                }
+            }
+            if (!part.renameTo(target)) {
+                target.delete()
+                if (!part.renameTo(target)) {
+                    part.delete()
+                    throw IOException("rename failed: $target")
+                }
+            }
+            return total
+        }
+
+        private fun readFully(source: BufferedSource, chunk: ByteArray): Int {
+            var filled = 0
+            while (filled < chunk.size) {
+                val read = source.read(chunk, filled, chunk.size - filled)
+                if (read < 0) {
+                    break
+                }
+                filled += read
+            }
+            return filled
+        }
+
+        private inline fun dispatch(listener: IHttpResultListener, action: IHttpResultListener.() -> Unit) {
+            try {
+                listener.action()
+            } catch (e: RuntimeException) {
+                sLogger.error("listener failed", e)
+            }
+        }
+    }
+}
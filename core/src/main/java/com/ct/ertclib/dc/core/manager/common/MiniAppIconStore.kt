@@ -0,0 +1,209 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.ct.ertclib.dc.core.port.manager.IMiniAppIconStore
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import java.io.File
+import java.io.IOException
+import java.security.MessageDigest
+import java.util.Base64
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 小程序图标存储
+ *
+ * 收到的base64图标解码一次，按appId和内容摘要写成`<appId>_<摘要>.<扩展名>`，同一小程序的旧图标随之删除。
+ * 同一份base64重复收到时只比较长度和hashCode，不再解码。读取时按字节数做LRU缓存，避免每次启动都解码。
+ */
+class MiniAppIconStore<T : Any>(
+    private val rootDir: File,
+    private val decoder: Decoder<T>,
+    private val maxCacheBytes: Int = DEFAULT_CACHE_BYTES
+) : IMiniAppIconStore<T> {
+
+    companion object {
+        private const val TAG = "MiniAppIconStore"
+        private val sLogger: Logger = Logger.getLogger(TAG)
+        const val DEFAULT_DIR = "miniapp_icons"
+        const val DEFAULT_CACHE_BYTES = 4 * 1024 * 1024
+        private const val BASE64_MARK = "base64,"
+        // 没有data URI头的base64图标
+        private const val RAW_EXTENSION = "img"
+        private const val SVG_EXTENSION = "svg"
+        private const val SVG_SUBTYPE = "svg+xml"
+        private const val HASH_HEX_LENGTH = 16
+        private val EXTENSION_REGEX = Regex("[a-z0-9]{1,8}")
+        private val UNSAFE_NAME_REGEX = Regex("[^A-Za-z0-9._-]")
+    }
+
+    interface Decoder<T : Any> {
+        fun decode(file: File): T?
+
+        /**
+         * @return 缓存中占用的字节数
+         */
+        fun sizeOf(icon: T): Int
+    }
+
+    private class Interned(val length: Int, val hashCode: Int, val path: String)
+
+    private val rootPath = rootDir.absolutePath + File.separator
+    private val interned = ConcurrentHashMap<String, Interned>()
+    private val cache = LinkedHashMap<String, T>(16, 0.75f, true)
+    private var cachedBytes = 0
+
+    var decodeCount = 0
+        private set
+    var hitCount = 0
+        private set
+
+    override fun intern(appId: String, icon: String?): String? {
+        if (icon.isNullOrEmpty() || isReference(icon)) {
+            return icon
+        }
+        interned[appId]?.let {
+            if (it.length == icon.length && it.hashCode == icon.hashCode() && File(it.path).exists()) {
+                return it.path
+            }
+        }
+        val markIndex = icon.indexOf(BASE64_MARK, 0, true)
+        val payload = if (markIndex == -1) icon else icon.substring(markIndex + BASE64_MARK.length)
+        val bytes = decodeBase64(payload) ?: return icon
+        val extension = if (markIndex == -1) RAW_EXTENSION else extensionOf(icon.substring(0, markIndex))
+        val prefix = UNSAFE_NAME_REGEX.replace(appId, "_")
+        val file = File(rootDir, "${prefix}_${hashOf(bytes)}.$extension")
+        synchronized(this) {
+            if (!file.exists()) {
+                try {
+                    rootDir.mkdirs()
+                    val tmp = File(rootDir, "${file.name}.tmp")
+                    tmp.writeBytes(bytes)
+                    if (!tmp.renameTo(file)) {
+                        tmp.delete()
+                        return icon
+                    }
+                } catch (e: IOException) {
+                    sLogger.error("intern appId: $appId", e)
+                    return icon
+                }
+                rootDir.listFiles()?.forEach {
+                    if (it != file && it.name.substringBeforeLast('_') == prefix) {
+                        removeCached(it.absolutePath)
+                        it.delete()
+                    }
+                }
+            }
+        }
+        interned[appId] = Interned(icon.length, icon.hashCode(), file.absolutePath)
+        return file.absolutePath
+    }
+
+    override fun getIcon(appId: String, icon: String?): T? {
+        val path = intern(appId, icon)
+        if (path == null || !isReference(path)) {
+            return null
+        }
+        synchronized(cache) {
+            cache[path]?.let {
+                hitCount++
+                return it
+            }
+        }
+        val decoded = try {
+            decoder.decode(File(path))
+        } catch (e: Exception) {
+            sLogger.warn("decode $path, ${e.message}")
+            null
+        } ?: return null
+        putCached(path, decoded)
+        return decoded
+    }
+
+    override fun toInlineIcon(icon: String?): String? {
+        if (icon == null || !isReference(icon)) {
+            return icon
+        }
+        val file = File(icon)
+        val bytes = try {
+            file.readBytes()
+        } catch (e: IOException) {
+            sLogger.warn("toInlineIcon $icon, ${e.message}")
+            return null
+        }
+        val encoded = Base64.getEncoder().encodeToString(bytes)
+        return when (val extension = file.extension) {
+            RAW_EXTENSION -> encoded
+            SVG_EXTENSION -> "data:image/$SVG_SUBTYPE;$BASE64_MARK$encoded"
+            else -> "data:image/$extension;$BASE64_MARK$encoded"
+        }
+    }
+
+    private fun isReference(icon: String): Boolean = icon.startsWith(rootPath)
+
+    private fun decodeBase64(payload: String): ByteArray? {
+        val compact = if (payload.any { it.isWhitespace() }) payload.filterNot { it.isWhitespace() } else payload
+        return try {
+            Base64.getDecoder().decode(compact).takeIf { it.isNotEmpty() }
+        } catch (e: IllegalArgumentException) {
+            // 不是base64，例如图标是URL
+            null
+        }
+    }
+
+    /**
+     * @param header data URI中base64,之前的部分，如data:image/png;
+     */
+    private fun extensionOf(header: String): String {
+        val subtype = header.substringAfter('/', "").substringBefore(';').lowercase(Locale.ROOT)
+        return when {
+            subtype == SVG_SUBTYPE -> SVG_EXTENSION
+            subtype != RAW_EXTENSION && EXTENSION_REGEX.matches(subtype) -> subtype
+            else -> RAW_EXTENSION
+        }
+    }
+
+    private fun hashOf(bytes: ByteArray): String {
+        val digest = MessageDigest.getInstance("SHA-1").digest(bytes)
+        val builder = StringBuilder(HASH_HEX_LENGTH)
+        for (i in 0 until HASH_HEX_LENGTH / 2) {
+            builder.append(String.format(Locale.ROOT, "%02x", digest[i]))
+        }
+        return builder.toString()
+    }
+
+    private fun putCached(path: String, icon: T) {
+        synchronized(cache) {
+            decodeCount++
+            cache.put(path, icon)?.let { cachedBytes -= decoder.sizeOf(it) }
+            cachedBytes += decoder.sizeOf(icon)
+            val iterator = cache.entries.iterator()
+            while (cachedBytes > maxCacheBytes && iterator.hasNext()) {
+                cachedBytes -= decoder.sizeOf(iterator.next().value)
+                iterator.remove()
+            }
+        }
+    }
+
+    private fun removeCached(path: String) {
+        synchronized(cache) {
+            cache.remove(path)?.let { cachedBytes -= decoder.sizeOf(it) }
+        }
+    }
+}
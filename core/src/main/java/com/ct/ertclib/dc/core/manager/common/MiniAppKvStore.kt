@@ -0,0 +1,357 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.ct.ertclib.dc.core.port.manager.IMiniAppKvStore
+import com.ct.ertclib.dc.core.port.manager.IMiniAppKvStore.Companion.NO_EXPIRY
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import java.io.BufferedOutputStream
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.util.TreeSet
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.zip.CRC32
+
+/**
+ * 小程序键值存储
+ *
+ * 每个小程序一个命名空间，数据全部在内存里，读不访问磁盘。写入先追加到内存缓冲，由写线程按[flushDelayMillis]
+ * 合并成一次追加写入日志文件；日志超过[maxLogBytes]时把当前数据写成快照并清空日志，磁盘占用与有效数据量成正比。
+ * 带有效期的key另有按过期时间排序的索引，清理只访问已过期的部分；[purgeExpired]发现过期数据时下次落盘写快照，
+ * 磁盘上的过期记录随之删除。
+ * 每条记录带长度和CRC，进程在写入中途退出时加载到最后一条完整记录为止。
+ */
+class MiniAppKvStore(
+    private val rootDir: File,
+    private val quotaBytes: Long = DEFAULT_QUOTA_BYTES,
+    private val maxLogBytes: Long = DEFAULT_MAX_LOG_BYTES,
+    private val flushDelayMillis: Long = DEFAULT_FLUSH_DELAY_MILLIS,
+    private val clock: () -> Long = System::currentTimeMillis
+) : IMiniAppKvStore {
+
+    companion object {
+        private const val TAG = "MiniAppKvStore"
+        const val DEFAULT_QUOTA_BYTES = 5L * 1024 * 1024
+        const val DEFAULT_MAX_LOG_BYTES = 1L * 1024 * 1024
+        const val DEFAULT_FLUSH_DELAY_MILLIS = 50L
+        private const val SNAPSHOT_SUFFIX = ".snap"
+        private const val LOG_SUFFIX = ".log"
+        private const val TEMP_SUFFIX = ".tmp"
+        private const val OP_PUT: Byte = 1
+        private const val OP_DELETE: Byte = 2
+        // 长度、CRC
+        private const val RECORD_HEADER_BYTES = 8
+        private val UNSAFE_NAME_CHARS = Regex("[^A-Za-z0-9._-]")
+        private val EXPIRY_ORDER = compareBy<ExpiryKey>({ it.expiresAt }, { it.key })
+    }
+
+    private class Entry(val value: String, val expiresAt: Long, val bytes: Int)
+
+    private class ExpiryKey(val expiresAt: Long, val key: String)
+
+    private class Namespace(val snapshotFile: File, val logFile: File) {
+        val entries = HashMap<String, Entry>()
+        val expiry = TreeSet(EXPIRY_ORDER)
+        var usedBytes = 0L
+        var logBytes = 0L
+        val pending = ByteArrayOutputStream()
+        // 磁盘上有过期记录，下次落盘时写快照
+        var compactPending = false
+
+        fun set(key: String, entry: Entry) {
+            remove(key)
+            entries[key] = entry
+            usedBytes += entry.bytes
+            if (entry.expiresAt != NO_EXPIRY) {
+                expiry.add(ExpiryKey(entry.expiresAt, key))
+            }
+        }
+
+        fun remove(key: String): Entry? {
+            val old = entries.remove(key) ?: return null
+            usedBytes -= old.bytes
+            if (old.expiresAt != NO_EXPIRY) {
+                expiry.remove(ExpiryKey(old.expiresAt, key))
+            }
+            return old
+        }
+
+        /**
+         * 过期的key不写删除记录，加载和生成快照时按过期时间跳过
+         */
+        fun purgeExpired(now: Long): Int {
+            var count = 0
+            while (expiry.isNotEmpty() && expiry.first().expiresAt <= now) {
+                val expired = expiry.pollFirst()!!
+                entries.remove(expired.key)?.let { usedBytes -= it.bytes }
+                count++
+            }
+            return count
+        }
+    }
+
+    private val sLogger: Logger = Logger.getLogger(TAG)
+    private val namespaces = ConcurrentHashMap<String, Namespace>()
+    private val writer = Executors.newSingleThreadScheduledExecutor { Thread(it, "MiniAppKvWriter") }
+    private val flushScheduled = AtomicBoolean()
+
+    override fun put(appId: String, key: String, value: String, ttlMillis: Long): Boolean {
+        val now = clock()
+        val expiresAt = if (ttlMillis > 0) now + ttlMillis else NO_EXPIRY
+        val record = encodeRecord(OP_PUT, key, expiresAt, value)
+        val namespace = namespace(appId)
+        synchronized(namespace) {
+            namespace.purgeExpired(now)
+            val oldBytes = namespace.entries[key]?.bytes ?: 0
+            if (namespace.usedBytes - oldBytes + record.size > quotaBytes) {
+                sLogger.warn("put, quota exceeded, appId: $appId, used: ${namespace.usedBytes}")
+                return false
+            }
+            namespace.set(key, Entry(value, expiresAt, record.size))
+            namespace.pending.write(record)
+        }
+        scheduleFlush()
+        return true
+    }
+
+    override fun get(appId: String, key: String): String? {
+        val namespace = namespace(appId)
+        synchronized(namespace) {
+            val entry = namespace.entries[key] ?: return null
+            if (entry.expiresAt != NO_EXPIRY && entry.expiresAt <= clock()) {
+                return null
+            }
+            return entry.value
+        }
+    }
+
+    override fun remove(appId: String, key: String) {
+        val namespace = namespace(appId)
+        synchronized(namespace) {
+            namespace.remove(key) ?: return
+            namespace.pending.write(encodeRecord(OP_DELETE, key, NO_EXPIRY, null))
+        }
+        scheduleFlush()
+    }
+
+    override fun purgeExpired(appId: String): Int {
+        val namespace = namespace(appId)
+        val purged: Int
+        synchronized(namespace) {
+            purged = namespace.purgeExpired(clock())
+            if (purged > 0) {
+                namespace.compactPending = true
+            }
+            if (!namespace.compactPending) {
+                return 0
+            }
+        }
+        scheduleFlush()
+        return purged
+    }
+
+    override fun flush() {
+        writer.submit { flushAll() }.get()
+    }
+
+    private fun namespace(appId: String): Namespace {
+        return namespaces.computeIfAbsent(appId) { load(it) }
+    }
+
+    private fun scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            writer.schedule({
+                flushScheduled.set(false)
+                flushAll()
+            }, flushDelayMillis, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    /**
+     * 只在写线程调用
+     */
+    private fun flushAll() {
+        namespaces.values.forEach { namespace ->
+            try {
+                flushNamespace(namespace)
+            } catch (e: IOException) {
+                sLogger.error("flush ${namespace.logFile.name}", e)
+            }
+        }
+    }
+
+    private fun flushNamespace(namespace: Namespace) {
+        val batch: ByteArray
+        var snapshot: List<Pair<String, Entry>>? = null
+        synchronized(namespace) {
+            if (namespace.pending.size() == 0 && !namespace.compactPending) {
+                return
+            }
+            batch = namespace.pending.toByteArray()
+            namespace.pending.reset()
+            if (namespace.compactPending || namespace.logBytes + batch.size > maxLogBytes) {
+                namespace.compactPending = false
+                snapshot = namespace.entries.map { it.key to it.value }
+                namespace.logBytes = 0
+            } else {
+                namespace.logBytes += batch.size
+            }
+        }
+        snapshot?.let {
+            try {
+                writeSnapshot(namespace, it)
+                return
+            } catch (e: IOException) {
+                // 快照写失败时这批修改仍然追加到日志
+                sLogger.error("writeSnapshot ${namespace.snapshotFile.name}", e)
+            }
+        }
+        FileOutputStream(namespace.logFile, true).use {
+            it.write(batch)
+            it.fd.sync()
+        }
+    }
+
+    /**
+     * 快照包含日志里的全部修改，先替换快照再清空日志，中途退出时重放日志也得到相同结果
+     */
+    private fun writeSnapshot(namespace: Namespace, entries: List<Pair<String, Entry>>) {
+        val now = clock()
+        val temp = File(namespace.snapshotFile.path + TEMP_SUFFIX)
+        FileOutputStream(temp).use { file ->
+            val out = BufferedOutputStream(file)
+            entries.forEach { (key, entry) ->
+                if (entry.expiresAt == NO_EXPIRY || entry.expiresAt > now) {
+                    out.write(encodeRecord(OP_PUT, key, entry.expiresAt, entry.value))
+                }
+            }
+            out.flush()
+            file.fd.sync()
+        }
+        if (!temp.renameTo(namespace.snapshotFile)) {
+            throw IOException("rename ${temp.name} failed")
+        }
+        FileOutputStream(namespace.logFile).close()
+    }
+
+    private fun load(appId: String): Namespace {
+        rootDir.mkdirs()
+        val name = UNSAFE_NAME_CHARS.replace(appId, "_")
+        val namespace = Namespace(File(rootDir, name + SNAPSHOT_SUFFIX), File(rootDir, name + LOG_SUFFIX))
+        val now = clock()
+        var expiredRecords = 0
+        fun apply(op: Byte, key: String, expiresAt: Long, value: String?, bytes: Int) {
+            if (op == OP_PUT && value != null && (expiresAt == NO_EXPIRY || expiresAt > now)) {
+                namespace.set(key, Entry(value, expiresAt, bytes))
+            } else {
+                if (op == OP_PUT) {
+                    expiredRecords++
+                }
+                namespace.remove(key)
+            }
+        }
+        readRecords(namespace.snapshotFile, ::apply)
+        namespace.logBytes = readRecords(namespace.logFile, ::apply)
+        namespace.compactPending = expiredRecords > 0
+        sLogger.info("load, appId: $appId, keys: ${namespace.entries.size}, bytes: ${namespace.usedBytes}")
+        return namespace
+    }
+
+    /**
+     * @return 最后一条完整记录的结束位置，之后的残缺数据会被截掉
+     */
+    private fun readRecords(file: File, apply: (Byte, String, Long, String?, Int) -> Unit): Long {
+        if (!file.exists()) {
+            return 0
+        }
+        val data = try {
+            file.readBytes()
+        } catch (e: IOException) {
+            sLogger.error("readRecords ${file.name}", e)
+            return 0
+        }
+        val buffer = ByteBuffer.wrap(data)
+        val crc = CRC32()
+        var valid = 0
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            val length = buffer.getInt()
+            val checksum = buffer.getInt()
+            if (length <= 0 || length > buffer.remaining()) {
+                break
+            }
+            crc.reset()
+            crc.update(data, buffer.position(), length)
+            if (crc.value.toInt() != checksum) {
+                break
+            }
+            decodeRecord(buffer, apply)
+            valid += RECORD_HEADER_BYTES + length
+            buffer.position(valid)
+        }
+        if (valid < data.size) {
+            sLogger.warn("readRecords, truncate ${file.name} from ${data.size} to $valid")
+            RandomAccessFile(file, "rw").use { it.setLength(valid.toLong()) }
+        }
+        return valid.toLong()
+    }
+
+    private fun encodeRecord(op: Byte, key: String, expiresAt: Long, value: String?): ByteArray {
+        val keyBytes = key.toByteArray(Charsets.UTF_8)
+        val valueBytes = value?.toByteArray(Charsets.UTF_8)
+        val length = 1 + 4 + keyBytes.size + 8 + (valueBytes?.let { 4 + it.size } ?: 0)
+        val buffer = ByteBuffer.allocate(RECORD_HEADER_BYTES + length)
+        buffer.putInt(length)
+        buffer.putInt(0)
+        buffer.put(op)
+        buffer.putInt(keyBytes.size)
+        buffer.put(keyBytes)
+        buffer.putLong(expiresAt)
+        valueBytes?.let {
+            buffer.putInt(it.size)
+            buffer.put(it)
+        }
+        val crc = CRC32()
+        crc.update(buffer.array(), RECORD_HEADER_BYTES, length)
+        buffer.putInt(4, crc.value.toInt())
+        return buffer.array()
+    }
+
+    private fun decodeRecord(buffer: ByteBuffer, apply: (Byte, String, Long, String?, Int) -> Unit) {
+        val start = buffer.position()
+        val data = buffer.array()
+        val op = buffer.get()
+        val keyLength = buffer.getInt()
+        val key = String(data, buffer.position(), keyLength, Charsets.UTF_8)
+        buffer.position(buffer.position() + keyLength)
+        val expiresAt = buffer.getLong()
+        val value = if (op == OP_PUT) {
+            val valueLength = buffer.getInt()
+            String(data, buffer.position(), valueLength, Charsets.UTF_8).also { buffer.position(buffer.position() + valueLength) }
+        } else {
+            null
+        }
+        apply(op, key, expiresAt, value, RECORD_HEADER_BYTES + buffer.position() - start)
+    }
+}
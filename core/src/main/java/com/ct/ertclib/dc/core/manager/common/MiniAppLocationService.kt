@@ -0,0 +1,186 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppLocationFix
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppLocationRequest
+import com.ct.ertclib.dc.core.port.manager.IMiniAppLocationService
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * 进程内共享的小程序定位服务
+ *
+ * 最近一次结果或系统缓存的结果满足请求的时长和误差时直接返回，不启动定位。
+ * 否则所有请求共用一个定位订阅，每次更新时回调已满足条件的请求；有请求要求高精度时订阅切换为高精度。
+ * 没有请求在等待时订阅再保留[idleMillis]，期间的新请求直接复用，之后关闭定位。
+ */
+class MiniAppLocationService(
+    private val source: Source,
+    private val idleMillis: Long = DEFAULT_IDLE_MILLIS,
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val scheduler: Scheduler = executorScheduler()
+) : IMiniAppLocationService {
+
+    companion object {
+        private const val TAG = "MiniAppLocationService"
+        const val DEFAULT_IDLE_MILLIS = 30_000L
+        // 要求的误差小于该值时使用高精度定位
+        const val HIGH_ACCURACY_METERS = 100f
+
+        private fun executorScheduler(): Scheduler {
+            val executor = Executors.newSingleThreadScheduledExecutor { Thread(it, "MiniAppLocation").apply { isDaemon = true } }
+            return Scheduler { delayMillis, task ->
+                val future = executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS)
+                Runnable { future.cancel(false) }
+            }
+        }
+    }
+
+    /**
+     * 定位来源，回调可以在任意线程
+     */
+    interface Source {
+
+        fun isEnabled(): Boolean
+
+        /**
+         * @return 系统缓存的最新结果，包括其他应用触发的被动定位
+         */
+        fun lastKnownFix(): MiniAppLocationFix?
+
+        fun start(highAccuracy: Boolean, listener: (MiniAppLocationFix) -> Unit)
+
+        fun stop()
+    }
+
+    fun interface Scheduler {
+        /**
+         * @return 取消任务
+         */
+        fun schedule(delayMillis: Long, task: Runnable): Runnable
+    }
+
+    private class Waiter(
+        val request: MiniAppLocationRequest,
+        val callback: (MiniAppLocationFix?) -> Unit
+    ) {
+        var cancelTimeout: Runnable? = null
+    }
+
+    private val sLogger: Logger = Logger.getLogger(TAG)
+    private val lock = Any()
+    private val waiters = ArrayList<Waiter>()
+    private var latest: MiniAppLocationFix? = null
+    private var subscribed = false
+    private var highAccuracy = false
+    private var cancelIdleStop: Runnable? = null
+
+    override fun isProviderEnabled(): Boolean = source.isEnabled()
+
+    override fun requestLocation(request: MiniAppLocationRequest, callback: (MiniAppLocationFix?) -> Unit) {
+        val cached = synchronized(lock) {
+            source.lastKnownFix()?.let { updateLatest(it) }
+            latest?.takeIf { satisfies(it, request) }?.also {
+                sLogger.debug("requestLocation, answered from cache, age: ${clock() - it.timeMillis}")
+            } ?: run {
+                val waiter = Waiter(request, callback)
+                waiters.add(waiter)
+                waiter.cancelTimeout = scheduler.schedule(request.timeoutMillis) { onTimeout(waiter) }
+                subscribe(request.accuracyMeters < HIGH_ACCURACY_METERS)
+                null
+            }
+        }
+        cached?.let { callback(it) }
+    }
+
+    private fun subscribe(needHighAccuracy: Boolean) {
+        cancelIdleStop?.run()
+        cancelIdleStop = null
+        if (subscribed && (highAccuracy || !needHighAccuracy)) {
+            return
+        }
+        if (subscribed) {
+            source.stop()
+        }
+        subscribed = true
+        highAccuracy = needHighAccuracy
+        sLogger.info("subscribe, highAccuracy: $highAccuracy")
+        source.start(highAccuracy, ::onFix)
+    }
+
+    private fun onFix(fix: MiniAppLocationFix) {
+        val ready = ArrayList<Waiter>()
+        synchronized(lock) {
+            updateLatest(fix)
+            val iterator = waiters.iterator()
+            while (iterator.hasNext()) {
+                val waiter = iterator.next()
+                if (satisfies(fix, waiter.request)) {
+                    iterator.remove()
+                    waiter.cancelTimeout?.run()
+                    ready.add(waiter)
+                }
+            }
+            if (ready.isNotEmpty()) {
+                scheduleIdleStop()
+            }
+        }
+        ready.forEach { it.callback(fix) }
+    }
+
+    private fun onTimeout(waiter: Waiter) {
+        val fix = synchronized(lock) {
+            if (!waiters.remove(waiter)) {
+                return
+            }
+            scheduleIdleStop()
+            latest?.takeIf { clock() - it.timeMillis <= waiter.request.maxAgeMillis }
+        }
+        sLogger.info("onTimeout, fallback: ${fix != null}")
+        waiter.callback(fix)
+    }
+
+    private fun scheduleIdleStop() {
+        if (waiters.isNotEmpty() || !subscribed || cancelIdleStop != null) {
+            return
+        }
+        cancelIdleStop = scheduler.schedule(idleMillis) {
+            synchronized(lock) {
+                cancelIdleStop = null
+                if (waiters.isEmpty() && subscribed) {
+                    sLogger.info("unsubscribe, idle")
+                    subscribed = false
+                    source.stop()
+                }
+            }
+        }
+    }
+
+    private fun updateLatest(fix: MiniAppLocationFix) {
+        val current = latest
+        if (current == null || fix.timeMillis > current.timeMillis) {
+            latest = fix
+        }
+    }
+
+    private fun satisfies(fix: MiniAppLocationFix, request: MiniAppLocationRequest): Boolean {
+        return clock() - fix.timeMillis <= request.maxAgeMillis && fix.accuracyMeters <= request.accuracyMeters
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.ct.ertclib.dc.core.data.model.PermissionUsageEntity
+import com.ct.ertclib.dc.core.port.manager.IPermissionUsageRecorder
+import com.ct.ertclib.dc.core.port.miniapp.IPermissionDbRepo
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+
+/**
+ * 权限使用记录的批量写入器
+ *
+ * JS接口每次通过权限校验都会产生一条使用记录，直接落库会让高频调用的小程序在JavaBridge线程上产生大量SQLite事务。
+ * 这里先在内存中按(appId, permissionName, 分钟)聚合计数，达到数量阈值、时间阈值或进程退出时再在一个事务中写入。
+ */
+class PermissionUsageRecorder(
+    private val permissionDbRepo: IPermissionDbRepo,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val clock: () -> Long = { System.currentTimeMillis() }
+) : IPermissionUsageRecorder {
+
+    companion object {
+        private const val TAG = "PermissionUsageRecorder"
+        const val USAGE_BUCKET_MILLS = 60 * 1000L
+        const val FLUSH_INTERVAL_MILLS = 5 * 1000L
+        const val MAX_PENDING_RECORDS = 256
+        const val MAX_PENDING_KEYS = 64
+    }
+
+    private data class UsageKey(val appId: String, val permissionName: String, val bucket: Long)
+
+    private val logger = Logger.getLogger(TAG)
+    private val scope = CoroutineScope(dispatcher + SupervisorJob())
+    private val lock = Any()
+    private val flushLock = Any()
+
+    private var pendingUsages = HashMap<UsageKey, PermissionUsageEntity>()
+    private var pendingRecordCount = 0
+    private var flushScheduled = false
+
+    // 正在写入数据库的记录，写入完成前查询仍需计入；与pendingUsages在同一把锁内交换
+    private var flushingUsages: Collection<PermissionUsageEntity> = emptyList()
+
+    init {
+        Runtime.getRuntime().addShutdownHook(Thread { flushBlocking() })
+    }
+
+    override fun record(appId: String, permissionName: String) {
+        val bucket = clock() / USAGE_BUCKET_MILLS * USAGE_BUCKET_MILLS
+        val key = UsageKey(appId, permissionName, bucket)
+        var flushNow = false
+        var scheduleFlush = false
+        synchronized(lock) {
+            val usage = pendingUsages[key]
+            if (usage == null) {
+                pendingUsages[key] = PermissionUsageEntity(appId, permissionName, bucket)
+            } else {
+                usage.usageCount++
+            }
+            pendingRecordCount++
+            if (pendingRecordCount >= MAX_PENDING_RECORDS || pendingUsages.size >= MAX_PENDING_KEYS) {
+                flushNow = true
+            } else if (!flushScheduled) {
+                flushScheduled = true
+                scheduleFlush = true
+            }
+        }
+        if (flushNow) {
+            flush()
+        } else if (scheduleFlush) {
+            scope.launch {
+                delay(FLUSH_INTERVAL_MILLS)
+                flushBlocking()
+            }
+        }
+    }
+
+    override fun getPendingUsages(appId: String): List<PermissionUsageEntity> {
+        val result = mutableListOf<PermissionUsageEntity>()
+        synchronized(lock) {
+            (flushingUsages + pendingUsages.values).forEach {
+                if (it.appId == appId) {
+                    result.add(it.copy())
+                }
+            }
+        }
+        return result
+    }
+
+    override fun flush() {
+        scope.launch {
+            flushBlocking()
+        }
+    }
+
+    override fun flushBlocking() {
+        synchronized(flushLock) {
+            val usages = synchronized(lock) {
+                if (pendingUsages.isEmpty()) {
+                    flushScheduled = false
+                    return
+                }
+                val current = pendingUsages
+                pendingUsages = HashMap()
+                pendingRecordCount = 0
+                flushScheduled = false
+                flushingUsages = current.values
+                current.values
+            }
+            val success = try {
+                permissionDbRepo.insertPermissionUsages(usages.toList())
+                true
+            } catch (e: Exception) {
+                logger.error("flush failed, keep records for next flush", e)
+                false
+            }
+            synchronized(lock) {
+                flushingUsages = emptyList()
+                if (!success) {
+                    restore(usages)
+                }
+            }
+            if (success && logger.isDebugActivated) {
+                logger.debug("flush, write ${usages.size} aggregated usage rows")
+            }
+        }
+    }
+
+    /**
+     * 调用方需持有lock
+     */
+    private fun restore(usages: Collection<PermissionUsageEntity>) {
+        usages.forEach { usage ->
+            val key = UsageKey(usage.appId, usage.permissionName, usage.permissionUsageTimeStamp)
+            val current = pendingUsages[key]
+            if (current == null) {
+                pendingUsages[key] = usage
+            } else {
+                current.usageCount += usage.usageCount
+            }
+            pendingRecordCount += usage.usageCount
+        }
+    }
+}
@@ -57,40 +57,13 @@ class SPManager {
         }
     }
 
-    fun saveUpdateKeyValueWithExpiry(key : String,value : String,ttl : Long){
-        SPUtils.getInstance().put(key,value)
-        // 存有效期，用于在SDK启动的时候清除过期的key
-        val expiryTime = System.currentTimeMillis() + ttl
-        val keysStr = SPUtils.getInstance().getString(MINI_APP_SP_KEYS_KEY,"")
-        val builder = StringBuilder(keysStr)
-        if (builder.isNotEmpty()){
-            builder.append(MINI_APP_SP_EXPIRY_ITEM_SPLIT_KEY)
+    /**
+     * 键值已迁到[MiniAppKvStore]，这里只删除旧版本留在SP里的key，有效期索引里的残留由[clearExpiredData]清理
+     */
+    fun removeLegacyKeyValue(key: String) {
+        if (SPUtils.getInstance().contains(key)) {
+            SPUtils.getInstance().remove(key)
         }
-        builder.append("${key}${MINI_APP_SP_EXPIRY_SPLIT_KEY}${expiryTime}")
-        SPUtils.getInstance().put(MINI_APP_SP_KEYS_KEY, builder.toString())
-    }
-
-    fun deleteKeyValue(key : String){
-        SPUtils.getInstance().remove(key)
-        val keysStr = SPUtils.getInstance().getString(MINI_APP_SP_KEYS_KEY,"")
-        val keys = keysStr.split(MINI_APP_SP_EXPIRY_ITEM_SPLIT_KEY)
-        val builder = StringBuilder()
-        keys.forEach {
-            try {
-                val appIdKey = it.split(MINI_APP_SP_EXPIRY_SPLIT_KEY)[0]
-                if (appIdKey === key){
-                    SPUtils.getInstance().remove(key)
-                } else {
-                    if (builder.isNotEmpty()){
-                        builder.append(MINI_APP_SP_EXPIRY_ITEM_SPLIT_KEY)
-                    }
-                    builder.append(it)
-                }
-            } catch (e: Exception){
-                e.printStackTrace()
-            }
-        }
-        SPUtils.getInstance().put(MINI_APP_SP_KEYS_KEY, builder.toString())
     }
 
     fun getKeyValue(key: String): String {
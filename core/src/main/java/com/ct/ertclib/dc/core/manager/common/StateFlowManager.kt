@@ -25,6 +25,7 @@ import com.ct.ertclib.dc.core.data.event.UpdateDownloadProgressEvent
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.BufferOverflow
 import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.launch
 import org.koin.core.component.KoinComponent
@@ -40,7 +41,8 @@ object StateFlowManager: KoinComponent {
 
     val dialerEntryStatusFlow = MutableSharedFlow<FloatingBallData>()
 
-    val callInfoFlow = MutableSharedFlow<CallStateData>()
+    // 只保留最新的一次刷新请求，发送时不用启动协程
+    val callInfoFlow = MutableSharedFlow<CallStateData>(extraBufferCapacity = 1, onBufferOverflow = BufferOverflow.DROP_OLDEST)
 
     val permissionAgreeFlow = MutableSharedFlow<Boolean>()
 
@@ -85,8 +87,6 @@ object StateFlowManager: KoinComponent {
 
     @JvmStatic
     fun emitCallInfoFlow(callStateData: CallStateData) {
-        scope.launch {
-            callInfoFlow.emit(callStateData)
-        }
+        callInfoFlow.tryEmit(callStateData)
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.context
+
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import java.nio.ByteBuffer
+
+/**
+ * 大payload在共享内存里的编码
+ *
+ * 大payload通常是一两个很长的字符串（base64文件、图片），这些顶层字符串直接按UTF-8原样写入，
+ * 其余的小字段编成一段JSON，避免对大字符串做JSON转义和解析。
+ * 布局：JSON长度、JSON、原样字段数，每个原样字段依次是key长度、key、value长度、value。
+ */
+object MiniAppBulkCodec {
+
+    // 顶层字符串超过这个长度时原样写入
+    const val RAW_STRING_MIN_LENGTH = 1024
+
+    class Encoded internal constructor(
+        private val skeleton: ByteArray,
+        private val raw: List<Pair<ByteArray, ByteArray>>
+    ) {
+        val size: Int = 8 + skeleton.size + raw.sumOf { 8 + it.first.size + it.second.size }
+
+        fun writeTo(buffer: ByteBuffer) {
+            buffer.putInt(skeleton.size)
+            buffer.put(skeleton)
+            buffer.putInt(raw.size)
+            raw.forEach { (key, value) ->
+                buffer.putInt(key.size)
+                buffer.put(key)
+                buffer.putInt(value.size)
+                buffer.put(value)
+            }
+        }
+    }
+
+    fun encode(payload: Map<String, Any?>): Encoded {
+        val skeleton = LinkedHashMap<String, Any?>()
+        val raw = ArrayList<Pair<ByteArray, ByteArray>>()
+        payload.forEach { (key, value) ->
+            if (value is String && value.length >= RAW_STRING_MIN_LENGTH) {
+                raw.add(key.toByteArray(Charsets.UTF_8) to value.toByteArray(Charsets.UTF_8))
+            } else {
+                skeleton[key] = value
+            }
+        }
+        return Encoded(JsonUtil.toJson(skeleton).toByteArray(Charsets.UTF_8), raw)
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    fun decode(buffer: ByteBuffer): Map<String, Any?> {
+        val skeleton = readString(buffer)
+        val payload = HashMap<String, Any?>()
+        (JsonUtil.fromJson(skeleton, Map::class.java) as? Map<String, Any?>)?.let { payload.putAll(it) }
+        repeat(buffer.getInt()) {
+            val key = readString(buffer)
+            payload[key] = readString(buffer)
+        }
+        return payload
+    }
+
+    private fun readString(buffer: ByteBuffer): String {
+        val length = buffer.getInt()
+        if (buffer.hasArray()) {
+            val offset = buffer.arrayOffset() + buffer.position()
+            buffer.position(buffer.position() + length)
+            return String(buffer.array(), offset, length, Charsets.UTF_8)
+        }
+        val bytes = ByteArray(length)
+        buffer.get(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.context
+
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import java.util.ArrayDeque
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 大块数据共享内存区域池
+ *
+ * 区域按2的幂分级（最小[MIN_REGION_SIZE]），借出时记录owner，对端读完后按租约id归还复用；
+ * 对端断开时按owner整体收回并释放，对端可能仍映射着这些区域，不能再借给别人。
+ * 空闲区域总量超过[maxPooledBytes]时归还的区域直接释放。
+ */
+class MiniAppBulkRegionPool<R>(
+    private val allocate: (capacity: Int) -> R,
+    private val free: (R) -> Unit,
+    private val maxPooledBytes: Long = DEFAULT_MAX_POOLED_BYTES
+) {
+
+    companion object {
+        const val MIN_REGION_SIZE = 64 * 1024
+        const val DEFAULT_MAX_POOLED_BYTES = 32L * 1024 * 1024
+
+        fun sizeClass(size: Int): Int {
+            if (size <= MIN_REGION_SIZE) {
+                return MIN_REGION_SIZE
+            }
+            val highest = Integer.highestOneBit(size)
+            return if (highest == size) size else highest shl 1
+        }
+    }
+
+    class Lease<R>(val id: Long, val owner: String, val region: R, val capacity: Int)
+
+    private val allocCounter = MetricsRegistry.instance.counter(MetricNames.BULK_REGION_ALLOC)
+    private val reuseCounter = MetricsRegistry.instance.counter(MetricNames.BULK_REGION_REUSE)
+    private val nextId = AtomicLong()
+    private val idle = HashMap<Int, ArrayDeque<R>>()
+    private val leases = HashMap<Long, Lease<R>>()
+    private var idleBytes = 0L
+
+    val leasedCount: Int
+        get() = synchronized(this) { leases.size }
+
+    val pooledBytes: Long
+        get() = synchronized(this) { idleBytes }
+
+    fun acquire(owner: String, size: Int): Lease<R> {
+        val capacity = sizeClass(size)
+        val region = synchronized(this) {
+            idle[capacity]?.pollFirst()?.also { idleBytes -= capacity }
+        }
+        if (region != null) {
+            reuseCounter.increment()
+        } else {
+            allocCounter.increment()
+        }
+        val lease = Lease(nextId.incrementAndGet(), owner, region ?: allocate(capacity), capacity)
+        synchronized(this) {
+            leases[lease.id] = lease
+        }
+        return lease
+    }
+
+    /**
+     * 对端读完后归还
+     *
+     * @return false 租约不存在，已归还或已被收回
+     */
+    fun release(leaseId: Long): Boolean {
+        val lease = synchronized(this) { leases.remove(leaseId) } ?: return false
+        recycle(lease)
+        return true
+    }
+
+    /**
+     * 借出后无法使用（如映射失败）的区域直接释放，不放回池中
+     */
+    fun discard(leaseId: Long): Boolean {
+        val lease = synchronized(this) { leases.remove(leaseId) } ?: return false
+        free(lease.region)
+        return true
+    }
+
+    /**
+     * 对端断开，收回并释放它名下的所有区域
+     */
+    fun revoke(owner: String): Int {
+        val revoked = synchronized(this) {
+            val list = leases.values.filter { it.owner == owner }
+            list.forEach { leases.remove(it.id) }
+            list
+        }
+        revoked.forEach { free(it.region) }
+        return revoked.size
+    }
+
+    fun clear() {
+        val regions = synchronized(this) {
+            val list = idle.values.flatten()
+            idle.clear()
+            idleBytes = 0
+            list
+        }
+        regions.forEach { free(it) }
+    }
+
+    private fun recycle(lease: Lease<R>) {
+        val pooled = synchronized(this) {
+            if (idleBytes + lease.capacity > maxPooledBytes) {
+                false
+            } else {
+                idle.getOrPut(lease.capacity) { ArrayDeque() }.addFirst(lease.region)
+                idleBytes += lease.capacity
+                true
+            }
+        }
+        if (!pooled) {
+            free(lease.region)
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.context
+
+import android.os.Build
+import android.os.ParcelFileDescriptor
+import android.os.SharedMemory
+import androidx.annotation.RequiresApi
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppBulkHandle
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppEnvelope
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import java.nio.ByteBuffer
+import java.util.concurrent.Executors
+
+/**
+ * 信封大payload的共享内存传输
+ *
+ * 发送前payload超过[threshold]时按[MiniAppBulkCodec]写入池化的共享内存区域，信封里只带句柄，binder只走控制信息；
+ * API 26没有SharedMemory，退化为管道，由后台线程写入。接收方[unwrap]读完后回[MiniAppEnvelope.TYPE_RELEASE]归还区域，
+ * 对端断开时按owner收回。
+ */
+class MiniAppBulkTransfer(
+    private val threshold: Int = DEFAULT_THRESHOLD
+) {
+
+    companion object {
+        private const val TAG = "MiniAppBulkTransfer"
+        // 更小的payload单次事务就能发完，共享内存的映射和编码开销反而更大
+        const val DEFAULT_THRESHOLD = 256 * 1024
+        private const val REGION_NAME = "MiniAppBulk"
+    }
+
+    private val logger = Logger.getLogger(TAG)
+    private val bytesCounter = MetricsRegistry.instance.counter(MetricNames.BULK_TRANSFER_BYTES)
+    private val pipeWriter by lazy { Executors.newCachedThreadPool { Thread(it, "MiniAppBulkPipe") } }
+    private var pool: MiniAppBulkRegionPool<SharedMemory>? = null
+
+    /**
+     * @return 大payload换成句柄后的信封，不需要或失败时原样返回
+     */
+    fun wrap(owner: String, envelope: MiniAppEnvelope): MiniAppEnvelope {
+        if (envelope.bulk != null || MiniAppEnvelope.estimateSize(envelope.payload) < threshold) {
+            return envelope
+        }
+        val encoded = MiniAppBulkCodec.encode(envelope.payload)
+        return try {
+            val handle = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                writeSharedMemory(owner, encoded)
+            } else {
+                writePipe(encoded)
+            }
+            bytesCounter.add(encoded.size.toLong())
+            envelope.withBulk(handle)
+        } catch (e: Exception) {
+            logger.error("wrap, size:${encoded.size}", e)
+            envelope
+        }
+    }
+
+    /**
+     * 读出句柄里的payload
+     */
+    fun unwrap(envelope: MiniAppEnvelope): MiniAppEnvelope {
+        val handle = envelope.bulk ?: return envelope
+        return envelope.withPayload(handle.read { MiniAppBulkCodec.decode(it) })
+    }
+
+    /**
+     * 取回本端包装过但没有送达的信封的payload，不关闭共享内存，区域随后由[revoke]释放
+     */
+    fun reclaim(envelope: MiniAppEnvelope): MiniAppEnvelope {
+        val handle = envelope.bulk ?: return envelope
+        return envelope.withPayload(handle.peek { MiniAppBulkCodec.decode(it) })
+    }
+
+    fun release(leaseId: Long) {
+        val released = synchronized(this) { pool }?.release(leaseId) ?: false
+        if (!released) {
+            logger.warn("release, unknown lease:$leaseId")
+        }
+    }
+
+    fun revoke(owner: String) {
+        synchronized(this) { pool }?.revoke(owner)
+    }
+
+    @RequiresApi(Build.VERSION_CODES.O_MR1)
+    private fun writeSharedMemory(owner: String, encoded: MiniAppBulkCodec.Encoded): MiniAppBulkHandle {
+        val regions = synchronized(this) {
+            pool ?: MiniAppBulkRegionPool<SharedMemory>(
+                allocate = { SharedMemory.create(REGION_NAME, it) },
+                free = { it.close() }
+            ).also { pool = it }
+        }
+        val lease = regions.acquire(owner, encoded.size)
+        try {
+            val buffer = lease.region.mapReadWrite()
+            try {
+                encoded.writeTo(buffer)
+            } finally {
+                SharedMemory.unmap(buffer)
+            }
+        } catch (e: Exception) {
+            regions.discard(lease.id)
+            throw e
+        }
+        return MiniAppBulkHandle(lease.id, encoded.size, sharedMemory = lease.region)
+    }
+
+    private fun writePipe(encoded: MiniAppBulkCodec.Encoded): MiniAppBulkHandle {
+        val bytes = ByteArray(encoded.size)
+        encoded.writeTo(ByteBuffer.wrap(bytes))
+        val (source, sink) = ParcelFileDescriptor.createPipe()
+        // 管道缓冲有限，必须在接收方读取的同时写入
+        pipeWriter.execute {
+            try {
+                ParcelFileDescriptor.AutoCloseOutputStream(sink).use { it.write(bytes) }
+            } catch (e: Exception) {
+                logger.error("writePipe", e)
+            }
+        }
+        return MiniAppBulkHandle(MiniAppBulkHandle.NO_LEASE, bytes.size, pipe = source)
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.context
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppEnvelope
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * 跨进程信封发件箱
+ *
+ * 没有在途事务时直接在调用线程发出，省去一次线程切换；有事务在途时新到的信封只入队，
+ * 由[executor]按[maxBatchSize]和[maxBatchBytes]打包成一次oneway调用发出。同一时刻只有一个线程在发送，保持入队顺序，
+ * 突发的请求和通知因此只产生少量binder事务。发送失败时发件箱关闭，没发出去的信封交给[onError]改走旧接口。
+ */
+class MiniAppEnvelopeOutbox(
+    private val executor: Executor,
+    private val maxBatchSize: Int = DEFAULT_MAX_BATCH_SIZE,
+    // 按[MiniAppEnvelope.estimateSize]估算，单个超限的信封单独成批
+    private val maxBatchBytes: Long = DEFAULT_MAX_BATCH_BYTES,
+    private val onError: (Exception, List<MiniAppEnvelope>) -> Unit = { _, _ -> },
+    // 协商出的协议版本
+    val version: Int = MiniAppEnvelope.PROTOCOL_VERSION,
+    private val transport: (List<MiniAppEnvelope>) -> Unit
+) {
+
+    companion object {
+        private const val TAG = "MiniAppEnvelopeOutbox"
+        const val DEFAULT_MAX_BATCH_SIZE = 32
+        // binder事务缓冲整个进程共享1MB，单批只占一小部分
+        const val DEFAULT_MAX_BATCH_BYTES = 128 * 1024L
+    }
+
+    private val logger = Logger.getLogger(TAG)
+    private val transactionCounter = MetricsRegistry.instance.counter(MetricNames.AIDL_ENVELOPE_TRANSACTION)
+    private val sentCounter = MetricsRegistry.instance.counter(MetricNames.AIDL_ENVELOPE_SENT)
+    private val queue = ConcurrentLinkedQueue<MiniAppEnvelope>()
+    private val scheduled = AtomicBoolean()
+
+    @Volatile
+    var isClosed = false
+        private set
+
+    /**
+     * @return false 发件箱已关闭，调用方需要走旧的字符串接口
+     */
+    fun post(envelope: MiniAppEnvelope): Boolean {
+        if (isClosed) {
+            return false
+        }
+        queue.offer(envelope)
+        // 与close并发时信封可能落在已清空的队列里，取回来交给调用方
+        if (isClosed && queue.remove(envelope)) {
+            return false
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            drain(1)
+        }
+        return true
+    }
+
+    /**
+     * @return 还没发出的信封
+     */
+    fun close(): List<MiniAppEnvelope> {
+        isClosed = true
+        val unsent = ArrayList<MiniAppEnvelope>()
+        while (true) {
+            unsent.add(queue.poll() ?: break)
+        }
+        return unsent
+    }
+
+    private fun drain(maxBatches: Int) {
+        var sent = 0
+        var batch: List<MiniAppEnvelope> = emptyList()
+        try {
+            while (!isClosed && sent < maxBatches) {
+                batch = nextBatch()
+                if (batch.isEmpty()) {
+                    return
+                }
+                transactionCounter.increment()
+                sentCounter.add(batch.size.toLong())
+                transport(batch)
+                batch = emptyList()
+                sent++
+            }
+        } catch (e: Exception) {
+            logger.error("drain failed, close outbox", e)
+            onError(e, batch + close())
+        } finally {
+            scheduled.set(false)
+            // 发送期间入队的信封交给executor合批
+            if (!isClosed && queue.isNotEmpty() && scheduled.compareAndSet(false, true)) {
+                executor.execute { drain(Int.MAX_VALUE) }
+            }
+        }
+    }
+
+    private fun nextBatch(): List<MiniAppEnvelope> {
+        val batch = ArrayList<MiniAppEnvelope>()
+        var bytes = 0L
+        while (batch.size < maxBatchSize) {
+            val next = queue.peek() ?: break
+            val size = next.estimateSize()
+            if (batch.isNotEmpty() && bytes + size > maxBatchBytes) {
+                break
+            }
+            // 只有close会并发取走队首，那时这一批也发不出去了，不影响估算
+            batch.add(queue.poll() ?: break)
+            bytes += size
+        }
+        return batch
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.context
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppEnvelope
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 等待对端回复的信封请求
+ *
+ * 按requestId登记回调，收到REPLY信封后回调并记录往返耗时。对端断开时按owner整体回调错误，避免调用方一直等待；
+ * 对端不回复的请求在登记数过多时按超时清理，避免一直占用。
+ */
+class MiniAppPendingReplies(
+    private val timeoutNanos: Long = TimeUnit.SECONDS.toNanos(DEFAULT_TIMEOUT_SECONDS)
+) {
+
+    companion object {
+        const val DEFAULT_TIMEOUT_SECONDS = 60L
+        private const val PURGE_THRESHOLD = 256
+    }
+
+    private class Pending(val owner: String, val startNanos: Long, val callback: (String?) -> Unit)
+
+    private val roundTripLatency = MetricsRegistry.instance.histogram(MetricNames.AIDL_ENVELOPE_ROUND_TRIP)
+    private val nextId = AtomicLong(MiniAppEnvelope.NO_REPLY)
+    private val pending = ConcurrentHashMap<Long, Pending>()
+
+    val size: Int
+        get() = pending.size
+
+    /**
+     * @return 写入信封的requestId
+     */
+    fun register(owner: String, callback: (String?) -> Unit): Long {
+        val requestId = nextId.incrementAndGet()
+        val startNanos = roundTripLatency.start()
+        if (pending.size >= PURGE_THRESHOLD) {
+            pending.values.removeIf { startNanos - it.startNanos > timeoutNanos }
+        }
+        pending[requestId] = Pending(owner, startNanos, callback)
+        return requestId
+    }
+
+    /**
+     * @return false 请求已取消或已回复过
+     */
+    fun complete(requestId: Long, message: String?): Boolean {
+        val entry = pending.remove(requestId) ?: return false
+        roundTripLatency.recordSince(entry.startNanos)
+        entry.callback(message)
+        return true
+    }
+
+    fun forget(requestId: Long) {
+        pending.remove(requestId)
+    }
+
+    /**
+     * 取出回调，请求改走其他通道时由调用方自行回复
+     */
+    fun take(requestId: Long): ((String?) -> Unit)? {
+        return pending.remove(requestId)?.callback
+    }
+
+    /**
+     * 对端断开，owner名下所有等待中的请求以[message]回复
+     *
+     * @return 取消的请求数
+     */
+    fun cancel(owner: String, message: String?): Int {
+        var count = 0
+        val iterator = pending.entries.iterator()
+        while (iterator.hasNext()) {
+            val (requestId, entry) = iterator.next()
+            if (entry.owner == owner && pending.remove(requestId, entry)) {
+                entry.callback(message)
+                count++
+            }
+        }
+        return count
+    }
+}
@@ -29,7 +29,9 @@ import com.ct.ertclib.dc.core.constants.CommonConstants
 import com.ct.ertclib.dc.core.constants.CommonConstants.ACTION_EC_CALLBACK
 import com.ct.ertclib.dc.core.constants.CommonConstants.ACTION_REFRESH_MINI_PERMISSION
 import com.ct.ertclib.dc.core.constants.CommonConstants.ACTION_START_APP_RESPONSE
+import com.ct.ertclib.dc.core.constants.CommonConstants.APP_RESPONSE_CODE_FAILED
 import com.ct.ertclib.dc.core.constants.CommonConstants.APP_RESPONSE_CODE_SUCCESS
+import com.ct.ertclib.dc.core.constants.CommonConstants.APP_RESPONSE_MESSAGE_DISCONNECTED
 import com.ct.ertclib.dc.core.constants.CommonConstants.APP_RESPONSE_MESSAGE_SUCCESS
 import com.ct.ertclib.dc.core.constants.ContextConstants.INTENT_APP_SERVICE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_DRAWING_INO_NOTIFY
@@ -44,7 +46,10 @@ import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_VIDEO_WINDOW_N
 import com.ct.ertclib.dc.core.data.call.CallInfo
 import com.ct.ertclib.dc.core.data.event.NotifyEvent
 import com.ct.ertclib.dc.core.data.model.MiniAppInfo
+import com.ct.ertclib.dc.core.data.miniapp.AppRequest
 import com.ct.ertclib.dc.core.data.miniapp.AppResponse
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppBulkHandle
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppEnvelope
 import com.ct.ertclib.dc.core.data.miniapp.MiniAppList
 import com.ct.ertclib.dc.core.miniapp.aidl.IDCCallback
 import com.ct.ertclib.dc.core.miniapp.aidl.IMessageCallback
@@ -54,6 +59,8 @@ import com.ct.ertclib.dc.core.port.common.OnPickMediaCallbackListener
 import com.ct.ertclib.dc.core.port.manager.IMiniToParentManager
 import com.ct.ertclib.dc.core.port.miniapp.IMiniApp
 import com.ct.ertclib.dc.core.utils.logger.Logger
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
 import com.newcalllib.datachannel.V1_0.IImsDCObserver
 import com.newcalllib.datachannel.V1_0.IImsDataChannel
 import com.newcalllib.datachannel.V1_0.ImsDCStatus
@@ -64,11 +71,14 @@ import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import java.util.ArrayList
 import java.util.Collections
+import java.util.concurrent.Executors
 
 class MiniToParentManager : IMiniToParentManager {
 
     companion object {
         private const val TAG = "MiniToParentManager"
+        private const val OWNER_PARENT = "parent"
+        private val DISCONNECTED_REPLY = AppResponse(APP_RESPONSE_CODE_FAILED, APP_RESPONSE_MESSAGE_DISCONNECTED, null).toJson()
     }
 
     override var miniAppInterface: IMiniApp? = null
@@ -77,10 +87,18 @@ class MiniToParentManager : IMiniToParentManager {
     override val systemApiLicenseMap = mutableMapOf<String, String>()
 
     private val logger = Logger.getLogger(TAG)
+    private val sendMessageLatency = MetricsRegistry.instance.histogram(MetricNames.AIDL_SEND_MESSAGE_TO_PARENT_CLIENT)
     private var appServiceImpl: IMiniToParent? = null
     private val scope = CoroutineScope(Dispatchers.Default + SupervisorJob())
     private var isBind = false
 
+    // 协商成功后请求和回复走批量oneway信封，为null时走旧的字符串接口
+    @Volatile
+    private var envelopeOutbox: MiniAppEnvelopeOutbox? = null
+    private val pendingReplies = MiniAppPendingReplies()
+    private val bulkTransfer = MiniAppBulkTransfer()
+    private val envelopeExecutor = Executors.newSingleThreadExecutor { Thread(it, "MiniAppEnvelope") }
+
     override fun bindService(context: Context) {
         if (isBind) {
             return
@@ -99,6 +117,7 @@ class MiniToParentManager : IMiniToParentManager {
             return
         }
         isBind = false
+        closeEnvelopeChannel()
         openDCList.forEach {
             it.unregisterObserver()
         }
@@ -151,12 +170,97 @@ class MiniToParentManager : IMiniToParentManager {
     }
 
     override fun sendMessageToParent(message: String, callback: IMessageCallback.Stub?) {
-        appServiceImpl?.sendMessageToParent(
-            getMiniAppInfo()?.callId,
-            getMiniAppInfo()?.appId,
-            message,
-            callback
-        )
+        sendMessageLatency.time {
+            appServiceImpl?.sendMessageToParent(
+                getMiniAppInfo()?.callId,
+                getMiniAppInfo()?.appId,
+                message,
+                callback
+            )
+        }
+    }
+
+    override fun sendRequestToParent(request: AppRequest, callback: IMessageCallback.Stub?) {
+        val outbox = envelopeOutbox
+        if (outbox != null) {
+            val requestId = callback?.let { pendingReplies.register(OWNER_PARENT) { message -> it.reply(message) } }
+                ?: MiniAppEnvelope.NO_REPLY
+            if (outbox.post(wrapBulk(outbox, MiniAppEnvelope.request(requestId, request)))) {
+                return
+            }
+            pendingReplies.forget(requestId)
+        }
+        sendMessageToParent(request.toJson(), callback)
+    }
+
+    private fun openEnvelopeChannel() {
+        val service = appServiceImpl ?: return
+        val callId = getMiniAppInfo()?.callId
+        val appId = getMiniAppInfo()?.appId
+        val version = try {
+            service.negotiateProtocol(callId, appId, MiniAppEnvelope.PROTOCOL_VERSION)
+        } catch (e: RemoteException) {
+            logger.error("negotiateProtocol", e)
+            0
+        }
+        logger.info("negotiateProtocol version:$version")
+        if (version < 1) {
+            return
+        }
+        envelopeOutbox = MiniAppEnvelopeOutbox(envelopeExecutor, onError = { _, unsent -> closeEnvelopeChannel(unsent) }, version = version) { envelopes ->
+            service.sendEnvelopes(callId, appId, envelopes)
+        }
+    }
+
+    private fun closeEnvelopeChannel(unsent: List<MiniAppEnvelope> = emptyList()) {
+        val outbox = envelopeOutbox
+        envelopeOutbox = null
+        if (outbox == null && unsent.isEmpty()) {
+            return
+        }
+        resendLegacy(unsent + (outbox?.close() ?: emptyList()))
+        pendingReplies.cancel(OWNER_PARENT, DISCONNECTED_REPLY)
+        bulkTransfer.revoke(OWNER_PARENT)
+    }
+
+    /**
+     * 没发出去的请求改走旧的字符串接口，发不出去的回复错误；给对端的回复和归还信封无法再送达，直接丢弃
+     */
+    private fun resendLegacy(envelopes: List<MiniAppEnvelope>) {
+        envelopes.filter { it.type == MiniAppEnvelope.TYPE_REQUEST }.forEach { envelope ->
+            val reply = pendingReplies.take(envelope.requestId)
+            try {
+                val service = appServiceImpl ?: throw RemoteException("service disconnected")
+                val request = bulkTransfer.reclaim(envelope).toAppRequest()
+                service.sendMessageToParent(getMiniAppInfo()?.callId, getMiniAppInfo()?.appId, request.toJson(), reply?.let { LegacyReplyCallback(it) })
+            } catch (e: Exception) {
+                logger.error("resendLegacy $envelope", e)
+                reply?.invoke(DISCONNECTED_REPLY)
+            }
+        }
+    }
+
+    private fun wrapBulk(outbox: MiniAppEnvelopeOutbox, envelope: MiniAppEnvelope): MiniAppEnvelope {
+        return if (outbox.version >= MiniAppEnvelope.MIN_BULK_VERSION) bulkTransfer.wrap(OWNER_PARENT, envelope) else envelope
+    }
+
+    /**
+     * 读出共享内存里的payload并通知对端归还
+     *
+     * @return null 读取失败
+     */
+    private fun unwrapBulk(envelope: MiniAppEnvelope): MiniAppEnvelope? {
+        val bulk = envelope.bulk ?: return envelope
+        try {
+            return bulkTransfer.unwrap(envelope)
+        } catch (e: Exception) {
+            logger.error("unwrapBulk $envelope", e)
+            return null
+        } finally {
+            if (bulk.leaseId != MiniAppBulkHandle.NO_LEASE) {
+                envelopeOutbox?.post(MiniAppEnvelope.release(bulk.leaseId))
+            }
+        }
     }
 
     override fun getCallInfo(): CallInfo? {
@@ -189,6 +293,7 @@ class MiniToParentManager : IMiniToParentManager {
                     getMiniAppInfo()?.appId,
                     parentToMiniImpl
                 )
+                openEnvelopeChannel()
                 appServiceImpl?.registerDCCallBack(
                     getMiniAppInfo()?.callId,
                     getMiniAppInfo()?.appId,
@@ -203,6 +308,7 @@ class MiniToParentManager : IMiniToParentManager {
         override fun onServiceDisconnected(name: ComponentName?) {
             logger.debug("onServiceDisconnected, name: $name")
             appServiceImpl = null
+            closeEnvelopeChannel()
         }
     }
 
@@ -222,53 +328,90 @@ class MiniToParentManager : IMiniToParentManager {
                 return
             }
             val notifyEvent = JsonUtil.fromJson(message, NotifyEvent::class.java)
-            notifyEvent?.let {
-                when (it.eventName) {
-                    CommonConstants.ACTION_CALL_STATUS_CHANGE -> {
-                        miniAppInterface?.invokeOnCallStateChange(it.map)
-                    }
-                    CommonConstants.ACTION_AUDIO_DEVICE_CHANGE -> {
-                        miniAppInterface?.onAudioDeviceChange()
-                    }
-                    CommonConstants.ACTION_CHECK_ALIVE -> {
-                        miniAppInterface?.invokeOnCheckAlive()
-                        val response = AppResponse(
-                            APP_RESPONSE_CODE_SUCCESS,
-                            APP_RESPONSE_MESSAGE_SUCCESS,
-                            "checkAlive has received, miniAppId:${getMiniAppInfo()?.appId}"
-                        )
-                        iMessageCallback?.reply(JsonUtil.toJson(response))
-                    }
-                    ACTION_REFRESH_MINI_PERMISSION -> {
-                        miniAppInterface?.refreshPermission()
-                    }
-                    FUNCTION_DRAWING_INO_NOTIFY -> {
-                        miniAppInterface?.callHandler(FUNCTION_DRAWING_INO_NOTIFY, arrayOf(JsonUtil.toJson(it.map)))
-                    }
-                    FUNCTION_SKETCH_STATUS_NOTIFY -> {
-                        miniAppInterface?.callHandler(FUNCTION_SKETCH_STATUS_NOTIFY, arrayOf(JsonUtil.toJson(it.map)))
-                    }
-                    FUNCTION_SCREEN_SHARE_NOTIFY -> {
-                        miniAppInterface?.callHandler(FUNCTION_SCREEN_SHARE_NOTIFY, arrayOf(JsonUtil.toJson(it.map)))
-                    }
-                    FUNCTION_SCREEN_SIZE_NOTIFY -> {
-                        miniAppInterface?.callHandler(FUNCTION_SCREEN_SIZE_NOTIFY, arrayOf(JsonUtil.toJson(it.map)))
-                    }
-                    ACTION_EC_CALLBACK -> {
-                        miniAppInterface?.callHandler(FUNCTION_EC_NOTIFY, arrayOf(it.map["msg"] as String))
-                    }
-                    ACTION_START_APP_RESPONSE -> {
-                        miniAppInterface?.callHandler(FUNCTION_START_ADVERSE_APP_RESPONSE_NOTIFY, arrayOf(JsonUtil.toJson(it.map)))
-                    }
-                    FUNCTION_VIDEO_WINDOW_NOTIFY -> {
-                        miniAppInterface?.callHandler(FUNCTION_VIDEO_WINDOW_NOTIFY, arrayOf(JsonUtil.toJson(it.map)))
+            notifyEvent?.let { handleNotifyEvent(it, iMessageCallback) }
+        }
+
+        override fun onEnvelopes(envelopes: MutableList<MiniAppEnvelope>?) {
+            envelopes?.forEach { envelope ->
+                when (envelope.type) {
+                    MiniAppEnvelope.TYPE_REPLY -> pendingReplies.complete(envelope.requestId, envelope.message)
+                    MiniAppEnvelope.TYPE_NOTIFY -> {
+                        logger.debug("onEnvelopes $envelope")
+                        val callback = if (envelope.expectsReply) EnvelopeReplyCallback(envelope.requestId) else null
+                        // 解码留在binder线程，handler放到IO协程，避免阻塞后续信封
+                        val event = unwrapBulk(envelope)?.toNotifyEvent() ?: return@forEach
+                        scope.launch(Dispatchers.IO) {
+                            try {
+                                handleNotifyEvent(event, callback)
+                            } catch (e: Exception) {
+                                logger.error("onEnvelopes $envelope", e)
+                            }
+                        }
                     }
-                    else -> { }
+                    MiniAppEnvelope.TYPE_RELEASE -> bulkTransfer.release(envelope.requestId)
+                    else -> logger.warn("onEnvelopes, unexpected $envelope")
                 }
             }
         }
     }
 
+    private class LegacyReplyCallback(private val reply: (String?) -> Unit) : IMessageCallback.Stub() {
+        override fun reply(message: String?) {
+            reply.invoke(message)
+        }
+    }
+
+    private inner class EnvelopeReplyCallback(private val requestId: Long) : IMessageCallback.Stub() {
+        override fun reply(message: String?) {
+            envelopeOutbox?.post(MiniAppEnvelope.reply(requestId, message))
+        }
+    }
+
+    private fun handleNotifyEvent(event: NotifyEvent, iMessageCallback: IMessageCallback?) {
+        when (event.eventName) {
+            CommonConstants.ACTION_CALL_STATUS_CHANGE -> {
+                miniAppInterface?.invokeOnCallStateChange(event.map)
+            }
+            CommonConstants.ACTION_AUDIO_DEVICE_CHANGE -> {
+                miniAppInterface?.onAudioDeviceChange()
+            }
+            CommonConstants.ACTION_CHECK_ALIVE -> {
+                miniAppInterface?.invokeOnCheckAlive()
+                val response = AppResponse(
+                    APP_RESPONSE_CODE_SUCCESS,
+                    APP_RESPONSE_MESSAGE_SUCCESS,
+                    "checkAlive has received, miniAppId:${getMiniAppInfo()?.appId}"
+                )
+                iMessageCallback?.reply(JsonUtil.toJson(response))
+            }
+            ACTION_REFRESH_MINI_PERMISSION -> {
+                miniAppInterface?.refreshPermission()
+            }
+            FUNCTION_DRAWING_INO_NOTIFY -> {
+                miniAppInterface?.callHandler(FUNCTION_DRAWING_INO_NOTIFY, arrayOf(JsonUtil.toJson(event.map)))
+            }
+            FUNCTION_SKETCH_STATUS_NOTIFY -> {
+                miniAppInterface?.callHandler(FUNCTION_SKETCH_STATUS_NOTIFY, arrayOf(JsonUtil.toJson(event.map)))
+            }
+            FUNCTION_SCREEN_SHARE_NOTIFY -> {
+                miniAppInterface?.callHandler(FUNCTION_SCREEN_SHARE_NOTIFY, arrayOf(JsonUtil.toJson(event.map)))
+            }
+            FUNCTION_SCREEN_SIZE_NOTIFY -> {
+                miniAppInterface?.callHandler(FUNCTION_SCREEN_SIZE_NOTIFY, arrayOf(JsonUtil.toJson(event.map)))
+            }
+            ACTION_EC_CALLBACK -> {
+                miniAppInterface?.callHandler(FUNCTION_EC_NOTIFY, arrayOf(event.map["msg"] as String))
+            }
+            ACTION_START_APP_RESPONSE -> {
+                miniAppInterface?.callHandler(FUNCTION_START_ADVERSE_APP_RESPONSE_NOTIFY, arrayOf(JsonUtil.toJson(event.map)))
+            }
+            FUNCTION_VIDEO_WINDOW_NOTIFY -> {
+                miniAppInterface?.callHandler(FUNCTION_VIDEO_WINDOW_NOTIFY, arrayOf(JsonUtil.toJson(event.map)))
+            }
+            else -> { }
+        }
+    }
+
     private val dcCallbackImpl = object : IDCCallback.Stub() {
         override fun onDcCreated(
             callId: String?,
@@ -77,6 +77,11 @@ class SketchManager(
     private var rotation = 0
     private var rectF = RectF()
     private var isFirstShowPopupWindow = true
+    // 正在绘制的笔画颜色，决定实时下发的点是否需要坐标换算
+    private var liveStrokeColor: String? = null
+    // 坐标换算只在主线程进行，复用矩阵和点数组，避免每个点分配
+    private val rotationMatrix = Matrix()
+    private val mappedPoint = FloatArray(2)
 
     private val scope = CoroutineScope(Dispatchers.Default + SupervisorJob())
 
@@ -136,6 +141,26 @@ class SketchManager(
         }
     }
 
+    override fun updateLiveSketchInfo(strokeId: Int, sketchInfo: DrawingInfo) {
+        scope.launch(Dispatchers.Main) {
+            windowManager?.let {
+                if (sketchLayout?.isVisible != true) {
+                    ctrlPanel?.setDrawRebBubbleVisible(true)
+                }
+                sketchView?.drawLiveStroke(strokeId, sketchInfo)
+            }
+        }
+    }
+
+    override fun finishLiveSketchInfo(strokeId: Int, sketchInfo: DrawingInfo) {
+        LogUtils.info(TAG, "finishLiveSketchInfo")
+        scope.launch(Dispatchers.Main) {
+            windowManager?.let {
+                sketchView?.commitLiveStroke(strokeId, sketchInfo)
+            }
+        }
+    }
+
     override fun initManager() {
         //
     }
@@ -165,6 +190,16 @@ class SketchManager(
                     val drawInfo = calculateDrawInfo(drawingInfo)
                     sketchWindowListener?.onSketchEvent(drawInfo)
                 }
+
+                override fun onSketchStart(drawingInfo: DrawingInfo) {
+                    liveStrokeColor = drawingInfo.color
+                    sketchWindowListener?.onSketchStart(calculateDrawInfo(drawingInfo))
+                }
+
+                override fun onSketchMove(point: PointBean) {
+                    val color = liveStrokeColor ?: return
+                    sketchWindowListener?.onSketchMove(if (needTransform(color)) calculatePoint(point) else point)
+                }
             }
             it.paintColor = paintColor.toColorInt()
             it.localPathSize = paintWidth
@@ -302,18 +337,16 @@ class SketchManager(
         }
     }
 
+    private fun needTransform(color: String): Boolean {
+        return !(screenShareUseCase.isInSharing() || (remoteWindowWidth == 0f && remoteWindowHeight == 0f) || (color == SketchView.COLOR_PAINT_DEFAULT))
+    }
+
     private fun calculateDrawInfo(it: DrawingInfo): DrawingInfo {
-        return if (screenShareUseCase.isInSharing() || (remoteWindowWidth == 0f && remoteWindowHeight == 0f) || (it.color == SketchView.COLOR_PAINT_DEFAULT)) {
+        return if (!needTransform(it.color)) {
             it
         } else {
-            val widthRate = remoteWindowWidth / localWidth
-            val heightRate = remoteWindowHeight / localHeight
-            LogUtils.debug(TAG, "calculateDrawInfo widthRate: $widthRate, heightRate: $heightRate")
-            val originPoints = it.pointList
-            val pointList = originPoints.map { bean ->
-                val pointPair = getRotationCoordination(rectF.centerX(), rectF.centerY(), bean.x, bean.y)
-                PointBean((pointPair.first - localTranslationX) * widthRate, (pointPair.second - localTranslationY) * heightRate)
-            }.toMutableList()
+            LogUtils.debug(TAG, "calculateDrawInfo widthRate: ${remoteWindowWidth / localWidth}, heightRate: ${remoteWindowHeight / localHeight}")
+            val pointList = it.pointList.map { bean -> calculatePoint(bean) }.toMutableList()
             DrawingInfo(
                 it.width,
                 it.color,
@@ -322,6 +355,13 @@ class SketchManager(
         }
     }
 
+    private fun calculatePoint(bean: PointBean): PointBean {
+        val widthRate = remoteWindowWidth / localWidth
+        val heightRate = remoteWindowHeight / localHeight
+        mapRotation(bean.x, bean.y)
+        return PointBean((mappedPoint[0] - localTranslationX) * widthRate, (mappedPoint[1] - localTranslationY) * heightRate)
+    }
+
     private fun removeSketchLayout() {
         LogUtils.debug(TAG, "removeSketchLayout")
         windowManager?.let {
@@ -334,11 +374,13 @@ class SketchManager(
         }
     }
 
-    private fun getRotationCoordination(centerX: Float, centerY: Float, originX: Float, originY: Float): Pair<Float, Float> {
-        val matrix = Matrix()
-        matrix.postRotate(rotation.toFloat(), centerX, centerY)
-        val point = floatArrayOf(originX, originY)
-        matrix.mapPoints(point)
-        return Pair(point[0], point[1])
+    /**
+     * 按当前旋转角度绕窗口中心旋转，结果写入[mappedPoint]
+     */
+    private fun mapRotation(originX: Float, originY: Float) {
+        rotationMatrix.setRotate(rotation.toFloat(), rectF.centerX(), rectF.centerY())
+        mappedPoint[0] = originX
+        mappedPoint[1] = originY
+        rotationMatrix.mapPoints(mappedPoint)
     }
 }
\ No newline at end of file
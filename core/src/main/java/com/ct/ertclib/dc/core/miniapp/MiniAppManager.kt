@@ -18,6 +18,7 @@ package com.ct.ertclib.dc.core.miniapp
 
 import android.annotation.SuppressLint
 import android.content.Context
+import android.graphics.Bitmap
 import android.os.Build
 import android.os.Bundle
 import android.os.Handler
@@ -30,7 +31,6 @@ import android.os.VibratorManager
 import android.telecom.Call
 import android.text.TextUtils
 import com.blankj.utilcode.util.Utils
-import com.blankj.utilcode.util.ZipUtils
 import com.ct.ertclib.dc.core.R
 import com.ct.ertclib.dc.core.common.NewCallAppSdkInterface
 import com.ct.ertclib.dc.core.data.call.CallInfo
@@ -57,6 +57,8 @@ import com.ct.ertclib.dc.core.data.miniapp.MiniAppList
 import com.ct.ertclib.dc.core.data.miniapp.MiniAppStatus
 import com.ct.ertclib.dc.core.ui.activity.ConfirmActivity
 import com.ct.ertclib.dc.core.manager.common.LicenseManager
+import com.ct.ertclib.dc.core.miniapp.archive.MiniAppArchive
+import com.ct.ertclib.dc.core.miniapp.store.MiniAppBlobStore
 import com.ct.ertclib.dc.core.miniapp.MiniAppOwnADCImpl.Model
 import com.ct.ertclib.dc.core.miniapp.MiniAppOwnADCImpl.OnADCListener
 import com.ct.ertclib.dc.core.miniapp.MiniAppOwnADCImpl.OnSendCallback
@@ -68,7 +70,7 @@ import com.ct.ertclib.dc.core.port.miniapp.IMiniAppListLoadedCallback
 import com.ct.ertclib.dc.core.port.miniapp.IMiniAppStartManager
 import com.ct.ertclib.dc.core.port.miniapp.IMiniAppStartCallback
 import com.ct.ertclib.dc.core.port.miniapp.IStartAppCallback
-import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import com.ct.ertclib.dc.core.port.manager.IMiniAppIconStore
 import com.ct.ertclib.dc.core.utils.common.LogUtils
 import com.newcalllib.datachannel.V1_0.IImsDataChannel
 import com.newcalllib.datachannel.V1_0.ImsDCStatus
@@ -77,13 +79,15 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
+import org.koin.core.component.KoinComponent
+import org.koin.core.component.inject
 import java.io.File
 import java.io.FileOutputStream
 import java.io.IOException
 import java.util.concurrent.ConcurrentHashMap
 
 class MiniAppManager(private val callInfo: CallInfo,private val miniAppStartManager: IMiniAppStartManager) :
-    ICallStateListener, IControlDcCreateListener ,IAdverseDcCreateListener{
+    ICallStateListener, IControlDcCreateListener ,IAdverseDcCreateListener, KoinComponent {
 
     companion object {
         private const val TAG = "MiniAppManager"
@@ -167,6 +171,8 @@ class MiniAppManager(private val callInfo: CallInfo,private val miniAppStartMana
 
     @Volatile
     private var mMiniAppListInfo: MiniAppList? = null
+    private val iconStore: IMiniAppIconStore<Bitmap> by inject()
+    private val blobStore: MiniAppBlobStore by inject()
     private val mRejectPassivelyMiniAppCountMap = ConcurrentHashMap<String, Int>()
     private var mMiniAppListCallback: IMiniAppListLoadedCallback? = null
     private var mDownloadMiniApp: IDownloadMiniApp? = null
@@ -415,6 +421,7 @@ class MiniAppManager(private val callInfo: CallInfo,private val miniAppStartMana
             miniAppInfo.myNumber = callInfo.myNumber
             miniAppInfo.isOutgoingCall = callInfo.isOutgoingCall
             miniAppInfo.path = getInstalledPath(miniAppInfo.appId)
+            miniAppInfo.appIcon = iconStore.intern(miniAppInfo.appId, miniAppInfo.appIcon)
             if (miniAppInfo.autoLoad && isFirstPage){
                 if (miniAppInfo.isPhasePreCall() && mAutoloadPreCallMiniApp == null ) {
                     mAutoloadPreCallMiniApp = miniAppInfo
@@ -553,14 +560,14 @@ class MiniAppManager(private val callInfo: CallInfo,private val miniAppStartMana
                     sLogger.debug("$mTag handleStartMiniAppFailed verifyMiniAppPkg false")
                     return false
                 }
-                //解压小程序
-                ZipUtils.unzipFile(cacheFile!!.absolutePath, filePath)
-                //删除cache
-                FileUtils.deletePath(cacheFile.absolutePath)
+                //校验过的包按内容去重导入存储，运行时按清单读取
+                installBlobs(cacheFile, filePath)
                 val path = miniAppInfo.path
                 if (filePath != path) {
                     miniAppInfo.path = filePath
                     path?.let {
+                        // 释放旧版本引用的文件
+                        blobStore.release(File(it))
                         FileUtils.deletePath(it)
                     }
                 }
@@ -580,6 +587,21 @@ class MiniAppManager(private val callInfo: CallInfo,private val miniAppStartMana
         return true
     }
 
+    private fun installBlobs(cacheFile: File, filePath: String) {
+        val dir = File(filePath)
+        try {
+            blobStore.install(cacheFile, dir)
+        } catch (e: IOException) {
+            // 不完整的版本目录会被当成已安装
+            FileUtils.deletePath(filePath)
+            throw e
+        } finally {
+            FileUtils.deletePath(cacheFile.absolutePath)
+        }
+        // 安装前已校验过签名，启动时不再重复校验
+        MiniAppArchive.markVerified(File(dir, MiniAppBlobStore.MANIFEST_FILE_NAME))
+    }
+
     private fun handleStartMiniAppFailed(appId: String?, reason: Reason) {
         val miniAppInfo = getMiniAppInfo(appId)
         if (miniAppInfo == null) {
@@ -874,7 +896,8 @@ class MiniAppManager(private val callInfo: CallInfo,private val miniAppStartMana
     }
 
     fun requestStartAdverseApp(appId: String){
-        mStartAppMap[appId]?.let { mMiniAppConsultControlImplMap[appId]?.requestStartAdverseApp(it) }
+        // 对端拿不到本地图标文件，发送前还原为base64
+        mStartAppMap[appId]?.let { mMiniAppConsultControlImplMap[appId]?.requestStartAdverseApp(it.copy(appIcon = iconStore.toInlineIcon(it.appIcon))) }
     }
 
     fun registerAppDataChannelCallbackInternal(appId: String, createListener: IDcCreateListener) {
@@ -974,6 +997,7 @@ class MiniAppManager(private val callInfo: CallInfo,private val miniAppStartMana
             }
 
             override fun onRequestStartApp(appInfo:MiniAppInfo) {
+                appInfo.appIcon = iconStore.intern(appInfo.appId, appInfo.appIcon)
                 startMiniAppByAdverse(telecomCallId,appInfo,false)
             }
 
@@ -982,7 +1006,7 @@ class MiniAppManager(private val callInfo: CallInfo,private val miniAppStartMana
                     ACTION_START_APP_RESPONSE,
                     mutableMapOf("option" to option)
                 )
-                MiniAppStartManager.sendMessageToMiniApp(telecomCallId,appId,JsonUtil.toJson(event),object : IMessageCallback.Stub() {
+                MiniAppStartManager.notifyMiniApp(telecomCallId,appId,event,object : IMessageCallback.Stub() {
                     override fun reply(message: String?) {
                         if (sLogger.isDebugActivated) {
                             sLogger.debug("onResponseStartApp sendMessageToMiniApp:$message")
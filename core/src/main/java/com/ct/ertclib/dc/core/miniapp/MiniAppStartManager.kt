@@ -28,6 +28,7 @@ import com.ct.ertclib.dc.core.utils.common.JsonUtil
 import com.ct.ertclib.dc.core.utils.common.LogUtils
 import com.ct.ertclib.dc.core.data.call.CallInfo
 import com.ct.ertclib.dc.core.data.common.Reason
+import com.ct.ertclib.dc.core.data.event.NotifyEvent
 import com.ct.ertclib.dc.core.data.miniapp.MiniAppList
 import com.ct.ertclib.dc.core.data.model.MiniAppInfo
 import com.ct.ertclib.dc.core.service.MiniAppService
@@ -47,19 +48,34 @@ import com.ct.ertclib.dc.core.miniapp.ui.activity.MiniAppActivity9
 import com.ct.ertclib.dc.core.utils.common.ClassUtils
 import com.ct.ertclib.dc.core.port.miniapp.IMiniAppStartManager
 import com.ct.ertclib.dc.core.port.miniapp.IMiniAppStartCallback
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.async
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
+import com.ct.ertclib.dc.core.miniapp.archive.MiniAppArchive
+import com.ct.ertclib.dc.core.miniapp.store.MiniAppBlobStore
+import org.koin.core.component.KoinComponent
+import org.koin.core.component.inject
 import java.io.File
 import kotlin.coroutines.EmptyCoroutineContext
 
-object MiniAppStartManager : IMiniAppStartManager {
+object MiniAppStartManager : IMiniAppStartManager, KoinComponent {
     private const val TAG = "MiniAppStartManager"
+    private const val PROPERTIES_FILE_NAME = "properties.json"
     private val sLogger: Logger = Logger.getLogger(TAG)
     private val mMiniAppInfoList = ArrayList<MiniAppInfoWrapper>()
     private var appService: MiniAppService? = null
+    private val blobStore: MiniAppBlobStore by inject()
+
+    private val metrics = MetricsRegistry.instance
+    private val propertiesLatency = metrics.histogram(MetricNames.MINI_APP_START_PROPERTIES)
+    private val verifyLatency = metrics.histogram(MetricNames.MINI_APP_START_VERIFY)
+    private val dispatchLatency = metrics.histogram(MetricNames.MINI_APP_START_DISPATCH)
+    private val totalLatency = metrics.histogram(MetricNames.MINI_APP_START_TOTAL)
+    private val startFailedCounter = metrics.counter(MetricNames.MINI_APP_START_FAILED)
 
 
     class MiniAppChecker(private val activityClass: Class<out MiniAppActivity>) :
@@ -70,17 +86,29 @@ object MiniAppStartManager : IMiniAppStartManager {
     }
 
     private fun startMiniAppInfo(miniAppInfo: MiniAppInfo, context: Context, callInfo: CallInfo?, miniAppListInfo: MiniAppList?, callback: IMiniAppStartCallback?) {
+        val startNanos = metrics.nanoTime()
         val coroutineScope = CoroutineScope(EmptyCoroutineContext)
         coroutineScope.launch(Dispatchers.IO) {
             if (miniAppInfo.path == null || !File(miniAppInfo.path).exists()){
                 sLogger.warn("startMiniAppActivity path is null or not exist")
+                startFailedCounter.increment()
                 callback?.onMiniAppStartFailed(Reason.START_FAILED)
                 return@launch
             }
+            val versionDir = File(miniAppInfo.path!!)
+            val archiveFile = File(versionDir, MiniAppArchive.ARCHIVE_FILE_NAME)
+            val manifestFile = File(versionDir, MiniAppBlobStore.MANIFEST_FILE_NAME)
             val deferred = async {
-                val file = File(miniAppInfo.path + "/properties.json")
-                if (file.exists()) {
-                    val propertiesString = file.readText()
+                val file = File(miniAppInfo.path, PROPERTIES_FILE_NAME)
+                val archive = blobStore.openInstalled(versionDir, miniAppInfo.appId)
+                val propertiesString = if (archive != null) {
+                    archive.use { it.readText(PROPERTIES_FILE_NAME) }
+                } else if (file.exists()) {
+                    file.readText()
+                } else {
+                    null
+                }
+                if (propertiesString != null) {
                     if (sLogger.isDebugActivated) sLogger.debug("startMiniAppActivity propertiesString:$propertiesString")
                     JsonUtil.fromJson(propertiesString, MiniAppProperties::class.java)
                 } else {
@@ -89,24 +117,40 @@ object MiniAppStartManager : IMiniAppStartManager {
                 }
             }
             val properties = deferred.await()
+            propertiesLatency.recordSince(startNanos)
             if (sLogger.isDebugActivated) sLogger.debug("startMiniAppActivity properties:$properties")
             if (properties == null){
+                startFailedCounter.increment()
                 callback?.onMiniAppStartFailed(Reason.START_FAILED)
                 return@launch
             }
             if (properties.canStartedByOthers != true && miniAppInfo.isStartByOthers == true) {
                 if (sLogger.isDebugActivated) sLogger.debug("startMiniAppActivity cannot start by others")
+                startFailedCounter.increment()
                 callback?.onMiniAppStartFailed(Reason.START_FAILED)
                 return@launch
             }
             miniAppInfo.appProperties = properties
-            if (!LicenseManager.getInstance().verifyMiniAppFolder(miniAppInfo.path!!)){
+            val verifyStartNanos = metrics.nanoTime()
+            val verified = if (archiveFile.exists()) {
+                MiniAppArchive.verify(archiveFile) { LicenseManager.getInstance().verifyMiniAppPkg(it.absolutePath) }
+            } else if (manifestFile.exists()) {
+                // 清单在安装时校验签名后写入，这里核对存储中的内容与清单一致
+                MiniAppArchive.verify(manifestFile) { blobStore.verify(versionDir) }
+            } else {
+                LicenseManager.getInstance().verifyMiniAppFolder(miniAppInfo.path!!)
+            }
+            verifyLatency.recordSince(verifyStartNanos)
+            if (!verified){
                 sLogger.info("startMiniAppActivity verify failed")
+                startFailedCounter.increment()
                 callback?.onMiniAppStartFailed(Reason.START_FAILED)
                 return@launch
             }
+            val dispatchStartNanos = metrics.nanoTime()
             coroutineScope.launch(Dispatchers.Main){
-                startMiniAppActivity(context, miniAppInfo, callInfo, miniAppListInfo)
+                dispatchLatency.recordSince(dispatchStartNanos)
+                startMiniAppActivity(context, miniAppInfo, callInfo, miniAppListInfo, startNanos)
                 // 回调启动成功
                 callback?.onMiniAppStarted()
             }
@@ -117,7 +161,8 @@ object MiniAppStartManager : IMiniAppStartManager {
         context: Context,
         miniAppInfo: MiniAppInfo,
         callInfo: CallInfo?,
-        miniAppListInfo: MiniAppList?
+        miniAppListInfo: MiniAppList?,
+        startNanos: Long
     ) {
         if (sLogger.isDebugActivated) sLogger.debug("startMiniAppActivity miniAppInfp:$miniAppInfo")
 
@@ -134,6 +179,7 @@ object MiniAppStartManager : IMiniAppStartManager {
             coroutineScope.launch(Dispatchers.Main) {
                 delay(500)
                 context.startActivity(intent)
+                totalLatency.recordSince(startNanos)
             }
             return
         }
@@ -157,6 +203,7 @@ object MiniAppStartManager : IMiniAppStartManager {
         coroutineScope.launch(Dispatchers.Main) {
             delay(500)
             context.startActivity(intent)
+            totalLatency.recordSince(startNanos)
         }
     }
 
@@ -303,6 +350,11 @@ object MiniAppStartManager : IMiniAppStartManager {
 
     }
 
+    fun notifyMiniApp(callId: String, appId: String, event: NotifyEvent, callback: IMessageCallback?) {
+        LogUtils.debug(TAG, "notifyMiniApp, callId: $callId, appId: $appId, event: ${event.eventName}")
+        appService?.notifyMini(callId, appId, event, callback)
+    }
+
     override fun clearBackgroundTaskList() {
         mMiniAppInfoList.clear()
     }
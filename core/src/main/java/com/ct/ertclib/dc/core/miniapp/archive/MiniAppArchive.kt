@@ -0,0 +1,271 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.miniapp.archive
+
+import com.ct.ertclib.dc.core.constants.CommonConstants.INDEX_FILE_NAME
+import com.ct.ertclib.dc.core.utils.common.MimeUtils
+import java.io.ByteArrayInputStream
+import java.io.Closeable
+import java.io.File
+import java.io.InputStream
+import java.net.URI
+import java.net.URISyntaxException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.zip.CRC32
+import java.util.zip.ZipFile
+
+/**
+ * 直接从校验过的小程序包中读取资源，不需要先整体解压
+ *
+ * 条目来自[Source]：zip包通过中央目录定位条目并随机读取，STORED条目按原始字节读出，不经过解压；
+ * 也可以来自内容寻址存储中的版本清单。
+ * 不超过[maxCachedEntryBytes]的条目读取后放入按字节计的LRU缓存，更大的条目每次流式读取。
+ * 每个小程序使用独立的虚拟源，WebView的localStorage、IndexedDB和Cookie按源隔离，复用进程的小程序之间互不可见。
+ */
+class MiniAppArchive(
+    private val source: Source,
+    appId: String,
+    private val cacheBytes: Int = DEFAULT_CACHE_BYTES,
+    private val maxCachedEntryBytes: Int = DEFAULT_MAX_CACHED_ENTRY_BYTES
+) : Closeable {
+
+    constructor(
+        file: File,
+        appId: String,
+        cacheBytes: Int = DEFAULT_CACHE_BYTES,
+        maxCachedEntryBytes: Int = DEFAULT_MAX_CACHED_ENTRY_BYTES
+    ) : this(ZipSource(ZipFile(file)), appId, cacheBytes, maxCachedEntryBytes)
+
+    companion object {
+        const val ARCHIVE_FILE_NAME = "package.zip"
+        // 虚拟源的父域名，请求由WebViewClient.shouldInterceptRequest拦截，不会访问网络
+        const val ORIGIN_HOST = "miniapp.local"
+        private const val DEFAULT_CACHE_BYTES = 4 * 1024 * 1024
+        private const val DEFAULT_MAX_CACHED_ENTRY_BYTES = 256 * 1024
+        private const val DEFAULT_MIME_TYPE = "application/octet-stream"
+        private const val TEXT_ENCODING = "UTF-8"
+
+        private const val MAX_LABEL_LENGTH = 63
+        private val LABEL_REGEX = Regex("[a-z0-9]([a-z0-9-]{0,61}[a-z0-9])?")
+        private val UNSAFE_LABEL_CHARS = Regex("[^a-z0-9-]")
+
+        // 校验通过的包，同一个包文件只校验一次
+        private val verifiedPackages = ConcurrentHashMap.newKeySet<String>()
+
+        /**
+         * 小程序的虚拟源，如https://<appId>.miniapp.local/
+         *
+         * appId不是合法的域名标签时替换非法字符，并附加appId的CRC32，避免不同小程序得到相同的源
+         */
+        fun originOf(appId: String): String {
+            val label = if (LABEL_REGEX.matches(appId)) {
+                appId
+            } else {
+                val crc = CRC32()
+                crc.update(appId.toByteArray(Charsets.UTF_8))
+                val suffix = java.lang.Long.toHexString(crc.value).padStart(8, '0')
+                val sanitized = UNSAFE_LABEL_CHARS.replace(appId.lowercase(), "-")
+                    .take(MAX_LABEL_LENGTH - suffix.length - 1).trim('-')
+                if (sanitized.isEmpty()) suffix else "$sanitized-$suffix"
+            }
+            return "https://$label.$ORIGIN_HOST/"
+        }
+
+        /**
+         * 校验小程序包，路径、大小和修改时间都没变时沿用上次通过的结果
+         */
+        fun verify(file: File, verifier: (File) -> Boolean): Boolean {
+            val key = packageKey(file)
+            if (verifiedPackages.contains(key)) {
+                return true
+            }
+            val verified = verifier(file)
+            if (verified) {
+                verifiedPackages.add(key)
+            }
+            return verified
+        }
+
+        /**
+         * 安装时已经校验过的包
+         */
+        fun markVerified(file: File) {
+            verifiedPackages.add(packageKey(file))
+        }
+
+        private fun packageKey(file: File): String {
+            return "${file.absolutePath}:${file.length()}:${file.lastModified()}"
+        }
+
+        /**
+         * 把请求路径转换为包内的条目名，目录指向其中的首页
+         * @return 路径非法时返回null
+         */
+        fun normalizePath(path: String): String? {
+            var name = path.trimStart('/')
+            if (name.isEmpty() || name.endsWith("/")) {
+                name += INDEX_FILE_NAME
+            }
+            if (name.split('/').any { it == ".." || it == "." } || name.contains('\\')) {
+                return null
+            }
+            return name
+        }
+
+        fun mimeTypeOf(name: String): String {
+            val extension = name.substringAfterLast('/').substringAfterLast('.', "").lowercase()
+            return MimeUtils.guessMimeTypeFromExtension(extension) ?: DEFAULT_MIME_TYPE
+        }
+
+        fun encodingOf(mimeType: String): String? {
+            return if (mimeType.startsWith("text/") || mimeType.endsWith("javascript") || mimeType.endsWith("json")) {
+                TEXT_ENCODING
+            } else {
+                null
+            }
+        }
+    }
+
+    /**
+     * @param length 条目解压后的长度，未知时为-1
+     */
+    class Resource(
+        val name: String,
+        val mimeType: String,
+        val length: Long,
+        val stream: InputStream
+    ) {
+        val encoding: String?
+            get() = encodingOf(mimeType)
+    }
+
+    /**
+     * 包内条目的来源
+     */
+    interface Source : Closeable {
+        /**
+         * @return 条目解压后的长度，未知时为-1；条目不存在时返回null
+         */
+        fun sizeOf(name: String): Long?
+
+        /**
+         * @return 条目不存在时返回null
+         */
+        fun openEntry(name: String): InputStream?
+    }
+
+    private class ZipSource(private val zipFile: ZipFile) : Source {
+        override fun sizeOf(name: String): Long? {
+            val entry = zipFile.getEntry(name)
+            return if (entry == null || entry.isDirectory) null else entry.size
+        }
+
+        override fun openEntry(name: String): InputStream? {
+            return zipFile.getEntry(name)?.let { zipFile.getInputStream(it) }
+        }
+
+        override fun close() {
+            zipFile.close()
+        }
+    }
+
+    val origin = originOf(appId)
+
+    private val cache = LinkedHashMap<String, ByteArray>(16, 0.75f, true)
+    private var cachedBytes = 0
+
+    var hitCount = 0
+        private set
+    var missCount = 0
+        private set
+
+    fun isArchiveUrl(url: String): Boolean {
+        return url.startsWith(origin)
+    }
+
+    /**
+     * 按虚拟源下的URL读取，忽略查询参数和锚点
+     */
+    fun openUrl(url: String): Resource? {
+        if (!isArchiveUrl(url)) {
+            return null
+        }
+        val path = try {
+            URI(url).path
+        } catch (e: URISyntaxException) {
+            return null
+        }
+        return open(path ?: "")
+    }
+
+    /**
+     * @param path 包内路径，可以带前导/
+     * @return 条目不存在时返回null
+     */
+    fun open(path: String): Resource? {
+        val name = normalizePath(path) ?: return null
+        val mimeType = mimeTypeOf(name)
+        getCached(name)?.let {
+            return Resource(name, mimeType, it.size.toLong(), ByteArrayInputStream(it))
+        }
+        val size = source.sizeOf(name) ?: return null
+        val stream = source.openEntry(name) ?: return null
+        if (size in 0..maxCachedEntryBytes) {
+            val bytes = stream.use { it.readBytes() }
+            putCached(name, bytes)
+            return Resource(name, mimeType, bytes.size.toLong(), ByteArrayInputStream(bytes))
+        }
+        return Resource(name, mimeType, size, stream)
+    }
+
+    fun readText(path: String): String? {
+        return open(path)?.stream?.use { String(it.readBytes(), Charsets.UTF_8) }
+    }
+
+    override fun close() {
+        synchronized(cache) {
+            cache.clear()
+            cachedBytes = 0
+        }
+        source.close()
+    }
+
+    private fun getCached(name: String): ByteArray? {
+        synchronized(cache) {
+            val bytes = cache[name]
+            if (bytes == null) {
+                missCount++
+            } else {
+                hitCount++
+            }
+            return bytes
+        }
+    }
+
+    private fun putCached(name: String, bytes: ByteArray) {
+        synchronized(cache) {
+            cache.put(name, bytes)?.let { cachedBytes -= it.size }
+            cachedBytes += bytes.size
+            val iterator = cache.entries.iterator()
+            while (cachedBytes > cacheBytes && iterator.hasNext()) {
+                cachedBytes -= iterator.next().value.size
+                iterator.remove()
+            }
+        }
+    }
+}
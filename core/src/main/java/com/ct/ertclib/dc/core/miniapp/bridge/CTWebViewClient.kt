@@ -24,6 +24,7 @@ import android.webkit.WebResourceRequest
 import android.webkit.WebResourceResponse
 import android.webkit.WebView
 import android.webkit.WebViewClient
+import com.ct.ertclib.dc.core.miniapp.archive.MiniAppArchive
 import com.ct.ertclib.dc.core.miniapp.ui.activity.MiniAppActivity
 import com.ct.ertclib.dc.core.utils.logger.Logger
 import androidx.core.net.toUri
@@ -34,6 +35,7 @@ class CTWebViewClient(private val miniAppActivity: MiniAppActivity) : WebViewCli
 
     companion object {
         private const val TAG = "CTWebViewClient"
+        private const val STATUS_NOT_FOUND = 404
     }
 
     private val sLogger: Logger = Logger.getLogger(TAG)
@@ -43,6 +45,11 @@ class CTWebViewClient(private val miniAppActivity: MiniAppActivity) : WebViewCli
         sLogger.info("shouldOverrideUrlLoading request:${request?.url}")
         val url = request?.url.toString()
 
+        // 小程序包内的页面
+        if (miniAppActivity.miniAppArchive?.isArchiveUrl(url) == true) {
+            return false
+        }
+
         // 如果不在allowedUrls中，则拦截
         var pass = false
         (miniAppActivity as? IMiniApp)?.miniApp?.appProperties?.allowedUrls?.forEach{
@@ -86,7 +93,22 @@ class CTWebViewClient(private val miniAppActivity: MiniAppActivity) : WebViewCli
         view: WebView?,
         request: WebResourceRequest?
     ): WebResourceResponse? {
-        return super.shouldInterceptRequest(view, request)
+        val archive = miniAppActivity.miniAppArchive
+        val url = request?.url?.toString()
+        if (archive == null || url == null || !archive.isArchiveUrl(url)) {
+            return super.shouldInterceptRequest(view, request)
+        }
+        val resource = try {
+            archive.openUrl(url)
+        } catch (e: Exception) {
+            sLogger.error("shouldInterceptRequest read $url failed", e)
+            null
+        }
+        if (resource == null) {
+            sLogger.warn("shouldInterceptRequest $url not found in package")
+            return WebResourceResponse(null, null, STATUS_NOT_FOUND, "Not Found", null, null)
+        }
+        return WebResourceResponse(resource.mimeType, resource.encoding, resource.stream)
     }
 
     override fun onPageStarted(view: WebView?, url: String?, favicon: Bitmap?) {
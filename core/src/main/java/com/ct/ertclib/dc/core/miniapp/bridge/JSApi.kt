@@ -21,14 +21,15 @@ import android.os.Build
 import android.webkit.JavascriptInterface
 import androidx.annotation.RequiresApi
 import com.ct.ertclib.dc.core.utils.logger.Logger
-import com.ct.ertclib.dc.core.utils.common.JsonUtil
-import com.ct.ertclib.dc.core.data.bridge.JSRequest
-import com.ct.ertclib.dc.core.factory.JsEventDispatcherFactory
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import org.koin.core.component.KoinComponent
+import org.koin.core.component.inject
 import wendu.dsbridge.CompletionHandler
 import java.io.InputStream
 import java.io.OutputStream
 
-class JSApi(private val context: Context) {
+class JSApi(private val context: Context) : KoinComponent {
 
     companion object {
         private const val TAG = "JSApi"
@@ -36,20 +37,59 @@ class JSApi(private val context: Context) {
 
     private val sLogger: Logger = Logger.getLogger(TAG)
 
+    private val router: JsBridgeRouter by inject()
+    private val batchExecutor: JsBatchExecutor by inject()
+
+    private val asyncLatency = MetricsRegistry.instance.histogram(MetricNames.JS_API_ASYNC)
+    private val syncLatency = MetricsRegistry.instance.histogram(MetricNames.JS_API_SYNC)
+    private val errorCounter = MetricsRegistry.instance.counter(MetricNames.JS_API_ERROR)
+    private val batchLatency = MetricsRegistry.instance.histogram(MetricNames.JS_API_BATCH)
+
     @JavascriptInterface
     fun async(msg: Any, handler: CompletionHandler<String?>) {
+        val startNanos = asyncLatency.start()
         try {
-            sLogger.info("JSApi asyn ,msg:$msg, handler:$handler")
-            val jsRequest = JsonUtil.fromJson(msg.toString(), JSRequest::class.java)
-            jsRequest?.let {
-                JsEventDispatcherFactory.getEventDispatcher(jsRequest.event).dispatchAsyncMessage(context, jsRequest, handler)
+            sLogger.info { "JSApi asyn ,msg:$msg, handler:$handler" }
+            val call = try {
+                router.decode(msg.toString())
+            } catch (e: Exception) {
+                handler.complete(reject(e))
+                return
             }
+            call.invokeAsync(context, handler)
         }catch (e:java.lang.Exception){
+            errorCounter.increment()
             e.printStackTrace()
+        } finally {
+            asyncLatency.recordSince(startNanos)
         }
     }
 
 
+    /**
+     * 批量调用，msg为{"calls":[{"event":...,"function":...,"params":{...}}, ...]}
+     * 整批结果按顺序放在响应的data数组中，一次回调返回
+     */
+    @JavascriptInterface
+    fun batch(msg: Any, handler: CompletionHandler<String?>) {
+        sLogger.info { "JSApi batch ,msg:$msg" }
+        val startNanos = batchLatency.start()
+        batchExecutor.submit(context, msg.toString(), object : CompletionHandler<String?> {
+            override fun complete(retValue: String?) {
+                batchLatency.recordSince(startNanos)
+                handler.complete(retValue)
+            }
+
+            override fun complete() {
+                complete(null)
+            }
+
+            override fun setProgressData(value: String?) {
+                handler.setProgressData(value)
+            }
+        })
+    }
+
     @Deprecated(
         message = "This function is deprecated. Use async instead.",
         replaceWith = ReplaceWith("async"),
@@ -58,15 +98,30 @@ class JSApi(private val context: Context) {
     @RequiresApi(Build.VERSION_CODES.Q)
     @JavascriptInterface
     fun sync(msg: Any): String? {
+        val startNanos = syncLatency.start()
         try {
-            sLogger.info("JSApi sync ,msg:$msg")
-            val jsRequest = JsonUtil.fromJson(msg.toString(), JSRequest::class.java)
-            jsRequest?.let {
-                return JsEventDispatcherFactory.getEventDispatcher(jsRequest.event).dispatchSyncMessage(context, jsRequest)
+            sLogger.info { "JSApi sync ,msg:$msg" }
+            val call = try {
+                router.decode(msg.toString())
+            } catch (e: Exception) {
+                return reject(e)
             }
+            return call.invokeSync(context)
         }catch (e: Exception){
+            errorCounter.increment()
             e.printStackTrace()
+        } finally {
+            syncLatency.recordSince(startNanos)
         }
         return "$msg［syn call］"
     }
+
+    /**
+     * 未登记的调用和格式错误的消息直接返回失败，不进入任何分发器
+     */
+    private fun reject(e: Exception): String {
+        errorCounter.increment()
+        sLogger.warn("reject js call: ${e.message}")
+        return JsBridgeRouter.failure(e.message)
+    }
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.miniapp.bridge
+
+import android.content.Context
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_SUCCESS_CODE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_SUCCESS_MESSAGE
+import com.ct.ertclib.dc.core.data.bridge.JSResponse
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import com.google.gson.JsonElement
+import com.google.gson.JsonNull
+import com.google.gson.JsonParser
+import com.google.gson.JsonPrimitive
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.withTimeoutOrNull
+import wendu.dsbridge.CompletionHandler
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlin.coroutines.resume
+
+/**
+ * JS桥批量调用
+ *
+ * 一次桥调用携带一组有序的调用，整批只解码一次、只查一次权限，结果按原顺序放进同一个响应。
+ * 连续的独立调用（只读查询）并行执行，其余调用单独执行，作为前后调用之间的屏障，
+ * 保证startSaveFile/saveFile这类有先后依赖的调用按顺序生效。
+ * 有同步处理的调用直接在工作线程执行，只有异步处理的调用等待其回调。
+ *
+ * @param warmUp 执行前的准备，如预先加载当前小程序的权限，整批调用共用
+ */
+class JsBatchExecutor(
+    private val router: JsBridgeRouter,
+    private val warmUp: suspend () -> Unit = {},
+    private val dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val asyncTimeoutMillis: Long = ASYNC_TIMEOUT_MILLIS
+) {
+
+    companion object {
+        private const val TAG = "JsBatchExecutor"
+        private const val ASYNC_TIMEOUT_MILLIS = 10_000L
+    }
+
+    private val sLogger: Logger = Logger.getLogger(TAG)
+    private val scope = CoroutineScope(dispatcher + SupervisorJob())
+
+    fun submit(context: Context, msg: String, handler: CompletionHandler<String?>) {
+        scope.launch {
+            handler.complete(execute(context, msg))
+        }
+    }
+
+    suspend fun execute(context: Context, msg: String): String {
+        val calls = try {
+            router.decodeBatch(msg)
+        } catch (e: Exception) {
+            sLogger.warn("reject js batch: ${e.message}")
+            return JsBridgeRouter.failure(e.message)
+        }
+        try {
+            warmUp()
+        } catch (e: Exception) {
+            sLogger.warn("js batch warm up failed", e)
+        }
+        val results = arrayOfNulls<String>(calls.size)
+        var index = 0
+        while (index < calls.size) {
+            var end = index + 1
+            if (isIndependent(calls[index])) {
+                while (end < calls.size && isIndependent(calls[end])) {
+                    end++
+                }
+            }
+            coroutineScope {
+                for (i in index until end) {
+                    launch(dispatcher) { results[i] = invoke(context, calls[i]) }
+                }
+            }
+            index = end
+        }
+        return JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, results.map { toElement(it) }))
+    }
+
+    private fun isIndependent(call: Result<JsBridgeRouter.JsCall>): Boolean {
+        return call.getOrNull()?.route?.independent ?: true
+    }
+
+    private suspend fun invoke(context: Context, result: Result<JsBridgeRouter.JsCall>): String? {
+        val call = result.getOrElse { return JsBridgeRouter.failure(it.message) }
+        return try {
+            if (call.route.sync != null) {
+                call.invokeSync(context)
+            } else {
+                withTimeoutOrNull(asyncTimeoutMillis) { awaitAsync(context, call) }
+                    ?: JsBridgeRouter.failure("${call.route.event}.${call.route.function} timeout")
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            sLogger.warn("js batch call ${call.route.event}.${call.route.function} failed", e)
+            JsBridgeRouter.failure(e.message)
+        }
+    }
+
+    private suspend fun awaitAsync(context: Context, call: JsBridgeRouter.JsCall): String? {
+        return suspendCancellableCoroutine { continuation ->
+            val completed = AtomicBoolean()
+            call.invokeAsync(context, object : CompletionHandler<String?> {
+                override fun complete(retValue: String?) {
+                    if (completed.compareAndSet(false, true)) {
+                        continuation.resume(retValue)
+                    }
+                }
+
+                override fun complete() {
+                    complete(null)
+                }
+
+                override fun setProgressData(value: String?) {
+                    // 批量调用只返回最终结果
+                }
+            })
+        }
+    }
+
+    /**
+     * 处理器返回的多是JSON串，原样嵌入响应，避免二次转义
+     */
+    private fun toElement(result: String?): JsonElement {
+        if (result.isNullOrEmpty()) {
+            return JsonNull.INSTANCE
+        }
+        return try {
+            JsonParser.parseString(result)
+        } catch (e: Exception) {
+            JsonPrimitive(result)
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.miniapp.bridge
+
+import android.content.Context
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_FAILED_CODE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_FAILED_MESSAGE
+import com.ct.ertclib.dc.core.data.bridge.JSResponse
+import com.ct.ertclib.dc.core.data.bridge.JsParamSpec
+import com.ct.ertclib.dc.core.data.bridge.JsRoute
+import com.ct.ertclib.dc.core.port.dispatcher.IJsEventDispatcher
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import com.google.gson.Gson
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import wendu.dsbridge.CompletionHandler
+import java.io.StringReader
+
+/**
+ * JS桥路由
+ *
+ * 启动时把各分发器登记的路由收进event -> function的两级HashMap，分发只做两次查表。
+ * 请求用流式JsonReader解码，读到event和function就先定位路由，未登记的调用立即失败，
+ * params只解码路由声明需要的字段，其余直接跳过。
+ */
+class JsBridgeRouter(dispatchers: List<IJsEventDispatcher>) {
+
+    companion object {
+        private const val KEY_EVENT = "event"
+        private const val KEY_FUNCTION = "function"
+        private const val KEY_PARAMS = "params"
+        private const val KEY_CALLS = "calls"
+
+        fun failure(reason: String?): String {
+            return JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("reason" to reason)))
+        }
+    }
+
+    /**
+     * 解码后的调用
+     */
+    class JsCall internal constructor(val route: JsRoute, val params: Map<String, Any>) {
+
+        fun invokeAsync(context: Context, handler: CompletionHandler<String?>) {
+            val async = route.async
+            if (async == null) {
+                handler.complete(failure("${route.event}.${route.function} has no async handler"))
+                return
+            }
+            async(context, params, handler)
+        }
+
+        /**
+         * 只登记了异步处理的function同步调用时返回空串，与原有行为一致
+         */
+        fun invokeSync(context: Context): String? {
+            return route.sync?.invoke(context, params) ?: ""
+        }
+    }
+
+    class UnknownRouteException(event: String?, function: String?) :
+        IllegalArgumentException("unknown js call $event.$function")
+
+    private val routes: Map<String, Map<String, JsRoute>>
+
+    private val valueAdapter: TypeAdapter<Any> = Gson().getAdapter(Any::class.java)
+
+    val size: Int
+
+    init {
+        val table = HashMap<String, HashMap<String, JsRoute>>()
+        var count = 0
+        dispatchers.forEach { dispatcher ->
+            dispatcher.routes().forEach { route ->
+                val previous = table.getOrPut(route.event) { HashMap() }.put(route.function, route)
+                require(previous == null) { "duplicate js route ${route.event}.${route.function}" }
+                count++
+            }
+        }
+        routes = table
+        size = count
+    }
+
+    fun find(event: String, function: String): JsRoute? = routes[event]?.get(function)
+
+    /**
+     * @throws UnknownRouteException event或function未登记
+     * @throws java.io.IOException 消息格式错误
+     */
+    fun decode(msg: String): JsCall {
+        return readCall(newReader(msg), false)
+    }
+
+    /**
+     * 解码批量请求{"calls":[{"event":...,"function":...,"params":{...}}, ...]}
+     * 单个调用未登记时只在对应位置给出失败，不影响其他调用
+     * @throws java.io.IOException 消息格式错误
+     */
+    fun decodeBatch(msg: String): List<Result<JsCall>> {
+        val reader = newReader(msg)
+        val calls = ArrayList<Result<JsCall>>()
+        reader.beginObject()
+        while (reader.hasNext()) {
+            if (reader.nextName() != KEY_CALLS) {
+                reader.skipValue()
+                continue
+            }
+            reader.beginArray()
+            while (reader.hasNext()) {
+                calls.add(
+                    try {
+                        Result.success(readCall(reader, true))
+                    } catch (e: UnknownRouteException) {
+                        Result.failure(e)
+                    }
+                )
+            }
+            reader.endArray()
+        }
+        reader.endObject()
+        return calls
+    }
+
+    private fun newReader(msg: String): JsonReader {
+        val reader = JsonReader(StringReader(msg))
+        reader.isLenient = true
+        return reader
+    }
+
+    /**
+     * @param consumeAll 未登记时仍读完整个对象，批量解码时保证能继续读下一个调用
+     */
+    private fun readCall(reader: JsonReader, consumeAll: Boolean): JsCall {
+        var event: String? = null
+        var function: String? = null
+        var route: JsRoute? = null
+        var params: Map<String, Any>? = null
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                KEY_EVENT -> event = readString(reader)
+                KEY_FUNCTION -> function = readString(reader)
+                // params先于function出现时还不知道路由，只能全部解码
+                KEY_PARAMS -> params = readParams(reader, route?.params ?: JsParamSpec.ALL)
+                else -> reader.skipValue()
+            }
+            if (route == null && event != null && function != null) {
+                route = find(event, function)
+                if (route == null) {
+                    if (consumeAll) {
+                        skipRest(reader)
+                    }
+                    throw UnknownRouteException(event, function)
+                }
+            }
+        }
+        reader.endObject()
+        return JsCall(route ?: throw UnknownRouteException(event, function), params ?: emptyMap())
+    }
+
+    private fun skipRest(reader: JsonReader) {
+        while (reader.hasNext()) {
+            reader.nextName()
+            reader.skipValue()
+        }
+        reader.endObject()
+    }
+
+    private fun readString(reader: JsonReader): String? {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return null
+        }
+        return reader.nextString()
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun readParams(reader: JsonReader, spec: JsParamSpec): Map<String, Any> {
+        if (spec.skipsAll || reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue()
+            return emptyMap()
+        }
+        val params = LinkedHashMap<String, Any?>()
+        reader.beginObject()
+        while (reader.hasNext()) {
+            val name = reader.nextName()
+            if (spec.accepts(name)) {
+                params[name] = valueAdapter.read(reader)
+            } else {
+                reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return params as Map<String, Any>
+    }
+}
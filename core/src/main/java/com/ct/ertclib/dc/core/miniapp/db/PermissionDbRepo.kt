@@ -17,7 +17,7 @@
 package com.ct.ertclib.dc.core.miniapp.db
 
 import com.ct.ertclib.dc.core.common.NewCallDatabase
-import com.ct.ertclib.dc.core.data.model.PermissionModel
+import com.ct.ertclib.dc.core.data.model.PermissionGrantEntity
 import com.ct.ertclib.dc.core.data.model.PermissionUsageEntity
 import com.ct.ertclib.dc.core.port.miniapp.IPermissionDbRepo
 import kotlinx.coroutines.flow.Flow
@@ -26,20 +26,34 @@ class PermissionDbRepo: IPermissionDbRepo {
 
     private val permissionInfoDao by lazy { NewCallDatabase.getInstance().permissionDao() }
 
-    override fun insertOrUpdate(permissionModel: PermissionModel) {
-        permissionInfoDao.insertOrUpdate(permissionModel)
+    override fun savePermissions(appId: String, permissionMap: Map<String, Boolean>) {
+        val grants = permissionMap.map { (permissionName, granted) -> PermissionGrantEntity(appId, permissionName, granted) }
+        permissionInfoDao.insertOrUpdateGrants(*grants.toTypedArray())
     }
 
-    override fun getAll(): Flow<List<PermissionModel>> {
-        return permissionInfoDao.getAll()
+    override fun getAll(): Flow<List<PermissionGrantEntity>> {
+        return permissionInfoDao.getAllGrants()
     }
 
-    override fun getPermissionModelById(appId: String): PermissionModel? {
-        return permissionInfoDao.getOne(appId)
+    override fun getPermissionsById(appId: String): Map<String, Boolean> {
+        return permissionInfoDao.getGrants(appId).associate { it.permissionName to it.granted }
     }
 
-    override fun insertPermissionUsage(permissionUsage: PermissionUsageEntity) {
-        permissionInfoDao.insertPermissionUsage(permissionUsage)
+    override fun insertPermissionUsages(permissionUsages: List<PermissionUsageEntity>) {
+        if (permissionUsages.isEmpty()) {
+            return
+        }
+        NewCallDatabase.getInstance().runInTransaction {
+            permissionUsages.forEach { usage ->
+                if (permissionInfoDao.insertPermissionUsageIfAbsent(usage) == -1L) {
+                    permissionInfoDao.increasePermissionUsageCount(usage.appId, usage.permissionName, usage.permissionUsageTimeStamp, usage.usageCount)
+                }
+            }
+        }
+    }
+
+    override fun getPermissionUsageCount(appId: String, permissionName: String, timeStamp: Long): Long {
+        return permissionInfoDao.getPermissionUsageCount(appId, permissionName, timeStamp)
     }
 
     override fun getPermissionUsageById(appId: String): MutableList<PermissionUsageEntity> {
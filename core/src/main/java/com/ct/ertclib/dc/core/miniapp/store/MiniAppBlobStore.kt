@@ -0,0 +1,382 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.miniapp.store
+
+import com.ct.ertclib.dc.core.miniapp.archive.MiniAppArchive
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import java.io.File
+import java.io.FileInputStream
+import java.io.IOException
+import java.io.InputStream
+import java.security.MessageDigest
+import java.util.zip.ZipFile
+
+/**
+ * 小程序文件的内容寻址存储
+ *
+ * 包内每个文件按SHA-256不压缩存放一份，不同版本、不同小程序的相同文件（JS库、字体、图片）只保存一次。
+ * 每个版本目录下有一份清单记录路径到内容的映射，运行时由[openInstalled]按清单读取，
+ * 经WebViewClient.shouldInterceptRequest交给WebView，不在版本目录中还原文件。
+ * 引用计数按清单统计，删除版本时释放，计数归零的文件随即删除；计数在首次使用时从清单重建，
+ * 并清理异常退出遗留的无引用文件。
+ * 更新时同一小程序旧版本中路径、CRC和大小都相同的条目直接沿用原来的内容，不再解压和计算哈希。
+ * 这一捷径只在同一小程序内使用，避免其他小程序构造CRC相同的文件替换内容。
+ *
+ * @param objectsDir 存放文件内容的目录
+ * @param versionsRoot 小程序版本目录的根目录，结构为<appId>/<version>
+ */
+class MiniAppBlobStore(private val objectsDir: File, private val versionsRoot: File) {
+
+    companion object {
+        private const val TAG = "MiniAppBlobStore"
+        const val MANIFEST_FILE_NAME = "package.manifest"
+        private const val TMP_SUFFIX = ".tmp"
+        private const val HASH_ALGORITHM = "SHA-256"
+        private const val SEPARATOR = '\t'
+        // 不超过该大小的文件先在内存中计算哈希，已存在时不落盘
+        private const val IN_MEMORY_LIMIT = 1024 * 1024
+        private const val BUFFER_SIZE = 64 * 1024
+        private val HEX_CHARS = "0123456789abcdef".toCharArray()
+    }
+
+    class Entry(val path: String, val hash: String, val size: Long, val crc: Long)
+
+    /**
+     * @param writtenBlobs 新写入的文件数
+     * @param reusedBlobs 复用已有内容的文件数
+     */
+    class InstallResult(val entries: List<Entry>, val writtenBlobs: Int, val reusedBlobs: Int, val writtenBytes: Long)
+
+    private class Stored(val hash: String, val size: Long, val written: Boolean)
+
+    /**
+     * 按清单从存储中读取一个版本的文件
+     */
+    private inner class ManifestSource(entries: List<Entry>) : MiniAppArchive.Source {
+        private val byPath = entries.associateBy { it.path }
+
+        override fun sizeOf(name: String): Long? {
+            return byPath[name]?.size
+        }
+
+        override fun openEntry(name: String): InputStream? {
+            return byPath[name]?.let { FileInputStream(blobFile(it.hash)) }
+        }
+
+        override fun close() {
+        }
+    }
+
+    private val sLogger: Logger = Logger.getLogger(TAG)
+    private val lock = Any()
+    private var refCounts: HashMap<String, Int>? = null
+    // 只在持有lock时使用
+    private val digest = MessageDigest.getInstance(HASH_ALGORITHM)
+
+    /**
+     * 导入已校验的小程序包，清单写入版本目录；同一版本重复导入时替换原清单
+     *
+     * 导入失败时删除本次新写入的文件，不留下无引用的内容
+     */
+    @Throws(IOException::class)
+    fun install(zip: File, versionDir: File): InstallResult {
+        synchronized(lock) {
+            val counts = loadRefCounts()
+            val entries = ArrayList<Entry>()
+            val writtenHashes = ArrayList<String>()
+            val known = knownEntries(versionDir.parentFile)
+            val previous = readManifest(manifestFile(versionDir))
+            var reused = 0
+            var writtenBytes = 0L
+            try {
+                ZipFile(zip).use { zipFile ->
+                    for (zipEntry in zipFile.entries()) {
+                        if (zipEntry.isDirectory) {
+                            continue
+                        }
+                        val path = zipEntry.name
+                        if (MiniAppArchive.normalizePath(path) != path || path.contains(SEPARATOR) || path.contains('\n')) {
+                            throw IOException("illegal entry $path")
+                        }
+                        val knownHash = known[entryKey(path, zipEntry.crc, zipEntry.size)]
+                        if (knownHash != null && blobFile(knownHash).exists()) {
+                            entries.add(Entry(path, knownHash, zipEntry.size, zipEntry.crc))
+                            reused++
+                            continue
+                        }
+                        val stored = zipFile.getInputStream(zipEntry).use { input ->
+                            if (zipEntry.size in 0..IN_MEMORY_LIMIT) storeBytes(input.readBytes()) else storeStream(input)
+                        }
+                        entries.add(Entry(path, stored.hash, stored.size, zipEntry.crc))
+                        if (stored.written) {
+                            writtenHashes.add(stored.hash)
+                            writtenBytes += stored.size
+                        } else {
+                            reused++
+                        }
+                    }
+                }
+                writeManifest(versionDir, entries)
+            } catch (e: IOException) {
+                writtenHashes.filter { !counts.containsKey(it) }.forEach { blobFile(it).delete() }
+                throw e
+            }
+            // 先增加新清单的计数再释放旧清单，两者共用的文件不会被误删
+            entries.mapTo(HashSet()) { it.hash }.forEach { counts[it] = (counts[it] ?: 0) + 1 }
+            releaseEntries(counts, previous)
+            sLogger.info("install ${versionDir.path} files:${entries.size} written:${writtenHashes.size} reused:$reused")
+            return InstallResult(entries, writtenHashes.size, reused, writtenBytes)
+        }
+    }
+
+    /**
+     * 删除版本目录中的清单，引用计数归零的文件随即删除，版本目录由调用方删除
+     * @return 删除的文件数
+     */
+    fun release(versionDir: File): Int {
+        synchronized(lock) {
+            val manifest = manifestFile(versionDir)
+            if (!manifest.exists()) {
+                return 0
+            }
+            val counts = loadRefCounts()
+            val entries = readManifest(manifest)
+            manifest.delete()
+            return releaseEntries(counts, entries)
+        }
+    }
+
+    fun hasVersion(versionDir: File): Boolean {
+        return manifestFile(versionDir).exists()
+    }
+
+    /**
+     * 打开已安装的版本：保留整包的版本从包中读取，按清单存放的版本从存储中读取
+     * @return 版本是解压后的目录时返回null
+     */
+    @Throws(IOException::class)
+    fun openInstalled(versionDir: File, appId: String): MiniAppArchive? {
+        val archiveFile = File(versionDir, MiniAppArchive.ARCHIVE_FILE_NAME)
+        if (archiveFile.exists()) {
+            return MiniAppArchive(archiveFile, appId)
+        }
+        val manifest = manifestFile(versionDir)
+        if (!manifest.exists()) {
+            return null
+        }
+        return MiniAppArchive(ManifestSource(readManifest(manifest)), appId)
+    }
+
+    /**
+     * 校验版本引用的每个文件都存在且内容与清单中的哈希一致
+     */
+    fun verify(versionDir: File): Boolean {
+        val entries = readManifest(manifestFile(versionDir))
+        if (entries.isEmpty()) {
+            return false
+        }
+        val digest = MessageDigest.getInstance(HASH_ALGORITHM)
+        val buffer = ByteArray(BUFFER_SIZE)
+        return entries.distinctBy { it.hash }.all { entry ->
+            val blob = blobFile(entry.hash)
+            if (!blob.isFile || blob.length() != entry.size) {
+                sLogger.warn("verify ${entry.path} missing or truncated")
+                return@all false
+            }
+            digest.reset()
+            FileInputStream(blob).use { input ->
+                while (true) {
+                    val read = input.read(buffer)
+                    if (read < 0) {
+                        break
+                    }
+                    digest.update(buffer, 0, read)
+                }
+            }
+            val matched = toHex(digest.digest()) == entry.hash
+            if (!matched) {
+                sLogger.warn("verify ${entry.path} hash mismatch")
+            }
+            matched
+        }
+    }
+
+    /**
+     * @return 存储中所有文件的字节数
+     */
+    fun footprintBytes(): Long {
+        synchronized(lock) {
+            return objectsDir.walkTopDown().filter { it.isFile }.sumOf { it.length() }
+        }
+    }
+
+    private fun knownEntries(appDir: File?): Map<String, String> {
+        val known = HashMap<String, String>()
+        appDir?.listFiles()?.forEach { versionDir ->
+            readManifest(manifestFile(versionDir)).forEach { known[entryKey(it.path, it.crc, it.size)] = it.hash }
+        }
+        return known
+    }
+
+    private fun entryKey(path: String, crc: Long, size: Long): String {
+        return "$crc:$size:$path"
+    }
+
+    private fun releaseEntries(counts: HashMap<String, Int>, entries: List<Entry>): Int {
+        var deleted = 0
+        entries.mapTo(HashSet()) { it.hash }.forEach { hash ->
+            val count = (counts[hash] ?: 0) - 1
+            if (count > 0) {
+                counts[hash] = count
+            } else {
+                counts.remove(hash)
+                if (blobFile(hash).delete()) {
+                    deleted++
+                }
+            }
+        }
+        return deleted
+    }
+
+    private fun loadRefCounts(): HashMap<String, Int> {
+        refCounts?.let { return it }
+        val counts = HashMap<String, Int>()
+        versionsRoot.listFiles()?.forEach { appDir ->
+            appDir.listFiles()?.forEach { versionDir ->
+                readManifest(manifestFile(versionDir)).mapTo(HashSet()) { it.hash }.forEach { counts[it] = (counts[it] ?: 0) + 1 }
+            }
+        }
+        // 清理异常退出时遗留的临时文件和无引用文件
+        objectsDir.walkTopDown().filter { it.isFile }.forEach { file ->
+            if (file.name.endsWith(TMP_SUFFIX) || !counts.containsKey(hashOf(file))) {
+                file.delete()
+            }
+        }
+        refCounts = counts
+        return counts
+    }
+
+    private fun storeBytes(bytes: ByteArray): Stored {
+        digest.reset()
+        val hash = toHex(digest.digest(bytes))
+        val blob = blobFile(hash)
+        if (blob.exists()) {
+            return Stored(hash, bytes.size.toLong(), false)
+        }
+        val tmp = createTmpFile()
+        tmp.writeBytes(bytes)
+        commitBlob(tmp, blob)
+        return Stored(hash, bytes.size.toLong(), true)
+    }
+
+    private fun storeStream(input: InputStream): Stored {
+        digest.reset()
+        val tmp = createTmpFile()
+        var size = 0L
+        try {
+            tmp.outputStream().use { output ->
+                val buffer = ByteArray(BUFFER_SIZE)
+                while (true) {
+                    val read = input.read(buffer)
+                    if (read < 0) {
+                        break
+                    }
+                    digest.update(buffer, 0, read)
+                    output.write(buffer, 0, read)
+                    size += read
+                }
+            }
+        } catch (e: IOException) {
+            tmp.delete()
+            throw e
+        }
+        val hash = toHex(digest.digest())
+        val blob = blobFile(hash)
+        if (blob.exists()) {
+            tmp.delete()
+            return Stored(hash, size, false)
+        }
+        commitBlob(tmp, blob)
+        return Stored(hash, size, true)
+    }
+
+    private fun createTmpFile(): File {
+        if (!objectsDir.isDirectory && !objectsDir.mkdirs()) {
+            throw IOException("create ${objectsDir.path} failed")
+        }
+        return File.createTempFile("blob", TMP_SUFFIX, objectsDir)
+    }
+
+    private fun commitBlob(tmp: File, blob: File) {
+        blob.parentFile?.mkdirs()
+        if (!tmp.renameTo(blob)) {
+            tmp.delete()
+            throw IOException("commit ${blob.name} failed")
+        }
+        // 多个版本共用同一份内容，禁止原地修改
+        blob.setReadOnly()
+    }
+
+    private fun blobFile(hash: String): File {
+        return File(File(objectsDir, hash.substring(0, 2)), hash.substring(2))
+    }
+
+    private fun hashOf(blob: File): String {
+        return blob.parentFile!!.name + blob.name
+    }
+
+    private fun manifestFile(versionDir: File): File {
+        return File(versionDir, MANIFEST_FILE_NAME)
+    }
+
+    private fun readManifest(manifest: File): List<Entry> {
+        if (!manifest.isFile) {
+            return emptyList()
+        }
+        return manifest.readLines().mapNotNull { line ->
+            val parts = line.split(SEPARATOR, limit = 4)
+            if (parts.size == 4) Entry(parts[3], parts[0], parts[1].toLong(), parts[2].toLong()) else null
+        }
+    }
+
+    private fun writeManifest(versionDir: File, entries: List<Entry>) {
+        if (!versionDir.isDirectory && !versionDir.mkdirs()) {
+            throw IOException("create ${versionDir.path} failed")
+        }
+        val manifest = manifestFile(versionDir)
+        val tmp = File(manifest.path + TMP_SUFFIX)
+        tmp.bufferedWriter().use { writer ->
+            entries.forEach {
+                writer.append(it.hash).append(SEPARATOR).append(it.size.toString()).append(SEPARATOR)
+                    .append(it.crc.toString()).append(SEPARATOR).append(it.path).append('\n')
+            }
+        }
+        if (!tmp.renameTo(manifest)) {
+            tmp.delete()
+            throw IOException("write ${manifest.path} failed")
+        }
+    }
+
+    private fun toHex(bytes: ByteArray): String {
+        val chars = CharArray(bytes.size * 2)
+        bytes.forEachIndexed { i, b ->
+            chars[i * 2] = HEX_CHARS[(b.toInt() shr 4) and 0xF]
+            chars[i * 2 + 1] = HEX_CHARS[b.toInt() and 0xF]
+        }
+        return String(chars)
+    }
+}
@@ -49,6 +49,8 @@ import com.blankj.utilcode.util.SizeUtils
 import com.ct.ertclib.dc.core.R
 import com.ct.ertclib.dc.core.common.NewCallAppSdkInterface
 import com.ct.ertclib.dc.core.constants.CommonConstants
+import com.ct.ertclib.dc.core.miniapp.archive.MiniAppArchive
+import com.ct.ertclib.dc.core.miniapp.store.MiniAppBlobStore
 import com.ct.ertclib.dc.core.miniapp.bridge.CTWebChromeClient
 import com.ct.ertclib.dc.core.miniapp.bridge.CTWebViewClient
 import com.ct.ertclib.dc.core.miniapp.bridge.JSApi
@@ -70,7 +72,12 @@ import com.ct.ertclib.dc.core.data.miniapp.PermissionData
 import com.ct.ertclib.dc.core.miniapp.ui.viewmodel.MiniAppViewModel
 import com.ct.ertclib.dc.core.port.common.IActivityManager
 import com.ct.ertclib.dc.core.port.common.OnPickMediaCallbackListener
+import com.ct.ertclib.dc.core.port.manager.IMiniAppIconStore
+import com.ct.ertclib.dc.core.port.manager.IFileDownloadManager
+import com.ct.ertclib.dc.core.port.manager.IMiniAppHttpManager
+import com.ct.ertclib.dc.core.port.manager.IMiniAppKvStore
 import com.ct.ertclib.dc.core.port.manager.IMiniToParentManager
+import com.ct.ertclib.dc.core.port.manager.IPermissionUsageRecorder
 import com.ct.ertclib.dc.core.port.miniapp.IMiniApp
 import com.ct.ertclib.dc.core.ui.activity.MiniAppSettingActivity
 import com.ct.ertclib.dc.core.utils.common.PermissionUtils
@@ -90,6 +97,11 @@ import androidx.core.graphics.toColorInt
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_AUDIO_DEVICE_NOTIFY
 import com.ct.ertclib.dc.core.data.miniapp.MiniAppList
 import com.ct.ertclib.dc.core.utils.common.PkgUtils
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import java.io.File
+import java.io.FileDescriptor
+import java.io.IOException
+import java.io.PrintWriter
 import androidx.core.view.ViewCompat
 import androidx.core.view.WindowInsetsCompat
 import androidx.core.view.isVisible
@@ -118,6 +130,16 @@ open class MiniAppActivity : AppCompatActivity(), IMiniApp, KoinComponent {
     private lateinit var viewModel: MiniAppViewModel
     private var permissionDialog: PermissionBottomSheetDialog? = null
     private val activityManager: IActivityManager by inject()//本进程中的Activity，如小程序设置页面，小程序的Activity除外
+    private val permissionUsageRecorder: IPermissionUsageRecorder by inject()
+    private val iconStore: IMiniAppIconStore<Bitmap> by inject()
+    private val kvStore: IMiniAppKvStore by inject()
+    private val fileDownloadManager: IFileDownloadManager by inject()
+    private val miniAppHttpManager: IMiniAppHttpManager by inject()
+    private val blobStore: MiniAppBlobStore by inject()
+    // 以包方式安装的小程序，资源由CTWebViewClient从包中读取
+    @Volatile
+    var miniAppArchive: MiniAppArchive? = null
+        private set
 
     @RequiresApi(Build.VERSION_CODES.P)
     override fun onCreate(savedInstanceState: Bundle?) {
@@ -151,27 +173,12 @@ open class MiniAppActivity : AppCompatActivity(), IMiniApp, KoinComponent {
 
         miniApp?.let {
             val appName = it.appName
-            val appIcon = it.appIcon
-            val icon = if (appIcon?.isEmpty() != false) {
-                BitmapUtils.getBitmap(
-                    AppCompatResources.getDrawable(
-                        this,
-                        R.drawable.icon_ct_dc_shortcut
-                    )!!, 192, 192, Bitmap.Config.ARGB_8888
-                )
-            } else {
-                try {
-                    BitmapUtils.getBitmapFromBase64(appIcon)
-                } catch (e: Exception) {
-                    sLogger.error(e.message, e)
-                    BitmapUtils.getBitmap(
-                        AppCompatResources.getDrawable(
-                            this,
-                            R.drawable.icon_ct_dc_shortcut
-                        )!!, 192, 192, Bitmap.Config.ARGB_8888
-                    )
-                }
-            }
+            val icon = iconStore.getIcon(it.appId, it.appIcon) ?: BitmapUtils.getBitmap(
+                AppCompatResources.getDrawable(
+                    this,
+                    R.drawable.icon_ct_dc_shortcut
+                )!!, 192, 192, Bitmap.Config.ARGB_8888
+            )
             sLogger.info("onCreate appName:$appName, icon:$icon")
             setTaskDescription(ActivityManager.TaskDescription(appName, icon))
         }
@@ -195,6 +202,7 @@ open class MiniAppActivity : AppCompatActivity(), IMiniApp, KoinComponent {
 
         if (parcelableExtra != null) {
             miniApp = parcelableExtra as MiniAppInfo
+            viewModel.preloadPermission(parcelableExtra.appId)
         }
 
         val callInfoParcelable: Parcelable? = intent.getParcelableExtra("callInfo")
@@ -352,6 +360,8 @@ open class MiniAppActivity : AppCompatActivity(), IMiniApp, KoinComponent {
                 withContext(Dispatchers.IO) {
                     miniApp?.lastUseTime = System.currentTimeMillis()
                     miniAppDbRepo?.upsert(miniApp!!)
+                    // 提前加载本小程序的kv，清理过期key；kv只由小程序进程写入，不在主进程清理
+                    kvStore.purgeExpired(miniApp!!.appId)
                 }
             }
             miniToParentManager.bindService(this)
@@ -503,9 +513,26 @@ open class MiniAppActivity : AppCompatActivity(), IMiniApp, KoinComponent {
             NewCallAppSdkInterface.saveShareType("")
         }
         stopPlayVoice()
+        miniAppArchive?.close()
+        miniAppArchive = null
+        //小程序进程即将退出，将缓冲的权限使用记录写入数据库
+        permissionUsageRecorder.flush()
+        if (isFinishing) {
+            // 停止本小程序发起的下载并保存进度，下次可以续传；关闭HTTP缓存，写完journal
+            fileDownloadManager.release()
+            miniAppHttpManager.release()
+        }
         super.onDestroy()
     }
 
+    /**
+     * 小程序进程内的指标（JS桥、AIDL调用），adb shell dumpsys activity <MiniAppActivityN>
+     */
+    override fun dump(prefix: String, fd: FileDescriptor?, writer: PrintWriter, args: Array<out String>?) {
+        super.dump(prefix, fd, writer, args)
+        MetricsRegistry.instance.dump(writer, prefix)
+    }
+
     override fun onPause() {
         super.onPause()
         notifyMiniAppState("onBackground")
@@ -648,6 +675,13 @@ open class MiniAppActivity : AppCompatActivity(), IMiniApp, KoinComponent {
             delay(500)
             miniToParentManager.unBindService(this@MiniAppActivity)
             finishAndRemoveTask()
+            // 延迟写入的kv、权限使用记录和下载进度在杀进程前落盘，killProcess不会执行shutdown hook
+            withContext(Dispatchers.IO) {
+                kvStore.flush()
+                permissionUsageRecorder.flushBlocking()
+                fileDownloadManager.release()
+                miniAppHttpManager.release()
+            }
             android.os.Process.killProcess(android.os.Process.myPid())
         }
     }
@@ -667,7 +701,23 @@ open class MiniAppActivity : AppCompatActivity(), IMiniApp, KoinComponent {
         val path = miniApp?.path
         sLogger.debug("loadUrl path:$path, param:${miniApp?.startByOthersParams}")
         val params = if (!miniApp?.startByOthersParams.isNullOrEmpty()){"?${miniApp?.startByOthersParams}"}else{""}
-        binding.webView.loadUrl("file://$path/index.html${params}")
+        val archive = path?.let { openArchive(File(it)) }
+        if (archive != null) {
+            binding.webView.loadUrl("${archive.origin}index.html${params}")
+        } else {
+            binding.webView.loadUrl("file://$path/index.html${params}")
+        }
+    }
+
+    private fun openArchive(versionDir: File): MiniAppArchive? {
+        miniAppArchive?.let { return it }
+        val appId = miniApp?.appId ?: return null
+        return try {
+            blobStore.openInstalled(versionDir, appId)?.also { miniAppArchive = it }
+        } catch (e: IOException) {
+            sLogger.error("openArchive failed", e)
+            null
+        }
     }
 
     override fun invokeOnCallStateChange(params: Map<String, Any?>) {
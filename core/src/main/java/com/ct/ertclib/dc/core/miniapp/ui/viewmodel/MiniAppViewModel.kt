@@ -142,6 +142,10 @@ class MiniAppViewModel : ViewModel(), KoinComponent {
         }
     }
 
+    fun preloadPermission(appId: String) {
+        permissionUseCase.preloadPermission(appId)
+    }
+
     fun refreshPermission(appId: String) {
         viewModelScope.launch(Dispatchers.IO) {
             permissionUseCase.refreshPermissionMapFromRepo(appId)
@@ -207,7 +211,7 @@ class MiniAppViewModel : ViewModel(), KoinComponent {
             mapOf("telecomCallId" to miniToParentManager.getCallInfo()?.telecomCallId)
         )
         viewModelScope.launch(Dispatchers.Default) {
-            miniToParentManager.sendMessageToParent(request.toJson(), null)
+            miniToParentManager.sendRequestToParent(request, null)
         }
     }
 
@@ -218,7 +222,7 @@ class MiniAppViewModel : ViewModel(), KoinComponent {
             mapOf(MUTED to mute)
         )
         viewModelScope.launch(Dispatchers.Default) {
-            miniToParentManager.sendMessageToParent(request.toJson(), null)
+            miniToParentManager.sendRequestToParent(request, null)
         }
     }
 
@@ -229,7 +233,7 @@ class MiniAppViewModel : ViewModel(), KoinComponent {
             mapOf(SPEAKERPHONE_ON to open)
         )
         viewModelScope.launch(Dispatchers.Default) {
-            miniToParentManager.sendMessageToParent(request.toJson(), null)
+            miniToParentManager.sendRequestToParent(request, null)
         }
     }
 }
\ No newline at end of file
@@ -17,11 +17,10 @@
 package com.ct.ertclib.dc.core.port.dao
 
 import androidx.room.Dao
-import androidx.room.Delete
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
 import androidx.room.Query
-import com.ct.ertclib.dc.core.data.model.PermissionModel
+import com.ct.ertclib.dc.core.data.model.PermissionGrantEntity
 import com.ct.ertclib.dc.core.data.model.PermissionUsageEntity
 import kotlinx.coroutines.flow.Flow
 
@@ -29,19 +28,28 @@ import kotlinx.coroutines.flow.Flow
 interface PermissionDao {
 
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    fun insertOrUpdate(vararg permissionModel: PermissionModel)
+    fun insertOrUpdateGrants(vararg permissionGrantEntity: PermissionGrantEntity)
 
-    @Delete
-    fun delete(permissionDao: PermissionModel)
+    @Query("SELECT * FROM permission_grant_table WHERE appId = :appId")
+    fun getGrants(appId: String): List<PermissionGrantEntity>
 
-    @Query("SELECT * FROM permission_table WHERE appId = :appId")
-    fun getOne(appId: String): PermissionModel?
+    /**
+     * 权限表的变化流，表内容每次变化都会重新发射全部授权结果
+     */
+    @Query("SELECT * FROM permission_grant_table")
+    fun getAllGrants(): Flow<List<PermissionGrantEntity>>
 
-    @Query("SELECT * FROM permission_table")
-    fun getAll(): Flow<List<PermissionModel>>
+    /**
+     * 插入聚合后的使用记录，主键已存在时返回-1，由调用方累加次数
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    fun insertPermissionUsageIfAbsent(permissionUsageEntity: PermissionUsageEntity): Long
 
-    @Insert
-    fun insertPermissionUsage(vararg permissionUsageEntity: PermissionUsageEntity)
+    @Query("UPDATE permission_usage_table SET usageCount = usageCount + :count WHERE appId = :appId AND permissionName = :permissionName AND permissionUsageTimeStamp = :timeStamp")
+    fun increasePermissionUsageCount(appId: String, permissionName: String, timeStamp: Long, count: Int): Int
+
+    @Query("SELECT IFNULL(SUM(usageCount), 0) FROM permission_usage_table WHERE appId = :appId AND permissionName = :permissionName AND permissionUsageTimeStamp > :timeStamp")
+    fun getPermissionUsageCount(appId: String, permissionName: String, timeStamp: Long): Long
 
     @Query("SELECT * FROM permission_usage_table WHERE appId = :appId ORDER BY permissionUsageTimeStamp DESC")
     fun getPermissionUsageByAppId(appId: String): MutableList<PermissionUsageEntity>
@@ -16,24 +16,13 @@
 
 package com.ct.ertclib.dc.core.port.dispatcher
 
-import android.content.Context
-import com.ct.ertclib.dc.core.data.bridge.JSRequest
-import wendu.dsbridge.CompletionHandler
+import com.ct.ertclib.dc.core.data.bridge.JsRoute
 
 interface IJsEventDispatcher {
 
-
-    /**
-     * 分发异步消息
-     * @param request: 小程序传递的详细请求信息
-     * @param handler： 用于传递异步的返回结果
-     */
-    fun dispatchAsyncMessage(context: Context, request: JSRequest, handler: CompletionHandler<String?>)
-
     /**
-     * 分发同步消息
-     * @param request: 小程序传递的详细请求信息
-     * @return 同步消息的返回结果
+     * 该分发器处理的全部function，启动时由JsBridgeRouter收集一次
+     * 处理器通过by inject()按需获取用例，登记路由不会提前创建用例
      */
-    fun dispatchSyncMessage(context: Context, request: JSRequest): String?
-}
\ No newline at end of file
+    fun routes(): List<JsRoute>
+}
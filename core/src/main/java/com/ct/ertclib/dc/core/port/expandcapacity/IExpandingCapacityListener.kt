@@ -16,6 +16,19 @@
 
 package com.ct.ertclib.dc.core.port.expandcapacity
 
+import java.nio.ByteBuffer
+import java.util.Base64
+
 interface IExpandingCapacityListener {
     fun onCallback(content: String?)
-}
\ No newline at end of file
+
+    /**
+     * [com.ct.ertclib.dc.base.port.ec.IECV2]能力提供者的二进制回调，payload只读。
+     * 默认转成JSON字符串走[onCallback]，data为base64编码的负载
+     */
+    fun onData(provider: String, module: String, payload: ByteBuffer) {
+        val bytes = ByteArray(payload.remaining())
+        payload.duplicate().get(bytes)
+        onCallback("{\"provider\":\"$provider\",\"module\":\"$module\",\"func\":\"data\",\"data\":\"${Base64.getEncoder().encodeToString(bytes)}\"}")
+    }
+}
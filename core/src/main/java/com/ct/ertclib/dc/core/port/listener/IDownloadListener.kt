@@ -2,9 +2,12 @@ package com.ct.ertclib.dc.core.port.listener
 
 interface IDownloadListener {
 
-    fun onDownloadProgress(progress: Int)
+    /**
+     * @param totalBytes 服务器未返回长度时为-1
+     */
+    fun onDownloadProgress(downloadedBytes: Long, totalBytes: Long)
 
     fun onDownloadSuccess()
 
-    fun onDownloadFailed()
-}
\ No newline at end of file
+    fun onDownloadFailed(reason: String)
+}
@@ -0,0 +1,32 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.port.listener
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppHttpResponse
+import java.io.IOException
+
+interface IHttpResultListener {
+
+    fun onResponse(response: MiniAppHttpResponse)
+
+    fun onFailure(e: IOException)
+
+    /**
+     * 响应体超过缓冲上限时分块回调，data只在本次回调内有效
+     */
+    fun onChunk(data: ByteArray, length: Int, offset: Long) {}
+}
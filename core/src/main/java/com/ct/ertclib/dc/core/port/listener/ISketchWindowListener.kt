@@ -17,6 +17,7 @@
 package com.ct.ertclib.dc.core.port.listener
 
 import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
+import com.ct.ertclib.dc.core.data.screenshare.PointBean
 
 interface ISketchWindowListener {
 
@@ -28,5 +29,11 @@ interface ISketchWindowListener {
         drawingInfo: DrawingInfo
     )
 
+    // 笔画开始，drawingInfo只有起点，用于实时传输
+    fun onSketchStart(drawingInfo: DrawingInfo) {}
+
+    // 笔画进行中新采集的点
+    fun onSketchMove(point: PointBean) {}
+
     fun onLocalWindowNotified(width: Float, height: Float)
 }
\ No newline at end of file
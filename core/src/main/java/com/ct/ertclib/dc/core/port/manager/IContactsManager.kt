@@ -0,0 +1,39 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.port.manager
+
+import com.ct.ertclib.dc.core.data.call.ContactPage
+
+interface IContactsManager {
+
+    /**
+     * 按偏移分页，兼容旧接口
+     */
+    fun getContacts(offset: Int, limit: Int): ContactPage
+
+    /**
+     * 按游标分页，翻页期间通讯录变化不会导致重复或遗漏
+     *
+     * @param cursor 上一页返回的nextCursor，为空时从第一条开始
+     */
+    fun getContactsAfter(cursor: String?, limit: Int): ContactPage
+
+    /**
+     * 丢弃快照，下次查询时重新加载
+     */
+    fun invalidate()
+}
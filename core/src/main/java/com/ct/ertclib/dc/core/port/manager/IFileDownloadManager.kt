@@ -5,9 +5,30 @@ import com.ct.ertclib.dc.core.port.listener.IDownloadListener
 
 interface IFileDownloadManager {
 
-    var isDownloading: Boolean
+    /**
+     * 下载到同一文件的任务正在进行时合并为一个任务；之前未完成的任务从已下载的位置继续
+     *
+     * @return 任务id
+     */
+    fun startDownload(downloadData: DownloadData, downloadListener: IDownloadListener): String
 
-    fun startDownload(downloadData: DownloadData, downloadListener: IDownloadListener)
+    /**
+     * 任务id由URL和目标文件决定，开始下载前即可得到
+     */
+    fun taskIdOf(downloadData: DownloadData): String
 
-    fun removeDownload(downloadId: Long)
-}
\ No newline at end of file
+    /**
+     * 取消任务并删除已下载的数据
+     */
+    fun cancelDownload(taskId: String)
+
+    /**
+     * 所有任务共用的带宽上限，0表示不限速
+     */
+    fun setBandwidthLimit(bytesPerSecond: Long)
+
+    /**
+     * 停止所有任务，返回前保存下载进度
+     */
+    fun release()
+}
@@ -0,0 +1,45 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.port.manager
+
+/**
+ * 小程序图标存储
+ *
+ * 列表里的base64图标在收到时解码一次写成文件，MiniAppInfo.appIcon只保存文件路径。
+ */
+interface IMiniAppIconStore<T : Any> {
+
+    /**
+     * 把内嵌的base64图标写成文件
+     *
+     * @return 图标文件路径；已经是路径、为空或无法解码时原样返回
+     */
+    fun intern(appId: String, icon: String?): String?
+
+    /**
+     * 读取图标，兼容仍是base64的旧数据
+     *
+     * @return null 没有图标或解码失败
+     */
+    fun getIcon(appId: String, icon: String?): T?
+
+    /**
+     * 还原为base64形式，用于发给对端或小程序等需要原始内容的地方
+     */
+    fun toInlineIcon(icon: String?): String?
+}
@@ -0,0 +1,50 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.port.manager
+
+interface IMiniAppKvStore {
+
+    companion object {
+        const val NO_EXPIRY = 0L
+    }
+
+    /**
+     * @param ttlMillis 有效期，[NO_EXPIRY]表示不过期
+     * @return false 超出小程序的存储配额
+     */
+    fun put(appId: String, key: String, value: String, ttlMillis: Long = NO_EXPIRY): Boolean
+
+    /**
+     * @return null 不存在或已过期
+     */
+    fun get(appId: String, key: String): String?
+
+    fun remove(appId: String, key: String)
+
+    /**
+     * 清除已过期的key，磁盘上的过期记录在下次落盘时删除
+     *
+     * @return 清除的个数
+     */
+    fun purgeExpired(appId: String): Int
+
+    /**
+     * 把缓冲的写入落盘
+     */
+    fun flush()
+}
@@ -18,6 +18,7 @@ package com.ct.ertclib.dc.core.port.manager
 
 import android.content.Context
 import com.ct.ertclib.dc.core.data.call.CallInfo
+import com.ct.ertclib.dc.core.data.miniapp.AppRequest
 import com.ct.ertclib.dc.core.data.miniapp.MiniAppList
 import com.ct.ertclib.dc.core.data.model.MiniAppInfo
 import com.ct.ertclib.dc.core.miniapp.aidl.IMessageCallback
@@ -46,6 +47,8 @@ interface IMiniToParentManager {
 
     fun sendMessageToParent(message: String,callback: IMessageCallback.Stub?)
 
+    fun sendRequestToParent(request: AppRequest, callback: IMessageCallback.Stub?)
+
     fun getCallInfo(): CallInfo?
 
     fun getMiniAppInfo(): MiniAppInfo?
@@ -0,0 +1,42 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.port.manager
+
+import com.ct.ertclib.dc.core.data.model.PermissionUsageEntity
+
+interface IPermissionUsageRecorder {
+
+    /**
+     * 记录一次权限使用，只写入内存缓冲区，不阻塞调用线程
+     */
+    fun record(appId: String, permissionName: String)
+
+    /**
+     * 获取尚未落库的使用记录，供查询时与数据库结果合并
+     */
+    fun getPendingUsages(appId: String): List<PermissionUsageEntity>
+
+    /**
+     * 异步将缓冲区内的记录在一个事务中写入数据库
+     */
+    fun flush()
+
+    /**
+     * 同步写入缓冲区内的记录，不可在主线程调用
+     */
+    fun flushBlocking()
+}
@@ -58,6 +58,20 @@ interface ISketchManager {
      */
     fun addSketchInfo(sketchInfo: DrawingInfo)
 
+    /**
+     *增量绘制对端进行中的笔画
+     * @param strokeId: 笔画id
+     * @param sketchInfo: 到目前为止的完整笔画
+     */
+    fun updateLiveSketchInfo(strokeId: Int, sketchInfo: DrawingInfo)
+
+    /**
+     *对端笔画结束，替换增量绘制的部分
+     * @param strokeId: 笔画id
+     * @param sketchInfo: 完整笔画
+     */
+    fun finishLiveSketchInfo(strokeId: Int, sketchInfo: DrawingInfo)
+
     /**
      * 初始化
      */
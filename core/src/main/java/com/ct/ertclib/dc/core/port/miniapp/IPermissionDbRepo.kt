@@ -16,19 +16,24 @@
 
 package com.ct.ertclib.dc.core.port.miniapp
 
-import com.ct.ertclib.dc.core.data.model.PermissionModel
+import com.ct.ertclib.dc.core.data.model.PermissionGrantEntity
 import com.ct.ertclib.dc.core.data.model.PermissionUsageEntity
 import kotlinx.coroutines.flow.Flow
 
 interface IPermissionDbRepo {
 
-    fun insertOrUpdate(permissionModel: PermissionModel)
+    fun savePermissions(appId: String, permissionMap: Map<String, Boolean>)
 
-    fun getAll(): Flow<List<PermissionModel>>
+    fun getAll(): Flow<List<PermissionGrantEntity>>
 
-    fun getPermissionModelById(appId: String): PermissionModel?
+    fun getPermissionsById(appId: String): Map<String, Boolean>
 
-    fun insertPermissionUsage(permissionUsage: PermissionUsageEntity)
+    /**
+     * 在单个事务中写入一批聚合后的使用记录，已存在的(appId, permissionName, 分钟)累加usageCount
+     */
+    fun insertPermissionUsages(permissionUsages: List<PermissionUsageEntity>)
+
+    fun getPermissionUsageCount(appId: String, permissionName: String, timeStamp: Long): Long
 
     fun getPermissionUsageById(appId: String): MutableList<PermissionUsageEntity>
 
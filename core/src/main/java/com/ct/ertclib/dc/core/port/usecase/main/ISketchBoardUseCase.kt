@@ -18,12 +18,20 @@ package com.ct.ertclib.dc.core.port.usecase.main
 
 interface ISketchBoardUseCase {
 
-    fun openSketchBoard(telecomCallId: String, appId: String, paintColor: String, paintWidth: Float)
+    /**
+     * @param strokeFormats 小程序支持的笔画格式，见StrokeFormat，为空时使用JSON
+     */
+    fun openSketchBoard(telecomCallId: String, appId: String, paintColor: String, paintWidth: Float, strokeFormats: List<String>? = null)
 
     fun closeSketchBoard(needNotifyToMini: Boolean = true)
 
     fun addDrawingInfo(drawingInfo: String)
 
+    /**
+     * 对端笔画，base64编码的stroke-v1数据
+     */
+    fun addStrokeData(strokeData: String)
+
     fun addRemoteSizeInfo(width: Int, height: Int)
 
     fun addRemoteWindowSizeInfo(width: Int, height: Int)
@@ -21,7 +21,7 @@ import wendu.dsbridge.CompletionHandler
 
 interface IFileMiniEventUseCase {
 
-    fun getLocation(context: Context, handler: CompletionHandler<String?>)
+    fun getLocation(context: Context, params: Map<String, Any>, handler: CompletionHandler<String?>)
 
     fun selectFile(context: Context, handler: CompletionHandler<String?>)
 
@@ -69,6 +69,10 @@ interface IFileMiniEventUseCase {
 
     fun fileDownload(context: Context, params: Map<String, Any>, handler: CompletionHandler<String?>)
 
+    fun cancelFileDownload(context: Context, params: Map<String, Any>): String?
+
+    fun cancelFileDownloadAsync(context: Context, params: Map<String, Any>, handler: CompletionHandler<String?>)
+
     fun getFileListAsync(context: Context, params: Map<String, Any>, handler: CompletionHandler<String?>)
 
     fun getPrivateFolderAsync(context: Context, params: Map<String, Any>, handler: CompletionHandler<String?>)
@@ -24,6 +24,11 @@ interface IPermissionUseCase {
 
     suspend fun savePermission(appId: String,  map: MutableMap<String, Boolean>, isMainProcess: Boolean, callId: String = "")
 
+    /**
+     * 异步加载小程序权限到内存，小程序启动时调用，使后续校验不需要访问数据库
+     */
+    fun preloadPermission(appId: String)
+
     fun checkPermissionAndRecord(appId: String, permissions: List<String>, needRecord: Boolean = true): Boolean
 
     fun isSystemPermissionGranted(permission: String): Boolean
@@ -32,5 +37,10 @@ interface IPermissionUseCase {
 
     fun getPermissionUsage(appId: String, timeStamp: Long): MutableList<PermissionUsageData>
 
+    /**
+     * 获取timeStamp之后某权限的使用总次数，包含尚未落库的记录
+     */
+    fun getPermissionUsageCount(appId: String, permissionName: String, timeStamp: Long): Long
+
     fun insertPermissionUsages(appId: String, miniPermissionNames: List<String>)
 }
\ No newline at end of file
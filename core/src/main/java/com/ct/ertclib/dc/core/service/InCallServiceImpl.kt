@@ -27,10 +27,13 @@ import com.ct.ertclib.dc.core.common.NewCallAppSdkInterface
 import com.ct.ertclib.dc.core.common.sdkpermission.IPermissionCallback
 import com.ct.ertclib.dc.core.common.sdkpermission.SDKPermissionHelper
 import com.ct.ertclib.dc.core.utils.logger.Logger
+import com.ct.ertclib.dc.core.manager.call.CallForegroundTracker
 import com.ct.ertclib.dc.core.manager.common.InCallServiceManager
 import com.ct.ertclib.dc.core.utils.common.CallUtils
+import org.koin.core.component.KoinComponent
+import org.koin.core.component.inject
 
-class InCallServiceImpl : InCallService() {
+class InCallServiceImpl : InCallService(), KoinComponent {
 
     companion object {
         private const val TAG = "InCallServiceImpl"
@@ -38,6 +41,7 @@ class InCallServiceImpl : InCallService() {
 
     private val sLogger: Logger = Logger.getLogger(TAG)
     private var checkPermissionAfterCall = false
+    private val foregroundTracker: CallForegroundTracker by inject()
 
 
 
@@ -51,6 +55,7 @@ class InCallServiceImpl : InCallService() {
     @RequiresApi(Build.VERSION_CODES.Q)
     override fun onCallAdded(call: Call?) {
         sLogger.info("onCallAdded call:${call}")
+        foregroundTracker.poke()
         val permissionHelper = SDKPermissionHelper(Utils.getApp(),object : IPermissionCallback {
             @RequiresApi(Build.VERSION_CODES.Q)
             override fun onAgree() {
@@ -77,10 +82,16 @@ class InCallServiceImpl : InCallService() {
 
     override fun onCallRemoved(call: Call?) {
         sLogger.info("onCallRemoved")
+        foregroundTracker.poke()
         val callId = CallUtils.getTelecomCallId(call)
         InCallServiceManager.instance.onCallRemoved(callId)
     }
 
+    override fun onBringToForeground(showDialpad: Boolean) {
+        sLogger.debug("onBringToForeground showDialpad:$showDialpad")
+        foregroundTracker.poke()
+    }
+
     override fun onUnbind(intent: Intent?): Boolean {
         sLogger.debug("onUnbind intent:$intent")
         InCallServiceManager.instance.onUnbind()
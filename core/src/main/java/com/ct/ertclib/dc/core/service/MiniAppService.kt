@@ -21,6 +21,7 @@ import android.app.Service
 import android.content.Context
 import android.content.Intent
 import android.os.Build
+import android.os.DeadObjectException
 import android.os.IBinder
 import android.os.RemoteException
 import android.text.TextUtils
@@ -34,11 +35,19 @@ import com.ct.ertclib.dc.core.port.dc.IDcCreateListener
 import com.ct.ertclib.dc.core.data.event.CloseAdcEvent
 import com.ct.ertclib.dc.core.constants.CommonConstants.ACTION_CALL_STATUS_CHANGE
 import com.ct.ertclib.dc.core.constants.CommonConstants.ACTION_CHECK_ALIVE
+import com.ct.ertclib.dc.core.constants.CommonConstants.APP_RESPONSE_CODE_FAILED
+import com.ct.ertclib.dc.core.constants.CommonConstants.APP_RESPONSE_MESSAGE_DISCONNECTED
 import com.ct.ertclib.dc.core.data.event.NotifyEvent
 import com.ct.ertclib.dc.core.data.miniapp.AppRequest
+import com.ct.ertclib.dc.core.data.miniapp.AppResponse
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppBulkHandle
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppEnvelope
 import com.ct.ertclib.dc.core.factory.AppServiceEventDispatcherFactory
 import com.ct.ertclib.dc.core.manager.common.ExpandingCapacityManager
 import com.ct.ertclib.dc.core.manager.common.StateFlowManager
+import com.ct.ertclib.dc.core.manager.context.MiniAppBulkTransfer
+import com.ct.ertclib.dc.core.manager.context.MiniAppEnvelopeOutbox
+import com.ct.ertclib.dc.core.manager.context.MiniAppPendingReplies
 import com.ct.ertclib.dc.core.miniapp.MiniAppStartManager
 import com.ct.ertclib.dc.core.miniapp.MiniAppManager
 import com.ct.ertclib.dc.core.miniapp.aidl.IDCCallback
@@ -46,6 +55,8 @@ import com.ct.ertclib.dc.core.miniapp.aidl.IMessageCallback
 import com.ct.ertclib.dc.core.miniapp.aidl.IMiniToParent
 import com.ct.ertclib.dc.core.miniapp.aidl.IParentToMini
 import com.ct.ertclib.dc.core.port.manager.IAppServiceManager
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
 import com.newcalllib.datachannel.V1_0.IImsDataChannel
 import com.newcalllib.datachannel.V1_0.ImsDCStatus
 import kotlinx.coroutines.CoroutineScope
@@ -56,13 +67,17 @@ import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import org.koin.core.component.KoinComponent
 import org.koin.core.component.inject
+import java.io.FileDescriptor
+import java.io.PrintWriter
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
 import kotlin.coroutines.EmptyCoroutineContext
 
 class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent  {
 
     companion object {
         private const val TAG = "MiniAppService"
+        private val DISCONNECTED_REPLY = AppResponse(APP_RESPONSE_CODE_FAILED, APP_RESPONSE_MESSAGE_DISCONNECTED, null).toJson()
     }
 
     private val sLogger: Logger = Logger.getLogger(TAG)
@@ -73,6 +88,13 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
 
     private val mCallStatusListenerMap = ConcurrentHashMap<String, ICallStateListener>()
     private val appServiceManager: IAppServiceManager by inject()
+    private val sendMessageLatency = MetricsRegistry.instance.histogram(MetricNames.AIDL_SEND_MESSAGE_TO_PARENT)
+
+    // 协商了信封协议的小程序，key同mParentToMiniCallbackMap
+    private val mEnvelopeOutboxMap = ConcurrentHashMap<String, MiniAppEnvelopeOutbox>()
+    private val mPendingReplies = MiniAppPendingReplies()
+    private val mBulkTransfer = MiniAppBulkTransfer()
+    private val mEnvelopeExecutor = Executors.newSingleThreadExecutor { Thread(it, "MiniAppEnvelope") }
 
     inner class CallStatusListener(private val appService: MiniAppService, val telecomCallId: String,val appId: String) :
         ICallStateListener {
@@ -103,15 +125,7 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
                 mutableMapOf()
             )
             sLogger.debug("CallStatusListener onAudioDeviceChange appId:$appId, request:$event")
-            val iParentToMini = appService.mParentToMiniCallbackMap[getKey(telecomCallId,appId)]
-            try {
-                iParentToMini?.sendMessageToMini(appId, JsonUtil.toJson(event), null)
-            } catch (e: RemoteException) {
-                if (sLogger.isDebugActivated) {
-                    sLogger.error("CallStatusListener onAudioDeviceChange ", e)
-                }
-            }
-
+            appService.notifyMini(telecomCallId, appId, event, null)
         }
 
         private fun notifyCallStateToMini(appId: String, tag: String, callInfo: CallInfo) {
@@ -120,14 +134,7 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
                 mutableMapOf("callState" to callInfo.state)
             )
             sLogger.debug("CallStatusListener $tag appId:$appId, request:$event")
-            val iParentToMini = appService.mParentToMiniCallbackMap[getKey(callInfo.telecomCallId,appId)]
-            try {
-                iParentToMini?.sendMessageToMini(appId, JsonUtil.toJson(event), null)
-            } catch (e: RemoteException) {
-                if (sLogger.isDebugActivated) {
-                    sLogger.error("CallStatusListener $tag sendMessageToMini", e)
-                }
-            }
+            appService.notifyMini(callInfo.telecomCallId, appId, event, null)
         }
     }
 
@@ -182,6 +189,88 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
     fun onRemoteError(telecomCallId: String,appId: String) {
         mParentToMiniCallbackMap.remove(getKey(telecomCallId,appId))
         mDcCallBackMap.remove(appId)
+        closeEnvelopeChannel(getKey(telecomCallId,appId))
+    }
+
+    /**
+     * 通知小程序，协商过信封协议的走批量oneway通道，否则走旧的字符串接口
+     */
+    fun notifyMini(telecomCallId: String, appId: String, event: NotifyEvent, callback: IMessageCallback?) {
+        val key = getKey(telecomCallId, appId)
+        val outbox = mEnvelopeOutboxMap[key]
+        if (outbox != null && !outbox.isClosed) {
+            val requestId = callback?.let { registerReply(key, it) } ?: MiniAppEnvelope.NO_REPLY
+            if (outbox.post(wrapBulk(key, outbox, MiniAppEnvelope.notify(requestId, event)))) {
+                return
+            }
+            mPendingReplies.forget(requestId)
+        }
+        val iParentToMini = mParentToMiniCallbackMap[key] ?: return
+        try {
+            iParentToMini.sendMessageToMini(appId, JsonUtil.toJson(event), callback)
+        } catch (e: RemoteException) {
+            if (sLogger.isDebugActivated) {
+                sLogger.error("notifyMini sendMessageToMini", e)
+            }
+            onRemoteError(telecomCallId, appId)
+        }
+    }
+
+    private fun registerReply(key: String, callback: IMessageCallback): Long {
+        return mPendingReplies.register(key) { message ->
+            try {
+                callback.reply(message)
+            } catch (e: RemoteException) {
+                sLogger.error("reply envelope", e)
+            }
+        }
+    }
+
+    private fun closeEnvelopeChannel(key: String, unsent: List<MiniAppEnvelope> = emptyList()) {
+        resendLegacy(key, unsent + (mEnvelopeOutboxMap.remove(key)?.close() ?: emptyList()))
+        mPendingReplies.cancel(key, DISCONNECTED_REPLY)
+        mBulkTransfer.revoke(key)
+    }
+
+    /**
+     * 没发出去的通知改走旧的字符串接口，发不出去的回复错误；给小程序的回复和归还信封无法再送达，直接丢弃
+     */
+    private fun resendLegacy(key: String, envelopes: List<MiniAppEnvelope>) {
+        envelopes.filter { it.type == MiniAppEnvelope.TYPE_NOTIFY }.forEach { envelope ->
+            val reply = mPendingReplies.take(envelope.requestId)
+            try {
+                val iParentToMini = mParentToMiniCallbackMap[key] ?: throw RemoteException("mini app disconnected")
+                val event = mBulkTransfer.reclaim(envelope).toNotifyEvent()
+                iParentToMini.sendMessageToMini(getAppIdFromKey(key), JsonUtil.toJson(event), reply?.let { LegacyReplyCallback(it) })
+            } catch (e: Exception) {
+                sLogger.error("resendLegacy $envelope", e)
+                reply?.invoke(DISCONNECTED_REPLY)
+            }
+        }
+    }
+
+    private class LegacyReplyCallback(private val reply: (String?) -> Unit) : IMessageCallback.Stub() {
+        override fun reply(message: String?) {
+            reply.invoke(message)
+        }
+    }
+
+    private fun wrapBulk(key: String, outbox: MiniAppEnvelopeOutbox, envelope: MiniAppEnvelope): MiniAppEnvelope {
+        return if (outbox.version >= MiniAppEnvelope.MIN_BULK_VERSION) mBulkTransfer.wrap(key, envelope) else envelope
+    }
+
+    /**
+     * 读出共享内存里的payload并通知小程序归还
+     */
+    private fun unwrapBulk(key: String, envelope: MiniAppEnvelope): MiniAppEnvelope {
+        val bulk = envelope.bulk ?: return envelope
+        try {
+            return mBulkTransfer.unwrap(envelope)
+        } finally {
+            if (bulk.leaseId != MiniAppBulkHandle.NO_LEASE) {
+                mEnvelopeOutboxMap[key]?.post(MiniAppEnvelope.release(bulk.leaseId))
+            }
+        }
     }
 
     inner class MiniToParentAidlImpl(private val appService: MiniAppService) : IMiniToParent.Stub() {
@@ -233,6 +322,7 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
             if (appId.isEmpty()) {
                 return
             }
+            closeEnvelopeChannel(getKey(telecomCallId,appId))
             mParentToMiniCallbackMap[getKey(telecomCallId,appId)] = iParentToMini
             val listenerWrapper = CallStatusListener(appService, telecomCallId, appId)
             MiniAppManager.getAppPackageManager(telecomCallId)
@@ -249,6 +339,7 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
             message: String,
             iMessageCallback: IMessageCallback?
         ) {
+            val startNanos = sendMessageLatency.start()
             try {
                 if (sLogger.isDebugActivated) {
                     sLogger.debug("sendMessageToParent, appId:$appId, message:$message")
@@ -262,6 +353,8 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
                 }
             } catch (e:Exception){
                 e.printStackTrace()
+            } finally {
+                sendMessageLatency.recordSince(startNanos)
             }
         }
 
@@ -286,6 +379,7 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
             }
             telecomCallId?.let {
                 mParentToMiniCallbackMap.remove(getKey(telecomCallId, appId))
+                closeEnvelopeChannel(getKey(telecomCallId, appId))
             }
             val iCallStateListener = mCallStatusListenerMap[appId]
             if (iCallStateListener != null) {
@@ -311,6 +405,75 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
                 }
             }
         }
+
+        override fun negotiateProtocol(telecomCallId: String, appId: String, version: Int): Int {
+            val key = getKey(telecomCallId, appId)
+            val iParentToMini = mParentToMiniCallbackMap[key]
+            val negotiated = minOf(version, MiniAppEnvelope.PROTOCOL_VERSION)
+            sLogger.debug("negotiateProtocol, appId:$appId, version:$version, negotiated:$negotiated")
+            if (iParentToMini == null || negotiated < 1) {
+                return 0
+            }
+            closeEnvelopeChannel(key)
+            mEnvelopeOutboxMap[key] = MiniAppEnvelopeOutbox(
+                mEnvelopeExecutor,
+                onError = { e, unsent ->
+                    // 小程序进程已死，旧接口也发不出去
+                    if (e is DeadObjectException) onRemoteError(telecomCallId, appId) else closeEnvelopeChannel(key, unsent)
+                },
+                version = negotiated
+            ) { envelopes ->
+                iParentToMini.onEnvelopes(envelopes)
+            }
+            return negotiated
+        }
+
+        override fun sendEnvelopes(telecomCallId: String, appId: String, envelopes: MutableList<MiniAppEnvelope>?) {
+            if (appId.isEmpty() || envelopes.isNullOrEmpty()) {
+                return
+            }
+            val key = getKey(telecomCallId, appId)
+            envelopes.forEach { envelope ->
+                when (envelope.type) {
+                    MiniAppEnvelope.TYPE_REQUEST -> dispatchEnvelope(key, telecomCallId, appId, envelope)
+                    MiniAppEnvelope.TYPE_REPLY -> mPendingReplies.complete(envelope.requestId, envelope.message)
+                    MiniAppEnvelope.TYPE_RELEASE -> mBulkTransfer.release(envelope.requestId)
+                    else -> sLogger.warn("sendEnvelopes, unexpected $envelope")
+                }
+            }
+        }
+
+        // 在binder线程只做解码，handler交给IO协程执行，避免慢handler阻塞oneway队列里后续的信封
+        private fun dispatchEnvelope(key: String, telecomCallId: String, appId: String, envelope: MiniAppEnvelope) {
+            if (sLogger.isDebugActivated) {
+                sLogger.debug("dispatchEnvelope, appId:$appId, envelope:$envelope")
+            }
+            val callback = if (envelope.expectsReply) {
+                object : IMessageCallback.Stub() {
+                    override fun reply(message: String?) {
+                        mEnvelopeOutboxMap[key]?.post(MiniAppEnvelope.reply(envelope.requestId, message))
+                    }
+                }
+            } else {
+                null
+            }
+            val appRequest = try {
+                unwrapBulk(key, envelope).toAppRequest()
+            } catch (e: Exception) {
+                sLogger.error("dispatchEnvelope", e)
+                return
+            }
+            launch(Dispatchers.IO) {
+                val startNanos = sendMessageLatency.start()
+                try {
+                    AppServiceEventDispatcherFactory.getDispatcher(appRequest.eventName).dispatchEvent(telecomCallId, appId, appRequest, callback)
+                } catch (e: Exception) {
+                    sLogger.error("dispatchEnvelope", e)
+                } finally {
+                    sendMessageLatency.recordSince(startNanos)
+                }
+            }
+        }
     }
 
 
@@ -325,25 +488,18 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
             ACTION_CHECK_ALIVE,
             mutableMapOf()
         )
+        val checkAliveCallback = object : IMessageCallback.Stub() {
+            override fun reply(message: String?) {
+                if (sLogger.isDebugActivated) {
+                    sLogger.info("checkAlive reply $message")
+                }
+            }
+        }
         launch(EmptyCoroutineContext) {
             while (true) {
                 withContext(Dispatchers.IO) {
-                    mParentToMiniCallbackMap.forEach {
-                        val iParentToMini = it.value
-                        try {
-                            iParentToMini.sendMessageToMini(getAppIdFromKey(it.key), JsonUtil.toJson(event), object : IMessageCallback.Stub() {
-                                override fun reply(message: String?) {
-                                    if (sLogger.isDebugActivated) {
-                                        sLogger.info("checkAlive reply $message")
-                                    }
-                                }
-                            })
-                        } catch (e: RemoteException) {
-                            if (sLogger.isDebugActivated) {
-                                sLogger.error("sendMessageToMini", e)
-                            }
-                            onRemoteError(getCallIdFromKey(it.key),getAppIdFromKey(it.key))
-                        }
+                    mParentToMiniCallbackMap.keys.forEach {
+                        notifyMini(getCallIdFromKey(it), getAppIdFromKey(it), event, checkAliveCallback)
                     }
                 }
                 kotlinx.coroutines.delay(5000)
@@ -368,10 +524,19 @@ class MiniAppService : Service(), CoroutineScope by MainScope(), KoinComponent
             sLogger.debug("onDestroy, processName:${Application.getProcessName()}")
         }
         appServiceManager.release()
+        mEnvelopeOutboxMap.keys.forEach { closeEnvelopeChannel(it) }
+        mEnvelopeExecutor.shutdown()
         cancel()
         super.onDestroy()
     }
 
+    /**
+     * adb shell dumpsys activity service com.ct.ertclib.dc.core.service.MiniAppService
+     */
+    override fun dump(fd: FileDescriptor?, writer: PrintWriter, args: Array<out String>?) {
+        MetricsRegistry.instance.dump(writer)
+    }
+
     @RequiresApi(Build.VERSION_CODES.P)
     override fun onUnbind(intent: Intent?): Boolean {
         if (sLogger.isDebugActivated) {
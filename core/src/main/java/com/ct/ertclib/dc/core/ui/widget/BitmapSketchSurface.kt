@@ -0,0 +1,95 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.ui.widget
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.Path
+import android.graphics.PorterDuff
+import android.graphics.PorterDuffXfermode
+import androidx.core.graphics.toColorInt
+import com.blankj.utilcode.util.SizeUtils
+import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
+import com.ct.ertclib.dc.core.utils.sketch.SketchRect
+import com.ct.ertclib.dc.core.utils.sketch.SketchSurface
+
+/**
+ * 基于Bitmap的涂鸦画布，Path和Paint复用，快照为瓦片大小的Bitmap
+ */
+internal class BitmapSketchSurface(private val bitmap: Bitmap) : SketchSurface<Bitmap> {
+
+    private val canvas = Canvas(bitmap)
+    private val path = Path()
+    private val paint = Paint().apply {
+        isAntiAlias = true
+        isDither = true
+        style = Paint.Style.STROKE
+        strokeJoin = Paint.Join.ROUND
+        strokeCap = Paint.Cap.ROUND
+    }
+    private val clearPaint = Paint().apply {
+        xfermode = PorterDuffXfermode(PorterDuff.Mode.CLEAR)
+    }
+    private val copyPaint = Paint().apply {
+        xfermode = PorterDuffXfermode(PorterDuff.Mode.SRC)
+    }
+
+    override val width: Int
+        get() = bitmap.width
+
+    override val height: Int
+        get() = bitmap.height
+
+    override fun strokeWidthPx(width: Float): Float = SizeUtils.dp2px(width).toFloat()
+
+    override fun drawStroke(stroke: DrawingInfo, clip: SketchRect?) {
+        path.reset()
+        val points = stroke.pointList
+        for (index in points.indices) {
+            val bean = points[index]
+            if (index == 0) {
+                path.moveTo(bean.x, bean.y)
+            } else {
+                val preBean = points[index - 1]
+                path.quadTo(preBean.x, preBean.y, bean.x, bean.y)
+            }
+        }
+        paint.color = stroke.color.toColorInt()
+        paint.strokeWidth = strokeWidthPx(stroke.width)
+        if (clip == null) {
+            canvas.drawPath(path, paint)
+            return
+        }
+        canvas.save()
+        canvas.clipRect(clip.left, clip.top, clip.right, clip.bottom)
+        canvas.drawPath(path, paint)
+        canvas.restore()
+    }
+
+    override fun clear(rect: SketchRect) {
+        canvas.drawRect(rect.left.toFloat(), rect.top.toFloat(), rect.right.toFloat(), rect.bottom.toFloat(), clearPaint)
+    }
+
+    override fun snapshot(rect: SketchRect): Bitmap {
+        return Bitmap.createBitmap(bitmap, rect.left, rect.top, rect.right - rect.left, rect.bottom - rect.top)
+    }
+
+    override fun restore(rect: SketchRect, snapshot: Bitmap) {
+        canvas.drawBitmap(snapshot, rect.left.toFloat(), rect.top.toFloat(), copyPaint)
+    }
+}
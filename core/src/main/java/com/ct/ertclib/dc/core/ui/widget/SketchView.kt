@@ -21,10 +21,8 @@ import android.content.Context
 import android.content.res.Configuration
 import android.graphics.Bitmap
 import android.graphics.Canvas
-import android.graphics.Color
 import android.graphics.Paint
 import android.graphics.Path
-import android.graphics.PorterDuff
 import android.util.AttributeSet
 import android.view.MotionEvent
 import android.view.View
@@ -36,6 +34,8 @@ import com.ct.ertclib.dc.core.R
 import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
 import com.ct.ertclib.dc.core.utils.common.LogUtils
 import com.ct.ertclib.dc.core.data.screenshare.PointBean
+import com.ct.ertclib.dc.core.utils.sketch.SketchRect
+import com.ct.ertclib.dc.core.utils.sketch.SketchRenderEngine
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
@@ -65,11 +65,10 @@ class SketchView : View {
     var localPathSize: Float = DEFAULT_SIZE
     private lateinit var localPaint: Paint
     private var localPath: Path = Path()
-    private lateinit var historyPaint: Paint
-    private var historyPath: Path = Path()
 
     private var bufferBitmap: Bitmap? = null
-    private var bufferCanvas: Canvas? = null
+    // 历史笔画按脏区域增量绘制，本地笔画作为临时笔画定时擦除
+    private var renderEngine: SketchRenderEngine<Bitmap>? = null
     private var lastX = 0.0F
     private var lastY = 0.0F
     private var isDrawing = false
@@ -78,8 +77,6 @@ class SketchView : View {
 
     var sketchCallback: SketchCallback? = null
     private var currentDrawingInfo: DrawingInfo? = null
-
-    private var sketchInfoList = CopyOnWriteArrayList<DrawingInfo>()
     private val scope = CoroutineScope(Dispatchers.Default + SupervisorJob())
 
     constructor(context: Context?) : super(context) {
@@ -124,27 +121,11 @@ class SketchView : View {
             //线宽
             strokeWidth = SizeUtils.dp2px(localPathSize).toFloat()
         }
-
-        historyPaint = Paint().apply{
-            //抗锯齿效果
-            isAntiAlias = true
-            //防抖
-            isDither = true
-            //模式
-            style = Paint.Style.STROKE
-            //结合方式
-            strokeJoin = Paint.Join.ROUND
-            //画笔两端样式
-            strokeCap = Paint.Cap.ROUND
-            //线宽
-            strokeWidth = SizeUtils.dp2px(localPathSize).toFloat()
-        }
     }
 
     override fun onSizeChanged(w: Int, h: Int, oldw: Int, oldh: Int) {
         super.onSizeChanged(w, h, oldw, oldh)
         genNewBufferCanvas(w, h)
-        sketchInfoList.clear()
     }
 
     override fun onDraw(canvas: Canvas) {
@@ -174,19 +155,20 @@ class SketchView : View {
                         DEFAULT_SIZE,
                         ColorUtils.int2ArgbString(paintColor),
                         mutableListOf<PointBean>().apply { add(PointBean(x, y)) }
-                    )
+                    ).also { info ->
+                        sketchCallback?.onSketchStart(info)
+                    }
                 }
 
                 MotionEvent.ACTION_UP -> {
-                    bufferCanvas?.apply {
-                        drawPath(localPath, localPaint)
-                        localPath.reset()
+                    currentDrawingInfo?.let { info ->
+                        invalidateRect(renderEngine?.drawTransient(DrawingInfo(localPathSize, info.color, info.pointList)))
                     }
+                    localPath.reset()
                     scope.launch {
                         delay(SKETCH_DISAPPEAR_DELAY)
                         withContext(Dispatchers.Main) {
                             rollBackPreSketch()
-                            invalidate()
                         }
                     }
                     currentDrawingInfo?.let { info ->
@@ -212,7 +194,11 @@ class SketchView : View {
                         lastY = y
                         invalidate()
                     }
-                    currentDrawingInfo?.pointList?.add(PointBean(x, y))
+                    currentDrawingInfo?.let { info ->
+                        val point = PointBean(x, y)
+                        info.pointList.add(point)
+                        sketchCallback?.onSketchMove(point)
+                    }
                 }
 
                 else -> {}
@@ -222,71 +208,70 @@ class SketchView : View {
     }
 
     private fun genNewBufferCanvas(width: Int, height: Int) {
-        bufferBitmap = createBitmap(width, height)
-        bufferCanvas = Canvas(bufferBitmap!!)
+        val bitmap = createBitmap(width, height)
+        bufferBitmap = bitmap
+        renderEngine = SketchRenderEngine(BitmapSketchSurface(bitmap))
     }
 
-    private fun drawByPath(path: Path, paint: Paint) {
-        path.let {
-            bufferCanvas?.drawPath(path, paint)
-            path.reset()
-            postInvalidate()
+    private fun invalidateRect(rect: SketchRect?) {
+        rect?.let {
+            postInvalidate(it.left, it.top, it.right, it.bottom)
         }
     }
 
-    fun drawByDrawingInfo(drawingInfo: DrawingInfo, isFromMiniApp: Boolean = false, isHistoryDrawing: Boolean = false) {
-        if (isFromMiniApp) {
-            if (isDrawing) {
-                cachedDrawingInfoList.add(drawingInfo)
-                LogUtils.debug(TAG, "drawByDrawingInfo is drawing")
-                return
-            }
-            sketchInfoList.add(drawingInfo)
-        }
-        val path = if (isHistoryDrawing) {
-            historyPath
-        } else {
-            localPath
-        }
-        val paint = if (isHistoryDrawing) {
-            historyPaint
-        } else {
-            localPaint
-        }
-        drawingInfo.let {
-            paint.color = it.color.toColorInt()
-            localPathSize = it.width
-            localPaint.strokeWidth = SizeUtils.dp2px(localPathSize).toFloat()
-            lateinit var preBean: PointBean
-            for ((index, bean) in it.pointList.withIndex()) {
-                if (index == 0) {
-                    path.reset()
-                    path.moveTo(bean.x, bean.y)
-                } else {
-                    path.quadTo(preBean.x, preBean.y, bean.x, bean.y)
-                }
-                preBean = bean
-            }
-            drawByPath(path, paint)
+    /**
+     * @param isFromMiniApp 小程序下发的笔画进入历史，否则作为临时笔画随本地笔画一起擦除
+     */
+    fun drawByDrawingInfo(drawingInfo: DrawingInfo, isFromMiniApp: Boolean = false) {
+        if (isFromMiniApp && isDrawing) {
+            cachedDrawingInfoList.add(drawingInfo)
+            LogUtils.debug(TAG, "drawByDrawingInfo is drawing")
+            return
         }
+        localPathSize = drawingInfo.width
+        localPaint.strokeWidth = SizeUtils.dp2px(localPathSize).toFloat()
+        val engine = renderEngine ?: return
+        invalidateRect(if (isFromMiniApp) engine.commit(drawingInfo) else engine.drawTransient(drawingInfo))
     }
 
+    /**
+     * 增量绘制对端进行中的笔画
+     * @param drawingInfo 到目前为止的完整笔画
+     */
+    fun drawLiveStroke(strokeId: Int, drawingInfo: DrawingInfo) {
+        invalidateRect(renderEngine?.drawLive(strokeId, drawingInfo))
+    }
+
+    /**
+     * 对端笔画结束，替换增量绘制的部分进入历史；增量部分已经可见，不必等本地笔画结束
+     */
+    fun commitLiveStroke(strokeId: Int, drawingInfo: DrawingInfo) {
+        invalidateRect(renderEngine?.commitLive(strokeId, drawingInfo))
+    }
+
+    /**
+     * @param cleanPath 同时清空历史笔画，否则只擦除临时笔画
+     */
     fun clearCanvas(cleanPath: Boolean = false) {
-        bufferCanvas?.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR)
         if (cleanPath) {
-            sketchInfoList.clear()
+            renderEngine?.clear()
             localPath.reset()
+            invalidate()
+        } else {
+            invalidateRect(renderEngine?.clearTransient())
         }
     }
 
     private fun rollBackPreSketch() {
         clearCanvas()
-        sketchInfoList.forEach { item ->
-            drawByDrawingInfo(item, isFromMiniApp = false, isHistoryDrawing = true)
-        }
     }
 
     interface SketchCallback {
         fun onSketchEvent(drawingInfo: DrawingInfo)
+
+        // 按下时回调，drawingInfo只有起点
+        fun onSketchStart(drawingInfo: DrawingInfo) {}
+
+        fun onSketchMove(point: PointBean) {}
     }
 }
\ No newline at end of file
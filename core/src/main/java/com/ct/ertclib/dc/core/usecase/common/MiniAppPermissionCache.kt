@@ -0,0 +1,169 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.usecase.common
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppPermissions
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 小程序权限的内存模型
+ *
+ * 每个小程序的授权结果保存为不可变的位图，已知权限各占一位，未知权限放在附加表中。
+ * 校验路径只做一次ConcurrentHashMap读取和位运算，不会阻塞JavaBridge线程。
+ */
+class MiniAppPermissionCache {
+
+    companion object {
+        private val PERMISSION_BITS: Map<String, Long> = listOf(
+            MiniAppPermissions.MINIAPP_CAMERA,
+            MiniAppPermissions.MINIAPP_RECORD_AUDIO,
+            MiniAppPermissions.MINIAPP_VIBRATE,
+            MiniAppPermissions.MINIAPP_EXTERNAL_STORAGE,
+            MiniAppPermissions.MINIAPP_LOCATION,
+            MiniAppPermissions.MINIAPP_GET_CALL_STATE,
+            MiniAppPermissions.MINIAPP_READ_CONTACTS,
+            MiniAppPermissions.MINIAPP_ACCESS_WIFI,
+            MiniAppPermissions.MINIAPP_BLUETOOTH
+        ).withIndex().associate { it.value to (1L shl it.index) }
+    }
+
+    class PermissionSet internal constructor(
+        private val grantedMask: Long,
+        private val deniedMask: Long,
+        private val others: Map<String, Boolean>
+    ) {
+
+        fun isAllGranted(permissions: List<String>): Boolean {
+            for (i in permissions.indices) {
+                val permission = permissions[i]
+                val bit = PERMISSION_BITS[permission]
+                val granted = if (bit != null) grantedMask and bit != 0L else others[permission] == true
+                if (!granted) {
+                    return false
+                }
+            }
+            return true
+        }
+
+        fun toMap(): MutableMap<String, Boolean> {
+            val result = mutableMapOf<String, Boolean>()
+            PERMISSION_BITS.forEach { (permission, bit) ->
+                if (grantedMask and bit != 0L) {
+                    result[permission] = true
+                } else if (deniedMask and bit != 0L) {
+                    result[permission] = false
+                }
+            }
+            result.putAll(others)
+            return result
+        }
+
+        internal fun plus(map: Map<String, Boolean>): PermissionSet {
+            var granted = grantedMask
+            var denied = deniedMask
+            var otherMap: MutableMap<String, Boolean>? = null
+            map.forEach { (permission, value) ->
+                val bit = PERMISSION_BITS[permission]
+                if (bit == null) {
+                    if (otherMap == null) {
+                        otherMap = others.toMutableMap()
+                    }
+                    otherMap!![permission] = value
+                } else if (value) {
+                    granted = granted or bit
+                    denied = denied and bit.inv()
+                } else {
+                    denied = denied or bit
+                    granted = granted and bit.inv()
+                }
+            }
+            return PermissionSet(granted, denied, otherMap ?: others)
+        }
+    }
+
+    private val emptySet = PermissionSet(0L, 0L, emptyMap())
+    private val permissionSets = ConcurrentHashMap<String, PermissionSet>()
+
+    // 写操作互斥，读仍然无锁
+    private val writeLock = Any()
+
+    // 已写入缓存但尚未落库的授权，数据库结果刷新时保留，避免被旧结果覆盖
+    private val unsavedGrants = HashMap<String, MutableMap<String, Boolean>>()
+
+    fun isLoaded(appId: String): Boolean {
+        return permissionSets.containsKey(appId)
+    }
+
+    /**
+     * @return 权限是否全部授予，小程序的权限尚未加载时返回null
+     */
+    fun isAllGranted(appId: String, permissions: List<String>): Boolean? {
+        return permissionSets[appId]?.isAllGranted(permissions)
+    }
+
+    fun get(appId: String): PermissionSet? {
+        return permissionSets[appId]
+    }
+
+    /**
+     * 用数据库中读取的结果设置
+     */
+    fun put(appId: String, map: Map<String, Boolean>) {
+        synchronized(writeLock) {
+            permissionSets[appId] = fromRepo(appId, map)
+        }
+    }
+
+    /**
+     * 新的授权结果，落库后调用[markSaved]
+     */
+    fun merge(appId: String, map: Map<String, Boolean>) {
+        synchronized(writeLock) {
+            permissionSets[appId] = (permissionSets[appId] ?: emptySet).plus(map)
+            unsavedGrants.getOrPut(appId) { mutableMapOf() }.putAll(map)
+        }
+    }
+
+    fun markSaved(appId: String, map: Map<String, Boolean>) {
+        synchronized(writeLock) {
+            val unsaved = unsavedGrants[appId] ?: return
+            map.forEach { (permission, granted) -> unsaved.remove(permission, granted) }
+            if (unsaved.isEmpty()) {
+                unsavedGrants.remove(appId)
+            }
+        }
+    }
+
+    /**
+     * 用数据库全量结果刷新，已加载但未出现在结果里的小程序视为没有任何授权
+     */
+    fun replaceAll(all: Map<String, Map<String, Boolean>>) {
+        synchronized(writeLock) {
+            all.forEach { (appId, map) -> permissionSets[appId] = fromRepo(appId, map) }
+            permissionSets.keys.forEach { appId ->
+                if (!all.containsKey(appId)) {
+                    permissionSets[appId] = fromRepo(appId, emptyMap())
+                }
+            }
+        }
+    }
+
+    private fun fromRepo(appId: String, map: Map<String, Boolean>): PermissionSet {
+        val set = emptySet.plus(map)
+        return unsavedGrants[appId]?.let { set.plus(it) } ?: set
+    }
+}
@@ -18,7 +18,6 @@ package com.ct.ertclib.dc.core.usecase.common
 
 import android.content.Context
 import com.ct.ertclib.dc.core.utils.logger.Logger
-import com.ct.ertclib.dc.core.utils.common.JsonUtil
 import com.ct.ertclib.dc.core.utils.common.LogUtils
 import com.ct.ertclib.dc.core.constants.CommonConstants.ACTION_REFRESH_MINI_PERMISSION
 import com.ct.ertclib.dc.core.constants.CommonConstants.ACTION_REFRESH_PERMISSION
@@ -27,10 +26,9 @@ import com.ct.ertclib.dc.core.data.event.NotifyEvent
 import com.ct.ertclib.dc.core.data.miniapp.AppRequest
 import com.ct.ertclib.dc.core.data.miniapp.PermissionUsageData
 import com.ct.ertclib.dc.core.data.miniapp.getCombineKey
-import com.ct.ertclib.dc.core.data.model.PermissionModel
-import com.ct.ertclib.dc.core.data.model.PermissionUsageEntity
 import com.ct.ertclib.dc.core.port.common.IParentToMiniNotify
 import com.ct.ertclib.dc.core.port.manager.IMiniToParentManager
+import com.ct.ertclib.dc.core.port.manager.IPermissionUsageRecorder
 import com.ct.ertclib.dc.core.port.miniapp.IPermissionDbRepo
 import com.ct.ertclib.dc.core.port.usecase.mini.IPermissionUseCase
 import com.ct.ertclib.dc.core.utils.common.DateUtils
@@ -40,40 +38,40 @@ import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.runBlocking
-import kotlinx.coroutines.withTimeoutOrNull
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
 import kotlin.random.Random
 
 class PermissionUseCase(
     private val context: Context,
     private val permissionDbRepo: IPermissionDbRepo,
     private val miniToParentManager: IMiniToParentManager,
-    private val parentToMiniNotifier: IParentToMiniNotify
+    private val parentToMiniNotifier: IParentToMiniNotify,
+    private val permissionUsageRecorder: IPermissionUsageRecorder
 ): IPermissionUseCase {
 
     companion object {
         private const val TAG = "PermissionUseCase"
-        private const val MAX_TIME_GET_PERMISSIONS = 3000L
+        // 权限未加载时校验最多等待的时长
+        private const val LOAD_WAIT_MILLIS = 500L
     }
 
     private val logger = Logger.getLogger(TAG)
     private val scope = CoroutineScope(Dispatchers.Default + SupervisorJob())
     private val permissionDaoFlow = permissionDbRepo.getAll()
-    private val permissionsMap = mutableMapOf<String, MutableMap<String, Boolean>>()
+    private val permissionCache = MiniAppPermissionCache()
+    private val loadingTasks = ConcurrentHashMap<String, FutureTask<MutableMap<String, Boolean>>>()
 
     init {
         scope.launch {
-            permissionDaoFlow.collect {
-                it.forEach { model ->
-                    val resultMap = mutableMapOf<String, Boolean>()
-                    val map = JsonUtil.fromJson(model.permissionMapString, Map::class.java)
-                    map?.forEach { (entry, value) ->
-                        val result = value as? Boolean
-                        result?.let { resultMap[entry.toString()] = result }
-                    }
-                    permissionsMap[model.appId] = resultMap
-                    logger.info("collect, update permissionTable,appId: ${model.appId},  permissionsMap: ${permissionsMap[model.appId]}")
-                }
+            permissionDaoFlow.collect { grants ->
+                val allPermissions = grants.groupBy { it.appId }
+                    .mapValues { (_, appGrants) -> appGrants.associate { it.permissionName to it.granted } }
+                permissionCache.replaceAll(allPermissions)
+                logger.info("collect, update permission cache, appIds: ${allPermissions.keys}")
             }
         }
     }
@@ -81,22 +79,10 @@ class PermissionUseCase(
     override suspend fun getPermission(
         appId: String
     ): MutableMap<String, Boolean> {
-        val permissionMap = permissionsMap[appId]
-        permissionMap?.let {
-            return it
-        } ?: run {
-            val resultMap = mutableMapOf<String, Boolean>()
-            val permissionJsonString = permissionDbRepo.getPermissionModelById(appId)
-            permissionJsonString?.let { permissionModel ->
-                val map = JsonUtil.fromJson(permissionModel.permissionMapString, Map::class.java)
-                map?.forEach { (entry, value) ->
-                    val result = value as? Boolean
-                    result?.let { resultMap[entry.toString()] = result }
-                }
-            }
-            permissionsMap[appId] = resultMap
-            return resultMap
+        permissionCache.get(appId)?.let {
+            return it.toMap()
         }
+        return loadPermission(appId)
     }
 
     override suspend fun savePermission(
@@ -105,14 +91,11 @@ class PermissionUseCase(
         isMainProcess: Boolean,
         callId: String,
     ) {
-        var currentMap = permissionsMap[appId]
-        currentMap?.putAll(map) ?: run {
-            currentMap = map
-            permissionsMap[appId] = map
-        }
-        currentMap?.let {
-            val permissionJsonString = JsonUtil.toJson(it)
-            permissionDbRepo.insertOrUpdate(PermissionModel(appId, permissionJsonString))
+        permissionCache.merge(appId, map)
+        try {
+            permissionDbRepo.savePermissions(appId, map)
+        } finally {
+            permissionCache.markSaved(appId, map)
         }
         if (isMainProcess) {
             val permissionNotifyEvent = NotifyEvent(
@@ -121,24 +104,20 @@ class PermissionUseCase(
             )
             parentToMiniNotifier.notifyEvent(callId, appId, permissionNotifyEvent)
         } else {
-            val appRequestJson = AppRequest(COMMON_APP_EVENT, ACTION_REFRESH_PERMISSION, mapOf()).toJson()
-            miniToParentManager.sendMessageToParent(appRequestJson, null)
+            val appRequest = AppRequest(COMMON_APP_EVENT, ACTION_REFRESH_PERMISSION, mapOf())
+            miniToParentManager.sendRequestToParent(appRequest, null)
         }
     }
 
-    override fun checkPermissionAndRecord(appId: String, permissions: List<String>, needRecord: Boolean): Boolean {
-        var grantedResult = false
-        permissionsMap[appId]?.let {
-            grantedResult = isPermissionAllGranted(permissions, it)
-        } ?: run {
-            var map: MutableMap<String, Boolean> = mutableMapOf()
-            runBlocking {
-                withTimeoutOrNull(MAX_TIME_GET_PERMISSIONS) {
-                    map = getPermission(appId)
-                }
-            }
-            grantedResult = isPermissionAllGranted(permissions, map)
+    override fun preloadPermission(appId: String) {
+        if (permissionCache.isLoaded(appId)) {
+            return
         }
+        loadAsync(appId)
+    }
+
+    override fun checkPermissionAndRecord(appId: String, permissions: List<String>, needRecord: Boolean): Boolean {
+        val grantedResult = permissionCache.isAllGranted(appId, permissions) ?: awaitLoaded(appId, permissions)
         if (grantedResult && needRecord) {
             //当所有权限全部授予，且needRecord为true时，将权限使用记录插入到数据库中，默认情况下needRecord值为true
             insertPermissionUsages(appId, permissions)
@@ -151,42 +130,64 @@ class PermissionUseCase(
     }
 
     override suspend fun refreshPermissionMapFromRepo(appId: String) {
-        val resultMap = mutableMapOf<String, Boolean>()
-        val permissionJsonString = permissionDbRepo.getPermissionModelById(appId)
-        permissionJsonString?.let { permissionModel ->
-            val map = JsonUtil.fromJson(permissionModel.permissionMapString, Map::class.java)
-            map?.forEach { (entry, value) ->
-                val result = value as? Boolean
-                result?.let { resultMap[entry.toString()] = result }
+        val resultMap = loadPermission(appId)
+        LogUtils.debug(TAG, "refreshPermissionMapFromRepo appId: $appId, resultMap: $resultMap")
+    }
+
+    /**
+     * 权限尚未加载时等待加载完成，与预加载共用同一次数据库读取，超时按未授权处理
+     */
+    private fun awaitLoaded(appId: String, permissions: List<String>): Boolean {
+        try {
+            loadAsync(appId).get(LOAD_WAIT_MILLIS, TimeUnit.MILLISECONDS)
+        } catch (e: TimeoutException) {
+            logger.warn("checkPermissionAndRecord, load permissions of $appId timed out")
+        } catch (e: ExecutionException) {
+            logger.error("checkPermissionAndRecord, load permissions of $appId failed", e.cause)
+        }
+        return permissionCache.isAllGranted(appId, permissions) ?: false
+    }
+
+    private fun loadAsync(appId: String): FutureTask<MutableMap<String, Boolean>> {
+        loadingTasks[appId]?.let { return it }
+        val task = FutureTask { loadPermission(appId) }
+        loadingTasks.putIfAbsent(appId, task)?.let { return it }
+        scope.launch(Dispatchers.IO) {
+            try {
+                task.run()
+            } finally {
+                loadingTasks.remove(appId, task)
             }
         }
-        LogUtils.debug(TAG, "refreshPermissionMapFromRepo appId: $appId, resultMap: $resultMap")
-        permissionsMap[appId] = resultMap
+        return task
+    }
+
+    private fun loadPermission(appId: String): MutableMap<String, Boolean> {
+        val resultMap = permissionDbRepo.getPermissionsById(appId).toMutableMap()
+        permissionCache.put(appId, resultMap)
+        return resultMap
     }
 
     override fun getPermissionUsage(appId: String, timeStamp: Long): MutableList<PermissionUsageData> {
         val permissionUsageList = permissionDbRepo.getPermissionUsageByIdWithInTime(appId, timeStamp)
-        val resultList = permissionUsageList.asSequence().map {
+        val pendingUsageList = permissionUsageRecorder.getPendingUsages(appId).filter { it.permissionUsageTimeStamp > timeStamp }
+        val resultList = (pendingUsageList + permissionUsageList).asSequence().sortedByDescending { it.permissionUsageTimeStamp }.map {
             PermissionUsageData(PermissionUtils.getPermissionData(it.permissionName)?.permissionUsageName ?: "", DateUtils.timestampToDateTime(it.permissionUsageTimeStamp))
         }.filter { it.permissionTitle.isNotEmpty() }.groupBy { it.getCombineKey() }.map { (_, group) -> group.first() }.toMutableList()//对权限结果进行过滤，同分钟内同一个权限记录只保留一次
         return resultList
     }
 
-    override fun insertPermissionUsages(appId: String, miniPermissionNames: List<String>) {
-        scope.launch(Dispatchers.IO) {
-            miniPermissionNames.forEach { miniPermissionName ->
-                val permissionUsageEntity = PermissionUsageEntity(appId, PermissionUtils.convertToSingleSystemPermissions(miniPermissionName), System.currentTimeMillis())
-                permissionDbRepo.insertPermissionUsage(permissionUsageEntity)
-            }
-        }
+    override fun getPermissionUsageCount(appId: String, permissionName: String, timeStamp: Long): Long {
+        val pendingCount = permissionUsageRecorder.getPendingUsages(appId).asSequence()
+            .filter { it.permissionName == permissionName && it.permissionUsageTimeStamp > timeStamp }
+            .sumOf { it.usageCount.toLong() }
+        return permissionDbRepo.getPermissionUsageCount(appId, permissionName, timeStamp) + pendingCount
     }
 
-    private fun isPermissionAllGranted(permissions: List<String>, permissionMap: MutableMap<String, Boolean>): Boolean {
-        permissions.forEach { permission ->
-            if (permissionMap[permission] != true) {
-                return false
-            }
+    override fun insertPermissionUsages(appId: String, miniPermissionNames: List<String>) {
+        //使用记录先在内存中聚合，由PermissionUsageRecorder批量写入数据库
+        miniPermissionNames.forEach { miniPermissionName ->
+            permissionUsageRecorder.record(appId, PermissionUtils.convertToSingleSystemPermissions(miniPermissionName))
         }
-        return true
     }
 }
\ No newline at end of file
@@ -31,6 +31,8 @@ import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_VIDEO_WINDOW_N
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.NOTIFY_DRAWING_INFO_PARAM
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.NOTIFY_HEIGHT_PARAM
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.NOTIFY_STATUS_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.NOTIFY_STROKE_DATA_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.NOTIFY_STROKE_FORMAT_PARAM
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.NOTIFY_WIDTH_PARAM
 import com.ct.ertclib.dc.core.data.common.VideoInfo
 import com.ct.ertclib.dc.core.data.event.NotifyEvent
@@ -40,12 +42,17 @@ import com.ct.ertclib.dc.core.port.manager.ISketchManager
 import com.ct.ertclib.dc.core.port.usecase.main.IScreenShareUseCase
 import com.ct.ertclib.dc.core.port.usecase.main.ISketchBoardUseCase
 import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
+import com.ct.ertclib.dc.core.data.screenshare.PointBean
 import com.ct.ertclib.dc.core.manager.common.ExpandingCapacityManager
 import com.ct.ertclib.dc.core.port.common.IScreenChangedCallback
 import com.ct.ertclib.dc.core.port.expandcapacity.IExpandingCapacityListener
+import com.ct.ertclib.dc.core.utils.common.Base64Utils
 import com.ct.ertclib.dc.core.utils.common.JsonUtil
 import com.ct.ertclib.dc.core.utils.common.LogUtils
 import com.ct.ertclib.dc.core.utils.common.ScreenUtils
+import com.ct.ertclib.dc.core.utils.sketch.StrokeDecoder
+import com.ct.ertclib.dc.core.utils.sketch.StrokeEncoder
+import com.ct.ertclib.dc.core.utils.sketch.StrokeFormat
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
@@ -66,6 +73,10 @@ class SketchBoardUseCase(
         private const val TAG = "SketchBoardUseCase"
         private const val STATUS_CLOSE = "close"
         private const val STATUS_OPEN = "open"
+        // 实时笔画每攒够这么多点下发一次
+        private const val STROKE_STREAM_BATCH_POINTS = 8
+        // 笔画简化容差（像素）
+        private const val STROKE_SIMPLIFY_TOLERANCE = 1.0f
     }
 
     private var callId = ""
@@ -76,6 +87,25 @@ class SketchBoardUseCase(
     private var remoteScreenWidth: Int = 0
     private var remoteScreenHeight: Int = 0
 
+    // 与小程序协商的笔画格式，stroke-v1时本端笔画边画边发
+    private var strokeFormat = StrokeFormat.JSON
+    private var strokeEncoder: StrokeEncoder? = null
+    private var strokeDecoder: StrokeDecoder? = null
+    private var liveStrokeId = -1
+    private val liveStrokePoints = ArrayList<PointBean>()
+
+    // 对端笔画边收边画，结束时再提交为历史笔画
+    private val liveStrokeListener = object : StrokeDecoder.Listener {
+        override fun onStrokeUpdated(strokeId: Int, drawingInfo: DrawingInfo) {
+            // 解码器会继续往pointList里追加点，交给主线程绘制前复制一份
+            screenShareSketchManager.updateLiveSketchInfo(strokeId, drawingInfo.copy(pointList = ArrayList(drawingInfo.pointList)))
+        }
+
+        override fun onStrokeFinished(strokeId: Int, drawingInfo: DrawingInfo) {
+            screenShareSketchManager.finishLiveSketchInfo(strokeId, drawingInfo)
+        }
+    }
+
     private val screenChangedCallback = object : IScreenChangedCallback {
         override fun onScreenChanged(rotation: Int) {
             LogUtils.debug(TAG, "onScreenChanged, rotation: $rotation")
@@ -86,10 +116,20 @@ class SketchBoardUseCase(
         }
     }
 
-    override fun openSketchBoard(telecomCallId: String, appId: String, paintColor: String, paintWidth: Float) {
+    override fun openSketchBoard(telecomCallId: String, appId: String, paintColor: String, paintWidth: Float, strokeFormats: List<String>?) {
         logger.info("openSketchBoard")
         this.appId = appId
         this.callId = telecomCallId
+        strokeFormat = StrokeFormat.negotiate(strokeFormats)
+        if (strokeFormat == StrokeFormat.BINARY_V1) {
+            strokeEncoder = StrokeEncoder(tolerance = STROKE_SIMPLIFY_TOLERANCE)
+            strokeDecoder = StrokeDecoder()
+        } else {
+            strokeEncoder = null
+            strokeDecoder = null
+        }
+        liveStrokeId = -1
+        logger.info("openSketchBoard strokeFormat: $strokeFormat")
         screenShareUseCase.setCallIdAndAppId(telecomCallId, appId)
         if (!Settings.canDrawOverlays(context)) {
             logger.info("openSketchBoard, return")
@@ -99,7 +139,8 @@ class SketchBoardUseCase(
             FUNCTION_SCREEN_SIZE_NOTIFY,
             mapOf(
                 NOTIFY_WIDTH_PARAM to ScreenUtils.getScreenWidth(context),
-                NOTIFY_HEIGHT_PARAM to ScreenUtils.getScreenHeight(context)
+                NOTIFY_HEIGHT_PARAM to ScreenUtils.getScreenHeight(context),
+                NOTIFY_STROKE_FORMAT_PARAM to strokeFormat
             )
         )
 
@@ -131,6 +172,19 @@ class SketchBoardUseCase(
         }
     }
 
+    override fun addStrokeData(strokeData: String) {
+        val decoder = strokeDecoder ?: run {
+            LogUtils.warn(TAG, "addStrokeData strokeFormat is $strokeFormat")
+            return
+        }
+        kotlin.runCatching {
+            val bytes = Base64Utils.decodeBytesFromBase64(strokeData)
+            synchronized(decoder) { decoder.decode(bytes, liveStrokeListener) }
+        }.onFailure {
+            LogUtils.warn(TAG, "addStrokeData failed: $it")
+        }
+    }
+
     override fun addRemoteSizeInfo(width: Int, height: Int) {
         remoteScreenWidth = width
         remoteScreenHeight = height
@@ -168,8 +222,38 @@ class SketchBoardUseCase(
             screenShareUseCase.stopScreenShare(needNotifyToMini = true)
         }
 
+        override fun onSketchStart(drawingInfo: DrawingInfo) {
+            val encoder = strokeEncoder ?: return
+            val firstPoint = drawingInfo.pointList.firstOrNull() ?: return
+            liveStrokeId = encoder.nextStrokeId()
+            liveStrokePoints.clear()
+            notifyStrokeData(encoder.begin(liveStrokeId, drawingInfo.width, drawingInfo.color, firstPoint))
+        }
+
+        override fun onSketchMove(point: PointBean) {
+            val encoder = strokeEncoder ?: return
+            if (liveStrokeId < 0) {
+                return
+            }
+            liveStrokePoints.add(point)
+            if (liveStrokePoints.size >= STROKE_STREAM_BATCH_POINTS) {
+                notifyStrokeData(encoder.append(liveStrokeId, liveStrokePoints))
+                liveStrokePoints.clear()
+            }
+        }
+
         override fun onSketchEvent(drawingInfo: DrawingInfo) {
             logger.info("onSketchEvent")
+            strokeEncoder?.let { encoder ->
+                if (liveStrokeId >= 0) {
+                    notifyStrokeData(encoder.end(liveStrokeId, liveStrokePoints))
+                    liveStrokeId = -1
+                    liveStrokePoints.clear()
+                } else {
+                    notifyStrokeData(encoder.encodeStroke(drawingInfo))
+                }
+                return
+            }
             val drawingNotifyEvent = NotifyEvent(
                 FUNCTION_DRAWING_INO_NOTIFY,
                 mapOf(NOTIFY_DRAWING_INFO_PARAM to JsonUtil.toJson(drawingInfo))
@@ -191,6 +275,17 @@ class SketchBoardUseCase(
         }
     }
 
+    private fun notifyStrokeData(strokeData: ByteArray) {
+        if (strokeData.isEmpty()) {
+            return
+        }
+        val strokeNotifyEvent = NotifyEvent(
+            FUNCTION_DRAWING_INO_NOTIFY,
+            mapOf(NOTIFY_STROKE_DATA_PARAM to Base64Utils.encodeBytesToBase64(strokeData))
+        )
+        parentToMiniNotifier.notifyEvent(callId, appId, strokeNotifyEvent)
+    }
+
     private fun initETEC() {
         LogUtils.debug(TAG, "initETEC")
         val modules = ArrayList<String>()
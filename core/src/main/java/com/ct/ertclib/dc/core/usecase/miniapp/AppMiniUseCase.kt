@@ -19,6 +19,7 @@ package com.ct.ertclib.dc.core.usecase.miniapp
 import android.app.Activity
 import android.content.Context
 import android.content.Intent
+import android.graphics.Bitmap
 import android.net.Uri
 import com.blankj.utilcode.util.FileUtils
 import com.blankj.utilcode.util.Utils
@@ -44,9 +45,11 @@ import com.ct.ertclib.dc.core.constants.MiniAppConstants.ADD_CONTACT_NUMBER_PARA
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.API
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.CONTACT_EDIT_MODE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.DIGIT
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.GET_CONTACT_LIST_CURSOR_PARAM
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.GET_CONTACT_LIST_LIMIT_PARAM
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.GET_CONTACT_LIST_OFFSET_PARAM
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.GET_CONTACT_NAME_NUMBER_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.HTTP_GET_WAY
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.HTTP_POST_WAY
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.HTTP_WAY
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.IS_MUTED
@@ -54,10 +57,18 @@ import com.ct.ertclib.dc.core.constants.MiniAppConstants.IS_SPEAKERPHONE_ON
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.LICENSE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.MUTED
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.SPEAKERPHONE_ON
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_CHUNK
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_CONTENT_LENGTH
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_FILE_NAME
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_FILE_PATH
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_HEADER
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_JSON
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_MEDIA_TYPE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_OFFSET
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_RESPONSE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_SAVE_TO_FILE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_STATUS_CODE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_STREAMED
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_FAILED_CODE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_FAILED_MESSAGE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_SUCCESS_CODE
@@ -69,14 +80,19 @@ import com.ct.ertclib.dc.core.data.common.MediaInfo
 import com.ct.ertclib.dc.core.data.miniapp.MiniAppStartParam
 import com.ct.ertclib.dc.core.data.miniapp.AppRequest
 import com.ct.ertclib.dc.core.data.miniapp.AppResponse
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppHttpRequest
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppHttpResponse
 import com.ct.ertclib.dc.core.data.miniapp.MiniAppPermissions
 import com.ct.ertclib.dc.core.miniapp.aidl.IMessageCallback
 import com.ct.ertclib.dc.core.picker.pickCamera
 import com.ct.ertclib.dc.core.port.common.OnPickMediaCallbackListener
+import com.ct.ertclib.dc.core.port.listener.IHttpResultListener
+import com.ct.ertclib.dc.core.port.manager.IContactsManager
+import com.ct.ertclib.dc.core.port.manager.IMiniAppHttpManager
+import com.ct.ertclib.dc.core.port.manager.IMiniAppIconStore
 import com.ct.ertclib.dc.core.port.manager.IMiniToParentManager
 import com.ct.ertclib.dc.core.port.usecase.mini.IAppMiniUseCase
 import com.ct.ertclib.dc.core.port.usecase.mini.IPermissionUseCase
-import com.ct.ertclib.dc.core.utils.common.HttpUtils
 import com.ct.ertclib.dc.core.utils.common.LogUtils
 import com.ct.ertclib.dc.core.utils.common.PkgUtils
 import com.ct.ertclib.dc.core.utils.common.ScreenUtils
@@ -88,20 +104,21 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
 import wendu.dsbridge.CompletionHandler
 import java.io.File
-import java.util.concurrent.TimeUnit
+import java.io.IOException
 import java.util.regex.Pattern
 import kotlin.collections.get
 
 class AppMiniUseCase(
     private val miniToParentManager: IMiniToParentManager,
-    private val permissionMiniUseCase: IPermissionUseCase) : IAppMiniUseCase {
+    private val permissionMiniUseCase: IPermissionUseCase,
+    private val miniAppHttpManager: IMiniAppHttpManager,
+    private val contactsManager: IContactsManager,
+    private val iconStore: IMiniAppIconStore<Bitmap>) : IAppMiniUseCase {
 
     companion object {
         private const val TAG = "AppMiniUseCase"
-        private const val MAX_LINK_TIME = 15L
     }
 
     private val logger = Logger.getLogger(TAG)
@@ -128,7 +145,7 @@ class AppMiniUseCase(
             mapOf("telecomCallId" to miniToParentManager.getCallInfo()?.telecomCallId)
         )
         scope.launch {
-            miniToParentManager.sendMessageToParent(request.toJson(), null)
+            miniToParentManager.sendRequestToParent(request, null)
             logger.debug("hangUp")
         }
         val response = JSResponse("0", "success", "")
@@ -156,7 +173,7 @@ class AppMiniUseCase(
             mapOf("telecomCallId" to miniToParentManager.getCallInfo()?.telecomCallId)
         )
         scope.launch {
-            miniToParentManager.sendMessageToParent(request.toJson(), null)
+            miniToParentManager.sendRequestToParent(request, null)
             logger.debug("answer")
         }
         val response = JSResponse("0", "success", "")
@@ -198,7 +215,7 @@ class AppMiniUseCase(
             mapOf("telecomCallId" to miniToParentManager.getCallInfo()?.telecomCallId,DIGIT to digit.toString().first())
         )
         scope.launch {
-            miniToParentManager.sendMessageToParent(request.toJson(), null)
+            miniToParentManager.sendRequestToParent(request, null)
             logger.debug("playDtmfTone")
         }
         val response = JSResponse("0", "success", "")
@@ -235,7 +252,7 @@ class AppMiniUseCase(
             mapOf(SPEAKERPHONE_ON to (on as Boolean))
         )
         scope.launch {
-            miniToParentManager.sendMessageToParent(request.toJson(), null)
+            miniToParentManager.sendRequestToParent(request, null)
             logger.debug("setSpeakerphone")
         }
         val response = JSResponse("0", "success", "")
@@ -266,7 +283,7 @@ class AppMiniUseCase(
             mapOf()
         )
         scope.launch {
-            miniToParentManager.sendMessageToParent(request.toJson(), object : IMessageCallback.Stub(){
+            miniToParentManager.sendRequestToParent(request, object : IMessageCallback.Stub(){
                 override fun reply(message: String?) {
                     try {
                         if (message != null) {
@@ -318,7 +335,7 @@ class AppMiniUseCase(
             mapOf(MUTED to (muted as Boolean))
         )
         scope.launch {
-            miniToParentManager.sendMessageToParent(request.toJson(), null)
+            miniToParentManager.sendRequestToParent(request, null)
             logger.debug("setMuted")
         }
         val response = JSResponse("0", "success", "")
@@ -349,7 +366,7 @@ class AppMiniUseCase(
             mapOf()
         )
         scope.launch {
-            miniToParentManager.sendMessageToParent(request.toJson(), object : IMessageCallback.Stub(){
+            miniToParentManager.sendRequestToParent(request, object : IMessageCallback.Stub(){
                 override fun reply(message: String?) {
                     try {
                         if (message != null) {
@@ -403,7 +420,7 @@ class AppMiniUseCase(
         val jsResponse = JSResponse("0", "success", mutableMapOf(
             "appId" to miniAppInfo?.appId,
             "appName" to miniAppInfo?.appName,
-            "appIcon" to miniAppInfo?.appIcon,
+            "appIcon" to iconStore.toInlineIcon(miniAppInfo?.appIcon),
             "callId" to miniAppInfo?.callId,
             "eTag" to miniAppInfo?.eTag,
             "ifWorkWithoutPeerDc" to miniAppInfo?.ifWorkWithoutPeerDc,
@@ -435,7 +452,7 @@ class AppMiniUseCase(
                         )
                         scope.launch {
                             withContext(Dispatchers.IO) {
-                                miniToParentManager.sendMessageToParent(request.toJson(), object : IMessageCallback.Stub(){
+                                miniToParentManager.sendRequestToParent(request, object : IMessageCallback.Stub(){
                                     override fun reply(message: String?) {
                                         try {
                                             if (message != null) {
@@ -649,7 +666,7 @@ class AppMiniUseCase(
                         )
                         scope.launch {
                             withContext(Dispatchers.IO) {
-                                miniToParentManager.sendMessageToParent(request.toJson(), object : IMessageCallback.Stub(){
+                                miniToParentManager.sendRequestToParent(request, object : IMessageCallback.Stub(){
                                     override fun reply(message: String?) {
                                         try {
                                             if (message != null) {
@@ -826,8 +843,8 @@ class AppMiniUseCase(
     }
 
     override fun requestStartAdverseApp(context: Context): String {
-        val appRequestJson = AppRequest(COMMON_APP_EVENT, ACTION_REQUEST_START_ADVERSE_APP, mapOf()).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, null)
+        val appRequest = AppRequest(COMMON_APP_EVENT, ACTION_REQUEST_START_ADVERSE_APP, mapOf())
+        miniToParentManager.sendRequestToParent(appRequest, null)
         val response = JSResponse("0", "success", "")
         return JsonUtil.toJson(response)
     }
@@ -909,16 +926,20 @@ class AppMiniUseCase(
         }
         val offset = (params[GET_CONTACT_LIST_OFFSET_PARAM] as? String)?.toInt()
         val limit = (params[GET_CONTACT_LIST_LIMIT_PARAM] as? String)?.toInt()
-        logger.debug("getContactList, offset: $offset limit: $limit")
-        if (offset == null || limit == null){
+        val cursor = params[GET_CONTACT_LIST_CURSOR_PARAM] as? String
+        logger.debug("getContactList, offset: $offset limit: $limit cursor: $cursor")
+        if ((offset == null && cursor == null) || limit == null){
             logger.warn("getContactList, param offset or limit is null, return")
             handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, null)))
             return
         }
         scope.launch(Dispatchers.IO) {
-            val list = CallUtils.getContactList(context,offset,limit)
-            val total = CallUtils.getContactCount(context)
-            val response = JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, hashMapOf("list" to list, "total" to total))
+            val page = if (cursor != null) {
+                contactsManager.getContactsAfter(cursor, limit)
+            } else {
+                contactsManager.getContacts(offset!!, limit)
+            }
+            val response = JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, hashMapOf("list" to page.list, "total" to page.total, "nextCursor" to page.nextCursor))
             scope.launch(Dispatchers.Main) {
                 handler.complete(JsonUtil.toJson(response))
             }
@@ -957,84 +978,77 @@ class AppMiniUseCase(
     }
     
     override fun getHttpResult(params: Map<String, Any>, handler: CompletionHandler<String?>) {
-        scope.launch {
-            val url = params[URL] as? String
-            val httpWay = params[HTTP_WAY] as? String
-            val paramsJson = params[PARAMS_JSON] as? String
-            val mediaType = params[PARAMS_MEDIA_TYPE] as? String
-            val headers = params[PARAMS_HEADER] as? String
-            val decodeHeader = headers?.let {
-                String(com.ct.ertclib.dc.core.utils.common.FileUtils.base64ToByteArray(it))
+        val url = params[URL] as? String
+        val httpWay = params[HTTP_WAY] as? String
+        val paramsJson = params[PARAMS_JSON] as? String
+        val mediaType = params[PARAMS_MEDIA_TYPE] as? String
+        val headers = params[PARAMS_HEADER] as? String
+        val saveToFile = params[PARAMS_SAVE_TO_FILE] as? Boolean ?: false
+        val decodeHeader = headers?.let {
+            String(com.ct.ertclib.dc.core.utils.common.FileUtils.base64ToByteArray(it))
+        }
+        logger.debug { "getHttpResult url : $url, httpWay: $httpWay, mediaType: $mediaType, decodeHeader: $decodeHeader, saveToFile: $saveToFile" }
+        if (url == null || (httpWay == HTTP_POST_WAY && (mediaType == null || paramsJson == null))) {
+            handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, "")))
+            return
+        }
+        val headMap = mutableMapOf<String, String>()
+        decodeHeader?.let {
+            val headerMap = JsonUtil.fromJson(decodeHeader, Map::class.java)
+            headerMap?.forEach { (entry, value) ->
+                headMap[entry.toString()] = value.toString()
             }
-            LogUtils.debug(TAG, "getHttpResult url : $url, httpWay: $httpWay, paramsJson: $paramsJson, mediaType: $mediaType, decodeHeader: $decodeHeader")
-            val okHttpClient = OkHttpClient.Builder()
-                .connectTimeout(MAX_LINK_TIME, TimeUnit.SECONDS)
-                .readTimeout(MAX_LINK_TIME, TimeUnit.SECONDS)
-                .writeTimeout(MAX_LINK_TIME, TimeUnit.SECONDS)
-                .build()
-            url ?: return@launch
-            if (httpWay == HTTP_POST_WAY) {
-                if (mediaType == null || paramsJson == null) {
-                    return@launch
-                }
-                val decodeJson = String(com.ct.ertclib.dc.core.utils.common.FileUtils.base64ToByteArray(paramsJson))
-                LogUtils.debug(TAG, "getHttpResult, decodeJson: $decodeJson")
-
-                val headMap = mutableMapOf<String, String>()
-                decodeHeader?.let {
-                    val headerMap = JsonUtil.fromJson(decodeHeader, Map::class.java)
-                    headerMap?.forEach { (entry, value) ->
-                        headMap[entry.toString()] = value.toString()
-                    }
-                }
-                HttpUtils.sendPostRequest(url, headMap, paramsJson, mediaType) { result ->
-                    if (result == HttpUtils.REQUEST_FAILED) {
-                        val jsResponse = JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, "")
-                        logger.debug("getHttpResult, failed")
-                        handler.complete(JsonUtil.toJson(jsResponse))
-                    } else {
-                        val jsResponse = JSResponse(
-                            RESPONSE_SUCCESS_CODE,
-                            RESPONSE_SUCCESS_MESSAGE,
-                            hashMapOf(
-                                PARAMS_RESPONSE to com.ct.ertclib.dc.core.utils.common.FileUtils.byteArrayToBase64(
-                                    result.toByteArray()
-                                )
-                            )
-                        )
-                        logger.debug("getHttpResult, get success result: $result")
-                        handler.complete(JsonUtil.toJson(jsResponse))
-                    }
-                }
-            } else {
-                val headMap = mutableMapOf<String, String>()
-                decodeHeader?.let {
-                    val headerMap = JsonUtil.fromJson(decodeHeader, Map::class.java)
-                    headerMap?.forEach { (entry, value) ->
-                        headMap[entry.toString()] = value.toString()
-                    }
-                }
-                HttpUtils.sendGetRequest(url, headMap) { result ->
-                    if (result == HttpUtils.REQUEST_FAILED) {
-                        val jsResponse = JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, "")
-                        logger.debug("getHttpResult, failed")
-                        handler.complete(JsonUtil.toJson(jsResponse))
-                    } else {
-                        val jsResponse = JSResponse(
-                            RESPONSE_SUCCESS_CODE,
-                            RESPONSE_SUCCESS_MESSAGE,
-                            hashMapOf(
-                                PARAMS_RESPONSE to com.ct.ertclib.dc.core.utils.common.FileUtils.byteArrayToBase64(
-                                    result.toByteArray()
-                                )
-                            )
-                        )
-                        logger.debug("getHttpResult, get success result: $result")
-                        handler.complete(JsonUtil.toJson(jsResponse))
-                    }
-                }
+        }
+        val appId = miniToParentManager.getMiniAppInfo()?.appId ?: TAG
+        val saveTo = if (saveToFile) {
+            val fileName = (params[PARAMS_FILE_NAME] as? String)?.substringAfterLast('/')?.takeIf { it.isNotEmpty() }
+                ?: System.currentTimeMillis().toString()
+            val downloadDir = miniAppHttpManager.getDownloadDir(appId)
+            val target = File(downloadDir, fileName)
+            // ".."、"."这类文件名会落到下载目录之外
+            if (!target.canonicalPath.startsWith(downloadDir.canonicalPath + File.separator)) {
+                logger.warn("getHttpResult invalid fileName: $fileName")
+                handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("reason" to "invalid fileName"))))
+                return
             }
+            target
+        } else {
+            null
         }
+        val request = if (httpWay == HTTP_POST_WAY) {
+            MiniAppHttpRequest(appId, url, HTTP_POST_WAY, headMap, paramsJson!!.toByteArray(), mediaType, saveTo)
+        } else {
+            MiniAppHttpRequest(appId, url, HTTP_GET_WAY, headMap, saveTo = saveTo)
+        }
+        miniAppHttpManager.execute(request, object : IHttpResultListener {
+            override fun onResponse(response: MiniAppHttpResponse) {
+                val data = hashMapOf<String, Any>(
+                    PARAMS_STATUS_CODE to response.code,
+                    PARAMS_CONTENT_LENGTH to response.contentLength
+                )
+                when {
+                    response.file != null -> data[PARAMS_FILE_PATH] = response.file.absolutePath
+                    response.streamed -> data[PARAMS_STREAMED] = true
+                    else -> data[PARAMS_RESPONSE] = com.ct.ertclib.dc.core.utils.common.FileUtils.byteArrayToBase64(response.body ?: ByteArray(0))
+                }
+                logger.debug { "getHttpResult, code: ${response.code}, length: ${response.contentLength}, fromCache: ${response.fromCache}, coalesced: ${response.coalesced}" }
+                handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, data)))
+            }
+
+            override fun onFailure(e: IOException) {
+                logger.debug("getHttpResult, failed: $e")
+                handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, "")))
+            }
+
+            override fun onChunk(data: ByteArray, length: Int, offset: Long) {
+                // 大响应分块推送给JS，最后由complete结束
+                val chunk = hashMapOf<String, Any>(
+                    PARAMS_CHUNK to com.ct.ertclib.dc.core.utils.common.FileUtils.byteArrayToBase64(data.copyOf(length)),
+                    PARAMS_OFFSET to offset
+                )
+                handler.setProgressData(JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, chunk)))
+            }
+        })
     }
 
     override fun moveToFrontAsync(handler: CompletionHandler<String?>) {
@@ -1042,8 +1056,8 @@ class AppMiniUseCase(
     }
 
     override fun moveToFront(): String {
-        val appRequestJson = AppRequest(COMMON_APP_EVENT, ACTION_MOVE_TO_FRONT, mapOf()).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, null)
+        val appRequest = AppRequest(COMMON_APP_EVENT, ACTION_MOVE_TO_FRONT, mapOf())
+        miniToParentManager.sendRequestToParent(appRequest, null)
         val response = JSResponse("0", "success", "")
         return JsonUtil.toJson(response)
     }
@@ -129,7 +129,8 @@ class DCMiniUseCase(private val miniToParentManager: IMiniToParentManager) :
 
         val dcLabelStr = dcLabel as String
         scope.launch(Dispatchers.IO) {
-            logger.info("JSApi asyn ,sendData dcLabel:$dcLabelStr, data:$data")
+            logger.info("JSApi asyn ,sendData dcLabel:$dcLabelStr, size:${dataByteArray.size}")
+            logger.debug { "JSApi asyn ,sendData dcLabel:$dcLabelStr, data:$data" }
             val dc = miniToParentManager.openDCList?.firstOrNull { DCUtils.compareDCLabel(it.dcLabel, dcLabelStr) }
             dc?.send(dataByteArray, dataByteArray.size, object : IDCSendDataCallback.Stub() {
                 override fun onSendDataResult(state: Int) {
@@ -175,7 +176,7 @@ class DCMiniUseCase(private val miniToParentManager: IMiniToParentManager) :
         val request = AppRequest(CALL_APP_EVENT, ACTION_IS_PEER_SUPPORT_DC, mapOf())
         scope.launch {
             withContext(Dispatchers.IO) {
-                miniToParentManager.sendMessageToParent(request.toJson(),object : IMessageCallback.Stub(){
+                miniToParentManager.sendRequestToParent(request,object : IMessageCallback.Stub(){
                     override fun reply(message: String?) {
                         try {
                             if (message != null) {
@@ -56,7 +56,7 @@ class ECUseCase(private val miniToParentManager: IMiniToParentManager) :
         )
         scope.launch {
             withContext(Dispatchers.IO) {
-                miniToParentManager.sendMessageToParent(request.toJson(), object :  IMessageCallback.Stub(){
+                miniToParentManager.sendRequestToParent(request, object :  IMessageCallback.Stub(){
                     override fun reply(message: String?) {
                         try {
                             if (message != null) {
@@ -99,7 +99,7 @@ class ECUseCase(private val miniToParentManager: IMiniToParentManager) :
         )
         scope.launch {
             withContext(Dispatchers.IO) {
-                miniToParentManager.sendMessageToParent(request.toJson(), null)
+                miniToParentManager.sendRequestToParent(request, null)
             }
         }
         val response = JSResponse("0", "success", "")
@@ -126,7 +126,7 @@ class ECUseCase(private val miniToParentManager: IMiniToParentManager) :
         )
         scope.launch {
             withContext(Dispatchers.IO) {
-                miniToParentManager.sendMessageToParent(request.toJson(), null)
+                miniToParentManager.sendRequestToParent(request, null)
             }
         }
         val response = JSResponse("0", "success", "")
@@ -16,25 +16,23 @@
 
 package com.ct.ertclib.dc.core.usecase.miniapp
 
-import android.annotation.SuppressLint
 import android.content.Context
 import android.content.DialogInterface
 import android.content.Intent
-import android.location.Criteria
-import android.location.LocationListener
-import android.location.LocationManager
 import android.net.Uri
 import android.os.Environment
 import android.provider.Settings
 import android.text.TextUtils
 import androidx.appcompat.app.AlertDialog
-import com.blankj.utilcode.util.SPUtils
 import com.blankj.utilcode.util.ZipUtils
-import com.ct.ertclib.dc.core.R
 import com.ct.ertclib.dc.core.utils.logger.Logger
 import com.ct.ertclib.dc.core.utils.common.JsonUtil
 import com.ct.ertclib.dc.core.common.PathManager
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_DOWNLOAD_PROGRESS_NOTIFY
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.KEY_PARAM
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.LOCATION_ACCURACY
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.LOCATION_MAX_AGE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.LOCATION_TIMEOUT
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_DOWNLOAD_EVENT
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_DOWNLOAD_URL
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_EXTRA_INFO
@@ -42,6 +40,7 @@ import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_FILE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_FILE_NAME
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_FILE_PATH
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_MODEL
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.PARAMS_TASK_ID
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_FAILED_CODE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_FAILED_MESSAGE
 import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_SUCCESS_CODE
@@ -51,6 +50,7 @@ import com.ct.ertclib.dc.core.constants.MiniAppConstants.VALUE_PARAM
 import com.ct.ertclib.dc.core.data.bridge.JSResponse
 import com.ct.ertclib.dc.core.data.common.DownloadData
 import com.ct.ertclib.dc.core.data.common.MediaInfo
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppLocationRequest
 import com.ct.ertclib.dc.core.data.miniapp.MiniAppPermissions
 import com.ct.ertclib.dc.core.data.miniapp.ModelInfo
 import com.ct.ertclib.dc.core.data.model.ModelEntity
@@ -59,6 +59,8 @@ import com.ct.ertclib.dc.core.manager.common.SPManager
 import com.ct.ertclib.dc.core.port.common.OnPickMediaCallbackListener
 import com.ct.ertclib.dc.core.port.listener.IDownloadListener
 import com.ct.ertclib.dc.core.port.manager.IFileDownloadManager
+import com.ct.ertclib.dc.core.port.manager.IMiniAppKvStore
+import com.ct.ertclib.dc.core.port.manager.IMiniAppLocationService
 import com.ct.ertclib.dc.core.port.manager.IMiniToParentManager
 import com.ct.ertclib.dc.core.port.manager.IModelManager
 import com.ct.ertclib.dc.core.port.usecase.mini.IFileMiniEventUseCase
@@ -70,9 +72,9 @@ import com.ct.ertclib.dc.core.utils.common.ToastUtils
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
-import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
+import okhttp3.HttpUrl.Companion.toHttpUrlOrNull
 import wendu.dsbridge.CompletionHandler
 import java.io.File
 import java.io.FileFilter
@@ -81,12 +83,15 @@ import java.io.FileOutputStream
 import java.io.InputStream
 import java.io.OutputStream
 import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
 
 class FileMiniUseCase(
     private val miniToParentManager: IMiniToParentManager,
     private val permissionMiniUseCase: IPermissionUseCase,
     private val modelManager: IModelManager,
-    private val fileDownloadManager: IFileDownloadManager
+    private val fileDownloadManager: IFileDownloadManager,
+    private val kvStore: IMiniAppKvStore,
+    private val locationService: IMiniAppLocationService
 ) : IFileMiniEventUseCase {
 
     companion object {
@@ -98,10 +103,13 @@ class FileMiniUseCase(
     private var mFileInputStream: InputStream? = null
     private var mFileOutputStream: OutputStream? = null
     private val scope = CoroutineScope(Dispatchers.Default + SupervisorJob())
+    // 本进程发起且未结束的下载
+    private val downloadTaskIds: MutableSet<String> = ConcurrentHashMap.newKeySet()
 
 
     override fun getLocation(
         context: Context,
+        params: Map<String, Any>,
         handler: CompletionHandler<String?>
     ) {
         logger.info("getLocation")
@@ -118,11 +126,16 @@ class FileMiniUseCase(
             logger.warn("getLocation, appInfo is null, return")
             return
         }
-        scope.launch {
-            withContext(Dispatchers.Main) {
-                requestLocation(context, handler)
+        if (!locationService.isProviderEnabled()) {
+            scope.launch(Dispatchers.Main) {
+                askLocationSettings(context)
             }
+            val response = JSResponse("1", "location service disabled", "")
+            handler.complete(JsonUtil.toJson(response))
+            logger.warn("getLocation, location service disabled, return")
+            return
         }
+        requestLocation(params, handler)
     }
 
     override fun selectFile(context: Context, handler: CompletionHandler<String?>) {
@@ -1011,7 +1024,7 @@ class FileMiniUseCase(
             return JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, null))
         }
         miniToParentManager.getMiniAppInfo()?.let{
-            SPUtils.getInstance().put(it.appId+key,value)
+            return putKeyValue(it.appId, key, value, IMiniAppKvStore.NO_EXPIRY)
         }
         val response = JSResponse("0", "success", null)
         return JsonUtil.toJson(response)
@@ -1048,12 +1061,22 @@ class FileMiniUseCase(
         }
 
         miniToParentManager.getMiniAppInfo()?.let{
-            SPManager.instance.saveUpdateKeyValueWithExpiry(it.appId+key,value,ttl.toLong())
+            return putKeyValue(it.appId, key, value, ttl.toLong())
         }
         val response = JSResponse("0", "success", null)
         return JsonUtil.toJson(response)
     }
 
+    private fun putKeyValue(appId: String, key: String, value: String, ttl: Long): String? {
+        if (!kvStore.put(appId, key, value, ttl)) {
+            logger.warn("saveKeyValue, quota exceeded, appId: $appId")
+            return JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, "storage quota exceeded", null))
+        }
+        // 覆盖旧版本存在SP里的同名key
+        SPManager.instance.removeLegacyKeyValue(appId + key)
+        return JsonUtil.toJson(JSResponse("0", "success", null))
+    }
+
     override fun deleteKeyValueAsync(
         context: Context,
         params: Map<String, Any>,
@@ -1069,8 +1092,9 @@ class FileMiniUseCase(
             return JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, null))
         }
         miniToParentManager.getMiniAppInfo()?.let{ appInfo ->
+            kvStore.remove(appInfo.appId, key)
             scope.launch(Dispatchers.IO) {
-                SPManager.instance.deleteKeyValue(appInfo.appId+key)
+                SPManager.instance.removeLegacyKeyValue(appInfo.appId+key)
             }
         }
         val response = JSResponse("0", "success", null)
@@ -1161,7 +1185,7 @@ class FileMiniUseCase(
             return JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, null))
         }
         miniToParentManager.getMiniAppInfo()?.let{
-            val value = SPManager.instance.getKeyValue(it.appId+key)
+            val value = kvStore.get(it.appId, key) ?: SPManager.instance.getKeyValue(it.appId+key)
             val valueMap = mutableMapOf<String, String>()
             valueMap["value"] = value
             val response = JSResponse("0", "success", valueMap)
@@ -1285,57 +1309,33 @@ class FileMiniUseCase(
             handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("reason" to "empty params"))))
             return
         }
+        if (url.toHttpUrlOrNull() == null) {
+            handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("reason" to "invalid url"))))
+            return
+        }
         if (!SystemUtils.isWiFiConnected(context)) {
             handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("reason" to "network not Wi-Fi"))))
+            return
         }
         when (downloadEvent) {
             PARAMS_MODEL -> {
-                scope.launch {
-                    val modelInfo = JsonUtil.fromJson(infoJson, ModelInfo::class.java)
-                    val modelName = modelInfo?.modelName
-                    val fileName = "$modelName.zip"
-                    val downloadFileFolder = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS).path
-                    val downloadFilePath = "$downloadFileFolder${File.separator}$fileName"
-                    val targetFileDir = "${context.filesDir}${File.separator}$FILE_MODEL_PATH${File.separator}$modelName${File.separator}"
-                    val downloadListener = object : IDownloadListener {
-                        override fun onDownloadProgress(progress: Int) {
-                            LogUtils.debug(TAG, "onDownloadProgress progress: $progress")
-                        }
-
-                        override fun onDownloadSuccess() {
-                            LogUtils.debug(TAG, "onDownloadSuccess")
-                            kotlin.runCatching {
-                                FileUtils.deletePath(targetFileDir)
-                                ZipUtils.unzipFile(downloadFilePath, targetFileDir)
-                            }.onFailure {
-                                LogUtils.error(TAG, "onDownloadSuccess unzipFile failed: $this")
-                            }
-                            val zipFile = File(downloadFilePath)
-                            if (zipFile.exists()) {
-                                zipFile.delete()
-                            }
-                            val modelFilePath = "${targetFileDir}config.json"
-                            modelInfo?.let {
-                                val modelEntity = ModelEntity(modelId = modelInfo.modelId, modelName = modelInfo.modelName, modelPath = modelFilePath, modelVersion = modelInfo.modelVersion, modelType = modelInfo.modelType, "")
-                                modelManager.insertOrUpdate(modelEntity)
-                            }
-                            val response = JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, mapOf("result" to "true"))
-                            handler.complete(JsonUtil.toJson(response))
-                        }
-
-                        override fun onDownloadFailed() {
-                            LogUtils.debug(TAG, "onDownloadFailed")
-                            handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("result" to "false"))))
+                val modelInfo = JsonUtil.fromJson(infoJson, ModelInfo::class.java)
+                val modelName = modelInfo?.modelName
+                val modelDir = File(context.filesDir, FILE_MODEL_PATH)
+                val targetFileDir = File(modelDir, "$modelName")
+                val zipFile = File(modelDir, "$modelName.zip")
+                val downloadData = DownloadData(url, zipFile, targetFileDir)
+                startDownload(downloadData, object : DownloadNotifier(downloadEvent, url, fileDownloadManager.taskIdOf(downloadData), handler) {
+                    override fun onDownloadSuccess() {
+                        zipFile.delete()
+                        val modelFilePath = "${targetFileDir.path}${File.separator}config.json"
+                        modelInfo?.let {
+                            val modelEntity = ModelEntity(modelId = modelInfo.modelId, modelName = modelInfo.modelName, modelPath = modelFilePath, modelVersion = modelInfo.modelVersion, modelType = modelInfo.modelType, "")
+                            modelManager.insertOrUpdate(modelEntity)
                         }
+                        super.onDownloadSuccess()
                     }
-                    if (fileDownloadManager.isDownloading) {
-                        handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("reason" to "other task is running"))))
-                    } else {
-                        val downloadData = DownloadData(url, context.getString(R.string.download_model_title), context.getString(
-                            R.string.download_model_description), fileName)
-                        fileDownloadManager.startDownload(downloadData, downloadListener)
-                    }
-                }
+                })
             }
             PARAMS_FILE -> {
                 val filePath = params[PARAMS_FILE_PATH] as? String
@@ -1344,29 +1344,10 @@ class FileMiniUseCase(
                     handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("reason" to "empty params"))))
                     return
                 }
-                val downloadListener = object : IDownloadListener {
-                    override fun onDownloadProgress(progress: Int) {
-                        LogUtils.debug(TAG, "onDownloadProgress progress: $progress")
-                    }
-
-                    override fun onDownloadSuccess() {
-                        LogUtils.debug(TAG, "onDownloadSuccess")
-                        val response = JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, mapOf("result" to "true"))
-                        handler.complete(JsonUtil.toJson(response))
-                    }
-
-                    override fun onDownloadFailed() {
-                        LogUtils.debug(TAG, "onDownloadFailed")
-                        handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("result" to "false"))))
-                    }
-                }
-                if (fileDownloadManager.isDownloading) {
-                    handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("reason" to "other task is running"))))
-                } else {
-                    val downloadData = DownloadData(url, context.getString(R.string.download_file_title), context.getString(
-                        R.string.download_file_description), "${filePath}${File.separator}${fileName}")
-                    fileDownloadManager.startDownload(downloadData, downloadListener)
-                }
+                val downloadDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS)
+                val destination = File(downloadDir, "${filePath}${File.separator}${fileName}")
+                val downloadData = DownloadData(url, destination)
+                startDownload(downloadData, DownloadNotifier(downloadEvent, url, fileDownloadManager.taskIdOf(downloadData), handler))
             }
             else -> {
                 handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("reason" to "invalid downloadEvent"))))
@@ -1374,64 +1355,88 @@ class FileMiniUseCase(
         }
     }
 
-    @SuppressLint("MissingPermission")
-    private fun requestLocation(context: Context, handler: CompletionHandler<String?>){
-        val locationMap = mutableMapOf<String, String>()
-        val locationManager =
-            context.getSystemService(LocationManager::class.java)
-        var hasRemoveUpdates = false
-        if (!locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER)
-            && !locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)
-        ) {
-            askLocationSettings(context)
-        } else {
-            var locationListener: LocationListener? = null
-            locationListener = LocationListener { location ->
-                logger.info("locationManager get location lat = ${location.latitude}, lon = ${location.longitude})")
-                locationMap["lon"] = location.longitude.toString()
-                locationMap["lat"] = location.latitude.toString()
-                locationListener?.let {
-                    hasRemoveUpdates = true
-                    try {
-                        locationManager.removeUpdates(it)
-                    } catch (e:Exception){
-                        e.printStackTrace()
-                    }
-                }
-                val response = JSResponse("0", "success", locationMap)
-                handler.complete(JsonUtil.toJson(response))
-            }
-            val criteria = Criteria();
-            criteria.accuracy = Criteria.ACCURACY_FINE
-            criteria.isAltitudeRequired = false//不要求海拔
-            criteria.isBearingRequired = false//不要求方位
-            criteria.isCostAllowed = true//允许有花费
-            criteria.powerRequirement = Criteria.POWER_LOW;//低功耗
-            val bestProvider = locationManager.getBestProvider(criteria, false)
-            logger.info("location provider = $bestProvider")
-
-            bestProvider?.let{
-                try {
-                    locationManager.requestLocationUpdates(
-                        bestProvider,
-                        200,
-                        5f,
-                        locationListener
-                    )
-                    scope.launch {
-                        delay(3000)
-                        if (!hasRemoveUpdates){
-                            try {
-                                locationManager.removeUpdates(locationListener)
-                            } catch (e:Exception){
-                                e.printStackTrace()
-                            }
-                        }
-                    }
-                } catch (e: Exception) {
-                    logger.error(e.message, e)
-                }
+    override fun cancelFileDownloadAsync(
+        context: Context,
+        params: Map<String, Any>,
+        handler: CompletionHandler<String?>
+    ) {
+        handler.complete(cancelFileDownload(context, params))
+    }
+
+    override fun cancelFileDownload(context: Context, params: Map<String, Any>): String? {
+        val taskId = params[PARAMS_TASK_ID] as? String
+        // 只能取消本进程发起的下载
+        if (taskId == null || !downloadTaskIds.contains(taskId)) {
+            logger.warn("cancelFileDownload, unknown taskId:$taskId")
+            return JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("reason" to "unknown taskId")))
+        }
+        fileDownloadManager.cancelDownload(taskId)
+        return JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, mapOf("result" to "true")))
+    }
+
+    private fun startDownload(downloadData: DownloadData, notifier: DownloadNotifier) {
+        downloadTaskIds.add(notifier.taskId)
+        fileDownloadManager.startDownload(downloadData, notifier)
+        // 任务可能还在排队，先把任务id推给小程序，用于取消
+        notifier.onDownloadProgress(0, -1)
+    }
+
+    /**
+     * 下载进度推送给小程序，进度和结果都带有任务id
+     */
+    private open inner class DownloadNotifier(
+        private val downloadEvent: String,
+        private val url: String,
+        val taskId: String,
+        private val handler: CompletionHandler<String?>
+    ) : IDownloadListener {
+
+        override fun onDownloadProgress(downloadedBytes: Long, totalBytes: Long) {
+            val progress = if (totalBytes > 0) (downloadedBytes * 100 / totalBytes).toInt() else 0
+            LogUtils.debug(TAG, "onDownloadProgress progress: $progress")
+            val map = mapOf(
+                PARAMS_DOWNLOAD_EVENT to downloadEvent,
+                PARAMS_DOWNLOAD_URL to url,
+                PARAMS_TASK_ID to taskId,
+                "progress" to progress,
+                "downloadedBytes" to downloadedBytes,
+                "totalBytes" to totalBytes
+            )
+            miniToParentManager.callHandler(FUNCTION_DOWNLOAD_PROGRESS_NOTIFY, arrayOf(JsonUtil.toJson(map)))
+        }
+
+        override fun onDownloadSuccess() {
+            LogUtils.debug(TAG, "onDownloadSuccess")
+            downloadTaskIds.remove(taskId)
+            val response = JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, mapOf("result" to "true", PARAMS_TASK_ID to taskId))
+            handler.complete(JsonUtil.toJson(response))
+        }
+
+        override fun onDownloadFailed(reason: String) {
+            LogUtils.debug(TAG, "onDownloadFailed: $reason")
+            downloadTaskIds.remove(taskId)
+            handler.complete(JsonUtil.toJson(JSResponse(RESPONSE_FAILED_CODE, RESPONSE_FAILED_MESSAGE, mapOf("result" to "false", "reason" to reason, PARAMS_TASK_ID to taskId))))
+        }
+    }
+
+    private fun requestLocation(params: Map<String, Any>, handler: CompletionHandler<String?>) {
+        val request = MiniAppLocationRequest(
+            maxAgeMillis = params[LOCATION_MAX_AGE]?.toString()?.toDoubleOrNull()?.toLong()
+                ?: MiniAppLocationRequest.DEFAULT_MAX_AGE_MILLIS,
+            accuracyMeters = params[LOCATION_ACCURACY]?.toString()?.toFloatOrNull()
+                ?: MiniAppLocationRequest.ANY_ACCURACY,
+            timeoutMillis = params[LOCATION_TIMEOUT]?.toString()?.toDoubleOrNull()?.toLong()
+                ?: MiniAppLocationRequest.DEFAULT_TIMEOUT_MILLIS
+        )
+        locationService.requestLocation(request) { fix ->
+            val response = if (fix == null) {
+                logger.warn("requestLocation, timeout")
+                JSResponse("1", "location timeout", "")
+            } else {
+                logger.info("requestLocation, accuracy: ${fix.accuracyMeters}")
+                JSResponse("0", "success", mapOf("lon" to fix.longitude.toString(), "lat" to fix.latitude.toString()))
             }
+            handler.complete(JsonUtil.toJson(response))
         }
     }
 
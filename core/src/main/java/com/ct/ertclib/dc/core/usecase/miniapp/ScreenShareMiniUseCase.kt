@@ -53,8 +53,8 @@ class ScreenShareMiniUseCase(private val miniToParentManager: IMiniToParentManag
     private val logger = Logger.getLogger(TAG)
 
     override fun startScreenShare(context: Context, params: Map<String, Any>,handler: CompletionHandler<String?>) {
-        val appRequestJson = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_START_SCREEN_SHARE, params).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, object : IMessageCallback.Stub() {
+        val appRequest = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_START_SCREEN_SHARE, params)
+        miniToParentManager.sendRequestToParent(appRequest, object : IMessageCallback.Stub() {
             override fun reply(message: String?) {
                 message?.let {
                     logger.info("startScreenShare reply: $message")
@@ -76,14 +76,14 @@ class ScreenShareMiniUseCase(private val miniToParentManager: IMiniToParentManag
     }
 
     override fun stopScreenShare(context: Context): String {
-        val appRequestJson = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_STOP_SCREEN_SHARE, mapOf()).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, null)
+        val appRequest = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_STOP_SCREEN_SHARE, mapOf())
+        miniToParentManager.sendRequestToParent(appRequest, null)
         return JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, null))
     }
 
     override fun requestScreenShareAbility(handler: CompletionHandler<String?>) {
-        val appRequestJson = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_REQUEST_SCREEN_SHARE_ABILITY, mapOf()).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, object : IMessageCallback.Stub() {
+        val appRequest = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_REQUEST_SCREEN_SHARE_ABILITY, mapOf())
+        miniToParentManager.sendRequestToParent(appRequest, object : IMessageCallback.Stub() {
             override fun reply(message: String?) {
                 message?.let {
                     logger.info("requestScreenShareAbility reply: $message")
@@ -105,8 +105,8 @@ class ScreenShareMiniUseCase(private val miniToParentManager: IMiniToParentManag
     }
 
     override fun openSketchBoard(params: Map<String, Any>): String {
-        val appRequestJson = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_OPEN_SKETCH_BOARD, params).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, null)
+        val appRequest = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_OPEN_SKETCH_BOARD, params)
+        miniToParentManager.sendRequestToParent(appRequest, null)
         return JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, null))
     }
 
@@ -115,8 +115,8 @@ class ScreenShareMiniUseCase(private val miniToParentManager: IMiniToParentManag
     }
 
     override fun closeSketchBoard(): String {
-        val appRequestJson = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_CLOSE_SKETCH_BOARD, mapOf()).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, null)
+        val appRequest = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_CLOSE_SKETCH_BOARD, mapOf())
+        miniToParentManager.sendRequestToParent(appRequest, null)
         return JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, null))
     }
 
@@ -127,8 +127,8 @@ class ScreenShareMiniUseCase(private val miniToParentManager: IMiniToParentManag
         handler.complete(addDrawingInfo(params))
     }
     override fun addDrawingInfo(params: Map<String, Any>): String {
-        val appRequestJson = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_ADD_DRAWING_INFO, params).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, null)
+        val appRequest = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_ADD_DRAWING_INFO, params)
+        miniToParentManager.sendRequestToParent(appRequest, null)
         return JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, null))
     }
 
@@ -140,8 +140,8 @@ class ScreenShareMiniUseCase(private val miniToParentManager: IMiniToParentManag
     }
 
     override fun addRemoteSizeInfo(params: Map<String, Any>): String {
-        val appRequestJson = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_ADD_REMOTE_SIZE_INFO, params).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, null)
+        val appRequest = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_ADD_REMOTE_SIZE_INFO, params)
+        miniToParentManager.sendRequestToParent(appRequest, null)
         return JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, null))
     }
 
@@ -153,8 +153,8 @@ class ScreenShareMiniUseCase(private val miniToParentManager: IMiniToParentManag
     }
 
     override fun setPrivacyMode(params: Map<String, Any>): String {
-        val appRequestJson = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_SET_SCREEN_SHARE_PRIVACY_MODE, params).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, null)
+        val appRequest = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_SET_SCREEN_SHARE_PRIVACY_MODE, params)
+        miniToParentManager.sendRequestToParent(appRequest, null)
         return JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, null))
     }
 
@@ -166,8 +166,8 @@ class ScreenShareMiniUseCase(private val miniToParentManager: IMiniToParentManag
     }
 
     override fun addRemoteWindowSizeInfo(params: Map<String, Any>): String {
-        val appRequestJson = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_ADD_REMOTE_WINDOW_SIZE_INFO, params).toJson()
-        miniToParentManager.sendMessageToParent(appRequestJson, null)
+        val appRequest = AppRequest(SCREEN_SHARE_APP_EVENT, ACTION_ADD_REMOTE_WINDOW_SIZE_INFO, params)
+        miniToParentManager.sendRequestToParent(appRequest, null)
         return JsonUtil.toJson(JSResponse(RESPONSE_SUCCESS_CODE, RESPONSE_SUCCESS_MESSAGE, null))
     }
 }
\ No newline at end of file
@@ -15,4 +15,12 @@ object Base64Utils {
         val bytes = Base64.decode(input, Base64.NO_WRAP)
         return String(bytes, Charsets.UTF_8)
     }
+
+    fun encodeBytesToBase64(bytes: ByteArray): String {
+        return Base64.encodeToString(bytes, Base64.NO_WRAP)
+    }
+
+    fun decodeBytesFromBase64(input: String): ByteArray {
+        return Base64.decode(input, Base64.NO_WRAP)
+    }
 }
\ No newline at end of file
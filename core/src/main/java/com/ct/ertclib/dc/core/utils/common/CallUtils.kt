@@ -18,9 +18,7 @@ package com.ct.ertclib.dc.core.utils.common
 
 import android.Manifest
 import android.annotation.SuppressLint
-import android.content.ContentResolver
 import android.content.Context
-import android.database.Cursor
 import android.net.Uri
 import android.os.Build
 import android.provider.ContactsContract
@@ -31,7 +29,6 @@ import androidx.annotation.RequiresApi
 import com.blankj.utilcode.util.Utils
 import com.ct.ertclib.dc.core.common.sdkpermission.SDKPermissionUtils
 import com.ct.ertclib.dc.core.data.call.CallInfo
-import com.ct.ertclib.dc.core.data.call.Contact
 import com.ct.ertclib.dc.core.port.dao.ContactDao
 import com.macoli.reflect_helper.ReflectHelper
 import java.util.Arrays
@@ -215,91 +212,4 @@ object CallUtils {
 
     // TODO: license控制
 
-    /**
-     * 获取联系人列表（分页）
-     * @param offset 起始位置（从 0 开始）
-     * @param limit 查询多少个
-     * @return 联系人列表
-     */
-    fun getContactList(context: Context,offset: Int,limit:Int): List<Contact> {
-        val contacts = mutableListOf<Contact>()
-        val contentResolver: ContentResolver = context.contentResolver
-
-        // 查询的列
-        val projection = arrayOf(
-            ContactsContract.Contacts._ID,
-            ContactsContract.Contacts.DISPLAY_NAME
-        )
-
-        // 查询联系人
-        val cursor: Cursor? = contentResolver.query(
-            ContactsContract.Contacts.CONTENT_URI,
-            projection,
-            null,
-            null,
-            "${ContactsContract.Contacts.DISPLAY_NAME} ASC LIMIT $limit OFFSET $offset"
-        )
-
-        cursor?.use {
-            val idColumn = it.getColumnIndex(ContactsContract.Contacts._ID)
-            val nameColumn = it.getColumnIndex(ContactsContract.Contacts.DISPLAY_NAME)
-
-            while (it.moveToNext()) {
-                val id = it.getLong(idColumn)
-                val name = it.getString(nameColumn)
-                val phoneNumber = getPhoneNumber(contentResolver, id)
-                contacts.add(Contact(id, name, phoneNumber))
-            }
-        }
-
-        return contacts
-    }
-
-    /**
-     * 获取联系人总数
-     * @return 联系人总数，如果失败则返回 -1
-     */
-    fun getContactCount(context: Context): Int {
-        val contentResolver: ContentResolver = context.contentResolver
-
-        // 查询的列
-        val projection = arrayOf(ContactsContract.Contacts._ID)
-
-        // 查询联系人
-        val cursor: Cursor? = contentResolver.query(
-            ContactsContract.Contacts.CONTENT_URI,
-            projection,
-            null,
-            null,
-            null
-        )
-
-        return cursor?.use {
-            it.count // 返回联系人总数
-        } ?: -1 // 如果 cursor 为 null，返回 -1
-    }
-
-    /**
-     * 获取联系人的电话号码
-     */
-    private fun getPhoneNumber(contentResolver: ContentResolver, contactId: Long): String? {
-        var phoneNumber: String? = null
-        val phoneCursor: Cursor? = contentResolver.query(
-            ContactsContract.CommonDataKinds.Phone.CONTENT_URI,
-            arrayOf(ContactsContract.CommonDataKinds.Phone.NUMBER),
-            "${ContactsContract.CommonDataKinds.Phone.CONTACT_ID} = ?",
-            arrayOf(contactId.toString()),
-            null
-        )
-
-        phoneCursor?.use {
-            if (it.moveToFirst()) {
-                val numberColumn = it.getColumnIndex(ContactsContract.CommonDataKinds.Phone.NUMBER)
-                phoneNumber = it.getString(numberColumn)
-            }
-        }
-
-        return phoneNumber
-    }
-
 }
\ No newline at end of file
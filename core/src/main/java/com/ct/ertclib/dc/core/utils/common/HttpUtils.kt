@@ -6,6 +6,8 @@ import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.launch
 import okhttp3.Call
 import okhttp3.Callback
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
 import okhttp3.MediaType.Companion.toMediaTypeOrNull
 import okhttp3.OkHttpClient
 import okhttp3.Request
@@ -18,14 +20,28 @@ object HttpUtils {
 
     private const val MAX_LINK_TIME = 15L
     private const val TAG = "HttpUtils"
+    private const val MAX_IDLE_CONNECTIONS = 8
+    private const val KEEP_ALIVE_MINUTES = 5L
+    private const val MAX_REQUESTS = 32
+    private const val MAX_REQUESTS_PER_HOST = 8
     const val REQUEST_FAILED = "failed"
 
-    private val okHttpClient = OkHttpClient.Builder()
+    /**
+     * 进程内共用的客户端，需要缓存等差异配置时用newBuilder()派生，连接池和线程池保持共用
+     */
+    val sharedClient: OkHttpClient = OkHttpClient.Builder()
         .connectTimeout(MAX_LINK_TIME, TimeUnit.SECONDS)
         .readTimeout(MAX_LINK_TIME, TimeUnit.SECONDS)
         .writeTimeout(MAX_LINK_TIME, TimeUnit.SECONDS)
+        .connectionPool(ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+        .dispatcher(Dispatcher().apply {
+            maxRequests = MAX_REQUESTS
+            maxRequestsPerHost = MAX_REQUESTS_PER_HOST
+        })
         .build()
 
+    private val okHttpClient = sharedClient
+
     private val scope = CoroutineScope(Dispatchers.IO + SupervisorJob())
 
     fun sendGetRequest(url: String, headers: Map<String, String>, resultCallback: (String) -> Unit) {
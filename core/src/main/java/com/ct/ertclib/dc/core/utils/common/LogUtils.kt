@@ -16,9 +16,8 @@
 
 package com.ct.ertclib.dc.core.utils.common
 
-import com.ct.ertclib.dc.core.utils.logger.AndroidAppender
-import com.ct.ertclib.dc.core.utils.logger.Appender
-import com.ct.ertclib.dc.core.utils.logger.ExceptionUtil
+import com.ct.ertclib.dc.core.utils.logger.AsyncLogWriter
+import com.ct.ertclib.dc.core.utils.logger.Logger
 
 object LogUtils {
 
@@ -28,10 +27,6 @@ object LogUtils {
     private const val ERROR_LEVEL: Int = 3
     private const val FATAL_LEVEL: Int = 4
 
-    private var appenders: Array<Appender> = arrayOf(
-        AndroidAppender()
-    )
-
     @JvmStatic
     fun debug(tag: String, trace: String) {
         printTrace(tag, trace, DEBUG_LEVEL)
@@ -65,8 +60,7 @@ object LogUtils {
      */
     @JvmStatic
     fun warn(tag: String, trace: String, e: Throwable?) {
-        printTrace(tag, trace, WARN_LEVEL)
-        printTrace(tag, ExceptionUtil.getFullStackTrace(e), WARN_LEVEL)
+        printTrace(tag, trace, WARN_LEVEL, e)
     }
 
     /**
@@ -87,8 +81,7 @@ object LogUtils {
      */
     @JvmStatic
     fun error(tag: String, trace: String, e: Throwable?) {
-        printTrace(tag, trace, ERROR_LEVEL)
-        printTrace(tag, ExceptionUtil.getFullStackTrace(e), ERROR_LEVEL)
+        printTrace(tag, trace, ERROR_LEVEL, e)
     }
 
     /**
@@ -109,16 +102,15 @@ object LogUtils {
      */
     @JvmStatic
     fun fatal(tag: String, trace: String, e: Throwable) {
-        printTrace(tag, trace, FATAL_LEVEL)
-        printTrace(tag, ExceptionUtil.getFullStackTrace(e), FATAL_LEVEL)
+        printTrace(tag, trace, FATAL_LEVEL, e)
     }
 
 
     @JvmStatic
-    private fun printTrace(tag: String, trace: String, level: Int) {
-        val traceString = trace.replace("\r", "")
-        for (appender in appenders) {
-            appender.printTrace(tag, level, traceString)
+    private fun printTrace(tag: String, trace: String, level: Int, e: Throwable? = null) {
+        if (!Logger.isLoggable(tag, level)) {
+            return
         }
+        AsyncLogWriter.getInstance().enqueue(tag, level, trace, e)
     }
 }
\ No newline at end of file
@@ -361,6 +361,16 @@ public final class MimeUtils {
         add("video/x-sgi-movie", "movie");
         add("x-conference/x-cooltalk", "ice");
         add("x-epoc/x-sisx-app", "sisx");
+        // Web resources served to mini-app WebViews straight from the package
+        add("application/javascript", "js");
+        add("application/javascript", "mjs");
+        add("application/json", "json");
+        add("application/wasm", "wasm");
+        add("font/woff", "woff");
+        add("font/woff2", "woff2");
+        add("font/ttf", "ttf");
+        add("font/otf", "otf");
+        add("image/webp", "webp");
         applyOverrides();
     }
 
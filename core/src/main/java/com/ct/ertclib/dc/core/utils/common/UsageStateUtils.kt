@@ -25,64 +25,42 @@ import org.koin.core.component.inject
 
 object UsageStateUtils: KoinComponent {
     private const val TAG = "UsageStateUtils"
-    private val inCallActivityArray = arrayOf(
-        "com.android.incallui.InCallActivity",
-        "com.android.incallui.LegacyInCallActivity",
-        "com.ct.ertclib.dc.app.MainActivity",
-        "com.ct.ertclib.dc.feature.testing.LocalTestingMainActivity",
-        "com.android.incallui.OplusInCallActivity",
-        "com.android.incallui.call.InCallActivity"
-    )
+    private const val QUERY_WINDOW_MILLIS = 10_000L
+    // 事件写入有延迟，增量查询时与上次的区间重叠一部分
+    private const val QUERY_OVERLAP_MILLIS = 1_000L
     private val sLogger: Logger = Logger.getLogger(TAG)
     private val context: Context by inject()
 
-    @Volatile
-    private var isInCallTop: Boolean = false
-    private var isExpandedActivityTop: Boolean = false
+    private var lastQueryTime = 0L
+    private var lastEventTime = 0L
 
     private val usageStatsManager by lazy { context.getSystemService(Context.USAGE_STATS_SERVICE) as UsageStatsManager }
 
+    /**
+     * 获取上次查询之后最近进入前台的activity的类名，只扫描增量事件
+     * @return 没有新的前台切换时返回null
+     */
     @JvmStatic
-    fun isInCallOnTop(): Boolean {
-        val topClassName = getTopClassName(context)
-        if (topClassName == null) {
-            return isInCallTop
-        } else {
-            isInCallTop = inCallActivityArray.contains(topClassName)
-            return isInCallTop
-        }
-    }
-
-    fun isMiniAppExpandedActivityShow(): Boolean {
-        val topClassName = getTopClassName(context)
-        if (topClassName == null) {
-            return isExpandedActivityTop
-        } else {
-            isExpandedActivityTop = "com.ct.ertclib.dc.app.ui.activity.MiniAppExpandedActivity" == topClassName
-            return isExpandedActivityTop
-        }
-    }
-
-    @JvmStatic
-    //获取当前栈顶的activity的类名，用于判断当前是否在前台
-    private fun getTopClassName(context: Context): String? {
+    @Synchronized
+    fun queryTopClassName(): String? {
         val currentTime = System.currentTimeMillis()
+        val beginTime = maxOf(currentTime - QUERY_WINDOW_MILLIS, lastQueryTime - QUERY_OVERLAP_MILLIS)
+        lastQueryTime = currentTime
         var className: String? = null
-        val periodTime = 1000 * 10
         try {
-            val queryEvents = usageStatsManager.queryEvents(currentTime - periodTime, currentTime)
+            val queryEvents = usageStatsManager.queryEvents(beginTime, currentTime)
             val event = UsageEvents.Event()
             while (queryEvents.hasNextEvent()) {
                 queryEvents.getNextEvent(event)
-                if (event.eventType == UsageEvents.Event.ACTIVITY_RESUMED) {
+                if (event.eventType == UsageEvents.Event.ACTIVITY_RESUMED && event.timeStamp > lastEventTime) {
                     className = event.className
+                    lastEventTime = event.timeStamp
                 }
             }
         }catch (e:Exception){
-            sLogger.debug("getTopClassName error: ${e.message}")
-            e.printStackTrace()
+            sLogger.debug("queryTopClassName error: ${e.message}")
         }
         return className
     }
 
-}
\ No newline at end of file
+}
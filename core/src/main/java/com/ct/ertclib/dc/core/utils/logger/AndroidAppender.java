@@ -22,6 +22,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Android appender
@@ -29,6 +31,11 @@ import java.io.InputStreamReader;
  */
 public class AndroidAppender extends Appender {
 
+    /**
+     * Logcat tags by classname, only used from the {@link AsyncLogWriter} thread
+     */
+    private final Map<String, String> mTags = new HashMap<>();
+
     /**
      * Constructor
      */
@@ -43,8 +50,13 @@ public class AndroidAppender extends Appender {
      * @param level Trace level
      * @param trace Trace
      */
-    public synchronized void printTrace(String classname, int level, String trace) {
-        classname = "[SDKLog][" + classname + "]";
+    public void printTrace(String classname, int level, String trace) {
+        String tag = mTags.get(classname);
+        if (tag == null) {
+            tag = "[SDKLog][" + classname + "]";
+            mTags.put(classname, tag);
+        }
+        classname = tag;
 
         if (!LogConfig.INSTANCE.isLogEnabled()){
             return;
@@ -0,0 +1,205 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Async log writer
+ *
+ * Callers only check the level and push the trace into a lock-free ring buffer,
+ * a background thread drains it into the appenders. When the buffer is full the trace
+ * is dropped and counted, the writer reports the number of dropped traces afterwards.
+ * ERROR and FATAL traces usually come right before a crash, the caller waits until they are written.
+ */
+public final class AsyncLogWriter {
+
+    /**
+     * Buffer capacity
+     */
+    private static final int BUFFER_CAPACITY = 8192;
+
+    private static final String TAG = "AsyncLogWriter";
+
+    /**
+     * Max wait for an ERROR or FATAL trace to be written
+     */
+    private static final long ERROR_FLUSH_TIMEOUT_MILLIS = 200;
+
+    private static final AsyncLogWriter sInstance = new AsyncLogWriter(BUFFER_CAPACITY);
+
+    private final LogRingBuffer mBuffer;
+
+    private final AtomicLongArray mDroppedCounts = new AtomicLongArray(Logger.FATAL_LEVEL + 1);
+
+    /**
+     * Dropped traces already reported, only touched by the writer thread
+     */
+    private long mReportedDropped;
+
+    private volatile Appender[] mAppenders = new Appender[]{
+            new AndroidAppender()
+    };
+
+    private volatile boolean mWriterParked;
+
+    private final Thread mWriterThread;
+
+    /**
+     * Constructor
+     *
+     * @param capacity Buffer capacity
+     */
+    AsyncLogWriter(int capacity) {
+        mBuffer = new LogRingBuffer(capacity);
+        mWriterThread = new Thread(this::runWriter, "SDKLogWriter");
+        mWriterThread.setDaemon(true);
+        mWriterThread.start();
+    }
+
+    /**
+     * Get the process wide writer
+     *
+     * @return Instance
+     */
+    public static AsyncLogWriter getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Replace the appenders
+     *
+     * @param appenders Appenders
+     */
+    public void setAppenders(Appender[] appenders) {
+        mAppenders = appenders;
+    }
+
+    /**
+     * Queue a trace, only ERROR and FATAL traces block the caller until written
+     *
+     * @param tag Tag
+     * @param level Trace level
+     * @param trace Trace
+     * @param throwable Exception whose stack trace is printed after the trace, may be null
+     */
+    public void enqueue(String tag, int level, String trace, Throwable throwable) {
+        boolean urgent = level >= Logger.ERROR_LEVEL && Thread.currentThread() != mWriterThread;
+        boolean queued = mBuffer.offer(tag, level, trace, throwable);
+        if (!queued && urgent && flush(ERROR_FLUSH_TIMEOUT_MILLIS)) {
+            queued = mBuffer.offer(tag, level, trace, throwable);
+        }
+        if (!queued) {
+            mDroppedCounts.incrementAndGet(level);
+            return;
+        }
+        if (urgent) {
+            flush(ERROR_FLUSH_TIMEOUT_MILLIS);
+        } else if (mWriterParked) {
+            LockSupport.unpark(mWriterThread);
+        }
+    }
+
+    /**
+     * Number of traces dropped because the buffer was full
+     *
+     * @param level Trace level
+     * @return Count
+     */
+    public long getDroppedCount(int level) {
+        return mDroppedCounts.get(level);
+    }
+
+    /**
+     * Number of traces dropped because the buffer was full, all levels
+     *
+     * @return Count
+     */
+    public long getDroppedCount() {
+        long total = 0;
+        for (int i = 0; i < mDroppedCounts.length(); i++) {
+            total += mDroppedCounts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Wait until every trace queued before this call has been written
+     *
+     * @param timeoutMillis Timeout
+     * @return false on timeout
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = mBuffer.producedCount();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (mBuffer.consumedCount() < target) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            LockSupport.unpark(mWriterThread);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    private void runWriter() {
+        LogRingBuffer.Consumer consumer = this::write;
+        while (true) {
+            int count = mBuffer.drain(consumer);
+            reportDropped();
+            if (count == 0) {
+                // Producers unpark the writer once they see the flag, the buffer is checked again after setting it
+                mWriterParked = true;
+                if (mBuffer.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                mWriterParked = false;
+            }
+        }
+    }
+
+    private void write(String tag, int level, String trace, Throwable throwable) {
+        /*
+         * String having '\' characters are not printed out in locat console !
+         */
+        if (trace.indexOf('\r') >= 0) {
+            trace = trace.replace("\r", "");
+        }
+        String stackTrace = throwable != null ? ExceptionUtil.getFullStackTrace(throwable) : null;
+        for (Appender appender : mAppenders) {
+            try {
+                appender.printTrace(tag, level, trace);
+                if (stackTrace != null) {
+                    appender.printTrace(tag, level, stackTrace);
+                }
+            } catch (RuntimeException e) {
+                // An appender must never kill the writer thread
+            }
+        }
+    }
+
+    private void reportDropped() {
+        long dropped = getDroppedCount();
+        if (dropped > mReportedDropped) {
+            String trace = (dropped - mReportedDropped) + " traces dropped, buffer capacity " + mBuffer.capacity();
+            mReportedDropped = dropped;
+            write(TAG, Logger.WARN_LEVEL, trace, null);
+        }
+    }
+}
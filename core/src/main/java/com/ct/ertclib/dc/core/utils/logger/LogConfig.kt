@@ -21,6 +21,7 @@ import java.io.IOException
 import java.io.InputStreamReader
 
 object LogConfig {
+    @Volatile
     private var logEnable = true
 
     fun upDateLogEnabled() {
@@ -0,0 +1,170 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free ring buffer with many producers and a single consumer.
+ * Each slot carries a sequence number: producers claim a position with a CAS on the tail
+ * and publish the slot by advancing its sequence, the consumer releases it by moving the
+ * sequence one lap ahead. A full buffer rejects the entry instead of blocking the caller.
+ */
+final class LogRingBuffer {
+
+    /**
+     * Log entry
+     */
+    static final class Entry {
+        volatile long sequence;
+        String tag;
+        int level;
+        String trace;
+        Throwable throwable;
+    }
+
+    /**
+     * Consumer of drained entries
+     */
+    interface Consumer {
+        void accept(String tag, int level, String trace, Throwable throwable);
+    }
+
+    private final Entry[] entries;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Read position, only touched by the consumer thread
+     */
+    private long head;
+
+    /**
+     * Read position published for other threads
+     */
+    private volatile long consumed;
+
+    /**
+     * Constructor
+     *
+     * @param capacity Capacity, rounded up to a power of two
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        entries = new Entry[size];
+        mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            Entry entry = new Entry();
+            entry.sequence = i;
+            entries[i] = entry;
+        }
+    }
+
+    /**
+     * Capacity of the buffer
+     *
+     * @return Capacity
+     */
+    int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Add an entry, never blocks
+     *
+     * @return false if the buffer is full
+     */
+    boolean offer(String tag, int level, String trace, Throwable throwable) {
+        long position = tail.get();
+        while (true) {
+            Entry entry = entries[(int) (position & mask)];
+            long diff = entry.sequence - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entry.tag = tag;
+                    entry.level = level;
+                    entry.trace = trace;
+                    entry.throwable = throwable;
+                    entry.sequence = position + 1;
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Drain published entries, must be called from a single consumer thread
+     *
+     * @param consumer Consumer
+     * @return Number of drained entries
+     */
+    int drain(Consumer consumer) {
+        int count = 0;
+        while (true) {
+            Entry entry = entries[(int) (head & mask)];
+            if (entry.sequence != head + 1) {
+                consumed = head;
+                return count;
+            }
+            String tag = entry.tag;
+            int level = entry.level;
+            String trace = entry.trace;
+            Throwable throwable = entry.throwable;
+            entry.tag = null;
+            entry.trace = null;
+            entry.throwable = null;
+            entry.sequence = head + entries.length;
+            head++;
+            count++;
+            consumer.accept(tag, level, trace, throwable);
+        }
+    }
+
+    /**
+     * Number of entries claimed by producers so far
+     *
+     * @return Count
+     */
+    long producedCount() {
+        return tail.get();
+    }
+
+    /**
+     * Number of entries handed to the consumer so far
+     *
+     * @return Count
+     */
+    long consumedCount() {
+        return consumed;
+    }
+
+    /**
+     * Whether published entries are waiting
+     *
+     * @return boolean
+     */
+    boolean isEmpty() {
+        return entries[(int) (head & mask)].sequence != head + 1;
+    }
+}
@@ -16,10 +16,14 @@
 
 package com.ct.ertclib.dc.core.utils.logger;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Logger
  *
+ * Loggers are cached per classname. The trace level can be changed at runtime, globally
+ * or per tag, and traces are written by {@link AsyncLogWriter} off the caller's thread.
  */
 public class Logger {
 
@@ -64,22 +68,35 @@ public class Logger {
     public static final boolean sActivationFlag = TRACE_ON;
 
     /**
-     * Trace level
+     * Default trace level
      */
-    public static final int traceLevel = DEBUG_LEVEL;
+    public static final int DEFAULT_TRACE_LEVEL = DEBUG_LEVEL;
 
     /**
-     * List of appenders
+     * Global trace level
      */
-    private static Appender[] sAppenders = new Appender[]{
-            new AndroidAppender()
-    };
+    private static volatile int sTraceLevel = DEFAULT_TRACE_LEVEL;
+
+    /**
+     * Trace levels overriding the global one, by tag
+     */
+    private static final ConcurrentHashMap<String, Integer> sTagLevels = new ConcurrentHashMap<>();
+
+    /**
+     * Cached loggers, by classname
+     */
+    private static final ConcurrentHashMap<String, Logger> sLoggers = new ConcurrentHashMap<>();
 
     /**
      * Classname
      */
     private String mClassname;
 
+    /**
+     * Effective trace level of this logger
+     */
+    private volatile int mLevel;
+
     /**
      * Constructor
      *
@@ -92,16 +109,80 @@ public class Logger {
         } else {
             mClassname = classname;
         }
+        mLevel = getTraceLevel(mClassname);
     }
 
     /**
-     * Create a static instance
+     * Get the cached instance
      *
      * @param classname Classname
      * @return Instance
      */
-    public static synchronized Logger getLogger(String classname) {
-        return new Logger(classname);
+    public static Logger getLogger(String classname) {
+        Logger logger = sLoggers.get(classname);
+        if (logger == null) {
+            logger = sLoggers.computeIfAbsent(classname, Logger::new);
+        }
+        return logger;
+    }
+
+    /**
+     * Set the global trace level
+     *
+     * @param level Trace level
+     */
+    public static void setTraceLevel(int level) {
+        sTraceLevel = level;
+        refreshLevels();
+    }
+
+    /**
+     * Set the trace level of a tag, overriding the global one
+     *
+     * @param tag Tag
+     * @param level Trace level
+     */
+    public static void setTagLevel(String tag, int level) {
+        sTagLevels.put(tag, level);
+        refreshLevels();
+    }
+
+    /**
+     * Remove the trace level of a tag
+     *
+     * @param tag Tag
+     */
+    public static void clearTagLevel(String tag) {
+        sTagLevels.remove(tag);
+        refreshLevels();
+    }
+
+    /**
+     * Effective trace level of a tag
+     *
+     * @param tag Tag
+     * @return Trace level
+     */
+    public static int getTraceLevel(String tag) {
+        Integer level = sTagLevels.get(tag);
+        return level != null ? level : sTraceLevel;
+    }
+
+    /**
+     * Is a trace of this tag and level printed
+     *
+     * @param tag Tag
+     * @param level Trace level
+     * @return boolean
+     */
+    public static boolean isLoggable(String tag, int level) {
+        return sActivationFlag == TRACE_ON && level >= getTraceLevel(tag) && LogConfig.INSTANCE.isLogEnabled();
+    }
+
+    private static void refreshLevels() {
+        for (Logger logger : sLoggers.values()) {
+            logger.mLevel = getTraceLevel(logger.mClassname);
+        }
     }
 
     /**
@@ -110,7 +191,26 @@ public class Logger {
      * @return boolean
      */
     public boolean isDebugActivated() {
-        return sActivationFlag == TRACE_ON && DEBUG_LEVEL >= traceLevel;
+        return isLoggable(DEBUG_LEVEL);
+    }
+
+    /**
+     * Is logger activated
+     *
+     * @return boolean
+     */
+    public boolean isInfoActivated() {
+        return isLoggable(INFO_LEVEL);
+    }
+
+    /**
+     * Is logger activated for a level
+     *
+     * @param level Trace level
+     * @return boolean
+     */
+    public boolean isLoggable(int level) {
+        return sActivationFlag == TRACE_ON && level >= mLevel && LogConfig.INSTANCE.isLogEnabled();
     }
 
     /**
@@ -128,6 +228,15 @@ public class Logger {
      * @param trace Trace
      */
     public void debug(String trace) {
+        printTrace(trace, DEBUG_LEVEL, null);
+    }
+
+    /**
+     * Debug trace, built only if the level is enabled
+     *
+     * @param trace Trace supplier
+     */
+    public void debug(Supplier<String> trace) {
         printTrace(trace, DEBUG_LEVEL);
     }
 
@@ -137,6 +246,15 @@ public class Logger {
      * @param trace Trace
      */
     public void info(String trace) {
+        printTrace(trace, INFO_LEVEL, null);
+    }
+
+    /**
+     * Info trace, built only if the level is enabled
+     *
+     * @param trace Trace supplier
+     */
+    public void info(Supplier<String> trace) {
         printTrace(trace, INFO_LEVEL);
     }
 
@@ -146,6 +264,15 @@ public class Logger {
      * @param trace Trace
      */
     public void warn(String trace) {
+        printTrace(trace, WARN_LEVEL, null);
+    }
+
+    /**
+     * Warning trace, built only if the level is enabled
+     *
+     * @param trace Trace supplier
+     */
+    public void warn(Supplier<String> trace) {
         printTrace(trace, WARN_LEVEL);
     }
 
@@ -156,8 +283,7 @@ public class Logger {
      * @param e Exception
      */
     public void warn(String trace, Throwable e) {
-        printTrace(trace, WARN_LEVEL);
-        printTrace(ExceptionUtil.getFullStackTrace(e), WARN_LEVEL);
+        printTrace(trace, WARN_LEVEL, e);
     }
 
     /**
@@ -166,7 +292,7 @@ public class Logger {
      * @param trace Trace
      */
     public void error(String trace) {
-        printTrace(trace, ERROR_LEVEL);
+        printTrace(trace, ERROR_LEVEL, null);
     }
 
     /**
@@ -176,8 +302,7 @@ public class Logger {
      * @param e Exception
      */
     public void error(String trace, Throwable e) {
-        printTrace(trace, ERROR_LEVEL);
-        printTrace(ExceptionUtil.getFullStackTrace(e), ERROR_LEVEL);
+        printTrace(trace, ERROR_LEVEL, e);
     }
 
     /**
@@ -186,7 +311,7 @@ public class Logger {
      * @param trace Trace
      */
     public void fatal(String trace) {
-        printTrace(trace, FATAL_LEVEL);
+        printTrace(trace, FATAL_LEVEL, null);
     }
 
     /**
@@ -196,9 +321,21 @@ public class Logger {
      * @param e Exception
      */
     public void fatal(String trace, Throwable e) {
-        printTrace(trace, FATAL_LEVEL);
-        printTrace(ExceptionUtil.getFullStackTrace(e), FATAL_LEVEL);
+        printTrace(trace, FATAL_LEVEL, e);
+
+    }
 
+    /**
+     * Print a lazily built trace
+     *
+     * @param trace Trace supplier
+     * @param level Trace level
+     */
+    private void printTrace(Supplier<String> trace, int level) {
+        if (trace == null || !isLoggable(level)) {
+            return;
+        }
+        printTrace(trace.get(), level, null);
     }
 
     /**
@@ -206,20 +343,13 @@ public class Logger {
      *
      * @param trace Trace
      * @param level Trace level
+     * @param e Exception, may be null
      */
-    private void printTrace(String trace, int level) {
-        if (trace == null) {
+    private void printTrace(String trace, int level, Throwable e) {
+        if (trace == null || !isLoggable(level)) {
             return;
         }
-        if (sAppenders != null && level >= traceLevel) {
-            /*
-             * String having '\' characters are not printed out in locat console !
-             */
-            trace = trace.replace("\r", "");
-            for (Appender appender : sAppenders) {
-                appender.printTrace(mClassname, level, trace);
-            }
-        }
+        AsyncLogWriter.getInstance().enqueue(mClassname, level, trace, e);
     }
 
 }
@@ -14,21 +14,33 @@
  *   limitations under the License.
  */
 
-package com.ct.ertclib.dc.core.dispatcher.js
+package com.ct.ertclib.dc.core.utils.metrics
 
-import android.content.Context
-import com.ct.ertclib.dc.core.data.bridge.JSRequest
-import com.ct.ertclib.dc.core.port.dispatcher.IJsEventDispatcher
-import wendu.dsbridge.CompletionHandler
+import java.util.concurrent.atomic.LongAdder
 
-class DefaultJsDispatcher : IJsEventDispatcher {
+/**
+ * 单调递增计数器，多线程累加时使用LongAdder分散竞争
+ */
+class Counter internal constructor(
+    val name: String,
+    private val registry: MetricsRegistry
+) {
+
+    private val value = LongAdder()
 
-    override fun dispatchAsyncMessage(context: Context, request: JSRequest, handler: CompletionHandler<String?>) {
-        //empty implementation
+    fun increment() {
+        add(1)
     }
 
-    override fun dispatchSyncMessage(context: Context, request: JSRequest): String? {
-        //empty implementation
-        return ""
+    fun add(delta: Long) {
+        if (registry.isEnabled) {
+            value.add(delta)
+        }
+    }
+
+    fun get(): Long = value.sum()
+
+    internal fun reset() {
+        value.reset()
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.metrics
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 瞬时值，例如队列长度、在途请求数
+ */
+class Gauge internal constructor(
+    val name: String,
+    private val registry: MetricsRegistry
+) {
+
+    private val value = AtomicLong()
+
+    fun set(newValue: Long) {
+        if (registry.isEnabled) {
+            value.set(newValue)
+        }
+    }
+
+    fun increment() {
+        if (registry.isEnabled) {
+            value.incrementAndGet()
+        }
+    }
+
+    fun decrement() {
+        if (registry.isEnabled) {
+            value.decrementAndGet()
+        }
+    }
+
+    fun get(): Long = value.get()
+
+    internal fun reset() {
+        value.set(0)
+    }
+}
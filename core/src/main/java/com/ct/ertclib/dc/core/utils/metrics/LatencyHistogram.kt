@@ -0,0 +1,136 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.metrics
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * 延迟直方图（纳秒）
+ *
+ * 采用HDR风格的对数-线性分桶：每个2的幂区间再均分为16个子桶，相对误差不超过1/16，
+ * 覆盖0到约73分钟。记录只做几次无锁原子累加，不分配对象，可以放在热路径上。
+ */
+class LatencyHistogram internal constructor(
+    val name: String,
+    private val registry: MetricsRegistry
+) {
+
+    companion object {
+        private const val SUB_BUCKET_BITS = 4
+        private const val SUB_BUCKET_COUNT = 1 shl SUB_BUCKET_BITS
+        private const val MAX_EXPONENT = 41
+        internal const val BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT
+        const val MAX_TRACKABLE_NANOS = (1L shl (MAX_EXPONENT + 1)) - 1
+
+        internal fun bucketIndex(value: Long): Int {
+            if (value < SUB_BUCKET_COUNT) {
+                return if (value < 0) 0 else value.toInt()
+            }
+            val clamped = if (value > MAX_TRACKABLE_NANOS) MAX_TRACKABLE_NANOS else value
+            val shift = 63 - java.lang.Long.numberOfLeadingZeros(clamped) - SUB_BUCKET_BITS
+            return (shift + 1) * SUB_BUCKET_COUNT + (clamped ushr shift).toInt() - SUB_BUCKET_COUNT
+        }
+
+        internal fun bucketUpperBound(index: Int): Long {
+            if (index < SUB_BUCKET_COUNT) {
+                return index.toLong()
+            }
+            val shift = index / SUB_BUCKET_COUNT - 1
+            val subBucket = index % SUB_BUCKET_COUNT
+            return ((SUB_BUCKET_COUNT + subBucket).toLong() shl shift) + (1L shl shift) - 1
+        }
+    }
+
+    private val buckets = AtomicLongArray(BUCKET_COUNT)
+    private val sum = LongAdder()
+    private val max = AtomicLong()
+
+    fun record(nanos: Long) {
+        if (!registry.isEnabled) {
+            return
+        }
+        val value = if (nanos < 0) 0 else nanos
+        buckets.incrementAndGet(bucketIndex(value))
+        sum.add(value)
+        var current = max.get()
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get()
+        }
+    }
+
+    /**
+     * @return 计时起点，配合[recordSince]使用
+     */
+    fun start(): Long = registry.nanoTime()
+
+    fun recordSince(startNanos: Long) {
+        record(registry.nanoTime() - startNanos)
+    }
+
+    inline fun <T> time(block: () -> T): T {
+        val startNanos = start()
+        try {
+            return block()
+        } finally {
+            recordSince(startNanos)
+        }
+    }
+
+    fun snapshot(): HistogramSnapshot {
+        val counts = LongArray(BUCKET_COUNT)
+        var total = 0L
+        for (i in 0 until BUCKET_COUNT) {
+            counts[i] = buckets.get(i)
+            total += counts[i]
+        }
+        val maxNanos = max.get()
+        return HistogramSnapshot(
+            name = name,
+            count = total,
+            sumNanos = sum.sum(),
+            maxNanos = maxNanos,
+            p50Nanos = percentile(counts, total, maxNanos, 0.50),
+            p90Nanos = percentile(counts, total, maxNanos, 0.90),
+            p99Nanos = percentile(counts, total, maxNanos, 0.99)
+        )
+    }
+
+    internal fun reset() {
+        for (i in 0 until BUCKET_COUNT) {
+            buckets.set(i, 0)
+        }
+        sum.reset()
+        max.set(0)
+    }
+
+    private fun percentile(counts: LongArray, total: Long, maxNanos: Long, quantile: Double): Long {
+        if (total == 0L) {
+            return 0
+        }
+        val rank = Math.ceil(total * quantile).toLong().coerceAtLeast(1)
+        var seen = 0L
+        for (i in counts.indices) {
+            seen += counts[i]
+            if (seen >= rank) {
+                return minOf(bucketUpperBound(i), maxNanos)
+            }
+        }
+        return maxNanos
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.metrics
+
+/**
+ * SDK埋点的指标名
+ */
+object MetricNames {
+    // BDC上的小程序列表/小程序包请求
+    const val BDC_REQUEST_APP_LIST = "bdc.request.app_list"
+    const val BDC_REQUEST_APP = "bdc.request.app"
+    const val BDC_REQUEST_RETRY = "bdc.request.retry"
+    const val BDC_REQUEST_FAILED = "bdc.request.failed"
+    const val BDC_RESPONSE_BYTES = "bdc.response.bytes"
+    const val BDC_REQUEST_QUEUE = "bdc.request.queue"
+
+    // ADC创建，从小程序发起到底层回调
+    const val ADC_CREATE = "adc.create"
+    const val ADC_CREATE_QUEUE_WAIT = "adc.create.queue_wait"
+    const val ADC_CREATE_FROM_CACHE = "adc.create.from_cache"
+    const val ADC_CREATE_FAILED = "adc.create.failed"
+
+    // JS桥分发
+    const val JS_API_ASYNC = "jsapi.async"
+    const val JS_API_SYNC = "jsapi.sync"
+    const val JS_API_ERROR = "jsapi.error"
+    const val JS_API_BATCH = "jsapi.batch"
+
+    // 小程序进程到主进程的AIDL消息
+    const val AIDL_SEND_MESSAGE_TO_PARENT = "aidl.send_message_to_parent"
+    const val AIDL_SEND_MESSAGE_TO_PARENT_CLIENT = "aidl.send_message_to_parent.client"
+    // 信封协议：批量发送的binder事务数、信封数，以及请求到收到回复的往返耗时
+    const val AIDL_ENVELOPE_TRANSACTION = "aidl.envelope.transaction"
+    const val AIDL_ENVELOPE_SENT = "aidl.envelope.sent"
+    const val AIDL_ENVELOPE_ROUND_TRIP = "aidl.envelope.round_trip"
+    // 信封大payload走共享内存：新分配/复用的区域数，以及传输的字节数
+    const val BULK_REGION_ALLOC = "bulk.region.alloc"
+    const val BULK_REGION_REUSE = "bulk.region.reuse"
+    const val BULK_TRANSFER_BYTES = "bulk.transfer.bytes"
+
+    // 小程序启动阶段
+    const val MINI_APP_START_PROPERTIES = "miniapp.start.properties"
+    const val MINI_APP_START_VERIFY = "miniapp.start.verify"
+    const val MINI_APP_START_DISPATCH = "miniapp.start.dispatch"
+    const val MINI_APP_START_TOTAL = "miniapp.start.total"
+    const val MINI_APP_START_FAILED = "miniapp.start.failed"
+
+    // 通话前台状态探测次数及状态变化次数
+    const val CALL_FOREGROUND_PROBE = "call.foreground.probe"
+    const val CALL_FOREGROUND_CHANGE = "call.foreground.change"
+}
@@ -0,0 +1,104 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.metrics
+
+import java.io.PrintWriter
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * SDK内置指标注册表，进程内单例
+ *
+ * 热路径上应先取到[Counter]/[Gauge]/[LatencyHistogram]并保存为字段，记录时不再查表。
+ * 通过[snapshot]获取结构化快照，通过[dump]输出dumpsys风格的文本。
+ */
+class MetricsRegistry(private val clock: () -> Long = System::nanoTime) {
+
+    companion object {
+        val instance: MetricsRegistry by lazy {
+            MetricsRegistry()
+        }
+
+        private const val NANOS_PER_MILLI = 1_000_000.0
+    }
+
+    /**
+     * 关闭后记录操作直接返回，已有数据保留
+     */
+    @Volatile
+    var isEnabled = true
+
+    private val counters = ConcurrentHashMap<String, Counter>()
+    private val gauges = ConcurrentHashMap<String, Gauge>()
+    private val histograms = ConcurrentHashMap<String, LatencyHistogram>()
+    private var startNanos = clock()
+
+    fun nanoTime(): Long = clock()
+
+    fun counter(name: String): Counter {
+        return counters.computeIfAbsent(name) { Counter(it, this) }
+    }
+
+    fun gauge(name: String): Gauge {
+        return gauges.computeIfAbsent(name) { Gauge(it, this) }
+    }
+
+    fun histogram(name: String): LatencyHistogram {
+        return histograms.computeIfAbsent(name) { LatencyHistogram(it, this) }
+    }
+
+    fun snapshot(): MetricsSnapshot {
+        return MetricsSnapshot(
+            uptimeNanos = clock() - startNanos,
+            counters = counters.values.associate { it.name to it.get() }.toSortedMap(),
+            gauges = gauges.values.associate { it.name to it.get() }.toSortedMap(),
+            histograms = histograms.values.associate { it.name to it.snapshot() }.toSortedMap()
+        )
+    }
+
+    /**
+     * 清零所有指标，已注册的对象继续有效
+     */
+    fun reset() {
+        counters.values.forEach { it.reset() }
+        gauges.values.forEach { it.reset() }
+        histograms.values.forEach { it.reset() }
+        startNanos = clock()
+    }
+
+    fun dump(writer: PrintWriter, prefix: String = "") {
+        val snapshot = snapshot()
+        writer.println("${prefix}SDK metrics (enabled=$isEnabled, uptime=${formatMillis(snapshot.uptimeNanos)}ms):")
+        writer.println("$prefix  Counters:")
+        snapshot.counters.forEach { (name, value) -> writer.println("$prefix    $name=$value") }
+        writer.println("$prefix  Gauges:")
+        snapshot.gauges.forEach { (name, value) -> writer.println("$prefix    $name=$value") }
+        writer.println("$prefix  Latency (ms):")
+        snapshot.histograms.values.forEach {
+            writer.println(
+                "$prefix    ${it.name} count=${it.count} mean=${formatMillis(it.meanNanos)}" +
+                        " p50=${formatMillis(it.p50Nanos)} p90=${formatMillis(it.p90Nanos)}" +
+                        " p99=${formatMillis(it.p99Nanos)} max=${formatMillis(it.maxNanos)}"
+            )
+        }
+        writer.flush()
+    }
+
+    private fun formatMillis(nanos: Long): String {
+        return String.format(Locale.US, "%.3f", nanos / NANOS_PER_MILLI)
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.metrics
+
+data class HistogramSnapshot(
+    val name: String,
+    val count: Long,
+    val sumNanos: Long,
+    val maxNanos: Long,
+    val p50Nanos: Long,
+    val p90Nanos: Long,
+    val p99Nanos: Long
+) {
+    val meanNanos: Long
+        get() = if (count == 0L) 0 else sumNanos / count
+}
+
+data class MetricsSnapshot(
+    val uptimeNanos: Long,
+    val counters: Map<String, Long>,
+    val gauges: Map<String, Long>,
+    val histograms: Map<String, HistogramSnapshot>
+)
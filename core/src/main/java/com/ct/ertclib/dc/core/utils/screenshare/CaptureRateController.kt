@@ -0,0 +1,67 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.screenshare
+
+/**
+ * 按承载通道的bufferedAmount调整采集间隔
+ *
+ * 积压超过[highWatermark]时间隔加倍，低于[lowWatermark]时每次缩短[stepMs]，介于两者之间保持不变。
+ */
+class CaptureRateController(
+    private val minIntervalMs: Long = DEFAULT_MIN_INTERVAL_MS,
+    private val maxIntervalMs: Long = DEFAULT_MAX_INTERVAL_MS,
+    private val lowWatermark: Long = DEFAULT_LOW_WATERMARK,
+    private val highWatermark: Long = DEFAULT_HIGH_WATERMARK,
+    private val stepMs: Long = DEFAULT_STEP_MS
+) {
+
+    companion object {
+        const val DEFAULT_MIN_INTERVAL_MS = 66L
+        const val DEFAULT_MAX_INTERVAL_MS = 1000L
+        const val DEFAULT_LOW_WATERMARK = 64L * 1024
+        const val DEFAULT_HIGH_WATERMARK = 512L * 1024
+        const val DEFAULT_STEP_MS = 10L
+    }
+
+    var intervalMs = minIntervalMs
+        private set
+
+    private var nextCaptureMs = 0L
+
+    /**
+     * @return 调整后的采集间隔
+     */
+    fun onBufferedAmount(bufferedAmount: Long): Long {
+        intervalMs = when {
+            bufferedAmount > highWatermark -> minOf(maxIntervalMs, intervalMs * 2)
+            bufferedAmount < lowWatermark -> maxOf(minIntervalMs, intervalMs - stepMs)
+            else -> intervalMs
+        }
+        return intervalMs
+    }
+
+    /**
+     * 到达采集时间时返回true并安排下一次
+     */
+    fun shouldCapture(nowMs: Long): Boolean {
+        if (nowMs < nextCaptureMs) {
+            return false
+        }
+        nextCaptureMs = nowMs + intervalMs
+        return true
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.screenshare
+
+import java.nio.ByteBuffer
+import java.util.zip.Deflater
+
+/**
+ * 屏幕帧差分编码
+ *
+ * 每帧按[tileSize]切成瓦片并计算64位哈希，只输出哈希变化的瓦片及其坐标；
+ * 每隔[keyframeInterval]帧或调用[requestKeyframe]后输出包含全部瓦片的关键帧，供接收端重新同步。
+ * 画面没有变化时不输出，帧序号也不递增。非线程安全。
+ */
+class FrameDiffEncoder(
+    val width: Int,
+    val height: Int,
+    val tileSize: Int = DEFAULT_TILE_SIZE,
+    private val keyframeInterval: Int = DEFAULT_KEYFRAME_INTERVAL
+) {
+
+    companion object {
+        const val DEFAULT_TILE_SIZE = 64
+        const val DEFAULT_KEYFRAME_INTERVAL = 300
+
+        private const val FNV_OFFSET = -0x340d631b7bdddcdbL
+        private const val FNV_PRIME = 0x100000001b3L
+
+        internal fun hashTile(pixels: IntArray, stride: Int, left: Int, top: Int, right: Int, bottom: Int): Long {
+            var hash = FNV_OFFSET
+            for (y in top until bottom) {
+                var index = y * stride + left
+                val end = y * stride + right
+                while (index < end) {
+                    hash = (hash xor pixels[index].toLong()) * FNV_PRIME
+                    index++
+                }
+            }
+            return hash
+        }
+    }
+
+    val columns = (width + tileSize - 1) / tileSize
+    val rows = (height + tileSize - 1) / tileSize
+
+    private val tileHashes = LongArray(columns * rows)
+    private val dirtyTiles = IntArray(columns * rows)
+    private val deflater = Deflater(Deflater.BEST_SPEED)
+    private var body = ByteBuffer.allocate(tileSize * tileSize * 4 + FramePatchWire.TILE_HEADER_SIZE)
+    private var compressed = ByteArray(body.capacity())
+    private var sequence = 0
+    private var framesSinceKeyframe = 0
+    private var keyframeRequested = true
+
+    /**
+     * 接收端丢包或新加入时调用，下一帧输出关键帧
+     */
+    fun requestKeyframe() {
+        keyframeRequested = true
+    }
+
+    /**
+     * @param pixels ARGB像素
+     * @param stride 每行的像素数，不小于[width]
+     * @return 补丁，画面没有变化时为空
+     */
+    fun encode(pixels: IntArray, stride: Int = width): ByteArray? {
+        val keyframe = keyframeRequested || framesSinceKeyframe >= keyframeInterval
+        var dirtyCount = 0
+        for (row in 0 until rows) {
+            val top = row * tileSize
+            val bottom = minOf(top + tileSize, height)
+            for (column in 0 until columns) {
+                val left = column * tileSize
+                val hash = hashTile(pixels, stride, left, top, minOf(left + tileSize, width), bottom)
+                val tile = row * columns + column
+                if (keyframe || hash != tileHashes[tile]) {
+                    tileHashes[tile] = hash
+                    dirtyTiles[dirtyCount++] = tile
+                }
+            }
+        }
+        if (dirtyCount == 0) {
+            framesSinceKeyframe++
+            return null
+        }
+        keyframeRequested = false
+        framesSinceKeyframe = if (keyframe) 0 else framesSinceKeyframe + 1
+        sequence++
+        writeBody(pixels, stride, dirtyCount)
+        return buildPatch(if (keyframe) FramePatchWire.FLAG_KEYFRAME else 0, dirtyCount)
+    }
+
+    private fun writeBody(pixels: IntArray, stride: Int, dirtyCount: Int) {
+        body.clear()
+        for (i in 0 until dirtyCount) {
+            val tile = dirtyTiles[i]
+            val column = tile % columns
+            val row = tile / columns
+            val left = column * tileSize
+            val top = row * tileSize
+            val right = minOf(left + tileSize, width)
+            val bottom = minOf(top + tileSize, height)
+            ensureBodyCapacity(FramePatchWire.TILE_HEADER_SIZE + (right - left) * (bottom - top) * 4)
+            body.putShort(column.toShort())
+            body.putShort(row.toShort())
+            for (y in top until bottom) {
+                val offset = y * stride
+                for (x in left until right) {
+                    body.putInt(pixels[offset + x])
+                }
+            }
+        }
+        body.flip()
+    }
+
+    private fun buildPatch(flags: Int, dirtyCount: Int): ByteArray {
+        deflater.reset()
+        deflater.setInput(body.array(), 0, body.limit())
+        deflater.finish()
+        var length = 0
+        while (!deflater.finished()) {
+            if (length == compressed.size) {
+                compressed = compressed.copyOf(compressed.size * 2)
+            }
+            length += deflater.deflate(compressed, length, compressed.size - length)
+        }
+        val patch = ByteBuffer.allocate(FramePatchWire.HEADER_SIZE + length)
+        patch.put(FramePatchWire.VERSION)
+        patch.put(flags.toByte())
+        patch.putInt(sequence)
+        patch.putShort(width.toShort())
+        patch.putShort(height.toShort())
+        patch.putShort(tileSize.toShort())
+        patch.putShort(dirtyCount.toShort())
+        patch.put(compressed, 0, length)
+        return patch.array()
+    }
+
+    private fun ensureBodyCapacity(needed: Int) {
+        if (body.remaining() >= needed) {
+            return
+        }
+        val grown = ByteBuffer.allocate(maxOf(body.capacity() * 2, body.position() + needed))
+        body.flip()
+        grown.put(body)
+        body = grown
+    }
+}
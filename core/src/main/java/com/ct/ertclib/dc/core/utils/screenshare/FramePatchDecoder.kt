@@ -0,0 +1,145 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.screenshare
+
+import java.nio.ByteBuffer
+import java.util.zip.DataFormatException
+import java.util.zip.Inflater
+
+/**
+ * 把[FrameDiffEncoder]输出的补丁应用到本地帧
+ *
+ * 帧序号不连续、尺寸不一致或数据损坏时丢弃补丁并置[needsKeyframe]，直到收到关键帧。非线程安全。
+ */
+class FramePatchDecoder {
+
+    var width = 0
+        private set
+    var height = 0
+        private set
+
+    /**
+     * 当前帧的ARGB像素，每行[width]个
+     */
+    var frame = IntArray(0)
+        private set
+
+    var needsKeyframe = true
+        private set
+
+    private val inflater = Inflater()
+    private var body = ByteArray(0)
+    private var sequence = 0
+
+    /**
+     * @return 是否已应用，为false时应请求关键帧
+     */
+    fun apply(patch: ByteArray): Boolean {
+        val applied = try {
+            applyPatch(patch)
+        } catch (e: RuntimeException) {
+            // 补丁截断或坐标越界，当前帧已不可信
+            false
+        }
+        needsKeyframe = !applied
+        return applied
+    }
+
+    private fun applyPatch(patch: ByteArray): Boolean {
+        if (patch.size < FramePatchWire.HEADER_SIZE || patch[0] != FramePatchWire.VERSION) {
+            return false
+        }
+        val header = ByteBuffer.wrap(patch, 1, FramePatchWire.HEADER_SIZE - 1)
+        val keyframe = header.get().toInt() and FramePatchWire.FLAG_KEYFRAME != 0
+        val patchSequence = header.getInt()
+        val patchWidth = header.getShort().toInt() and 0xFFFF
+        val patchHeight = header.getShort().toInt() and 0xFFFF
+        val tileSize = header.getShort().toInt() and 0xFFFF
+        val tileCount = header.getShort().toInt() and 0xFFFF
+        if (patchWidth == 0 || patchHeight == 0 || patchWidth.toLong() * patchHeight > FramePatchWire.MAX_PIXELS || tileSize == 0) {
+            return false
+        }
+        val columns = (patchWidth + tileSize - 1) / tileSize
+        val rows = (patchHeight + tileSize - 1) / tileSize
+        if (tileCount > columns * rows) {
+            return false
+        }
+        if (!keyframe && (needsKeyframe || patchSequence != sequence + 1 || patchWidth != width || patchHeight != height)) {
+            return false
+        }
+        if (keyframe && (patchWidth != width || patchHeight != height)) {
+            width = patchWidth
+            height = patchHeight
+            frame = IntArray(width * height)
+        }
+        // 每个像素最多出现一次，更长的正文是损坏或恶意的数据
+        val maxBodyLength = tileCount * FramePatchWire.TILE_HEADER_SIZE + width * height * 4
+        val bodyLength = inflate(patch, maxBodyLength) ?: return false
+        val input = ByteBuffer.wrap(body, 0, bodyLength)
+        repeat(tileCount) {
+            val column = input.getShort().toInt() and 0xFFFF
+            val row = input.getShort().toInt() and 0xFFFF
+            if (column >= columns || row >= rows) {
+                return false
+            }
+            val left = column * tileSize
+            val top = row * tileSize
+            val right = minOf(left + tileSize, width)
+            val bottom = minOf(top + tileSize, height)
+            for (y in top until bottom) {
+                val offset = y * width
+                for (x in left until right) {
+                    frame[offset + x] = input.getInt()
+                }
+            }
+        }
+        sequence = patchSequence
+        return true
+    }
+
+    /**
+     * @return 正文长度，数据损坏或超过[maxLength]时为null
+     */
+    private fun inflate(patch: ByteArray, maxLength: Int): Int? {
+        inflater.reset()
+        inflater.setInput(patch, FramePatchWire.HEADER_SIZE, patch.size - FramePatchWire.HEADER_SIZE)
+        // 多留一个字节，能读出来就说明超长
+        val limit = maxLength + 1
+        if (body.isEmpty()) {
+            body = ByteArray(minOf(patch.size * 4, limit))
+        }
+        var length = 0
+        try {
+            while (!inflater.finished()) {
+                if (length == body.size) {
+                    body = body.copyOf(minOf(body.size * 2, limit))
+                }
+                val read = inflater.inflate(body, length, minOf(body.size, limit) - length)
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    return null
+                }
+                length += read
+                if (length > maxLength) {
+                    return null
+                }
+            }
+        } catch (e: DataFormatException) {
+            return null
+        }
+        return length
+    }
+}
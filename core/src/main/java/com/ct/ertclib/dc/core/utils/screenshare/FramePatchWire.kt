@@ -0,0 +1,32 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.screenshare
+
+/**
+ * 屏幕帧补丁的线路格式
+ *
+ * 头部（不压缩，大端）：版本(1) 标志(1) 帧序号(4) 宽(2) 高(2) 瓦片边长(2) 瓦片数(2)
+ * 正文（deflate压缩）：按瓦片依次为 列号(2) 行号(2) 瓦片内逐行的ARGB像素
+ */
+internal object FramePatchWire {
+    const val VERSION: Byte = 1
+    const val FLAG_KEYFRAME = 0x01
+    const val HEADER_SIZE = 14
+    const val TILE_HEADER_SIZE = 4
+    // 解码端接受的最大帧像素数，超出的头部视为损坏
+    const val MAX_PIXELS = 4096 * 4096
+}
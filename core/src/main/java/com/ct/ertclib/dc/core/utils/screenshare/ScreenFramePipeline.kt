@@ -0,0 +1,72 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.screenshare
+
+/**
+ * 屏幕共享帧管线：按通道积压节流采集，差分编码后发送
+ */
+class ScreenFramePipeline(
+    private val encoder: FrameDiffEncoder,
+    private val rateController: CaptureRateController,
+    private val channel: FrameChannel
+) {
+
+    /**
+     * 承载补丁的数据通道
+     */
+    interface FrameChannel {
+        fun bufferedAmount(): Long
+
+        /**
+         * @return 是否已进入发送队列
+         */
+        fun send(patch: ByteArray): Boolean
+    }
+
+    var sentFrames = 0L
+        private set
+    var sentBytes = 0L
+        private set
+
+    /**
+     * 采集到新帧时调用，未到采集时间的帧直接丢弃
+     *
+     * @return 是否发送了补丁
+     */
+    fun onFrame(pixels: IntArray, stride: Int, nowMs: Long): Boolean {
+        rateController.onBufferedAmount(channel.bufferedAmount())
+        if (!rateController.shouldCapture(nowMs)) {
+            return false
+        }
+        val patch = encoder.encode(pixels, stride) ?: return false
+        if (!channel.send(patch)) {
+            // 对端缺了这一帧，下一帧必须是关键帧
+            encoder.requestKeyframe()
+            return false
+        }
+        sentFrames++
+        sentBytes += patch.size
+        return true
+    }
+
+    /**
+     * 接收端请求重新同步
+     */
+    fun onKeyframeRequested() {
+        encoder.requestKeyframe()
+    }
+}
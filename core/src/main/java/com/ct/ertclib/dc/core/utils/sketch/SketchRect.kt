@@ -0,0 +1,44 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.sketch
+
+/**
+ * 整数像素矩形，right和bottom不包含在内
+ */
+data class SketchRect(
+    val left: Int,
+    val top: Int,
+    val right: Int,
+    val bottom: Int
+) {
+    val isEmpty: Boolean
+        get() = left >= right || top >= bottom
+
+    fun intersects(other: SketchRect): Boolean {
+        return left < other.right && other.left < right && top < other.bottom && other.top < bottom
+    }
+
+    fun union(other: SketchRect?): SketchRect {
+        if (other == null || other.isEmpty) {
+            return this
+        }
+        if (isEmpty) {
+            return other
+        }
+        return SketchRect(minOf(left, other.left), minOf(top, other.top), maxOf(right, other.right), maxOf(bottom, other.bottom))
+    }
+}
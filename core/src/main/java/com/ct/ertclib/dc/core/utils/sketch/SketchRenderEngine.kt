@@ -0,0 +1,309 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.sketch
+
+import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
+
+/**
+ * 涂鸦增量渲染与分层撤销
+ *
+ * 画布按[tileSize]切成瓦片，每提交[checkpointInterval]笔，只对自上个检查点以来被改动的瓦片做快照。
+ * 提交和临时笔画只绘制自身包围盒；撤销、清除临时笔画时从最近检查点恢复受影响的瓦片，
+ * 再重放检查点之后与之相交的笔画，耗时与历史笔画总数无关。
+ * 检查点超过[maxCheckpoints]个时合并最旧的两个，撤销到最旧检查点之前才退化为从空白重放。
+ * 对端边画边发的笔画用[drawLive]每次只画新增的一段，结束时[commitLive]换成历史笔画。
+ * 非线程安全，只在绘制线程使用。
+ */
+class SketchRenderEngine<T>(
+    private val surface: SketchSurface<T>,
+    private val tileSize: Int = DEFAULT_TILE_SIZE,
+    private val checkpointInterval: Int = DEFAULT_CHECKPOINT_INTERVAL,
+    private val maxCheckpoints: Int = DEFAULT_MAX_CHECKPOINTS
+) {
+
+    companion object {
+        const val DEFAULT_TILE_SIZE = 256
+        const val DEFAULT_CHECKPOINT_INTERVAL = 16
+        const val DEFAULT_MAX_CHECKPOINTS = 8
+
+        // 抗锯齿边缘的余量
+        private const val BOUNDS_PADDING = 2
+    }
+
+    /**
+     * @param strokeCount 快照时已提交的笔画数
+     * @param tiles 与上一个检查点相比有变化的瓦片
+     */
+    private class Checkpoint<T>(val strokeCount: Int, val tiles: HashMap<Int, T>)
+
+    /**
+     * @param drawnPoints 已绘制到画布上的点数
+     */
+    private class LiveStroke(var stroke: DrawingInfo, var bounds: SketchRect, var drawnPoints: Int)
+
+    private val columns = (surface.width + tileSize - 1) / tileSize
+    private val strokes = ArrayList<DrawingInfo>()
+    private val strokeBounds = ArrayList<SketchRect>()
+    private val transientStrokes = ArrayList<DrawingInfo>()
+    private val transientBounds = ArrayList<SketchRect>()
+    private val liveStrokes = HashMap<Int, LiveStroke>()
+    private val checkpoints = ArrayList<Checkpoint<T>>()
+    private val dirtyTiles = HashSet<Int>()
+    private var pendingCheckpoint = false
+
+    /**
+     * 最旧检查点之前的瓦片状态已被合并，撤销到此之前需要从空白重放
+     */
+    private var mergedFloor = 0
+
+    val strokeCount: Int
+        get() = strokes.size
+
+    val history: List<DrawingInfo>
+        get() = strokes
+
+    /**
+     * 提交一笔历史笔画
+     *
+     * @return 需要刷新的区域，笔画在画布外时为空
+     */
+    fun commit(stroke: DrawingInfo): SketchRect? {
+        val bounds = boundsOf(stroke) ?: return null
+        strokes.add(stroke)
+        strokeBounds.add(bounds)
+        surface.drawStroke(stroke, bounds)
+        forEachTile(bounds) { dirtyTiles.add(it) }
+        val lastCount = checkpoints.lastOrNull()?.strokeCount ?: mergedFloor
+        if (strokes.size - lastCount >= checkpointInterval) {
+            if (transientStrokes.isEmpty() && liveStrokes.isEmpty()) {
+                checkpoint()
+            } else {
+                // 快照不能包含临时笔画，等清除后再做
+                pendingCheckpoint = true
+            }
+        }
+        return bounds
+    }
+
+    /**
+     * 绘制一笔不进入历史的临时笔画，由[clearTransient]统一擦除
+     */
+    fun drawTransient(stroke: DrawingInfo): SketchRect? {
+        val bounds = boundsOf(stroke) ?: return null
+        transientStrokes.add(stroke)
+        transientBounds.add(bounds)
+        surface.drawStroke(stroke, bounds)
+        return bounds
+    }
+
+    /**
+     * 增量绘制一笔进行中的笔画
+     *
+     * @param stroke 到目前为止的完整笔画，只绘制上次之后新增的一段
+     * @return 需要刷新的区域
+     */
+    fun drawLive(id: Int, stroke: DrawingInfo): SketchRect? {
+        val bounds = boundsOf(stroke) ?: return null
+        val points = stroke.pointList
+        val live = liveStrokes[id]
+        // 从上次的最后一个点接着画，保证线段连续
+        val from = if (live == null) 0 else minOf(maxOf(live.drawnPoints - 1, 0), points.size - 1)
+        val segment = if (from == 0) stroke else DrawingInfo(stroke.width, stroke.color, points.subList(from, points.size))
+        if (live == null) {
+            liveStrokes[id] = LiveStroke(stroke, bounds, points.size)
+        } else {
+            live.stroke = stroke
+            live.bounds = bounds
+            live.drawnPoints = points.size
+        }
+        val segmentBounds = boundsOf(segment) ?: return null
+        surface.drawStroke(segment, segmentBounds)
+        return segmentBounds
+    }
+
+    /**
+     * 进行中的笔画结束，擦掉增量绘制的部分后按完整笔画提交
+     */
+    fun commitLive(id: Int, stroke: DrawingInfo): SketchRect? {
+        val live = liveStrokes.remove(id) ?: return commit(stroke)
+        val tiles = HashSet<Int>()
+        forEachTile(live.bounds) { tiles.add(it) }
+        restoreTiles(tiles)
+        return live.bounds.union(commit(stroke))
+    }
+
+    fun clearTransient(): SketchRect? {
+        if (transientBounds.isEmpty()) {
+            return null
+        }
+        val tiles = HashSet<Int>()
+        var dirty: SketchRect? = null
+        for (bounds in transientBounds) {
+            forEachTile(bounds) { tiles.add(it) }
+            dirty = bounds.union(dirty)
+        }
+        transientStrokes.clear()
+        transientBounds.clear()
+        restoreTiles(tiles)
+        if (pendingCheckpoint && liveStrokes.isEmpty()) {
+            checkpoint()
+        }
+        return dirty
+    }
+
+    /**
+     * 撤销最后一笔历史笔画
+     *
+     * @return 需要刷新的区域，没有可撤销的笔画时为空
+     */
+    fun undo(): SketchRect? {
+        if (strokes.isEmpty()) {
+            return null
+        }
+        strokes.removeAt(strokes.size - 1)
+        val bounds = strokeBounds.removeAt(strokeBounds.size - 1)
+        while (checkpoints.isNotEmpty() && checkpoints.last().strokeCount > strokes.size) {
+            // 丢弃的检查点记录的瓦片相对前一个检查点已变化
+            dirtyTiles.addAll(checkpoints.removeAt(checkpoints.size - 1).tiles.keys)
+        }
+        if (strokes.size < mergedFloor) {
+            mergedFloor = 0
+            checkpoints.forEach { dirtyTiles.addAll(it.tiles.keys) }
+            checkpoints.clear()
+        }
+        val tiles = HashSet<Int>()
+        forEachTile(bounds) { tiles.add(it) }
+        restoreTiles(tiles)
+        return bounds
+    }
+
+    /**
+     * 清空历史、检查点和画布
+     */
+    fun clear() {
+        strokes.clear()
+        strokeBounds.clear()
+        transientStrokes.clear()
+        transientBounds.clear()
+        liveStrokes.clear()
+        checkpoints.clear()
+        dirtyTiles.clear()
+        pendingCheckpoint = false
+        mergedFloor = 0
+        surface.clear(SketchRect(0, 0, surface.width, surface.height))
+    }
+
+    private fun checkpoint() {
+        pendingCheckpoint = false
+        val tiles = HashMap<Int, T>(dirtyTiles.size * 2)
+        for (tile in dirtyTiles) {
+            tiles[tile] = surface.snapshot(tileRect(tile))
+        }
+        dirtyTiles.clear()
+        checkpoints.add(Checkpoint(strokes.size, tiles))
+        if (checkpoints.size > maxCheckpoints) {
+            val oldest = checkpoints.removeAt(0)
+            val next = checkpoints[0]
+            for ((tile, snapshot) in oldest.tiles) {
+                if (!next.tiles.containsKey(tile)) {
+                    next.tiles[tile] = snapshot
+                }
+            }
+            mergedFloor = next.strokeCount
+        }
+    }
+
+    /**
+     * 把瓦片恢复到当前历史的状态，并补画覆盖其上的临时笔画和进行中的笔画
+     */
+    private fun restoreTiles(tiles: Set<Int>) {
+        val base = checkpoints.size - 1
+        val replayFrom = if (base >= 0) checkpoints[base].strokeCount else mergedFloor
+        for (tile in tiles) {
+            val rect = tileRect(tile)
+            val snapshot = findSnapshot(tile, base)
+            if (snapshot != null) {
+                surface.restore(rect, snapshot)
+            } else {
+                surface.clear(rect)
+            }
+            for (i in replayFrom until strokes.size) {
+                if (strokeBounds[i].intersects(rect)) {
+                    surface.drawStroke(strokes[i], rect)
+                }
+            }
+            for (i in transientStrokes.indices) {
+                if (transientBounds[i].intersects(rect)) {
+                    surface.drawStroke(transientStrokes[i], rect)
+                }
+            }
+            for (live in liveStrokes.values) {
+                if (live.bounds.intersects(rect)) {
+                    surface.drawStroke(live.stroke, rect)
+                }
+            }
+        }
+    }
+
+    private fun findSnapshot(tile: Int, fromIndex: Int): T? {
+        for (i in fromIndex downTo 0) {
+            checkpoints[i].tiles[tile]?.let { return it }
+        }
+        return null
+    }
+
+    private fun boundsOf(stroke: DrawingInfo): SketchRect? {
+        val points = stroke.pointList
+        if (points.isEmpty()) {
+            return null
+        }
+        var minX = Float.MAX_VALUE
+        var minY = Float.MAX_VALUE
+        var maxX = -Float.MAX_VALUE
+        var maxY = -Float.MAX_VALUE
+        for (point in points) {
+            if (point.x < minX) minX = point.x
+            if (point.x > maxX) maxX = point.x
+            if (point.y < minY) minY = point.y
+            if (point.y > maxY) maxY = point.y
+        }
+        val half = surface.strokeWidthPx(stroke.width) / 2 + BOUNDS_PADDING
+        val bounds = SketchRect(
+            maxOf(0, Math.floor((minX - half).toDouble()).toInt()),
+            maxOf(0, Math.floor((minY - half).toDouble()).toInt()),
+            minOf(surface.width, Math.ceil((maxX + half).toDouble()).toInt()),
+            minOf(surface.height, Math.ceil((maxY + half).toDouble()).toInt())
+        )
+        return if (bounds.isEmpty) null else bounds
+    }
+
+    private inline fun forEachTile(rect: SketchRect, action: (Int) -> Unit) {
+        val lastColumn = (rect.right - 1) / tileSize
+        val lastRow = (rect.bottom - 1) / tileSize
+        for (row in rect.top / tileSize..lastRow) {
+            for (column in rect.left / tileSize..lastColumn) {
+                action(row * columns + column)
+            }
+        }
+    }
+
+    private fun tileRect(tile: Int): SketchRect {
+        val left = tile % columns * tileSize
+        val top = tile / columns * tileSize
+        return SketchRect(left, top, minOf(left + tileSize, surface.width), minOf(top + tileSize, surface.height))
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.sketch
+
+import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
+
+/**
+ * 涂鸦的绘制目标，屏蔽Bitmap/Canvas，便于在JVM上测试[SketchRenderEngine]
+ *
+ * @param T 区域快照的类型
+ */
+interface SketchSurface<T> {
+    val width: Int
+    val height: Int
+
+    /**
+     * 笔画线宽换算为像素
+     */
+    fun strokeWidthPx(width: Float): Float
+
+    /**
+     * @param clip 只绘制该区域，为空时不裁剪
+     */
+    fun drawStroke(stroke: DrawingInfo, clip: SketchRect?)
+
+    fun clear(rect: SketchRect)
+
+    fun snapshot(rect: SketchRect): T
+
+    fun restore(rect: SketchRect, snapshot: T)
+}
@@ -0,0 +1,100 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.sketch
+
+import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
+import com.ct.ertclib.dc.core.data.screenshare.PointBean
+
+/**
+ * stroke-v1解码器，一次涂鸦会话一个实例，按消息到达顺序调用[decode]
+ */
+class StrokeDecoder {
+
+    interface Listener {
+        /**
+         * 笔画开始或新增了点，drawingInfo为到目前为止的完整笔画
+         */
+        fun onStrokeUpdated(strokeId: Int, drawingInfo: DrawingInfo) {}
+
+        fun onStrokeFinished(strokeId: Int, drawingInfo: DrawingInfo)
+    }
+
+    private class StrokeState(val drawingInfo: DrawingInfo, var lastX: Int, var lastY: Int)
+
+    private val palette = HashMap<Int, String>()
+    private val strokes = HashMap<Int, StrokeState>()
+
+    /**
+     * @return 本条消息中结束的笔画
+     * @throws IllegalArgumentException 数据格式错误
+     */
+    fun decode(message: ByteArray, listener: Listener? = null): List<DrawingInfo> {
+        if (message.isEmpty()) {
+            return emptyList()
+        }
+        val reader = StrokeReader(message)
+        val version = reader.readByte()
+        require(version == StrokeWire.VERSION) { "unsupported stroke version: $version" }
+        val quantScale = reader.readByte().toFloat()
+        require(quantScale > 0) { "invalid quantScale" }
+        val finished = ArrayList<DrawingInfo>(1)
+        while (reader.hasRemaining) {
+            when (val type = reader.readByte()) {
+                StrokeWire.RECORD_PALETTE -> {
+                    val index = reader.readVarInt()
+                    palette[index] = reader.readString(reader.readVarInt())
+                }
+                StrokeWire.RECORD_BEGIN -> {
+                    val strokeId = reader.readVarInt()
+                    val colorIndex = reader.readVarInt()
+                    val color = requireNotNull(palette[colorIndex]) { "unknown color index: $colorIndex" }
+                    val width = reader.readVarInt() / StrokeWire.WIDTH_SCALE
+                    val x = reader.readSInt()
+                    val y = reader.readSInt()
+                    val info = DrawingInfo(width, color, mutableListOf(PointBean(x / quantScale, y / quantScale)))
+                    strokes[strokeId] = StrokeState(info, x, y)
+                    listener?.onStrokeUpdated(strokeId, info)
+                }
+                StrokeWire.RECORD_POINTS -> {
+                    val strokeId = reader.readVarInt()
+                    val state = requireNotNull(strokes[strokeId]) { "unknown stroke: $strokeId" }
+                    val count = reader.readVarInt()
+                    val points = state.drawingInfo.pointList
+                    repeat(count) {
+                        state.lastX += reader.readSInt()
+                        state.lastY += reader.readSInt()
+                        points.add(PointBean(state.lastX / quantScale, state.lastY / quantScale))
+                    }
+                    listener?.onStrokeUpdated(strokeId, state.drawingInfo)
+                }
+                StrokeWire.RECORD_END -> {
+                    val strokeId = reader.readVarInt()
+                    val state = requireNotNull(strokes.remove(strokeId)) { "unknown stroke: $strokeId" }
+                    finished.add(state.drawingInfo)
+                    listener?.onStrokeFinished(strokeId, state.drawingInfo)
+                }
+                else -> throw IllegalArgumentException("unknown stroke record: $type")
+            }
+        }
+        return finished
+    }
+
+    fun reset() {
+        palette.clear()
+        strokes.clear()
+    }
+}
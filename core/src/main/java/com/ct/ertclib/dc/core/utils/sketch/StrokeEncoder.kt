@@ -0,0 +1,178 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.sketch
+
+import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
+import com.ct.ertclib.dc.core.data.screenshare.PointBean
+import kotlin.math.roundToInt
+
+/**
+ * stroke-v1编码器，一次涂鸦会话一个实例，与对端的[StrokeDecoder]一一对应
+ *
+ * 既可以整笔编码（[encodeStroke]），也可以在绘制过程中分段下发（[begin]、[append]、[end]）。
+ * 非线程安全，调用方保证串行。
+ *
+ * @param quantScale 每像素的量化级数，4即精确到0.25像素
+ * @param tolerance Douglas-Peucker简化的容差（像素），0为不简化
+ */
+class StrokeEncoder(
+    private val quantScale: Int = DEFAULT_QUANT_SCALE,
+    private val tolerance: Float = 0f
+) {
+
+    companion object {
+        const val DEFAULT_QUANT_SCALE = 4
+    }
+
+    private class StrokeState(var lastX: Int, var lastY: Int, var lastPoint: PointBean)
+
+    private val palette = HashMap<String, Int>()
+    private val strokes = HashMap<Int, StrokeState>()
+    private val writer = StrokeWriter(256)
+    private var nextStrokeId = 0
+
+    init {
+        require(quantScale in 1..255) { "quantScale out of range: $quantScale" }
+    }
+
+    fun nextStrokeId(): Int = nextStrokeId++
+
+    /**
+     * 整笔编码，等价于在一条消息里begin + append + end
+     */
+    fun encodeStroke(drawingInfo: DrawingInfo): ByteArray {
+        val points = drawingInfo.pointList
+        if (points.isEmpty()) {
+            return ByteArray(0)
+        }
+        val strokeId = nextStrokeId()
+        startMessage()
+        writeBegin(strokeId, drawingInfo.width, drawingInfo.color, points[0])
+        writePoints(strokeId, points.subList(1, points.size))
+        writeEnd(strokeId)
+        return writer.toByteArray()
+    }
+
+    fun begin(strokeId: Int, width: Float, color: String, firstPoint: PointBean): ByteArray {
+        startMessage()
+        writeBegin(strokeId, width, color, firstPoint)
+        return writer.toByteArray()
+    }
+
+    /**
+     * 追加笔画中新采集的点，开启简化时以上一段的末点为锚点简化本段
+     */
+    fun append(strokeId: Int, points: List<PointBean>): ByteArray {
+        if (points.isEmpty() || !strokes.containsKey(strokeId)) {
+            return ByteArray(0)
+        }
+        startMessage()
+        writePoints(strokeId, points)
+        return writer.toByteArray()
+    }
+
+    /**
+     * @param points 结束前尚未下发的点
+     */
+    fun end(strokeId: Int, points: List<PointBean> = emptyList()): ByteArray {
+        if (!strokes.containsKey(strokeId)) {
+            return ByteArray(0)
+        }
+        startMessage()
+        writePoints(strokeId, points)
+        writeEnd(strokeId)
+        return writer.toByteArray()
+    }
+
+    private fun startMessage() {
+        writer.reset()
+        writer.writeByte(StrokeWire.VERSION)
+        writer.writeByte(quantScale)
+    }
+
+    private fun writeBegin(strokeId: Int, width: Float, color: String, firstPoint: PointBean) {
+        val colorIndex = palette[color] ?: palette.size.also { index ->
+            palette[color] = index
+            val colorBytes = color.toByteArray(Charsets.UTF_8)
+            writer.writeByte(StrokeWire.RECORD_PALETTE)
+            writer.writeVarInt(index)
+            writer.writeVarInt(colorBytes.size)
+            writer.writeBytes(colorBytes)
+        }
+        val x = quantize(firstPoint.x)
+        val y = quantize(firstPoint.y)
+        writer.writeByte(StrokeWire.RECORD_BEGIN)
+        writer.writeVarInt(strokeId)
+        writer.writeVarInt(colorIndex)
+        writer.writeVarInt((width * StrokeWire.WIDTH_SCALE).roundToInt().coerceAtLeast(0))
+        writer.writeSInt(x)
+        writer.writeSInt(y)
+        strokes[strokeId] = StrokeState(x, y, firstPoint)
+    }
+
+    private fun writePoints(strokeId: Int, points: List<PointBean>) {
+        val state = strokes[strokeId] ?: return
+        if (points.isEmpty()) {
+            return
+        }
+        val simplified = if (tolerance > 0f) {
+            val anchored = ArrayList<PointBean>(points.size + 1)
+            anchored.add(state.lastPoint)
+            anchored.addAll(points)
+            StrokeSimplifier.simplify(anchored, tolerance).let { it.subList(1, it.size) }
+        } else {
+            points
+        }
+        // 先量化，丢掉量化后与前一点重合的点
+        val deltas = IntArray(simplified.size * 2)
+        var count = 0
+        var lastX = state.lastX
+        var lastY = state.lastY
+        for (point in simplified) {
+            val x = quantize(point.x)
+            val y = quantize(point.y)
+            if (x == lastX && y == lastY) {
+                continue
+            }
+            deltas[count * 2] = x - lastX
+            deltas[count * 2 + 1] = y - lastY
+            lastX = x
+            lastY = y
+            count++
+        }
+        state.lastPoint = simplified.last()
+        if (count == 0) {
+            return
+        }
+        state.lastX = lastX
+        state.lastY = lastY
+        writer.writeByte(StrokeWire.RECORD_POINTS)
+        writer.writeVarInt(strokeId)
+        writer.writeVarInt(count)
+        for (i in 0 until count * 2) {
+            writer.writeSInt(deltas[i])
+        }
+    }
+
+    private fun writeEnd(strokeId: Int) {
+        strokes.remove(strokeId)
+        writer.writeByte(StrokeWire.RECORD_END)
+        writer.writeVarInt(strokeId)
+    }
+
+    private fun quantize(value: Float): Int = (value * quantScale).roundToInt()
+}
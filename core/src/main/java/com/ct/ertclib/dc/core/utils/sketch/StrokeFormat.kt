@@ -0,0 +1,40 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.sketch
+
+/**
+ * 涂鸦笔画的传输格式协商
+ *
+ * 小程序打开画板时通过strokeFormats声明支持的格式，SDK选出双方都支持的最优格式并在打开画板的通知中返回，
+ * 未声明时沿用JSON格式的drawingInfo。
+ */
+object StrokeFormat {
+    const val JSON = "json"
+    const val BINARY_V1 = "stroke-v1"
+
+    /**
+     * 按优先级排列的本端支持格式
+     */
+    val SUPPORTED = listOf(BINARY_V1, JSON)
+
+    fun negotiate(offered: Collection<String>?): String {
+        if (offered.isNullOrEmpty()) {
+            return JSON
+        }
+        return SUPPORTED.firstOrNull { offered.contains(it) } ?: JSON
+    }
+}
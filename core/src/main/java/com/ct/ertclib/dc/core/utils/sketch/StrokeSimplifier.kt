@@ -0,0 +1,85 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.sketch
+
+import com.ct.ertclib.dc.core.data.screenshare.PointBean
+
+/**
+ * Douglas-Peucker折线简化，保留首尾点，去掉与相邻保留点连线距离不超过tolerance的点
+ */
+object StrokeSimplifier {
+
+    fun simplify(points: List<PointBean>, tolerance: Float): List<PointBean> {
+        if (tolerance <= 0f || points.size < 3) {
+            return points
+        }
+        val keep = BooleanArray(points.size)
+        keep[0] = true
+        keep[points.size - 1] = true
+        val toleranceSquared = tolerance * tolerance
+        // 用显式栈代替递归，长笔画不会栈溢出
+        val stack = IntArray(points.size * 2)
+        var top = 0
+        stack[top++] = 0
+        stack[top++] = points.size - 1
+        while (top > 0) {
+            val end = stack[--top]
+            val start = stack[--top]
+            var maxDistance = 0f
+            var maxIndex = -1
+            for (i in start + 1 until end) {
+                val distance = distanceSquared(points[i], points[start], points[end])
+                if (distance > maxDistance) {
+                    maxDistance = distance
+                    maxIndex = i
+                }
+            }
+            if (maxIndex >= 0 && maxDistance > toleranceSquared) {
+                keep[maxIndex] = true
+                stack[top++] = start
+                stack[top++] = maxIndex
+                stack[top++] = maxIndex
+                stack[top++] = end
+            }
+        }
+        val result = ArrayList<PointBean>(points.size)
+        for (i in points.indices) {
+            if (keep[i]) {
+                result.add(points[i])
+            }
+        }
+        return result
+    }
+
+    /**
+     * 点到线段距离的平方
+     */
+    private fun distanceSquared(point: PointBean, start: PointBean, end: PointBean): Float {
+        val dx = end.x - start.x
+        val dy = end.y - start.y
+        val lengthSquared = dx * dx + dy * dy
+        if (lengthSquared == 0f) {
+            val px = point.x - start.x
+            val py = point.y - start.y
+            return px * px + py * py
+        }
+        val t = (((point.x - start.x) * dx + (point.y - start.y) * dy) / lengthSquared).coerceIn(0f, 1f)
+        val px = point.x - (start.x + t * dx)
+        val py = point.y - (start.y + t * dy)
+        return px * px + py * py
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.sketch
+
+/**
+ * stroke-v1二进制格式的常量和变长整数读写
+ *
+ * 每条消息：版本(1字节) + 量化倍数(1字节) + 若干记录，记录以类型字节开头：
+ * - PALETTE：索引、UTF-8颜色串，颜色第一次出现时下发，之后笔画只带索引
+ * - BEGIN：笔画id、颜色索引、线宽×10、首点坐标
+ * - POINTS：笔画id、点数、各点相对前一点的增量
+ * - END：笔画id
+ * 坐标乘以量化倍数取整，整数都用zigzag + varint编码。调色板和笔画状态在一次会话内有效，依赖有序可靠的传输。
+ */
+internal object StrokeWire {
+    const val VERSION = 1
+    const val RECORD_PALETTE = 1
+    const val RECORD_BEGIN = 2
+    const val RECORD_POINTS = 3
+    const val RECORD_END = 4
+    const val WIDTH_SCALE = 10f
+
+    fun zigzag(value: Int): Int = (value shl 1) xor (value shr 31)
+
+    fun unzigzag(value: Int): Int = (value ushr 1) xor -(value and 1)
+}
+
+/**
+ * 可增长的字节缓冲
+ */
+internal class StrokeWriter(initialCapacity: Int = 64) {
+    private var bytes = ByteArray(initialCapacity)
+    var size = 0
+        private set
+
+    fun writeByte(value: Int) {
+        ensure(1)
+        bytes[size++] = value.toByte()
+    }
+
+    fun writeVarInt(value: Int) {
+        ensure(5)
+        var remaining = value
+        while (remaining and 0x7F.inv() != 0) {
+            bytes[size++] = ((remaining and 0x7F) or 0x80).toByte()
+            remaining = remaining ushr 7
+        }
+        bytes[size++] = remaining.toByte()
+    }
+
+    fun writeSInt(value: Int) {
+        writeVarInt(StrokeWire.zigzag(value))
+    }
+
+    fun writeBytes(value: ByteArray) {
+        ensure(value.size)
+        System.arraycopy(value, 0, bytes, size, value.size)
+        size += value.size
+    }
+
+    fun reset() {
+        size = 0
+    }
+
+    fun toByteArray(): ByteArray = bytes.copyOf(size)
+
+    private fun ensure(extra: Int) {
+        if (size + extra > bytes.size) {
+            bytes = bytes.copyOf(maxOf(bytes.size * 2, size + extra))
+        }
+    }
+}
+
+/**
+ * 字节数组读取
+ */
+internal class StrokeReader(private val bytes: ByteArray) {
+    private var position = 0
+
+    val hasRemaining: Boolean
+        get() = position < bytes.size
+
+    fun readByte(): Int {
+        if (position >= bytes.size) {
+            throw IllegalArgumentException("unexpected end of stroke data")
+        }
+        return bytes[position++].toInt() and 0xFF
+    }
+
+    fun readVarInt(): Int {
+        var result = 0
+        var shift = 0
+        while (shift < 35) {
+            val b = readByte()
+            result = result or ((b and 0x7F) shl shift)
+            if (b and 0x80 == 0) {
+                return result
+            }
+            shift += 7
+        }
+        throw IllegalArgumentException("malformed varint")
+    }
+
+    fun readSInt(): Int = StrokeWire.unzigzag(readVarInt())
+
+    fun readString(length: Int): String {
+        if (length < 0 || position + length > bytes.size) {
+            throw IllegalArgumentException("unexpected end of stroke data")
+        }
+        val value = String(bytes, position, length, Charsets.UTF_8)
+        position += length
+        return value
+    }
+}
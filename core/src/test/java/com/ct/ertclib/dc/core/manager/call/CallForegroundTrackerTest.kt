@@ -0,0 +1,96 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.call
+
+import com.ct.ertclib.dc.core.data.call.CallForegroundState
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
+
+class CallForegroundTrackerTest {
+
+    companion object {
+        private const val IN_CALL_ACTIVITY = "com.android.incallui.InCallActivity"
+        private const val EXPANDED_ACTIVITY = "com.ct.ertclib.dc.app.ui.activity.MiniAppExpandedActivity"
+    }
+
+    @Test
+    fun lifecycleEvents_onlyPublishChanges() {
+        val metrics = MetricsRegistry()
+        val tracker = CallForegroundTracker({ null }, metrics = metrics)
+
+        tracker.onActivityResumed(EXPANDED_ACTIVITY)
+        tracker.onActivityResumed(EXPANDED_ACTIVITY)
+        assertEquals(CallForegroundState(inCallOnTop = false, expandedShown = true), tracker.state.value)
+        tracker.onActivityResumed("com.example.OtherActivity")
+        tracker.onActivityResumed("com.example.AnotherActivity")
+        assertEquals(CallForegroundState(), tracker.state.value)
+        assertEquals(2, metrics.counter(MetricNames.CALL_FOREGROUND_CHANGE).get())
+        assertEquals(0, metrics.counter(MetricNames.CALL_FOREGROUND_PROBE).get())
+    }
+
+    @Test
+    fun pause_clearsStateWithoutPolling() {
+        val tracker = CallForegroundTracker({ null }, metrics = MetricsRegistry())
+
+        tracker.onActivityResumed(EXPANDED_ACTIVITY)
+        tracker.onActivityPaused("com.example.OtherActivity")
+        assertTrue(tracker.state.value.expandedShown)
+        tracker.onActivityPaused(EXPANDED_ACTIVITY)
+        assertEquals(CallForegroundState(), tracker.state.value)
+    }
+
+    @Test
+    fun nextInterval_doublesWhileIdleAndResetsOnActivity() {
+        val tracker = CallForegroundTracker({ null }, minIntervalMs = 5, maxIntervalMs = 80, metrics = MetricsRegistry())
+
+        val intervals = generateSequence(5L) { tracker.nextInterval(it, active = false) }.take(6).toList()
+        assertEquals(listOf(5L, 10L, 20L, 40L, 80L, 80L), intervals)
+        assertEquals(5L, tracker.nextInterval(80, active = true))
+    }
+
+    @Test
+    fun poke_probesImmediatelyAndStopPollingCancels() {
+        val metrics = MetricsRegistry()
+        val top = AtomicReference<String?>()
+        val probed = Semaphore(0)
+        // 间隔远大于测试时长，探测只来自启动和poke
+        val tracker = CallForegroundTracker({
+            probed.release()
+            top.getAndSet(null)
+        }, minIntervalMs = 60_000, maxIntervalMs = 60_000, metrics = metrics)
+
+        tracker.startPolling()
+        assertTrue(probed.tryAcquire(5, TimeUnit.SECONDS))
+        top.set(IN_CALL_ACTIVITY)
+        tracker.poke()
+        assertTrue(probed.tryAcquire(5, TimeUnit.SECONDS))
+        runBlocking { withTimeout(5_000) { tracker.state.first { it.inCallOnTop } } }
+        tracker.stopPolling()
+
+        assertEquals(2, metrics.counter(MetricNames.CALL_FOREGROUND_PROBE).get())
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.call
+
+import com.ct.ertclib.dc.core.data.call.Contact
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class ContactsManagerTest {
+
+    companion object {
+        private const val CONTACT_COUNT = 5_000
+        private const val PAGE_SIZE = 50
+    }
+
+    /**
+     * 内存中的通讯录，统计查询次数
+     */
+    private class FakeContactsSource : ContactsSource {
+        val names = HashMap<Long, String>()
+        val phones = HashMap<Long, String?>()
+        val updated = HashMap<Long, Long>()
+        val deleted = HashMap<Long, Long>()
+        var clock = 1000L
+        var queries = 0
+        var onChange: (() -> Unit)? = null
+
+        fun put(id: Long, name: String, phone: String?) {
+            names[id] = name
+            phones[id] = phone
+            updated[id] = ++clock
+            deleted.remove(id)
+            onChange?.invoke()
+        }
+
+        fun delete(id: Long) {
+            names.remove(id)
+            phones.remove(id)
+            updated.remove(id)
+            deleted[id] = ++clock
+            onChange?.invoke()
+        }
+
+        override fun queryContacts(contactIds: Collection<Long>?): List<ContactsSource.Row> {
+            queries++
+            val ids = contactIds?.filter { names.containsKey(it) } ?: names.keys
+            return ids.flatMap { id ->
+                // 姓名行加电话行，与Data表一致
+                val nameRow = ContactsSource.Row(id, names[id], null, updated[id]!!)
+                phones[id]?.let { listOf(nameRow, ContactsSource.Row(id, names[id], it, updated[id]!!)) } ?: listOf(nameRow)
+            }
+        }
+
+        override fun queryUpdatedSince(timestamp: Long): Map<Long, Long> {
+            queries++
+            return updated.filterValues { it > timestamp }
+        }
+
+        override fun queryDeletedSince(timestamp: Long): Map<Long, Long> {
+            queries++
+            return deleted.filterValues { it > timestamp }
+        }
+
+        override fun observe(onChange: () -> Unit) {
+            this.onChange = onChange
+        }
+
+        fun expected(): List<Contact> {
+            return names.map { (id, name) -> Contact(id, name, phones[id]) }.sortedWith(compareBy({ it.name }, { it.id }))
+        }
+    }
+
+    private fun newSource(): FakeContactsSource {
+        val source = FakeContactsSource()
+        for (i in 0 until CONTACT_COUNT) {
+            source.put(i.toLong(), "name${(i * 7919) % CONTACT_COUNT}", if (i % 5 == 0) null else "1380000$i")
+        }
+        return source
+    }
+
+    @Test
+    fun cursorPaging_readsAllContactsWithConstantQueries() {
+        val source = newSource()
+        val manager = ContactsManager(source)
+        val collected = ArrayList<Contact>()
+        var cursor: String? = null
+        do {
+            val page = manager.getContactsAfter(cursor, PAGE_SIZE)
+            assertEquals(CONTACT_COUNT, page.total)
+            collected.addAll(page.list)
+            cursor = page.nextCursor
+        } while (cursor != null)
+        assertEquals(source.expected(), collected)
+        // 一次联表查询加一次删除记录查询，旧实现为每页1+N次再加一次计数
+        assertEquals(2, source.queries)
+        assertEquals(source.expected().subList(100, 150), manager.getContacts(100, PAGE_SIZE).list)
+    }
+
+    @Test
+    fun changes_refreshOnlyChangedContacts() {
+        val source = newSource()
+        val manager = ContactsManager(source)
+        val first = manager.getContactsAfter(null, PAGE_SIZE)
+        source.queries = 0
+
+        source.put(1, "aaa", "1")
+        source.delete(2)
+        source.put(CONTACT_COUNT.toLong(), "zzz", null)
+        // 游标跨越变化仍然连续
+        val second = manager.getContactsAfter(first.nextCursor, CONTACT_COUNT)
+        assertEquals(3, source.queries)
+        assertEquals(CONTACT_COUNT, second.total)
+        assertNull(second.nextCursor)
+        assertEquals(source.expected(), manager.getContacts(0, Int.MAX_VALUE).list)
+        assertEquals(3, source.queries)
+
+        // 大量变化时整体重新加载
+        for (i in 0 until 300L) {
+            source.put(i, "bulk$i", null)
+        }
+        assertEquals(source.expected(), manager.getContacts(0, Int.MAX_VALUE).list)
+        assertTrue(source.queries <= 7)
+    }
+}
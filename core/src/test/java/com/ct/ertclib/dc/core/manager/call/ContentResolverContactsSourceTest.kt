@@ -0,0 +1,167 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.call
+
+import android.content.ContentProvider
+import android.content.ContentValues
+import android.database.Cursor
+import android.database.sqlite.SQLiteDatabase
+import android.net.Uri
+import android.provider.ContactsContract
+import android.provider.ContactsContract.CommonDataKinds.Phone
+import android.provider.ContactsContract.CommonDataKinds.StructuredName
+import com.ct.ertclib.dc.core.data.call.Contact
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+/**
+ * 在SQLite实现的联系人Provider上验证[ContentResolverContactsSource]的联表查询和增量查询
+ */
+@RunWith(RobolectricTestRunner::class)
+class ContentResolverContactsSourceTest {
+
+    companion object {
+        private const val CONTACT_COUNT = 5_000
+        private const val PAGE_SIZE = 50
+    }
+
+    /**
+     * 只有Data、Contacts、DeletedContacts三张表，列名与系统一致，查询条件原样交给SQLite执行
+     */
+    class FakeContactsProvider : ContentProvider() {
+        lateinit var db: SQLiteDatabase
+        var queries = 0
+        private var clock = 1000L
+
+        override fun onCreate(): Boolean {
+            db = SQLiteDatabase.create(null)
+            db.execSQL("CREATE TABLE data (contact_id INTEGER, display_name TEXT, mimetype TEXT, data1 TEXT, contact_last_updated_timestamp INTEGER)")
+            db.execSQL("CREATE TABLE contacts (_id INTEGER PRIMARY KEY, contact_last_updated_timestamp INTEGER)")
+            db.execSQL("CREATE TABLE deleted_contacts (contact_id INTEGER PRIMARY KEY, contact_deleted_timestamp INTEGER)")
+            return true
+        }
+
+        fun put(id: Long, name: String, phone: String?) {
+            val timestamp = ++clock
+            db.delete("data", "contact_id = ?", arrayOf(id.toString()))
+            db.delete("deleted_contacts", "contact_id = ?", arrayOf(id.toString()))
+            db.insert("data", null, dataRow(id, name, StructuredName.CONTENT_ITEM_TYPE, null, timestamp))
+            phone?.let { db.insert("data", null, dataRow(id, name, Phone.CONTENT_ITEM_TYPE, it, timestamp)) }
+            // 其他类型的行不应被查出
+            db.insert("data", null, dataRow(id, name, ContactsContract.CommonDataKinds.Email.CONTENT_ITEM_TYPE, "$id@example.com", timestamp))
+            db.insertWithOnConflict("contacts", null, ContentValues().apply {
+                put("_id", id)
+                put("contact_last_updated_timestamp", timestamp)
+            }, SQLiteDatabase.CONFLICT_REPLACE)
+        }
+
+        fun delete(id: Long) {
+            db.delete("data", "contact_id = ?", arrayOf(id.toString()))
+            db.delete("contacts", "_id = ?", arrayOf(id.toString()))
+            db.insertWithOnConflict("deleted_contacts", null, ContentValues().apply {
+                put("contact_id", id)
+                put("contact_deleted_timestamp", ++clock)
+            }, SQLiteDatabase.CONFLICT_REPLACE)
+        }
+
+        private fun dataRow(id: Long, name: String, mimeType: String, data1: String?, timestamp: Long): ContentValues {
+            return ContentValues().apply {
+                put("contact_id", id)
+                put("display_name", name)
+                put("mimetype", mimeType)
+                put("data1", data1)
+                put("contact_last_updated_timestamp", timestamp)
+            }
+        }
+
+        override fun query(uri: Uri, projection: Array<String>?, selection: String?, selectionArgs: Array<String>?, sortOrder: String?): Cursor {
+            queries++
+            return db.query(uri.lastPathSegment, projection, selection, selectionArgs, null, null, sortOrder)
+        }
+
+        override fun getType(uri: Uri): String? = null
+
+        override fun insert(uri: Uri, values: ContentValues?): Uri? = null
+
+        override fun delete(uri: Uri, selection: String?, selectionArgs: Array<String>?): Int = 0
+
+        override fun update(uri: Uri, values: ContentValues?, selection: String?, selectionArgs: Array<String>?): Int = 0
+    }
+
+    private lateinit var provider: FakeContactsProvider
+    private val expected = HashMap<Long, Contact>()
+
+    @Before
+    fun setUp() {
+        provider = Robolectric.buildContentProvider(FakeContactsProvider::class.java).create(ContactsContract.AUTHORITY).get()
+        provider.db.beginTransaction()
+        try {
+            for (i in 0 until CONTACT_COUNT) {
+                put(i.toLong(), "name${(i * 7919) % CONTACT_COUNT}", if (i % 5 == 0) null else "1380000$i")
+            }
+            provider.db.setTransactionSuccessful()
+        } finally {
+            provider.db.endTransaction()
+        }
+    }
+
+    private fun put(id: Long, name: String, phone: String?) {
+        provider.put(id, name, phone)
+        expected[id] = Contact(id, name, phone)
+    }
+
+    private fun sortedExpected(): List<Contact> = expected.values.sortedWith(compareBy({ it.name }, { it.id }))
+
+    @Test
+    fun pagingAllContacts_usesOneJoinedQuery() {
+        val manager = ContactsManager(ContentResolverContactsSource(RuntimeEnvironment.getApplication()))
+        val collected = ArrayList<Contact>()
+        var cursor: String? = null
+        do {
+            val page = manager.getContactsAfter(cursor, PAGE_SIZE)
+            assertEquals(CONTACT_COUNT, page.total)
+            collected.addAll(page.list)
+            cursor = page.nextCursor
+        } while (cursor != null)
+
+        assertEquals(sortedExpected(), collected)
+        // Data表联表查询加一次删除记录查询
+        assertEquals(2, provider.queries)
+    }
+
+    @Test
+    fun changes_queryOnlyChangedContacts() {
+        val manager = ContactsManager(ContentResolverContactsSource(RuntimeEnvironment.getApplication()))
+        manager.getContacts(0, PAGE_SIZE)
+        provider.queries = 0
+
+        put(1, "aaa", "1")
+        put(CONTACT_COUNT.toLong(), "zzz", null)
+        provider.delete(2)
+        expected.remove(2)
+        manager.invalidate()
+
+        assertEquals(sortedExpected(), manager.getContacts(0, Int.MAX_VALUE).list)
+        // 更新、删除各查一次，再按id查变化的联系人
+        assertEquals(3, provider.queries)
+    }
+}
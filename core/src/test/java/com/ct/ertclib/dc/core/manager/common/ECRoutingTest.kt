@@ -0,0 +1,93 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.google.gson.JsonParser
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class ECRoutingTest {
+
+    @Test
+    fun parse_readsTopLevelRoutingFieldsOnly() {
+        val content = """{"data":{"provider":"X","module":"Y","list":["a\"}",1]},"module":"Translate","provider":"OEM","callId":"c1","appId":7,"func":"start"}"""
+        val route = ECRouting.parse(content)!!
+        assertEquals("OEM", route.provider)
+        assertEquals("Translate", route.module)
+        assertEquals("c1", route.callId)
+        assertEquals("7", route.appId)
+        assertEquals("a\"b", ECRouting.parse("""{"module":"a\"b"}""")?.module)
+        assertNull(ECRouting.parse("""{"module":"a"""))
+        assertNull(ECRouting.parse("[1]"))
+    }
+
+    @Test
+    fun removeProvider_matchesGsonAtEveryPosition() {
+        val contents = listOf(
+            """{"provider":"OEM","module":"AIVideo","func":"detect","data":{"provider":1}}""",
+            """{"module":"AIVideo", "provider" : "OEM" , "func":"detect"}""",
+            """{"module":"AIVideo","func":"detect","provider":"OEM"}""",
+            """{"provider":"OEM"}""",
+            """{"module":"AIVideo"}"""
+        )
+        for (content in contents) {
+            val removed = ECRouting.removeProvider(content, ECRouting.parse(content)!!)
+            val expected = JsonParser.parseString(content).asJsonObject.apply { remove("provider") }
+            assertEquals(expected, JsonParser.parseString(removed))
+        }
+    }
+
+    @Test
+    fun withProvider_insertsOrReplaces() {
+        val content = """{"module":"AIVideo","func":"detectCallback","data":{"isAI":true}}"""
+        assertEquals(
+            """{"provider":"OEM","module":"AIVideo","func":"detectCallback","data":{"isAI":true}}""",
+            ECRouting.withProvider(content, ECRouting.parse(content)!!, "OEM")
+        )
+        val withOther = """{"module":"AIVideo","provider":"CT"}"""
+        assertEquals("""{"module":"AIVideo","provider":"OEM"}""", ECRouting.withProvider(withOther, ECRouting.parse(withOther)!!, "OEM"))
+        assertEquals("""{"provider":"OEM"}""", ECRouting.withProvider("{}", ECRouting.parse("{}")!!, "OEM"))
+    }
+
+    @Test
+    fun callbackQueue_keepsOrderPerKey() {
+        val executor = Executors.newFixedThreadPool(4)
+        val queue = ECCallbackQueue(executor)
+        val keys = listOf("call1app1", "call1app2", "call2app1")
+        val received = keys.associateWith { Collections.synchronizedList(mutableListOf<Int>()) }
+        val done = CountDownLatch(keys.size * 1000)
+        repeat(1000) { index ->
+            for (key in keys) {
+                queue.post(key) {
+                    received[key]!!.add(index)
+                    done.countDown()
+                }
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS))
+        for (key in keys) {
+            assertEquals((0 until 1000).toList(), received[key])
+        }
+        executor.shutdown()
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.common
+
+import android.content.Context
+import android.content.ContextWrapper
+import com.ct.ertclib.dc.base.port.ec.ECRequest
+import com.ct.ertclib.dc.base.port.ec.IEC
+import com.ct.ertclib.dc.base.port.ec.IECCallback
+import com.ct.ertclib.dc.base.port.ec.IECStreamCallback
+import com.ct.ertclib.dc.base.port.ec.IECV2
+import com.ct.ertclib.dc.core.port.expandcapacity.IExpandingCapacityListener
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.nio.ByteBuffer
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+class ExpandingCapacityManagerTest {
+
+    companion object {
+        private const val CALL_ID = "call"
+        private const val APP_ID = "app"
+        private const val MODULE = "Stream"
+    }
+
+    private val context: Context = ContextWrapper(null)
+
+    private class LegacyProvider : IEC {
+        val requests = mutableListOf<String>()
+        var callback: IECCallback? = null
+
+        override fun init(context: Context, callback: IECCallback?) {
+            this.callback = callback
+        }
+
+        override fun getModuleList(): List<String> = listOf(MODULE)
+
+        override fun request(context: Context, callId: String, appId: String, content: String): Int {
+            requests.add(content)
+            return 0
+        }
+
+        override fun releaseMiniApp(context: Context, callId: String, miniAppId: String) {
+        }
+
+        override fun releaseAll(context: Context) {
+        }
+    }
+
+    private class StreamProvider : IECV2 {
+        var callback: IECStreamCallback? = null
+        val batches = mutableListOf<List<String>>()
+        val writable = CountDownLatch(1)
+
+        override fun init(context: Context, callback: IECStreamCallback?) {
+            this.callback = callback
+        }
+
+        override fun getModuleList(): List<String> = listOf(MODULE)
+
+        override fun request(context: Context, callId: String, appId: String, module: String, payload: ByteBuffer): Int = 0
+
+        override fun requestBatch(context: Context, callId: String, appId: String, requests: List<ECRequest>): Int {
+            batches.add(requests.map { Charsets.UTF_8.decode(it.payload).toString() })
+            return requests.size
+        }
+
+        override fun onWritable() {
+            writable.countDown()
+        }
+
+        override fun releaseMiniApp(context: Context, callId: String, miniAppId: String) {
+        }
+
+        override fun releaseAll(context: Context) {
+        }
+    }
+
+    private fun modules(provider: String): ConcurrentHashMap<String, ArrayList<String>> {
+        return ConcurrentHashMap<String, ArrayList<String>>().apply { put(provider, arrayListOf(MODULE)) }
+    }
+
+    @Test
+    fun legacyProvider_isAdaptedForBinaryRequests() {
+        val manager = ExpandingCapacityManager()
+        val legacy = LegacyProvider()
+        manager.registerProvider(context, ExpandingCapacityManager.OEM, legacy)
+        val callbacks = LinkedBlockingQueue<String>()
+        manager.registerECListener(CALL_ID, APP_ID, modules(ExpandingCapacityManager.OEM), object : IExpandingCapacityListener {
+            override fun onCallback(content: String?) {
+                callbacks.add(content!!)
+            }
+        })
+
+        assertEquals(0, manager.request(context, CALL_ID, APP_ID, """{"provider":"OEM","module":"Stream","func":"a"}"""))
+        val payload = ByteBuffer.wrap("""{"module":"Stream","func":"b"}""".toByteArray())
+        assertEquals(0, manager.request(context, CALL_ID, APP_ID, ExpandingCapacityManager.OEM, MODULE, payload))
+        assertEquals(-1, manager.request(context, CALL_ID, APP_ID, ExpandingCapacityManager.OEM, "Other", payload))
+        assertEquals(listOf("""{"module":"Stream","func":"a"}""", """{"module":"Stream","func":"b"}"""), legacy.requests)
+
+        legacy.callback!!.onCallback(CALL_ID, APP_ID, """{"module":"Stream","func":"c"}""")
+        assertEquals("""{"provider":"OEM","module":"Stream","func":"c"}""", callbacks.poll(5, TimeUnit.SECONDS))
+    }
+
+    @Test
+    fun streamProvider_batchesAndAppliesBackpressure() {
+        val manager = ExpandingCapacityManager()
+        val provider = StreamProvider()
+        manager.registerProvider(context, ExpandingCapacityManager.CT, provider)
+        val gate = CountDownLatch(1)
+        val received = LinkedBlockingQueue<Int>()
+        manager.registerECListener(CALL_ID, APP_ID, modules(ExpandingCapacityManager.CT), object : IExpandingCapacityListener {
+            override fun onCallback(content: String?) {
+            }
+
+            override fun onData(provider: String, module: String, payload: ByteBuffer) {
+                gate.await()
+                assertTrue(payload.isReadOnly)
+                received.add(payload.getInt(0))
+            }
+        })
+
+        val requests = listOf(
+            ECRequest(MODULE, ByteBuffer.wrap("1".toByteArray())),
+            ECRequest("Other", ByteBuffer.wrap("2".toByteArray())),
+            ECRequest(MODULE, ByteBuffer.wrap("3".toByteArray()))
+        )
+        assertEquals(2, manager.requestBatch(context, CALL_ID, APP_ID, ExpandingCapacityManager.CT, requests))
+        assertEquals(listOf(listOf("1", "3")), provider.batches)
+
+        // 接收方阻塞，积压超过高水位后拒收
+        val frame = ByteBuffer.allocate(64 * 1024)
+        var sent = 0
+        while (true) {
+            frame.clear()
+            frame.putInt(0, sent)
+            if (!provider.callback!!.onData(CALL_ID, APP_ID, MODULE, frame)) {
+                break
+            }
+            sent++
+        }
+        assertTrue(sent in 1..32)
+        assertFalse(provider.writable.await(100, TimeUnit.MILLISECONDS))
+
+        gate.countDown()
+        assertTrue(provider.writable.await(5, TimeUnit.SECONDS))
+        repeat(sent) { assertEquals(it, received.poll(5, TimeUnit.SECONDS)) }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.ct.ertclib.dc.core.data.common.DownloadData
+import com.ct.ertclib.dc.core.port.listener.IDownloadListener
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okhttp3.mockwebserver.SocketPolicy
+import okio.Buffer
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.nio.file.Files
+import java.util.Random
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class FileDownloadManagerTest {
+
+    companion object {
+        private const val SEGMENT_BYTES = 256 * 1024L
+    }
+
+    /**
+     * 按Range返回内容的服务器，可限速和在响应体中途断开
+     */
+    private class RangeDispatcher(@Volatile var body: ByteArray) : Dispatcher() {
+        @Volatile
+        var etag = "\"v1\""
+        @Volatile
+        var supportRange = true
+        @Volatile
+        var throttleBytesPer50Millis = 0L
+        val dropNext = AtomicBoolean()
+        val ranges = CopyOnWriteArrayList<LongArray>()
+        val servedBytes = AtomicLong()
+
+        override fun dispatch(request: RecordedRequest): MockResponse {
+            val body = body
+            val range = request.getHeader("Range")
+            val ifRange = request.getHeader("If-Range")
+            val response = if (!supportRange || range == null || (ifRange != null && ifRange != etag)) {
+                servedBytes.addAndGet(body.size.toLong())
+                MockResponse().setBody(Buffer().write(body))
+            } else {
+                val bounds = range.removePrefix("bytes=").split("-")
+                val start = bounds[0].toLong()
+                val end = minOf(bounds[1].toLong(), body.size - 1L)
+                ranges.add(longArrayOf(start, end))
+                servedBytes.addAndGet(end - start + 1)
+                MockResponse().setResponseCode(206)
+                    .setHeader("Content-Range", "bytes $start-$end/${body.size}")
+                    .setHeader("ETag", etag)
+                    .setBody(Buffer().write(body, start.toInt(), (end - start + 1).toInt()))
+            }
+            if (throttleBytesPer50Millis > 0) {
+                response.throttleBody(throttleBytesPer50Millis, 50, TimeUnit.MILLISECONDS)
+            }
+            if (range != "bytes=0-0" && dropNext.compareAndSet(true, false)) {
+                response.socketPolicy = SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY
+            }
+            return response
+        }
+    }
+
+    private class Listener : IDownloadListener {
+        val latch = CountDownLatch(1)
+        val progress = CopyOnWriteArrayList<Long>()
+        @Volatile
+        var success = false
+        @Volatile
+        var reason: String? = null
+        var onProgress: (Long, Long) -> Unit = { _, _ -> }
+
+        override fun onDownloadProgress(downloadedBytes: Long, totalBytes: Long) {
+            progress.add(downloadedBytes)
+            onProgress(downloadedBytes, totalBytes)
+        }
+
+        override fun onDownloadSuccess() {
+            success = true
+            latch.countDown()
+        }
+
+        override fun onDownloadFailed(reason: String) {
+            this.reason = reason
+            latch.countDown()
+        }
+
+        fun await(): Listener {
+            assertTrue(latch.await(20, TimeUnit.SECONDS))
+            return this
+        }
+    }
+
+    private lateinit var server: MockWebServer
+    private lateinit var dispatcher: RangeDispatcher
+    private lateinit var rootDir: File
+    private val managers = ArrayList<FileDownloadManager>()
+
+    @Before
+    fun setUp() {
+        dispatcher = RangeDispatcher(randomBytes(1024 * 1024, 1))
+        server = MockWebServer()
+        server.dispatcher = dispatcher
+        server.start()
+        rootDir = Files.createTempDirectory("miniapp-download").toFile()
+    }
+
+    @After
+    fun tearDown() {
+        managers.forEach { it.release() }
+        server.shutdown()
+        rootDir.deleteRecursively()
+    }
+
+    private fun newManager(rateLimiter: DownloadRateLimiter = DownloadRateLimiter()): FileDownloadManager {
+        return FileDownloadManager(File(rootDir, "state"), minSegmentBytes = SEGMENT_BYTES, retryDelayMillis = 10,
+            progressIntervalMillis = 10, rateLimiter = rateLimiter).also { managers.add(it) }
+    }
+
+    private fun randomBytes(size: Int, seed: Long) = ByteArray(size).also { Random(seed).nextBytes(it) }
+
+    private fun download(manager: FileDownloadManager, name: String, unzipTo: File? = null, listener: Listener = Listener()): Listener {
+        manager.startDownload(DownloadData(server.url("/$name").toString(), File(rootDir, name), unzipTo), listener)
+        return listener
+    }
+
+    @Test
+    fun largeFile_downloadsRangeSegmentsInParallelAndRetriesDroppedConnection() {
+        dispatcher.dropNext.set(true)
+        val listener = download(newManager(), "data.bin").await()
+        assertTrue(listener.reason, listener.success)
+        assertArrayEquals(dispatcher.body, File(rootDir, "data.bin").readBytes())
+        assertEquals(dispatcher.body.size.toLong(), listener.progress.last())
+        assertFalse(File(rootDir, "data.bin.part").exists())
+        assertTrue(File(rootDir, "state").listFiles().isNullOrEmpty())
+
+        val segmentStarts = dispatcher.ranges.map { it[0] }.filter { it % SEGMENT_BYTES == 0L }.toSet()
+        assertEquals(setOf(0L, SEGMENT_BYTES, 2 * SEGMENT_BYTES, 3 * SEGMENT_BYTES), segmentStarts)
+        // 断开的段从已写入的位置续传
+        assertTrue(dispatcher.ranges.any { it[0] % SEGMENT_BYTES != 0L })
+    }
+
+    @Test
+    fun restartedManager_resumesFromSavedProgress() {
+        dispatcher.throttleBytesPer50Millis = 16 * 1024
+        val first = newManager()
+        val paused = Listener()
+        paused.onProgress = { downloaded, total -> if (downloaded * 3 > total) first.release() }
+        download(first, "data.bin", listener = paused).await()
+        assertFalse(paused.success)
+        assertTrue(File(rootDir, "data.bin.part").exists())
+
+        dispatcher.throttleBytesPer50Millis = 0
+        val servedBefore = dispatcher.servedBytes.get()
+        val resumed = download(newManager(), "data.bin").await()
+        assertTrue(resumed.reason, resumed.success)
+        assertArrayEquals(dispatcher.body, File(rootDir, "data.bin").readBytes())
+        val servedAfterRestart = dispatcher.servedBytes.get() - servedBefore
+        assertTrue("served $servedAfterRestart", servedAfterRestart < dispatcher.body.size * 2 / 3)
+    }
+
+    @Test
+    fun changedFile_restartsInsteadOfResuming() {
+        dispatcher.throttleBytesPer50Millis = 16 * 1024
+        val first = newManager()
+        val paused = Listener()
+        paused.onProgress = { downloaded, total -> if (downloaded * 3 > total) first.release() }
+        download(first, "data.bin", listener = paused).await()
+
+        dispatcher.throttleBytesPer50Millis = 0
+        dispatcher.body = randomBytes(dispatcher.body.size, 2)
+        dispatcher.etag = "\"v2\""
+        val restarted = download(newManager(), "data.bin").await()
+        assertTrue(restarted.reason, restarted.success)
+        assertArrayEquals(dispatcher.body, File(rootDir, "data.bin").readBytes())
+    }
+
+    @Test
+    fun zipDownload_unzipsWhileDownloading() {
+        val entries = (0 until 8).associate { "dir/entry$it.bin" to randomBytes(128 * 1024, it.toLong()) }
+        val zip = ByteArrayOutputStream()
+        ZipOutputStream(zip).use { output ->
+            entries.forEach { (name, bytes) ->
+                output.putNextEntry(ZipEntry(name))
+                output.write(bytes)
+                output.closeEntry()
+            }
+        }
+        dispatcher.body = zip.toByteArray()
+        dispatcher.throttleBytesPer50Millis = 32 * 1024
+        val targetDir = File(rootDir, "model")
+        File(targetDir, "stale.txt").apply { parentFile?.mkdirs() }.writeText("old")
+        val extractedEarly = AtomicBoolean()
+        val listener = Listener()
+        listener.onProgress = { downloaded, total ->
+            if (downloaded < total && File(targetDir, "dir/entry0.bin").length() == 128 * 1024L) {
+                extractedEarly.set(true)
+            }
+        }
+        download(newManager(), "model.zip", targetDir, listener).await()
+        assertTrue(listener.reason, listener.success)
+        entries.forEach { (name, bytes) -> assertArrayEquals(bytes, File(targetDir, name).readBytes()) }
+        assertFalse(File(targetDir, "stale.txt").exists())
+        assertTrue(extractedEarly.get())
+
+        // 不支持Range时整体下载，同样边下载边解压
+        dispatcher.supportRange = false
+        dispatcher.throttleBytesPer50Millis = 0
+        File(rootDir, "model.zip").delete()
+        val whole = download(newManager(), "model.zip", targetDir).await()
+        assertTrue(whole.reason, whole.success)
+        entries.forEach { (name, bytes) -> assertArrayEquals(bytes, File(targetDir, name).readBytes()) }
+    }
+
+    @Test
+    fun invalidUrl_failsTaskInsteadOfLeavingItRunning() {
+        val manager = newManager()
+        val destination = File(rootDir, "bad.bin")
+        val first = Listener()
+        manager.startDownload(DownloadData("ftp://example.com/bad.bin", destination), first)
+        assertFalse(first.await().success)
+        // 失败的任务已移除，相同的请求不会合并到它上面
+        val second = Listener()
+        manager.startDownload(DownloadData("ftp://example.com/bad.bin", destination), second)
+        assertFalse(second.await().success)
+        assertFalse(File(rootDir, "bad.bin.part").exists())
+    }
+
+    @Test
+    fun concurrentTasks_shareBandwidthLimit() {
+        dispatcher.body = randomBytes(256 * 1024, 3)
+        // 时钟不走，令牌不会补充，每次等待的时长就是到当前为止所有任务欠下的流量
+        val maxWaitNanos = AtomicLong()
+        val manager = newManager(DownloadRateLimiter(clock = { 0L }, sleep = { nanos -> maxWaitNanos.accumulateAndGet(nanos, ::maxOf) }))
+        manager.setBandwidthLimit(512 * 1024)
+        val listeners = listOf(download(manager, "a.bin"), download(manager, "b.bin"))
+        // 同一文件的重复请求合并到进行中的任务
+        val joined = download(manager, "a.bin")
+        (listeners + joined).forEach { assertTrue(it.await().success) }
+        // 两个任务共用一个上限，共需至少1秒；各自限速时只需0.5秒
+        assertTrue("wait ${maxWaitNanos.get()}", maxWaitNanos.get() >= TimeUnit.SECONDS.toNanos(1))
+        assertArrayEquals(dispatcher.body, File(rootDir, "b.bin").readBytes())
+        assertNull(joined.reason)
+    }
+}
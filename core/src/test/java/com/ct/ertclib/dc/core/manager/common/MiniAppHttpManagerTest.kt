@@ -0,0 +1,138 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppHttpRequest
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppHttpResponse
+import com.ct.ertclib.dc.core.port.listener.IHttpResultListener
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okio.Buffer
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class MiniAppHttpManagerTest {
+
+    private class ResultListener : IHttpResultListener {
+        val latch = CountDownLatch(1)
+        val chunks = ByteArrayOutputStream()
+        var response: MiniAppHttpResponse? = null
+        var error: IOException? = null
+
+        override fun onResponse(response: MiniAppHttpResponse) {
+            this.response = response
+            latch.countDown()
+        }
+
+        override fun onFailure(e: IOException) {
+            error = e
+            latch.countDown()
+        }
+
+        override fun onChunk(data: ByteArray, length: Int, offset: Long) {
+            assertEquals(chunks.size().toLong(), offset)
+            chunks.write(data, 0, length)
+        }
+
+        fun await(): MiniAppHttpResponse {
+            assertTrue(latch.await(5, TimeUnit.SECONDS))
+            assertNull(error)
+            return response!!
+        }
+    }
+
+    private lateinit var server: MockWebServer
+    private lateinit var rootDir: File
+    private lateinit var manager: MiniAppHttpManager
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        rootDir = Files.createTempDirectory("miniapp-http").toFile()
+        manager = MiniAppHttpManager(rootDir, maxBufferedBytes = 64 * 1024, chunkSize = 16 * 1024)
+    }
+
+    @After
+    fun tearDown() {
+        manager.release()
+        server.shutdown()
+        rootDir.deleteRecursively()
+    }
+
+    private fun get(path: String, saveTo: File? = null): ResultListener {
+        val listener = ResultListener()
+        manager.execute(MiniAppHttpRequest("app", server.url(path).toString(), saveTo = saveTo), listener)
+        return listener
+    }
+
+    @Test
+    fun cacheableGet_servedFromDiskCache() {
+        server.enqueue(MockResponse().setHeader("Cache-Control", "max-age=60").setBody("hello"))
+        val first = get("/config").await()
+        assertEquals("hello", String(first.body!!))
+        assertFalse(first.fromCache)
+
+        val second = get("/config").await()
+        assertEquals("hello", String(second.body!!))
+        assertTrue(second.fromCache)
+        assertEquals(1, server.requestCount)
+    }
+
+    @Test
+    fun identicalGets_shareOneNetworkRequest() {
+        server.enqueue(MockResponse().setBody("shared").setHeadersDelay(300, TimeUnit.MILLISECONDS))
+        val listeners = List(5) { get("/slow") }
+        listeners.forEach {
+            val response = it.await()
+            assertEquals("shared", String(response.body!!))
+            assertTrue(response.coalesced)
+        }
+        assertEquals(1, server.requestCount)
+    }
+
+    @Test
+    fun largeBody_streamsInChunksOrToFile() {
+        val payload = ByteArray(200 * 1024) { (it * 31).toByte() }
+        // 分块传输，长度未知
+        server.enqueue(MockResponse().setChunkedBody(Buffer().write(payload), 8 * 1024))
+        val streamed = get("/large")
+        val response = streamed.await()
+        assertTrue(response.streamed)
+        assertNull(response.body)
+        assertArrayEquals(payload, streamed.chunks.toByteArray())
+
+        server.enqueue(MockResponse().setBody(Buffer().write(payload)))
+        val target = File(manager.getDownloadDir("app"), "large.bin")
+        val saved = get("/large", target).await()
+        assertEquals(target, saved.file)
+        assertEquals(payload.size.toLong(), saved.contentLength)
+        assertArrayEquals(payload, target.readBytes())
+    }
+}
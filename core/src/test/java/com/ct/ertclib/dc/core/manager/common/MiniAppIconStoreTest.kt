@@ -0,0 +1,102 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+import java.util.Base64
+
+class MiniAppIconStoreTest {
+
+    companion object {
+        private const val APP_ID = "app"
+    }
+
+    private object BytesDecoder : MiniAppIconStore.Decoder<ByteArray> {
+        override fun decode(file: File): ByteArray = file.readBytes()
+
+        override fun sizeOf(icon: ByteArray): Int = icon.size
+    }
+
+    private lateinit var rootDir: File
+
+    @Before
+    fun setUp() {
+        rootDir = Files.createTempDirectory("miniapp-icons").toFile()
+    }
+
+    private fun iconOf(size: Int, seed: Int): ByteArray = ByteArray(size) { (it * 31 + seed).toByte() }
+
+    private fun dataUri(bytes: ByteArray): String = "data:image/png;base64," + Base64.getEncoder().encodeToString(bytes)
+
+    @Test
+    fun intern_writesFileOnceAndRestoresInlineIcon() {
+        val store = MiniAppIconStore(rootDir, BytesDecoder)
+        val icon = dataUri(iconOf(100, 1))
+        val ref = store.intern(APP_ID, icon)!!
+        assertTrue(ref.startsWith(rootDir.absolutePath))
+        assertTrue(ref.endsWith(".png"))
+        assertEquals(ref, store.intern(APP_ID, icon))
+        assertEquals(ref, store.intern(APP_ID, ref))
+        assertEquals(icon, store.toInlineIcon(ref))
+
+        // 另一个进程里的实例直接读已有的文件
+        val raw = Base64.getEncoder().encodeToString(iconOf(50, 2))
+        val rawRef = MiniAppIconStore(rootDir, BytesDecoder).intern("other", raw)!!
+        assertEquals(raw, store.toInlineIcon(rawRef))
+
+        // 图标更新后旧文件删除
+        val updated = store.intern(APP_ID, dataUri(iconOf(100, 3)))!!
+        assertFalse(updated == ref)
+        assertFalse(File(ref).exists())
+        assertEquals(2, rootDir.list()!!.size)
+
+        assertNull(store.intern(APP_ID, null))
+        assertEquals("https://host/icon.png", store.intern(APP_ID, "https://host/icon.png"))
+        assertEquals("https://host/icon.png", store.toInlineIcon("https://host/icon.png"))
+    }
+
+    @Test
+    fun getIcon_cachesDecodedIconsBySize() {
+        val store = MiniAppIconStore(rootDir, BytesDecoder, maxCacheBytes = 250)
+        val refs = (0 until 3).map { store.intern("app$it", dataUri(iconOf(100, it)))!! }
+
+        val first = store.getIcon("app0", refs[0])!!
+        assertSame(first, store.getIcon("app0", refs[0]))
+        assertEquals(1, store.decodeCount)
+        assertEquals(1, store.hitCount)
+
+        store.getIcon("app1", refs[1])
+        store.getIcon("app2", refs[2])
+        // 超出250字节，最久未用的app0被淘汰
+        store.getIcon("app0", refs[0])
+        assertEquals(4, store.decodeCount)
+
+        // 旧数据里仍是base64的图标
+        assertEquals(100, store.getIcon("legacy", dataUri(iconOf(100, 9)))!!.size)
+        assertNull(store.getIcon("url", "https://host/icon.png"))
+        assertNull(store.getIcon("empty", ""))
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.file.Files
+
+class MiniAppKvStoreTest {
+
+    companion object {
+        private const val APP_ID = "app"
+    }
+
+    private lateinit var rootDir: File
+    private var now = 1_000_000L
+
+    @Before
+    fun setUp() {
+        rootDir = Files.createTempDirectory("miniapp-kv").toFile()
+    }
+
+    private fun newStore(quotaBytes: Long = MiniAppKvStore.DEFAULT_QUOTA_BYTES, maxLogBytes: Long = MiniAppKvStore.DEFAULT_MAX_LOG_BYTES): MiniAppKvStore {
+        return MiniAppKvStore(rootDir, quotaBytes, maxLogBytes, flushDelayMillis = 1, clock = { now })
+    }
+
+    @Test
+    fun put_isIsolatedPerAppAndSurvivesReload() {
+        val store = newStore()
+        assertTrue(store.put(APP_ID, "name", "value"))
+        assertTrue(store.put("other", "name", "other value"))
+        store.put(APP_ID, "deleted", "x")
+        store.remove(APP_ID, "deleted")
+        store.put(APP_ID, "中文", "值")
+        assertEquals("value", store.get(APP_ID, "name"))
+        store.flush()
+
+        val reloaded = newStore()
+        assertEquals("value", reloaded.get(APP_ID, "name"))
+        assertEquals("other value", reloaded.get("other", "name"))
+        assertEquals("值", reloaded.get(APP_ID, "中文"))
+        assertNull(reloaded.get(APP_ID, "deleted"))
+    }
+
+    @Test
+    fun ttl_hidesAndPurgesOnlyExpiredKeys() {
+        val store = newStore()
+        store.put(APP_ID, "short", "1", ttlMillis = 100)
+        store.put(APP_ID, "long", "2", ttlMillis = 10_000)
+        store.put(APP_ID, "forever", "3")
+        store.put(APP_ID, "renewed", "4", ttlMillis = 100)
+        store.put(APP_ID, "renewed", "5", ttlMillis = 10_000)
+
+        now += 500
+        assertNull(store.get(APP_ID, "short"))
+        assertEquals("5", store.get(APP_ID, "renewed"))
+        assertEquals(1, store.purgeExpired(APP_ID))
+        assertEquals(0, store.purgeExpired(APP_ID))
+        store.flush()
+
+        now += 10_000
+        val reloaded = newStore()
+        assertNull(reloaded.get(APP_ID, "long"))
+        assertNull(reloaded.get(APP_ID, "renewed"))
+        assertEquals("3", reloaded.get(APP_ID, "forever"))
+    }
+
+    @Test
+    fun purgeExpired_removesExpiredRecordsFromDisk() {
+        val store = newStore()
+        store.put(APP_ID, "expiring", "x".repeat(2000), ttlMillis = 100)
+        store.put(APP_ID, "kept", "1")
+        store.flush()
+        val log = File(rootDir, "$APP_ID.log")
+        assertTrue(log.length() > 2000)
+
+        now += 500
+        // 重新加载时过期记录已不在内存里，磁盘上的记录仍然在启动清理时删除
+        val reloaded = newStore()
+        assertEquals(0, reloaded.purgeExpired(APP_ID))
+        reloaded.flush()
+        assertEquals(0, log.length())
+        assertTrue(File(rootDir, "$APP_ID.snap").length() < 100)
+        assertEquals("1", newStore().get(APP_ID, "kept"))
+    }
+
+    @Test
+    fun put_rejectsWritesOverQuota() {
+        val store = newStore(quotaBytes = 1024)
+        assertTrue(store.put(APP_ID, "a", "x".repeat(600)))
+        assertFalse(store.put(APP_ID, "b", "x".repeat(600)))
+        assertTrue(store.put("other", "b", "x".repeat(600)))
+        // 覆盖同一个key按替换后的大小计算
+        assertTrue(store.put(APP_ID, "a", "y".repeat(900)))
+        store.remove(APP_ID, "a")
+        assertTrue(store.put(APP_ID, "b", "x".repeat(600)))
+    }
+
+    @Test
+    fun log_isCompactedIntoSnapshotWhenOverLimit() {
+        val store = newStore(maxLogBytes = 4096)
+        repeat(500) {
+            store.put(APP_ID, "key${it % 10}", "value$it")
+            if (it % 50 == 0) {
+                store.flush()
+            }
+        }
+        store.flush()
+        assertTrue(File(rootDir, "$APP_ID.log").length() <= 4096)
+        assertTrue(File(rootDir, "$APP_ID.snap").length() < 4096)
+
+        val reloaded = newStore()
+        repeat(10) { assertEquals("value${490 + it}", reloaded.get(APP_ID, "key$it")) }
+    }
+
+    @Test
+    fun load_dropsTornRecordAtEndOfLog() {
+        val store = newStore()
+        store.put(APP_ID, "kept", "1")
+        store.flush()
+        store.put(APP_ID, "torn", "2")
+        store.flush()
+        val log = File(rootDir, "$APP_ID.log")
+        RandomAccessFile(log, "rw").use { it.setLength(it.length() - 3) }
+
+        val reloaded = newStore()
+        assertEquals("1", reloaded.get(APP_ID, "kept"))
+        assertNull(reloaded.get(APP_ID, "torn"))
+        reloaded.put(APP_ID, "after", "3")
+        reloaded.flush()
+        assertEquals("3", newStore().get(APP_ID, "after"))
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppLocationFix
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppLocationRequest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MiniAppLocationServiceTest {
+
+    companion object {
+        private const val IDLE_MILLIS = 30_000L
+    }
+
+    private var now = 1_000_000L
+
+    private class Task(val at: Long, val task: Runnable) {
+        var cancelled = false
+    }
+
+    private val tasks = ArrayList<Task>()
+
+    private val scheduler = MiniAppLocationService.Scheduler { delayMillis, task ->
+        val scheduled = Task(now + delayMillis, task)
+        tasks.add(scheduled)
+        Runnable { scheduled.cancelled = true }
+    }
+
+    private class FakeSource : MiniAppLocationService.Source {
+        var lastKnown: MiniAppLocationFix? = null
+        var listener: ((MiniAppLocationFix) -> Unit)? = null
+        var highAccuracy = false
+        var starts = 0
+        var stops = 0
+
+        override fun isEnabled() = true
+
+        override fun lastKnownFix() = lastKnown
+
+        override fun start(highAccuracy: Boolean, listener: (MiniAppLocationFix) -> Unit) {
+            starts++
+            this.highAccuracy = highAccuracy
+            this.listener = listener
+        }
+
+        override fun stop() {
+            stops++
+            listener = null
+        }
+
+        fun emit(fix: MiniAppLocationFix) {
+            listener?.invoke(fix)
+        }
+    }
+
+    private val source = FakeSource()
+    private val service = MiniAppLocationService(source, IDLE_MILLIS, { now }, scheduler)
+
+    private fun advance(millis: Long) {
+        now += millis
+        while (true) {
+            val due = tasks.filter { !it.cancelled && it.at <= now }.minByOrNull { it.at } ?: return
+            tasks.remove(due)
+            due.task.run()
+        }
+    }
+
+    private fun fix(ageMillis: Long, accuracy: Float) = MiniAppLocationFix(30.0, 120.0, accuracy, now - ageMillis)
+
+    @Test
+    fun freshCachedFix_answersWithoutStartingProvider() {
+        source.lastKnown = fix(2_000, 20f)
+        var result: MiniAppLocationFix? = null
+        service.requestLocation(MiniAppLocationRequest(maxAgeMillis = 5_000)) { result = it }
+        assertSame(source.lastKnown, result)
+        assertEquals(0, source.starts)
+
+        // 误差不满足时仍需定位
+        service.requestLocation(MiniAppLocationRequest(maxAgeMillis = 5_000, accuracyMeters = 10f)) { result = it }
+        assertEquals(1, source.starts)
+        assertTrue(source.highAccuracy)
+    }
+
+    @Test
+    fun concurrentRequests_shareOneSubscriptionAndStopWhenIdle() {
+        source.lastKnown = fix(60_000, 20f)
+        val results = ArrayList<MiniAppLocationFix?>()
+        repeat(3) { service.requestLocation(MiniAppLocationRequest()) { results.add(it) } }
+        assertEquals(1, source.starts)
+        assertFalse(source.highAccuracy)
+
+        val update = fix(0, 50f)
+        source.emit(update)
+        assertEquals(listOf(update, update, update), results)
+
+        // 空闲期内的请求复用订阅，之后直接返回刚才的结果
+        advance(IDLE_MILLIS / 2)
+        service.requestLocation(MiniAppLocationRequest(maxAgeMillis = 1_000)) { results.add(it) }
+        source.emit(fix(0, 40f))
+        assertEquals(1, source.starts)
+        assertEquals(4, results.size)
+        service.requestLocation(MiniAppLocationRequest(maxAgeMillis = 1_000)) { results.add(it) }
+        assertEquals(5, results.size)
+
+        advance(IDLE_MILLIS - 1)
+        assertEquals(0, source.stops)
+        advance(1)
+        assertEquals(1, source.stops)
+    }
+
+    @Test
+    fun timeout_returnsBestFixSeenOrNull() {
+        var result: MiniAppLocationFix? = fix(0, 0f)
+        service.requestLocation(MiniAppLocationRequest(timeoutMillis = 5_000)) { result = it }
+        advance(5_000)
+        assertNull(result)
+
+        val results = ArrayList<MiniAppLocationFix?>()
+        service.requestLocation(MiniAppLocationRequest(accuracyMeters = 10f, timeoutMillis = 5_000)) { results.add(it) }
+        val coarse = fix(0, 200f)
+        source.emit(coarse)
+        assertTrue(results.isEmpty())
+        advance(5_000)
+        assertEquals(listOf(coarse), results)
+        // 切换为高精度订阅
+        assertEquals(2, source.starts)
+        assertEquals(1, source.stops)
+
+        advance(IDLE_MILLIS)
+        assertEquals(2, source.stops)
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.manager.common
+
+import com.ct.ertclib.dc.core.data.model.PermissionGrantEntity
+import com.ct.ertclib.dc.core.data.model.PermissionUsageEntity
+import com.ct.ertclib.dc.core.port.miniapp.IPermissionDbRepo
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.emptyFlow
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * PermissionUsageRecorder聚合与批量写入测试
+ */
+class PermissionUsageRecorderTest {
+
+    companion object {
+        private const val APP_ID = "app"
+        private const val PERMISSION = "android.permission.READ_PHONE_STATE"
+    }
+
+    /**
+     * 内存实现的数据库，[beforeWrite]在事务开始时调用
+     */
+    private class FakePermissionDbRepo(private val beforeWrite: () -> Unit = {}) : IPermissionDbRepo {
+        val rows = mutableMapOf<Triple<String, String, Long>, Int>()
+        var transactionCount = 0
+
+        private fun transaction(block: () -> Unit) {
+            beforeWrite()
+            synchronized(this) {
+                transactionCount++
+                block()
+            }
+        }
+
+        override fun savePermissions(appId: String, permissionMap: Map<String, Boolean>) {}
+
+        override fun getAll(): Flow<List<PermissionGrantEntity>> = emptyFlow()
+
+        override fun getPermissionsById(appId: String): Map<String, Boolean> = emptyMap()
+
+        override fun insertPermissionUsages(permissionUsages: List<PermissionUsageEntity>) {
+            transaction {
+                permissionUsages.forEach {
+                    val key = Triple(it.appId, it.permissionName, it.permissionUsageTimeStamp)
+                    rows[key] = (rows[key] ?: 0) + it.usageCount
+                }
+            }
+        }
+
+        override fun getPermissionUsageCount(appId: String, permissionName: String, timeStamp: Long): Long {
+            synchronized(this) {
+                return rows.filterKeys { it.first == appId && it.second == permissionName && it.third > timeStamp }
+                    .values.sumOf { it.toLong() }
+            }
+        }
+
+        override fun getPermissionUsageById(appId: String): MutableList<PermissionUsageEntity> = mutableListOf()
+
+        override fun getPermissionUsageByIdWithInTime(appId: String, timeStamp: Long): MutableList<PermissionUsageEntity> = mutableListOf()
+    }
+
+    @Test
+    fun record_aggregatesSameMinuteIntoOneRow() {
+        val repo = FakePermissionDbRepo()
+        var now = 0L
+        val recorder = PermissionUsageRecorder(repo, clock = { now })
+        repeat(30) {
+            recorder.record(APP_ID, PERMISSION)
+            now += 2000L
+        }
+        // 跨入下一分钟
+        repeat(5) {
+            recorder.record(APP_ID, PERMISSION)
+        }
+        val pending = recorder.getPendingUsages(APP_ID)
+        assertEquals(2, pending.size)
+        assertEquals(35, pending.sumOf { it.usageCount })
+
+        recorder.flushBlocking()
+        assertEquals(1, repo.transactionCount)
+        assertEquals(2, repo.rows.size)
+        assertEquals(35L, repo.getPermissionUsageCount(APP_ID, PERMISSION, -1))
+        assertTrue(recorder.getPendingUsages(APP_ID).isEmpty())
+    }
+
+    @Test
+    fun flush_accumulatesCountOnExistingRow() {
+        val repo = FakePermissionDbRepo()
+        val recorder = PermissionUsageRecorder(repo, clock = { 0L })
+        repeat(3) { recorder.record(APP_ID, PERMISSION) }
+        recorder.flushBlocking()
+        repeat(4) { recorder.record(APP_ID, PERMISSION) }
+        recorder.flushBlocking()
+        assertEquals(1, repo.rows.size)
+        assertEquals(7L, repo.getPermissionUsageCount(APP_ID, PERMISSION, -1))
+    }
+
+    @Test
+    fun getPendingUsages_countsEachRecordOnceDuringFlush() {
+        val writing = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val repo = FakePermissionDbRepo {
+            writing.countDown()
+            release.await()
+        }
+        val recorder = PermissionUsageRecorder(repo, clock = { 0L })
+        repeat(3) { recorder.record(APP_ID, PERMISSION) }
+        val flushing = Thread { recorder.flushBlocking() }.apply { start() }
+        assertTrue(writing.await(5, TimeUnit.SECONDS))
+
+        recorder.record(APP_ID, PERMISSION)
+        assertEquals(4, recorder.getPendingUsages(APP_ID).sumOf { it.usageCount })
+        release.countDown()
+        flushing.join()
+        assertEquals(1, recorder.getPendingUsages(APP_ID).sumOf { it.usageCount })
+        assertEquals(3L, repo.getPermissionUsageCount(APP_ID, PERMISSION, -1))
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.context
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppEnvelope
+import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.nio.ByteBuffer
+
+/**
+ * 共享内存区域池的复用、上限、收回测试，以及编码往返测试
+ */
+class MiniAppBulkTransferTest {
+
+    companion object {
+        private const val OWNER = "owner"
+        private const val KB = 1024
+        private const val MB = 1024 * 1024
+    }
+
+    private val registry = MetricsRegistry.instance
+
+    @Before
+    fun setUp() {
+        registry.reset()
+    }
+
+    @Test
+    fun pool_reusesRegionsBySizeClass() {
+        val allocated = mutableListOf<Int>()
+        val pool = MiniAppBulkRegionPool(allocate = { allocated.add(it); ByteBuffer.allocate(it) }, free = {})
+        assertEquals(MiniAppBulkRegionPool.MIN_REGION_SIZE, MiniAppBulkRegionPool.sizeClass(1))
+        assertEquals(128 * KB, MiniAppBulkRegionPool.sizeClass(64 * KB + 1))
+        assertEquals(MB, MiniAppBulkRegionPool.sizeClass(MB))
+
+        val first = pool.acquire(OWNER, 100 * KB)
+        assertEquals(128 * KB, first.capacity)
+        assertTrue(pool.release(first.id))
+        assertFalse(pool.release(first.id))
+        val second = pool.acquire(OWNER, 70 * KB)
+        assertSame(first.region, second.region)
+        pool.acquire(OWNER, 70 * KB)
+        assertEquals(listOf(128 * KB, 128 * KB), allocated)
+        assertEquals(2, registry.counter(MetricNames.BULK_REGION_ALLOC).get())
+        assertEquals(1, registry.counter(MetricNames.BULK_REGION_REUSE).get())
+    }
+
+    @Test
+    fun pool_freesOverCapAndRevokesDeadOwner() {
+        val freed = mutableListOf<ByteBuffer>()
+        val pool = MiniAppBulkRegionPool(allocate = { ByteBuffer.allocate(it) }, free = { freed.add(it) }, maxPooledBytes = MB.toLong())
+        val large = pool.acquire(OWNER, MB)
+        val small = pool.acquire(OWNER, KB)
+        val other = pool.acquire("other", KB)
+        val big = pool.acquire("other", MB)
+        assertEquals(4, pool.leasedCount)
+
+        // 对端可能仍映射着收回的区域，直接释放不再复用
+        assertEquals(2, pool.revoke(OWNER))
+        assertEquals(2, pool.leasedCount)
+        assertEquals(0L, pool.pooledBytes)
+        assertEquals(setOf(large.region, small.region), freed.toSet())
+        assertFalse(pool.release(large.id))
+
+        assertTrue(pool.release(big.id))
+        assertTrue(pool.release(other.id))
+        assertEquals(MB.toLong(), pool.pooledBytes)
+        assertEquals(3, freed.size)
+        assertTrue(pool.discard(pool.acquire("other", KB).id))
+        assertEquals(4, freed.size)
+        pool.clear()
+        assertEquals(0L, pool.pooledBytes)
+        assertEquals(5, freed.size)
+    }
+
+    @Test
+    fun estimateSize_skipsSmallPayloads() {
+        val small = mapOf("key" to "value", "list" to listOf(1, 2, 3))
+        assertTrue(MiniAppEnvelope.estimateSize(small) < MiniAppBulkTransfer.DEFAULT_THRESHOLD)
+        val large = mapOf("data" to "x".repeat(MiniAppBulkTransfer.DEFAULT_THRESHOLD))
+        assertTrue(MiniAppEnvelope.estimateSize(large) >= JsonUtil.toJson(large).length)
+    }
+
+    @Test
+    fun codec_roundTripsRawStringsAndSmallFields() {
+        val data = "数据".repeat(MiniAppBulkCodec.RAW_STRING_MIN_LENGTH)
+        val payload = mapOf("data" to data, "name" to "file.png", "short" to "x", "flag" to true)
+        val encoded = MiniAppBulkCodec.encode(payload)
+        val buffer = ByteBuffer.allocateDirect(encoded.size)
+        encoded.writeTo(buffer)
+        assertEquals(0, buffer.remaining())
+        buffer.flip()
+        assertEquals(payload, MiniAppBulkCodec.decode(buffer))
+    }
+}
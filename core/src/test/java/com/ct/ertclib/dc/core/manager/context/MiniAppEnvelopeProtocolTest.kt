@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.manager.context
+
+import com.ct.ertclib.dc.core.data.miniapp.AppRequest
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppEnvelope
+import com.ct.ertclib.dc.core.utils.metrics.MetricNames
+import com.ct.ertclib.dc.core.utils.metrics.MetricsRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * 信封协议的批量、回复关联测试
+ */
+class MiniAppEnvelopeProtocolTest {
+
+    private val registry = MetricsRegistry.instance
+
+    @Before
+    fun setUp() {
+        registry.reset()
+    }
+
+    @Test
+    fun isParcelSafe_fallsBackToJsonForObjects() {
+        assertTrue(MiniAppEnvelope.isParcelSafe(mapOf("a" to 1, "b" to listOf("x", 2.0, null), "c" to mapOf("d" to true))))
+        assertFalse(MiniAppEnvelope.isParcelSafe(mapOf("a" to AppRequest("e", "a", emptyMap()))))
+        assertFalse(MiniAppEnvelope.isParcelSafe(mapOf(1 to "key is not a string")))
+    }
+
+    @Test
+    fun pendingReplies_completeOnceAndFailByOwner() {
+        val replies = MiniAppPendingReplies()
+        val received = mutableListOf<String?>()
+        val first = replies.register("a") { received.add(it) }
+        val second = replies.register("b") { received.add(it) }
+        assertTrue(first != MiniAppEnvelope.NO_REPLY && first != second)
+
+        assertTrue(replies.complete(first, "ok"))
+        assertFalse(replies.complete(first, "again"))
+        assertEquals(1, replies.cancel("b", "disconnected"))
+        assertFalse(replies.complete(second, "late"))
+        assertEquals(listOf<String?>("ok", "disconnected"), received)
+        assertEquals(1L, registry.histogram(MetricNames.AIDL_ENVELOPE_ROUND_TRIP).snapshot().count)
+    }
+
+    @Test
+    fun outbox_sendsInlineWhenIdleAndBatchesWhileInFlight() {
+        val batches = Collections.synchronizedList(mutableListOf<List<Long>>())
+        val inFlight = CountDownLatch(1)
+        val gate = CountDownLatch(1)
+        val outbox = MiniAppEnvelopeOutbox(Executors.newSingleThreadExecutor(), maxBatchSize = 4) { batch ->
+            inFlight.countDown()
+            gate.await()
+            batches.add(batch.map { it.requestId })
+        }
+        val caller = Thread { outbox.post(MiniAppEnvelope.reply(1, null)) }.apply { start() }
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS))
+        for (id in 2L..9L) {
+            assertTrue(outbox.post(MiniAppEnvelope.reply(id, null)))
+        }
+        gate.countDown()
+        caller.join()
+        waitUntil { batches.flatten().size == 9 }
+
+        assertEquals(listOf(listOf(1L), listOf(2L, 3L, 4L, 5L), listOf(6L, 7L, 8L, 9L)), batches)
+        assertEquals(3L, registry.counter(MetricNames.AIDL_ENVELOPE_TRANSACTION).get())
+        assertTrue(outbox.close().isEmpty())
+        assertFalse(outbox.post(MiniAppEnvelope.reply(10, null)))
+    }
+
+    @Test
+    fun outbox_capsBatchByEstimatedSize() {
+        val batches = Collections.synchronizedList(mutableListOf<List<Long>>())
+        val inFlight = CountDownLatch(1)
+        val gate = CountDownLatch(1)
+        val large = mapOf("data" to "x".repeat(400))
+        val outbox = MiniAppEnvelopeOutbox(Executors.newSingleThreadExecutor(), maxBatchBytes = 1000) { batch ->
+            inFlight.countDown()
+            gate.await()
+            batches.add(batch.map { it.requestId })
+        }
+        val caller = Thread { outbox.post(MiniAppEnvelope.reply(1, null)) }.apply { start() }
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS))
+        for (id in 2L..6L) {
+            outbox.post(MiniAppEnvelope(MiniAppEnvelope.TYPE_REQUEST, id, "e", "a", large))
+        }
+        gate.countDown()
+        caller.join()
+        waitUntil { batches.flatten().size == 6 }
+
+        assertEquals(listOf(listOf(1L), listOf(2L, 3L), listOf(4L, 5L), listOf(6L)), batches)
+    }
+
+    @Test
+    fun outbox_handsUnsentEnvelopesBackOnTransportError() {
+        var error: Exception? = null
+        var unsent: List<MiniAppEnvelope> = emptyList()
+        val outbox = MiniAppEnvelopeOutbox(Executor { it.run() }, onError = { e, envelopes ->
+            error = e
+            unsent = envelopes
+        }) {
+            throw IllegalStateException("dead binder")
+        }
+        outbox.post(MiniAppEnvelope.reply(1, null))
+        assertTrue(outbox.isClosed)
+        assertTrue(error is IllegalStateException)
+        assertEquals(listOf(1L), unsent.map { it.requestId })
+    }
+
+    private fun waitUntil(condition: () -> Boolean) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (!condition() && System.nanoTime() < deadline) {
+            Thread.sleep(1)
+        }
+        assertTrue(condition())
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package com.ct.ertclib.dc.core.miniapp.archive
+
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+import kotlin.random.Random
+
+class MiniAppArchiveTest {
+
+    companion object {
+        private const val INDEX = "<html><body>hello</body></html>"
+        private const val APP_ID = "demo"
+    }
+
+    private val dir: File = Files.createTempDirectory("archive").toFile()
+
+    @After
+    fun tearDown() {
+        dir.deleteRecursively()
+    }
+
+    @Test
+    fun open_resolvesEntriesAndRejectsTraversal() {
+        val video = Random(1).nextBytes(512 * 1024)
+        val zip = writeZip(mapOf(
+            "index.html" to INDEX.toByteArray(),
+            "properties.json" to "{\"appId\":\"demo\"}".toByteArray(),
+            "js/app.js" to "console.log(1)".toByteArray(),
+            "sub/index.html" to INDEX.toByteArray()
+        ), stored = mapOf("media/intro.mp4" to video))
+
+        MiniAppArchive(zip, APP_ID, cacheBytes = 1024).use { archive ->
+            val index = archive.openUrl("${archive.origin}?from=call#top")!!
+            assertEquals("index.html", index.name)
+            assertEquals("text/html", index.mimeType)
+            assertEquals("UTF-8", index.encoding)
+            assertEquals(INDEX, index.stream.use { String(it.readBytes()) })
+
+            assertEquals("application/javascript", archive.open("/js/app.js")!!.mimeType)
+            assertEquals("sub/index.html", archive.openUrl("${archive.origin}sub/")!!.name)
+            assertEquals("{\"appId\":\"demo\"}", archive.readText("properties.json"))
+
+            // 大条目不进缓存，STORED条目直接读出原始字节
+            val media = archive.open("media/intro.mp4")!!
+            assertEquals("video/mp4", media.mimeType)
+            assertEquals(video.size.toLong(), media.length)
+            assertArrayEquals(video, media.stream.use { it.readBytes() })
+
+            assertNull(archive.open("missing.png"))
+            assertNull(archive.open("../properties.json"))
+            assertNull(archive.openUrl("file:///index.html"))
+        }
+    }
+
+    @Test
+    fun open_cachesHotEntriesWithinBudget() {
+        val zip = writeZip((0 until 8).associate { "img/$it.png" to ByteArray(300) { i -> i.toByte() } })
+        MiniAppArchive(zip, APP_ID, cacheBytes = 1000).use { archive ->
+            repeat(3) { archive.open("img/0.png")!!.stream.close() }
+            assertEquals(2, archive.hitCount)
+            // 预算只够3个条目，最早读取的被淘汰
+            (1 until 4).forEach { archive.open("img/$it.png") }
+            archive.open("img/0.png")
+            assertEquals(2, archive.hitCount)
+            archive.open("img/3.png")
+            assertEquals(3, archive.hitCount)
+        }
+    }
+
+    @Test
+    fun originOf_isDistinctPerApp() {
+        assertEquals("https://demo-app1.miniapp.local/", MiniAppArchive.originOf("demo-app1"))
+        val sanitized = MiniAppArchive.originOf("Demo_App")
+        assertTrue(sanitized.matches(Regex("https://demo-app-[0-9a-f]{8}\\.miniapp\\.local/")))
+        // 替换非法字符后相同的appId仍得到不同的源
+        assertNotEquals(sanitized, MiniAppArchive.originOf("demo.app"))
+        assertTrue(MiniAppArchive.originOf("x".repeat(100)).substringAfter("https://").substringBefore('.').length <= 63)
+
+        val zip = writeZip(mapOf("index.html" to INDEX.toByteArray()))
+        MiniAppArchive(zip, "other").use { archive ->
+            assertNull(archive.openUrl("${MiniAppArchive.originOf("demo-app1")}index.html"))
+            assertTrue(archive.isArchiveUrl("${archive.origin}index.html"))
+        }
+    }
+
+    @Test
+    fun verify_skipsUnchangedVerifiedPackage() {
+        val zip = writeZip(mapOf("index.html" to INDEX.toByteArray()))
+        var verifyCount = 0
+        val verifier = { _: File -> verifyCount++; true }
+        assertTrue(MiniAppArchive.verify(zip, verifier))
+        assertTrue(MiniAppArchive.verify(zip, verifier))
+        assertEquals(1, verifyCount)
+
+        // 包内容变化后重新校验，失败的结果不缓存
+        zip.appendBytes(ByteArray(16))
+        assertFalse(MiniAppArchive.verify(zip) { verifyCount++; false })
+        assertFalse(MiniAppArchive.verify(zip) { verifyCount++; false })
+        assertEquals(3, verifyCount)
+
+        val installed = writeZip(mapOf("index.html" to INDEX.toByteArray()))
+        MiniAppArchive.markVerified(installed)
+        assertTrue(MiniAppArchive.verify(installed) { verifyCount++; false })
+        assertEquals(3, verifyCount)
+    }
+
+    private fun writeZip(deflated: Map<String, ByteArray>, stored: Map<String, ByteArray> = emptyMap()): File {
+        val file = File(dir, "package${System.nanoTime()}.zip")
+        ZipOutputStream(file.outputStream()).use { out ->
+            deflated.forEach { (name, bytes) ->
+                out.putNextEntry(ZipEntry(name))
+                out.write(bytes)
+                out.closeEntry()
+            }
+            stored.forEach { (name, bytes) ->
+                val entry = ZipEntry(name)
+                val crc = CRC32()
+                crc.update(bytes)
+                entry.method = ZipEntry.STORED
+                entry.size = bytes.size.toLong()
+                entry.compressedSize = bytes.size.toLong()
+                entry.crc = crc.value
+                out.putNextEntry(entry)
+                out.write(bytes)
+                out.closeEntry()
+            }
+        }
+        return file
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.miniapp.bridge
+
+import android.content.Context
+import android.content.ContextWrapper
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_DC
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_FILE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_MINI_APP
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_CHECK_FILE_EXISTS
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_CALL_STATE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_FILE_INFO
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_MINI_APP_INFO
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_SCREEN_INFO
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_GET_SDK_INFO
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_IS_PEER_SUPPORT_DC
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_SAVE_FILE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_START_SAVE_FILE
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_STOP_SAVE_FILE
+import com.ct.ertclib.dc.core.data.bridge.JsParamSpec
+import com.ct.ertclib.dc.core.data.bridge.JsRoute
+import com.ct.ertclib.dc.core.data.bridge.jsRoutes
+import com.ct.ertclib.dc.core.port.dispatcher.IJsEventDispatcher
+import com.google.gson.JsonParser
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import wendu.dsbridge.CompletionHandler
+import java.util.Collections
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * 批量调用的顺序、依赖和错误结果测试
+ */
+class JsBatchExecutorTest {
+
+    companion object {
+        private const val HANDLER_LATENCY_MILLIS = 5L
+    }
+
+    private val context: Context = ContextWrapper(null)
+    private val callbackExecutor = Executors.newSingleThreadScheduledExecutor()
+    private val sideEffects: MutableList<String> = Collections.synchronizedList(ArrayList())
+    private val warmUps = AtomicInteger()
+
+    /**
+     * 模拟分发器：同步查询阻塞一段时间，异步查询在其他线程延迟回调
+     */
+    private val dispatchers = listOf(
+        object : IJsEventDispatcher {
+            override fun routes(): List<JsRoute> = jsRoutes(EVENT_MINI_APP) {
+                route(FUNCTION_GET_MINI_APP_INFO, JsParamSpec.NONE, independent = true, async = { _, _, handler -> completeLater(handler, "{\"appId\":\"app\"}") })
+                route(FUNCTION_GET_SDK_INFO, JsParamSpec.NONE, independent = true, sync = { _, _ -> blocking("{\"sdk\":1}") })
+                route(FUNCTION_GET_SCREEN_INFO, JsParamSpec.NONE, independent = true, sync = { _, _ -> blocking("{\"width\":1080}") })
+                route(FUNCTION_GET_CALL_STATE, JsParamSpec.NONE, independent = true, sync = { _, _ -> blocking("{\"state\":2}") })
+            }
+        },
+        object : IJsEventDispatcher {
+            override fun routes(): List<JsRoute> = jsRoutes(EVENT_DC) {
+                route(FUNCTION_IS_PEER_SUPPORT_DC, JsParamSpec.NONE, independent = true, async = { _, _, handler -> completeLater(handler, "true") })
+            }
+        },
+        object : IJsEventDispatcher {
+            override fun routes(): List<JsRoute> = jsRoutes(EVENT_FILE) {
+                route(FUNCTION_CHECK_FILE_EXISTS, JsParamSpec.of("path"), independent = true, sync = { _, params -> blocking("{\"path\":\"${params["path"]}\"}") })
+                route(FUNCTION_GET_FILE_INFO, JsParamSpec.of("path"), independent = true, sync = { _, params -> blocking("{\"size\":${params["path"].toString().length}}") })
+                route(FUNCTION_START_SAVE_FILE, JsParamSpec.NONE, sync = { _, _ -> record("start") })
+                route(FUNCTION_SAVE_FILE, JsParamSpec.of("i"), async = { _, params, handler -> callbackExecutor.schedule({ handler.complete(record("save${params["i"]}")) }, 1, TimeUnit.MILLISECONDS) })
+                route(FUNCTION_STOP_SAVE_FILE, JsParamSpec.NONE, sync = { _, _ -> record("stop") })
+            }
+        }
+    )
+
+    private val router = JsBridgeRouter(dispatchers)
+
+    private fun blocking(result: String): String {
+        Thread.sleep(HANDLER_LATENCY_MILLIS)
+        return result
+    }
+
+    private fun completeLater(handler: CompletionHandler<String?>, result: String) {
+        callbackExecutor.schedule({ handler.complete(result) }, HANDLER_LATENCY_MILLIS, TimeUnit.MILLISECONDS)
+    }
+
+    private fun record(step: String): String {
+        sideEffects.add(step)
+        return "\"$step\""
+    }
+
+    private fun call(event: String, function: String, params: String = "{}") =
+        """{"event":"$event","function":"$function","params":$params}"""
+
+    private fun executor() = JsBatchExecutor(router, warmUp = { warmUps.incrementAndGet() })
+
+    @Test
+    fun execute_keepsOrderAndReportsUnknownCalls() {
+        val calls = listOf(
+            call(EVENT_FILE, FUNCTION_CHECK_FILE_EXISTS, """{"path":"/a"}"""),
+            call(EVENT_FILE, "unknown"),
+            call(EVENT_DC, FUNCTION_IS_PEER_SUPPORT_DC)
+        )
+        val response = JsonParser.parseString(runBlocking { executor().execute(context, """{"calls":[${calls.joinToString(",")}]}""") }).asJsonObject
+        assertEquals("0", response["code"].asString)
+        val data = response["data"].asJsonArray
+        assertEquals(3, data.size())
+        assertEquals("/a", data[0].asJsonObject["path"].asString)
+        assertEquals("-1", data[1].asJsonObject["code"].asString)
+        assertTrue(data[2].asBoolean)
+        assertEquals(1, warmUps.get())
+    }
+
+    @Test
+    fun execute_dependentCallsRunInOrder() {
+        val calls = listOf(call(EVENT_FILE, FUNCTION_START_SAVE_FILE)) +
+            (1..5).map { call(EVENT_FILE, FUNCTION_SAVE_FILE, """{"i":$it}""") } +
+            call(EVENT_FILE, FUNCTION_STOP_SAVE_FILE)
+        val response = runBlocking { executor().execute(context, """{"calls":[${calls.joinToString(",")}]}""") }
+        assertEquals(listOf("start", "save1.0", "save2.0", "save3.0", "save4.0", "save5.0", "stop"), sideEffects)
+        assertEquals(7, JsonParser.parseString(response).asJsonObject["data"].asJsonArray.size())
+    }
+}
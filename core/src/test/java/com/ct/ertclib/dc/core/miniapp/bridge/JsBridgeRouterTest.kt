@@ -0,0 +1,142 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.miniapp.bridge
+
+import android.content.Context
+import android.content.ContextWrapper
+import com.ct.ertclib.dc.core.constants.MiniAppConstants
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.EVENT_DC
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_CREATE_DATA_CHANNEL
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_IS_PEER_SUPPORT_DC
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.FUNCTION_SEND_DATA
+import com.ct.ertclib.dc.core.constants.MiniAppConstants.RESPONSE_FAILED_CODE
+import com.ct.ertclib.dc.core.data.bridge.JsParamSpec
+import com.ct.ertclib.dc.core.data.bridge.JsRoute
+import com.ct.ertclib.dc.core.data.bridge.jsRoutes
+import com.ct.ertclib.dc.core.dispatcher.js.DCJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.ECJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.FileJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.MiniAppJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.ScreenShareJsEventDispatcher
+import com.ct.ertclib.dc.core.dispatcher.js.SystemJsEventDispatcher
+import com.ct.ertclib.dc.core.port.dispatcher.IJsEventDispatcher
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import wendu.dsbridge.CompletionHandler
+
+/**
+ * 路由表覆盖、解码和调用测试
+ */
+class JsBridgeRouterTest {
+
+    companion object {
+        private const val EVENT_TEST = "TestEvent"
+    }
+
+    private class RecordingHandler : CompletionHandler<String?> {
+        var result: String? = null
+
+        override fun complete(retValue: String?) {
+            result = retValue
+        }
+
+        override fun complete() {}
+
+        override fun setProgressData(value: String?) {}
+    }
+
+    private val context: Context = ContextWrapper(null)
+
+    private fun realRouter() = JsBridgeRouter(
+        listOf(
+            DCJsEventDispatcher(),
+            MiniAppJsEventDispatcher(),
+            FileJsEventDispatcher(),
+            ScreenShareJsEventDispatcher(),
+            ECJsEventDispatcher(),
+            SystemJsEventDispatcher()
+        )
+    )
+
+    @Test
+    fun routes_coverEveryCallableFunction() {
+        val router = realRouter()
+        val events = MiniAppConstants::class.java.declaredFields
+            .filter { it.name.startsWith("EVENT_") || it.name == "SYSTEM_EVENT" }
+            .map { it.isAccessible = true; it.get(null) as String }
+        val functions = MiniAppConstants::class.java.declaredFields
+            .filter { it.name.startsWith("FUNCTION_") && !it.name.contains("NOTIFY") }
+            .map { it.isAccessible = true; it.get(null) as String }
+            .toSet()
+        val routed = functions.filter { function -> events.any { router.find(it, function) != null } }
+        assertEquals(functions.size, routed.size)
+        assertTrue(router.size >= functions.size)
+    }
+
+    @Test
+    fun decode_unknownCallFailsBeforeParams() {
+        val router = realRouter()
+        listOf(
+            """{"event":"$EVENT_DC","function":"unknown","params":{"broken""",
+            """{"event":"unknown","function":"$FUNCTION_SEND_DATA","params":{"broken""",
+            """{"event":"$EVENT_DC","params":{}}"""
+        ).forEach { msg ->
+            try {
+                router.decode(msg)
+                fail(msg)
+            } catch (e: JsBridgeRouter.UnknownRouteException) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    fun decode_onlyDeclaredParams() {
+        val router = realRouter()
+        val send = router.decode("""{"event":"$EVENT_DC","function":"$FUNCTION_SEND_DATA","params":{"dcLabel":"a","data":"xyz","extra":{"big":[1,2,3]}}}""")
+        assertEquals(mapOf("dcLabel" to "a", "data" to "xyz"), send.params)
+
+        val peer = router.decode("""{"event":"$EVENT_DC","function":"$FUNCTION_IS_PEER_SUPPORT_DC","params":{"dcLabel":"a"}}""")
+        assertTrue(peer.params.isEmpty())
+
+        // params先于function到达时全部解码
+        val create = router.decode("""{"params":{"dcLabels":["a"],"n":1},"event":"$EVENT_DC","function":"$FUNCTION_CREATE_DATA_CHANNEL"}""")
+        assertEquals(listOf("a"), create.params["dcLabels"])
+        assertEquals(1.0, create.params["n"])
+    }
+
+    @Test
+    fun invoke_routesToHandlers() {
+        val router = JsBridgeRouter(listOf(object : IJsEventDispatcher {
+            override fun routes(): List<JsRoute> = jsRoutes(EVENT_TEST) {
+                route("both", JsParamSpec.of("v"), async = { _, params, handler -> handler.complete("async:${params["v"]}") }, sync = { _, params -> "sync:${params["v"]}" })
+                route("asyncOnly", JsParamSpec.NONE, async = { _, _, handler -> handler.complete("async") })
+                route("syncOnly", JsParamSpec.NONE, sync = { _, _ -> "sync" })
+            }
+        }))
+        val handler = RecordingHandler()
+        router.decode("""{"event":"$EVENT_TEST","function":"both","params":{"v":"x"}}""").invokeAsync(context, handler)
+        assertEquals("async:x", handler.result)
+        assertEquals("sync:x", router.decode("""{"event":"$EVENT_TEST","function":"both","params":{"v":"x"}}""").invokeSync(context))
+        assertEquals("", router.decode("""{"event":"$EVENT_TEST","function":"asyncOnly"}""").invokeSync(context))
+
+        router.decode("""{"event":"$EVENT_TEST","function":"syncOnly"}""").invokeAsync(context, handler)
+        assertTrue(handler.result!!.contains("\"code\":\"$RESPONSE_FAILED_CODE\""))
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.miniapp.store
+
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+import kotlin.random.Random
+
+class MiniAppBlobStoreTest {
+
+    private val dir: File = Files.createTempDirectory("blobs").toFile()
+    private val objects = File(dir, "objects")
+    private val versions = File(dir, "miniApps")
+    private val random = Random(42)
+
+    @After
+    fun tearDown() {
+        dir.deleteRecursively()
+    }
+
+    @Test
+    fun install_servesVersionThroughArchiveAndCollectsReleasedBlobs() {
+        val store = MiniAppBlobStore(objects, versions)
+        val v1 = appFiles()
+        val v2 = HashMap(v1).apply { put("index.html", "v2".toByteArray()) }
+        store.install(writeZip("app-1", v1), File(versions, "app/1"))
+        val second = store.install(writeZip("app-2", v2), File(versions, "app/2"))
+        assertEquals(1, second.writtenBlobs)
+        assertEquals(v2.size - 1, second.reusedBlobs)
+
+        store.openInstalled(File(versions, "app/2"), "app")!!.use { archive ->
+            v2.forEach { (path, bytes) -> assertArrayEquals(bytes, archive.open(path)!!.stream.use { it.readBytes() }) }
+            assertNull(archive.open("missing.js"))
+        }
+        assertTrue(store.verify(File(versions, "app/2")))
+
+        // 重新打开时从清单重建引用计数
+        val reopened = MiniAppBlobStore(objects, versions)
+        assertEquals(1, reopened.release(File(versions, "app/1")))
+        assertEquals(v2.values.sumOf { it.size.toLong() }, reopened.footprintBytes())
+        assertEquals(v2.size, reopened.release(File(versions, "app/2")))
+        assertEquals(0, reopened.footprintBytes())
+        assertFalse(reopened.hasVersion(File(versions, "app/2")))
+    }
+
+    @Test
+    fun install_reinstallingSameVersionKeepsSharedBlobs() {
+        val store = MiniAppBlobStore(objects, versions)
+        val files = appFiles()
+        store.install(writeZip("app-1", files), File(versions, "app/1"))
+        store.install(writeZip("app-1b", files), File(versions, "app/1"))
+        assertTrue(store.verify(File(versions, "app/1")))
+        assertEquals(files.size, store.release(File(versions, "app/1")))
+    }
+
+    @Test
+    fun install_failureLeavesNoOrphanBlobs() {
+        val store = MiniAppBlobStore(objects, versions)
+        val zip = writeZip("bad", linkedMapOf("a.js" to random.nextBytes(64), "../escape.js" to random.nextBytes(64)))
+        try {
+            store.install(zip, File(versions, "app/1"))
+        } catch (e: IOException) {
+            // 预期
+        }
+        assertFalse(store.hasVersion(File(versions, "app/1")))
+        assertEquals(0, store.footprintBytes())
+    }
+
+    @Test
+    fun verify_detectsModifiedBlob() {
+        val store = MiniAppBlobStore(objects, versions)
+        store.install(writeZip("app-1", appFiles()), File(versions, "app/1"))
+        val blob = objects.walkTopDown().first { it.isFile }
+        blob.setWritable(true)
+        blob.writeBytes(ByteArray(blob.length().toInt()))
+        assertFalse(store.verify(File(versions, "app/1")))
+    }
+
+    private fun appFiles(): Map<String, ByteArray> {
+        val files = HashMap<String, ByteArray>()
+        files["index.html"] = "<html>app</html>".toByteArray()
+        repeat(5) { files["lib/framework$it.js"] = random.nextBytes(4096) }
+        return files
+    }
+
+    private fun writeZip(name: String, files: Map<String, ByteArray>): File {
+        val file = File(dir, "$name.zip")
+        ZipOutputStream(file.outputStream()).use { out ->
+            files.forEach { (path, bytes) ->
+                out.putNextEntry(ZipEntry(path))
+                out.write(bytes)
+                out.closeEntry()
+            }
+        }
+        return file
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.usecase.common
+
+import com.ct.ertclib.dc.core.data.miniapp.MiniAppPermissions
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class MiniAppPermissionCacheTest {
+
+    companion object {
+        private const val APP_ID = "app"
+    }
+
+    @Test
+    fun isAllGranted_requiresEveryPermission() {
+        val cache = MiniAppPermissionCache()
+        assertNull(cache.isAllGranted(APP_ID, listOf(MiniAppPermissions.MINIAPP_CAMERA)))
+
+        cache.put(APP_ID, mapOf(MiniAppPermissions.MINIAPP_CAMERA to true, MiniAppPermissions.MINIAPP_RECORD_AUDIO to false, "CUSTOM" to true))
+        assertEquals(true, cache.isAllGranted(APP_ID, listOf(MiniAppPermissions.MINIAPP_CAMERA, "CUSTOM")))
+        assertEquals(false, cache.isAllGranted(APP_ID, listOf(MiniAppPermissions.MINIAPP_CAMERA, MiniAppPermissions.MINIAPP_RECORD_AUDIO)))
+        assertEquals(false, cache.isAllGranted(APP_ID, listOf(MiniAppPermissions.MINIAPP_LOCATION)))
+
+        cache.merge(APP_ID, mapOf(MiniAppPermissions.MINIAPP_RECORD_AUDIO to true, MiniAppPermissions.MINIAPP_CAMERA to false))
+        assertEquals(
+            mapOf(MiniAppPermissions.MINIAPP_CAMERA to false, MiniAppPermissions.MINIAPP_RECORD_AUDIO to true, "CUSTOM" to true),
+            cache.get(APP_ID)?.toMap()
+        )
+    }
+
+    @Test
+    fun replaceAll_clearsAppsMissingFromRepo() {
+        val cache = MiniAppPermissionCache()
+        cache.put(APP_ID, mapOf(MiniAppPermissions.MINIAPP_CAMERA to true))
+        cache.replaceAll(mapOf("other" to mapOf(MiniAppPermissions.MINIAPP_CAMERA to true)))
+        assertEquals(false, cache.isAllGranted(APP_ID, listOf(MiniAppPermissions.MINIAPP_CAMERA)))
+        assertEquals(true, cache.isAllGranted("other", listOf(MiniAppPermissions.MINIAPP_CAMERA)))
+    }
+
+    @Test
+    fun replaceAll_keepsGrantsNotSavedYet() {
+        val cache = MiniAppPermissionCache()
+        cache.put(APP_ID, mapOf(MiniAppPermissions.MINIAPP_CAMERA to false))
+        cache.merge(APP_ID, mapOf(MiniAppPermissions.MINIAPP_CAMERA to true))
+        // 落库前读到的旧结果不会覆盖新的授权
+        cache.replaceAll(mapOf(APP_ID to mapOf(MiniAppPermissions.MINIAPP_CAMERA to false)))
+        assertEquals(true, cache.isAllGranted(APP_ID, listOf(MiniAppPermissions.MINIAPP_CAMERA)))
+        cache.replaceAll(emptyMap())
+        assertEquals(true, cache.isAllGranted(APP_ID, listOf(MiniAppPermissions.MINIAPP_CAMERA)))
+
+        cache.markSaved(APP_ID, mapOf(MiniAppPermissions.MINIAPP_CAMERA to true))
+        cache.replaceAll(mapOf(APP_ID to mapOf(MiniAppPermissions.MINIAPP_CAMERA to false)))
+        assertEquals(false, cache.isAllGranted(APP_ID, listOf(MiniAppPermissions.MINIAPP_CAMERA)))
+        assertFalse(cache.isLoaded("unknown"))
+    }
+}
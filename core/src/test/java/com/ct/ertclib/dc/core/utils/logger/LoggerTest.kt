@@ -0,0 +1,88 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.logger
+
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Logger与异步写入功能测试
+ */
+class LoggerTest {
+
+    companion object {
+        private const val TAG = "LoggerTest"
+    }
+
+    private class CountingAppender : Appender() {
+        val count = AtomicLong()
+
+        override fun printTrace(classname: String, level: Int, trace: String) {
+            count.incrementAndGet()
+        }
+    }
+
+    @After
+    fun tearDown() {
+        Logger.clearTagLevel(TAG)
+        AsyncLogWriter.getInstance().setAppenders(arrayOf(AndroidAppender()))
+    }
+
+    @Test
+    fun ringBuffer_keepsOrderAndRejectsWhenFull() {
+        val buffer = LogRingBuffer(4)
+        repeat(4) { assertTrue(buffer.offer(TAG, Logger.INFO_LEVEL, "trace$it", null)) }
+        assertFalse(buffer.offer(TAG, Logger.INFO_LEVEL, "overflow", null))
+
+        val traces = mutableListOf<String>()
+        assertEquals(4, buffer.drain { _, _, trace, _ -> traces.add(trace) })
+        assertEquals(listOf("trace0", "trace1", "trace2", "trace3"), traces)
+        assertTrue(buffer.offer(TAG, Logger.INFO_LEVEL, "again", null))
+    }
+
+    @Test
+    fun getLogger_cachesInstanceAndFollowsTagLevel() {
+        val logger = Logger.getLogger(TAG)
+        assertSame(logger, Logger.getLogger(TAG))
+        assertTrue(logger.isDebugActivated)
+
+        Logger.setTagLevel(TAG, Logger.WARN_LEVEL)
+        assertFalse(logger.isDebugActivated)
+        assertFalse(logger.isInfoActivated)
+        assertTrue(logger.isLoggable(Logger.ERROR_LEVEL))
+
+        var built = false
+        logger.info { built = true; "lazy" }
+        assertFalse(built)
+    }
+
+    @Test
+    fun error_isWrittenBeforeReturning() {
+        val appender = CountingAppender()
+        AsyncLogWriter.getInstance().setAppenders(arrayOf(appender))
+        val logger = Logger.getLogger(TAG)
+
+        logger.error("failed", IllegalStateException())
+        // 异常堆栈单独输出一行
+        assertEquals(2L, appender.count.get())
+    }
+}
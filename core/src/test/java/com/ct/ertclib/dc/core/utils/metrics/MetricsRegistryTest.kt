@@ -0,0 +1,126 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.metrics
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.PrintWriter
+import java.io.StringWriter
+import kotlin.concurrent.thread
+
+class MetricsRegistryTest {
+
+    private var now = 0L
+    private val registry = MetricsRegistry { now }
+
+    @Test
+    fun bucketIndex_isMonotonicWithBoundedError() {
+        var previous = -1
+        var value = 0L
+        while (value < LatencyHistogram.MAX_TRACKABLE_NANOS) {
+            val index = LatencyHistogram.bucketIndex(value)
+            assertTrue(index >= previous)
+            val upper = LatencyHistogram.bucketUpperBound(index)
+            assertTrue(upper >= value)
+            assertTrue(upper - value <= value / 16)
+            previous = index
+            value = value * 5 / 4 + 1
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE))
+    }
+
+    @Test
+    fun histogram_reportsPercentiles() {
+        val histogram = registry.histogram("test")
+        assertSame(histogram, registry.histogram("test"))
+        for (millis in 1..100) {
+            histogram.record(millis * 1_000_000L)
+        }
+        val snapshot = histogram.snapshot()
+        assertEquals(100, snapshot.count)
+        assertEquals(100_000_000L, snapshot.maxNanos)
+        assertEquals(50_500_000L, snapshot.meanNanos)
+        assertWithin(50_000_000L, snapshot.p50Nanos)
+        assertWithin(90_000_000L, snapshot.p90Nanos)
+        assertWithin(99_000_000L, snapshot.p99Nanos)
+    }
+
+    @Test
+    fun timer_usesRegistryClock() {
+        val histogram = registry.histogram("timer")
+        val result = histogram.time {
+            now += 5_000
+            "done"
+        }
+        assertEquals("done", result)
+        assertEquals(5_000L, histogram.snapshot().maxNanos)
+    }
+
+    @Test
+    fun disabledRegistry_dropsRecords() {
+        val counter = registry.counter("counter")
+        counter.increment()
+        registry.isEnabled = false
+        counter.add(10)
+        registry.histogram("latency").record(1)
+        registry.isEnabled = true
+        assertEquals(1, counter.get())
+        assertEquals(0, registry.histogram("latency").snapshot().count)
+    }
+
+    @Test
+    fun concurrentRecords_areNotLost() {
+        val counter = registry.counter("concurrent")
+        val histogram = registry.histogram("concurrent")
+        val threads = List(4) {
+            thread {
+                repeat(100_000) { i ->
+                    counter.increment()
+                    histogram.record(i.toLong())
+                }
+            }
+        }
+        threads.forEach { it.join() }
+        assertEquals(400_000, counter.get())
+        assertEquals(400_000, histogram.snapshot().count)
+    }
+
+    @Test
+    fun dump_listsAllMetrics() {
+        registry.counter("bdc.request.retry").add(3)
+        registry.gauge("bdc.request.queue").set(2)
+        registry.histogram("adc.create").record(1_500_000)
+        now = 2_000_000_000
+
+        val out = StringWriter()
+        registry.dump(PrintWriter(out))
+        val text = out.toString()
+        assertTrue(text, text.contains("uptime=2000.000ms"))
+        assertTrue(text, text.contains("bdc.request.retry=3"))
+        assertTrue(text, text.contains("bdc.request.queue=2"))
+        assertTrue(text, text.contains("adc.create count=1"))
+
+        registry.reset()
+        assertEquals(0L, registry.snapshot().counters["bdc.request.retry"])
+    }
+
+    private fun assertWithin(expected: Long, actual: Long) {
+        assertTrue("expected ~$expected but was $actual", actual >= expected && actual - expected <= expected / 16)
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.screenshare
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+
+class FrameDiffTest {
+
+    companion object {
+        private const val WIDTH = 200
+        private const val HEIGHT = 150
+    }
+
+    private fun fillRect(frame: IntArray, left: Int, top: Int, size: Int, color: Int) {
+        for (y in top until minOf(top + size, HEIGHT)) {
+            frame.fill(color, y * WIDTH + left, y * WIDTH + minOf(left + size, WIDTH))
+        }
+    }
+
+    @Test
+    fun patches_reproduceFrameSequence() {
+        val random = Random(3)
+        val encoder = FrameDiffEncoder(WIDTH, HEIGHT, tileSize = 32, keyframeInterval = 10)
+        val decoder = FramePatchDecoder()
+        val frame = IntArray(WIDTH * HEIGHT) { random.nextInt() }
+        val first = encoder.encode(frame)!!
+        assertTrue(decoder.apply(first))
+        assertArrayEquals(frame, decoder.frame)
+        // 静止画面不输出
+        assertNull(encoder.encode(frame))
+
+        repeat(30) {
+            fillRect(frame, random.nextInt(WIDTH), random.nextInt(HEIGHT), 10, random.nextInt())
+            val patch = encoder.encode(frame)!!
+            assertTrue(decoder.apply(patch))
+            assertArrayEquals(frame, decoder.frame)
+        }
+        // 只改一块瓦片时补丁只带这一块
+        fillRect(frame, 0, 0, 8, 0x12345678)
+        val small = encoder.encode(frame)!!
+        assertEquals(1, (small[12].toInt() and 0xFF shl 8) or (small[13].toInt() and 0xFF))
+    }
+
+    @Test
+    fun lostPatch_requiresKeyframe() {
+        val encoder = FrameDiffEncoder(WIDTH, HEIGHT, tileSize = 32)
+        val decoder = FramePatchDecoder()
+        val frame = IntArray(WIDTH * HEIGHT)
+        assertTrue(decoder.apply(encoder.encode(frame)!!))
+        fillRect(frame, 10, 10, 5, 1)
+        encoder.encode(frame)
+        fillRect(frame, 100, 100, 5, 2)
+        assertFalse(decoder.apply(encoder.encode(frame)!!))
+        assertTrue(decoder.needsKeyframe)
+
+        encoder.requestKeyframe()
+        assertTrue(decoder.apply(encoder.encode(frame)!!))
+        assertArrayEquals(frame, decoder.frame)
+        assertFalse(decoder.apply(ByteArray(20)))
+    }
+
+    @Test
+    fun corruptHeader_requiresKeyframe() {
+        val encoder = FrameDiffEncoder(WIDTH, HEIGHT, tileSize = 32)
+        val decoder = FramePatchDecoder()
+        val frame = IntArray(WIDTH * HEIGHT)
+        val keyframe = encoder.encode(frame)!!
+        assertTrue(decoder.apply(keyframe))
+
+        // 依次改坏：宽、瓦片边长、瓦片数
+        for ((offset, value) in listOf(6 to 0xFFFF, 10 to 0, 12 to 0xFFFF)) {
+            val corrupt = keyframe.copyOf()
+            corrupt[offset] = (value shr 8).toByte()
+            corrupt[offset + 1] = value.toByte()
+            assertFalse(decoder.apply(corrupt))
+            assertTrue(decoder.needsKeyframe)
+        }
+        // 正文截断
+        assertFalse(decoder.apply(keyframe.copyOf(keyframe.size - 8)))
+        assertTrue(decoder.needsKeyframe)
+        assertTrue(decoder.apply(keyframe))
+        assertEquals(WIDTH, decoder.width)
+    }
+
+    @Test
+    fun pipeline_backsOffWhenChannelIsBuffered() {
+        var buffered = 0L
+        val patches = mutableListOf<ByteArray>()
+        val channel = object : ScreenFramePipeline.FrameChannel {
+            override fun bufferedAmount(): Long = buffered
+            override fun send(patch: ByteArray): Boolean = patches.add(patch)
+        }
+        val controller = CaptureRateController(minIntervalMs = 50, maxIntervalMs = 800)
+        val pipeline = ScreenFramePipeline(FrameDiffEncoder(WIDTH, HEIGHT), controller, channel)
+        val frame = IntArray(WIDTH * HEIGHT)
+        assertTrue(pipeline.onFrame(frame, WIDTH, 0))
+        assertFalse(pipeline.onFrame(frame, WIDTH, 10))
+
+        buffered = CaptureRateController.DEFAULT_HIGH_WATERMARK + 1
+        repeat(5) { controller.onBufferedAmount(buffered) }
+        assertEquals(800, controller.intervalMs)
+        buffered = 0
+        repeat(3) { controller.onBufferedAmount(buffered) }
+        assertEquals(770, controller.intervalMs)
+        assertEquals(1, patches.size)
+    }
+}
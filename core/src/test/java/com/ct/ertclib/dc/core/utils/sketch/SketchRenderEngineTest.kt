@@ -0,0 +1,164 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.sketch
+
+import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
+import com.ct.ertclib.dc.core.data.screenshare.PointBean
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+
+class SketchRenderEngineTest {
+
+    companion object {
+        private const val WIDTH = 320
+        private const val HEIGHT = 240
+    }
+
+    /**
+     * 用方形笔刷覆盖像素的假画布，后画的笔画覆盖先画的，可以检验重放顺序
+     */
+    private class PixelSurface(override val width: Int, override val height: Int) : SketchSurface<IntArray> {
+        val pixels = IntArray(width * height)
+        var drawCount = 0
+
+        override fun strokeWidthPx(width: Float): Float = width
+
+        override fun drawStroke(stroke: DrawingInfo, clip: SketchRect?) {
+            drawCount++
+            val rect = clip ?: SketchRect(0, 0, width, height)
+            val half = (stroke.width / 2).toInt()
+            val value = stroke.color.hashCode()
+            for (point in stroke.pointList) {
+                for (y in maxOf(rect.top, point.y.toInt() - half) until minOf(rect.bottom, point.y.toInt() + half + 1)) {
+                    for (x in maxOf(rect.left, point.x.toInt() - half) until minOf(rect.right, point.x.toInt() + half + 1)) {
+                        pixels[y * width + x] = value
+                    }
+                }
+            }
+        }
+
+        override fun clear(rect: SketchRect) {
+            for (y in rect.top until rect.bottom) {
+                pixels.fill(0, y * width + rect.left, y * width + rect.right)
+            }
+        }
+
+        override fun snapshot(rect: SketchRect): IntArray {
+            val w = rect.right - rect.left
+            val copy = IntArray(w * (rect.bottom - rect.top))
+            for (y in rect.top until rect.bottom) {
+                System.arraycopy(pixels, y * width + rect.left, copy, (y - rect.top) * w, w)
+            }
+            return copy
+        }
+
+        override fun restore(rect: SketchRect, snapshot: IntArray) {
+            val w = rect.right - rect.left
+            for (y in rect.top until rect.bottom) {
+                System.arraycopy(snapshot, (y - rect.top) * w, pixels, y * width + rect.left, w)
+            }
+        }
+    }
+
+    private fun randomStroke(random: Random, index: Int): DrawingInfo {
+        var x = random.nextInt(WIDTH).toFloat()
+        var y = random.nextInt(HEIGHT).toFloat()
+        val points = MutableList(20) {
+            x = (x + random.nextInt(21) - 10).coerceIn(0f, WIDTH - 1f)
+            y = (y + random.nextInt(21) - 10).coerceIn(0f, HEIGHT - 1f)
+            PointBean(x, y)
+        }
+        return DrawingInfo(4f + random.nextInt(8), "#ff00${index % 100}", points)
+    }
+
+    private fun fullRedraw(strokes: List<DrawingInfo>): IntArray {
+        val reference = PixelSurface(WIDTH, HEIGHT)
+        strokes.forEach { reference.drawStroke(it, null) }
+        return reference.pixels
+    }
+
+    @Test
+    fun undoAndClearTransient_matchFullRedraw() {
+        val random = Random(7)
+        val surface = PixelSurface(WIDTH, HEIGHT)
+        val engine = SketchRenderEngine(surface, tileSize = 64, checkpointInterval = 5, maxCheckpoints = 3)
+        val strokes = ArrayList<DrawingInfo>()
+        repeat(60) {
+            val stroke = randomStroke(random, it)
+            strokes.add(stroke)
+            engine.commit(stroke)
+            if (it % 7 == 0) {
+                engine.drawTransient(randomStroke(random, 1000 + it))
+            }
+            if (it % 11 == 0) {
+                engine.clearTransient()
+                assertArrayEquals(fullRedraw(strokes), surface.pixels)
+            }
+        }
+        engine.clearTransient()
+        // 撤销越过被合并的检查点后退化为从空白重放，结果仍然一致
+        while (strokes.isNotEmpty()) {
+            engine.undo()
+            strokes.removeAt(strokes.size - 1)
+            assertArrayEquals(fullRedraw(strokes), surface.pixels)
+        }
+        assertEquals(0, engine.strokeCount)
+    }
+
+    @Test
+    fun liveStroke_drawnIncrementallyThenCommitted() {
+        val random = Random(5)
+        val surface = PixelSurface(WIDTH, HEIGHT)
+        val engine = SketchRenderEngine(surface, tileSize = 64, checkpointInterval = 5)
+        val strokes = ArrayList<DrawingInfo>()
+        repeat(12) { strokes.add(randomStroke(random, it).also { stroke -> engine.commit(stroke) }) }
+        val full = randomStroke(random, 500)
+        for (count in 4..full.pointList.size step 4) {
+            val partial = DrawingInfo(full.width, full.color, full.pointList.subList(0, count).toMutableList())
+            engine.drawLive(1, partial)
+            if (count == 12) {
+                // 擦除临时笔画时补画进行中的笔画
+                engine.drawTransient(randomStroke(random, 1000))
+                engine.clearTransient()
+            }
+            assertArrayEquals(fullRedraw(strokes + partial), surface.pixels)
+        }
+        engine.commitLive(1, full)
+        strokes.add(full)
+        assertEquals(13, engine.strokeCount)
+        assertArrayEquals(fullRedraw(strokes), surface.pixels)
+        engine.undo()
+        strokes.removeAt(strokes.size - 1)
+        assertArrayEquals(fullRedraw(strokes), surface.pixels)
+    }
+
+    @Test
+    fun undo_costIndependentOfHistoryLength() {
+        val random = Random(11)
+        val surface = PixelSurface(WIDTH, HEIGHT)
+        val engine = SketchRenderEngine(surface, tileSize = 64, checkpointInterval = 8)
+        repeat(2000) { engine.commit(randomStroke(random, it)) }
+        val before = surface.drawCount
+        repeat(4) { engine.undo() }
+        // 每次撤销最多重放检查点之后的笔画，每块瓦片一次
+        val redrawn = surface.drawCount - before
+        assertTrue("redrawn $redrawn", redrawn <= 4 * 8 * 4)
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.core.utils.sketch
+
+import com.ct.ertclib.dc.core.data.screenshare.DrawingInfo
+import com.ct.ertclib.dc.core.data.screenshare.PointBean
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.math.abs
+import kotlin.math.sin
+
+class StrokeCodecTest {
+
+    private fun stroke(color: String, count: Int): DrawingInfo {
+        val points = MutableList(count) { PointBean(100f + it * 2.3f, 400f + 50f * sin(it / 10.0).toFloat()) }
+        return DrawingInfo(8f, color, points)
+    }
+
+    private fun assertClose(expected: List<PointBean>, actual: List<PointBean>) {
+        assertEquals(expected.size, actual.size)
+        for (i in expected.indices) {
+            assertTrue(abs(expected[i].x - actual[i].x) <= 0.125f)
+            assertTrue(abs(expected[i].y - actual[i].y) <= 0.125f)
+        }
+    }
+
+    @Test
+    fun encodeStroke_roundTripsWithinQuantum() {
+        val encoder = StrokeEncoder()
+        val decoder = StrokeDecoder()
+        val first = stroke("#ffff4444", 200)
+        val firstBytes = encoder.encodeStroke(first)
+        val decoded = decoder.decode(firstBytes).single()
+        assertEquals(first.color, decoded.color)
+        assertEquals(first.width, decoded.width)
+        assertClose(first.pointList, decoded.pointList)
+
+        // 颜色已在调色板中，第二笔只带索引
+        val secondBytes = encoder.encodeStroke(stroke("#ffff4444", 200))
+        assertEquals(firstBytes.size - 3 - "#ffff4444".length, secondBytes.size)
+        assertEquals("#ffff4444", decoder.decode(secondBytes).single().color)
+    }
+
+    @Test
+    fun streamedStroke_matchesFullStroke() {
+        val source = stroke("#ff00ff00", 50)
+        val encoder = StrokeEncoder()
+        val decoder = StrokeDecoder()
+        val updates = mutableListOf<Int>()
+        val listener = object : StrokeDecoder.Listener {
+            override fun onStrokeUpdated(strokeId: Int, drawingInfo: DrawingInfo) {
+                updates.add(drawingInfo.pointList.size)
+            }
+
+            override fun onStrokeFinished(strokeId: Int, drawingInfo: DrawingInfo) {
+            }
+        }
+        val id = encoder.nextStrokeId()
+        assertTrue(decoder.decode(encoder.begin(id, source.width, source.color, source.pointList[0]), listener).isEmpty())
+        source.pointList.subList(1, 41).chunked(8).forEach {
+            assertTrue(decoder.decode(encoder.append(id, it), listener).isEmpty())
+        }
+        val finished = decoder.decode(encoder.end(id, source.pointList.subList(41, 50)), listener)
+        assertEquals(listOf(1, 9, 17, 25, 33, 41, 50), updates)
+        assertClose(source.pointList, finished.single().pointList)
+    }
+
+    @Test
+    fun simplify_dropsCollinearPoints() {
+        val line = List(100) { PointBean(it.toFloat(), it * 0.5f) }
+        assertEquals(listOf(line.first(), line.last()), StrokeSimplifier.simplify(line, 0.5f))
+        val corner = line.subList(0, 50) + List(50) { PointBean(49f + it, 24.5f - it) }
+        assertEquals(3, StrokeSimplifier.simplify(corner, 0.5f).size)
+        assertEquals(line, StrokeSimplifier.simplify(line, 0f))
+    }
+
+    @Test
+    fun negotiate_prefersBinaryAndFallsBackToJson() {
+        assertEquals(StrokeFormat.BINARY_V1, StrokeFormat.negotiate(listOf("json", "stroke-v1")))
+        assertEquals(StrokeFormat.JSON, StrokeFormat.negotiate(listOf("stroke-v9")))
+        assertEquals(StrokeFormat.JSON, StrokeFormat.negotiate(null))
+    }
+}
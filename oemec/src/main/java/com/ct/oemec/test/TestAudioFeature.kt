@@ -0,0 +1,47 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.oemec.test
+
+import java.nio.ByteBuffer
+
+/**
+ * 模拟的音频特征流，v1和v2测试实现共用，便于对比吞吐
+ */
+object TestAudioFeature {
+    const val MODULE = "AudioFeature"
+    const val FUNC_START = "start"
+    const val FUNC_FRAME = "frameCallback"
+    const val DEFAULT_COUNT = 100
+    const val DEFAULT_FRAME_BYTES = 640
+
+    data class StartParams(
+        var count: Int = DEFAULT_COUNT,
+        var frameBytes: Int = DEFAULT_FRAME_BYTES
+    )
+
+    /**
+     * 写入第seq帧：4字节序号 + 确定性的特征数据
+     */
+    fun fillFrame(buffer: ByteBuffer, seq: Int, frameBytes: Int) {
+        buffer.clear()
+        buffer.putInt(seq)
+        for (i in 4 until frameBytes) {
+            buffer.put((seq + i).toByte())
+        }
+        buffer.flip()
+    }
+}
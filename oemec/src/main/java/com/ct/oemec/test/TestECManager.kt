@@ -21,6 +21,8 @@ import com.ct.oemec.utils.JsonUtil
 import com.ct.oemec.utils.logger.Logger
 import com.newcalllib.expandingCapacity.IExpandingCapacity
 import com.newcalllib.expandingCapacity.IExpandingCapacityCallback
+import java.nio.ByteBuffer
+import java.util.Base64
 import java.util.Timer
 import java.util.TimerTask
 
@@ -79,6 +81,12 @@ object TestECManager {
                         }
                     }
                 }
+                TestAudioFeature.MODULE -> {
+                    if (requestData.func == TestAudioFeature.FUNC_START) {
+                        val params = JsonUtil.fromJson(content, AudioFeatureRequest::class.java)?.data ?: TestAudioFeature.StartParams()
+                        startAudioFeature(params)
+                    }
+                }
                 "NewCallSDK" -> {
                     when(requestData.func){
                         "setExpandEnable" -> {
@@ -115,6 +123,29 @@ object TestECManager {
         }
     }
 
+    private data class AudioFeatureRequest(
+        var module: String,
+        var func: String,
+        var data: TestAudioFeature.StartParams?
+    )
+
+    // 与TestECV2相同的帧，字符串接口只能base64后放进JSON
+    private fun startAudioFeature(params: TestAudioFeature.StartParams) {
+        Thread {
+            val frame = ByteBuffer.allocate(params.frameBytes)
+            val encoder = Base64.getEncoder()
+            for (seq in 0 until params.count) {
+                TestAudioFeature.fillFrame(frame, seq, params.frameBytes)
+                val responseData = OEMECBaseData(
+                    TestAudioFeature.MODULE,
+                    TestAudioFeature.FUNC_FRAME,
+                    mutableMapOf("seq" to seq, "frame" to encoder.encodeToString(frame.array()))
+                )
+                mCallback?.onCallback(JsonUtil.toJson(responseData)) ?: return@Thread
+            }
+        }.start()
+    }
+
     fun startTranslate(){
         if (mTranslateTimer == null) {
             mTranslateTimer = Timer()
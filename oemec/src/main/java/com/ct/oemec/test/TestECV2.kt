@@ -0,0 +1,123 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.oemec.test
+
+import android.content.Context
+import com.ct.ertclib.dc.base.port.ec.ECRequest
+import com.ct.ertclib.dc.base.port.ec.IECStreamCallback
+import com.ct.ertclib.dc.base.port.ec.IECV2
+import com.ct.oemec.utils.JsonUtil
+import com.ct.oemec.utils.logger.Logger
+import java.nio.ByteBuffer
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+
+/**
+ * [IECV2]的测试实现，与[TestECManager]提供相同的模块，负载为UTF-8编码的请求JSON。
+ * AudioFeature以二进制帧回调，接收方积压时等待onWritable再重发
+ */
+object TestECV2 : IECV2 {
+    private const val TAG = "TestECV2"
+    private val sLogger = Logger.getLogger(TAG)
+    private var mCallback: IECStreamCallback? = null
+    private val mStreamExecutor = Executors.newSingleThreadExecutor { Thread(it, TAG).apply { isDaemon = true } }
+    private val mWritable = Semaphore(0)
+
+    @Volatile
+    private var mStreaming = false
+
+    override fun init(context: Context, callback: IECStreamCallback?) {
+        mCallback = callback
+    }
+
+    override fun getModuleList(): List<String> {
+        return listOf("AIVideo", "Translate", TestAudioFeature.MODULE)
+    }
+
+    override fun request(context: Context, callId: String, appId: String, module: String, payload: ByteBuffer): Int {
+        val content = Charsets.UTF_8.decode(payload.duplicate()).toString()
+        val requestData = JsonUtil.fromJson(content, OEMECBaseData::class.java) ?: return -1
+        sLogger.debug("request module: $module, func: ${requestData.func}")
+        when (module) {
+            "AIVideo" -> if (requestData.func == "detect") {
+                reply(OEMECBaseData("AIVideo", "detectCallback", mutableMapOf("isAI" to true)))
+            }
+            "Translate" -> if (requestData.func == "languageList") {
+                reply(OEMECBaseData("Translate", "languageListCallback", mutableMapOf("list" to mutableListOf("Chinese", "English"))))
+            }
+            TestAudioFeature.MODULE -> if (requestData.func == TestAudioFeature.FUNC_START) {
+                val params = JsonUtil.fromJson(content, AudioFeatureRequest::class.java)?.data ?: TestAudioFeature.StartParams()
+                startStream(params)
+            }
+            else -> return -1
+        }
+        return 0
+    }
+
+    override fun requestBatch(context: Context, callId: String, appId: String, requests: List<ECRequest>): Int {
+        var accepted = 0
+        requests.forEach {
+            if (request(context, callId, appId, it.module, it.payload) == 0) {
+                accepted++
+            }
+        }
+        return accepted
+    }
+
+    override fun onWritable() {
+        mWritable.release()
+    }
+
+    override fun releaseMiniApp(context: Context, callId: String, miniAppId: String) {
+    }
+
+    override fun releaseAll(context: Context) {
+        mStreaming = false
+        mWritable.release()
+        mCallback = null
+    }
+
+    private fun reply(data: OEMECBaseData<*>) {
+        mCallback?.onCallback(null, null, JsonUtil.toJson(data))
+    }
+
+    private fun startStream(params: TestAudioFeature.StartParams) {
+        mStreaming = true
+        mStreamExecutor.execute {
+            val frame = ByteBuffer.allocate(params.frameBytes)
+            for (seq in 0 until params.count) {
+                TestAudioFeature.fillFrame(frame, seq, params.frameBytes)
+                while (mStreaming) {
+                    val callback = mCallback ?: return@execute
+                    if (callback.onData(null, null, TestAudioFeature.MODULE, frame)) {
+                        break
+                    }
+                    mWritable.acquire()
+                }
+                if (!mStreaming) {
+                    return@execute
+                }
+            }
+        }
+    }
+
+    private data class AudioFeatureRequest(
+        var module: String,
+        var func: String,
+        var data: TestAudioFeature.StartParams?
+    )
+}
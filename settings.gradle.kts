@@ -48,3 +48,4 @@ include(":testing")
 include(":base")
 include(":oemec")
 include(":nativelibs")
+include(":benchmark")
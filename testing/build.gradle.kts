@@ -30,6 +30,10 @@ android {
         viewBinding = true
     }
 
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
+
     buildTypes {
         debug {
             signingConfig = signingConfigs.getByName("debug")
@@ -56,5 +60,6 @@ dependencies {
     implementation(libs.androidx.room.runtime)
     kapt(libs.androidx.room.compiler)
     compileOnly(files("${rootProject.projectDir}\\libs\\XXPermissions-18.2.aar"))
-    compileOnly(files("${rootProject.projectDir}\\libs\\base-release-1.0.0.aar"))
+    compileOnly(project(":base"))
+    testImplementation(libs.junit4)
 }
\ No newline at end of file
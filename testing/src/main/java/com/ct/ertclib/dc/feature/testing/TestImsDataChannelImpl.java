@@ -147,10 +147,9 @@ public class TestImsDataChannelImpl extends IImsDataChannel.Stub {
     }
 
     private boolean sendAdcData(byte[] data, int length, IDCSendDataCallback callback) {
-        DCSocketManager.INSTANCE.sendData(mDcLabel,data);
-        // 先简单回一个消息
+        int result = DCSocketManager.INSTANCE.sendData(mDcLabel, data);
         try {
-            callback.onSendDataResult(20000);
+            callback.onSendDataResult(result);
         } catch (Exception e) {
             sLogger.warn("sendAdcData replay", e);
         }
@@ -0,0 +1,69 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.testing.sim
+
+/**
+ * 单向链路参数
+ *
+ * @param latencyMillis 单向时延，RTT约为两倍
+ * @param jitterMillis 时延抖动，每条消息在[-jitter, +jitter]内均匀取值
+ * @param bandwidthBytesPerSecond 发送带宽，0表示不限速
+ * @param bufferSize 发送缓存大小，已接收但未发出的字节数超过它时send返回缓存已满
+ * @param lossRate 每条消息的丢失概率
+ * @param reliable 可靠通道丢包后在[retransmitTimeoutMillis]后重传，不可靠通道直接丢弃
+ * @param ordered 有序通道的消息不会因抖动或重传而乱序
+ * @param setupDelayMillis 通道从CONNECTING到OPEN的耗时
+ */
+data class LinkProfile(
+    val latencyMillis: Long = 0,
+    val jitterMillis: Long = 0,
+    val bandwidthBytesPerSecond: Long = 0,
+    val bufferSize: Long = DEFAULT_BUFFER_SIZE,
+    val lossRate: Double = 0.0,
+    val reliable: Boolean = true,
+    val ordered: Boolean = true,
+    val retransmitTimeoutMillis: Long = DEFAULT_RETRANSMIT_TIMEOUT_MILLIS,
+    val setupDelayMillis: Long = 0
+) {
+
+    companion object {
+        const val DEFAULT_BUFFER_SIZE = 16L * 1024 * 1024
+        const val DEFAULT_RETRANSMIT_TIMEOUT_MILLIS = 200L
+
+        /**
+         * 无时延、无丢包、不限速
+         */
+        val IDEAL = LinkProfile()
+
+        /**
+         * 典型VoLTE承载：RTT 40ms，抖动5ms，1%丢包，1Mbps
+         */
+        val VOLTE = LinkProfile(
+            latencyMillis = 20,
+            jitterMillis = 5,
+            bandwidthBytesPerSecond = 128 * 1024,
+            bufferSize = 256 * 1024,
+            lossRate = 0.01,
+            setupDelayMillis = 40
+        )
+    }
+
+    init {
+        require(latencyMillis >= 0 && jitterMillis >= 0 && bandwidthBytesPerSecond >= 0 && bufferSize > 0)
+        require(lossRate in 0.0..1.0 && !(reliable && lossRate >= 1.0))
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.testing.sim
+
+import android.os.RemoteException
+import com.ct.ertclib.dc.core.constants.CommonConstants
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import com.newcalllib.datachannel.V1_0.IDCSendDataCallback
+import com.newcalllib.datachannel.V1_0.IImsDCObserver
+import com.newcalllib.datachannel.V1_0.IImsDataChannel
+import com.newcalllib.datachannel.V1_0.ImsDCStatus
+
+/**
+ * 模拟的IMS数据通道
+ *
+ * 由[SimulatedNetwork]创建，发送经过[LinkProfile]描述的链路到达对端，状态变化、发送结果和消息都通过
+ * [VirtualClock]调度，测试推进时钟时才会回调。
+ */
+class SimulatedDataChannel internal constructor(
+    private val clock: VirtualClock,
+    private val label: String,
+    private val dcType: Int,
+    private val telecomCallId: String,
+    private val streamId: String,
+    private val phoneNumber: String,
+    private val subProtocol: String?,
+    private val outbound: SimulatedLink
+) : IImsDataChannel.Stub() {
+
+    companion object {
+        private const val TAG = "SimulatedDataChannel"
+        private val sLogger = Logger.getLogger(TAG)
+    }
+
+    /**
+     * 对端收到消息的处理，[reply]沿反方向链路回送
+     */
+    fun interface Peer {
+        fun onMessage(data: ByteArray, reply: (ByteArray) -> Unit)
+    }
+
+    @Volatile
+    private var state = ImsDCStatus.DC_STATE_CONNECTING
+
+    @Volatile
+    private var observer: IImsDCObserver? = null
+
+    internal var remoteReceiver: (ByteArray) -> Unit = {}
+
+    internal var remoteChannel: SimulatedDataChannel? = null
+
+    var profile: LinkProfile
+        get() = outbound.profile
+        set(value) {
+            outbound.profile = value
+        }
+
+    val stats: LinkStats
+        get() = outbound.stats()
+
+    override fun registerObserver(l: IImsDCObserver?) {
+        observer = l
+    }
+
+    override fun unregisterObserver() {
+        observer = null
+    }
+
+    override fun send(data: ByteArray?, length: Int, l: IDCSendDataCallback?): Boolean {
+        val result = when {
+            state != ImsDCStatus.DC_STATE_OPEN -> CommonConstants.DC_SEND_DATA_CLOSED
+            data == null || length < 0 || length > data.size -> CommonConstants.DC_SEND_DATA_ERR_ARGUMENTS
+            else -> outbound.transmit(data.copyOf(length)) { remoteReceiver(it) }
+        }
+        l?.let { callback ->
+            clock.schedule(0) {
+                try {
+                    callback.onSendDataResult(result)
+                } catch (e: RemoteException) {
+                    sLogger.warn("onSendDataResult label:$label", e)
+                }
+            }
+        }
+        return result == CommonConstants.DC_SEND_DATA_OK
+    }
+
+    override fun close() {
+        closeFromLocal()
+        remoteChannel?.let { remote -> clock.schedule(profile.latencyMillis) { remote.closeFromLocal() } }
+    }
+
+    override fun getDcLabel(): String = label
+
+    override fun getSubProtocol(): String? = subProtocol
+
+    override fun bufferedAmount(): Long = outbound.bufferedAmount()
+
+    override fun getDCType(): Int = dcType
+
+    override fun getState(): ImsDCStatus = state
+
+    override fun getTelecomCallId(): String = telecomCallId
+
+    override fun getStreamId(): String = streamId
+
+    override fun getPhoneNumber(): String = phoneNumber
+
+    /**
+     * [fromMillis, toMillis)内本端发出的消息丢失，可靠通道在窗口结束后重传
+     */
+    fun scheduleOutage(fromMillis: Long, toMillis: Long) {
+        outbound.addOutage(fromMillis, toMillis)
+    }
+
+    /**
+     * 对端在[atMillis]关闭通道
+     */
+    fun scheduleRemoteClose(atMillis: Long) {
+        clock.scheduleAt(atMillis) {
+            remoteChannel?.closeFromLocal()
+            clock.schedule(profile.latencyMillis) { closeFromLocal() }
+        }
+    }
+
+    internal fun open() {
+        if (state == ImsDCStatus.DC_STATE_CONNECTING) {
+            updateState(ImsDCStatus.DC_STATE_OPEN)
+        }
+    }
+
+    internal fun receive(data: ByteArray) {
+        if (state != ImsDCStatus.DC_STATE_OPEN) {
+            sLogger.debug { "receive after close, label:$label, size:${data.size}" }
+            return
+        }
+        try {
+            observer?.onMessage(data, data.size)
+        } catch (e: RemoteException) {
+            sLogger.warn("onMessage label:$label", e)
+        }
+    }
+
+    private fun closeFromLocal() {
+        if (state == ImsDCStatus.DC_STATE_CLOSING || state == ImsDCStatus.DC_STATE_CLOSED) {
+            return
+        }
+        updateState(ImsDCStatus.DC_STATE_CLOSING)
+        clock.schedule(profile.latencyMillis) { updateState(ImsDCStatus.DC_STATE_CLOSED) }
+    }
+
+    private fun updateState(status: ImsDCStatus) {
+        state = status
+        try {
+            observer?.onDataChannelStateChange(status, 0)
+        } catch (e: RemoteException) {
+            sLogger.warn("onDataChannelStateChange label:$label", e)
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.testing.sim
+
+import com.ct.ertclib.dc.core.constants.CommonConstants
+import java.util.Random
+
+/**
+ * 单向链路：发送缓存、按带宽串行发出、时延抖动、丢包重传和断链窗口
+ *
+ * 所有随机数来自构造时给定的[random]，同一链路上相同的发送序列得到相同的结果。
+ */
+internal class SimulatedLink(
+    private val clock: VirtualClock,
+    private val random: Random,
+    @Volatile var profile: LinkProfile
+) {
+
+    companion object {
+        private const val MICROS_PER_MILLI = 1000L
+        private const val MICROS_PER_SECOND = 1_000_000L
+    }
+
+    private var bufferedBytes = 0L
+    private var wireFreeAtMicros = 0L
+    private var lastArrivalMillis = 0L
+    private val outages = mutableListOf<LongRange>()
+
+    private var sentCount = 0L
+    private var sentBytes = 0L
+    private var deliveredCount = 0L
+    private var lostCount = 0L
+    private var retransmitCount = 0L
+    private var rejectedCount = 0L
+
+    @Synchronized
+    fun bufferedAmount(): Long = bufferedBytes
+
+    /**
+     * [fromMillis, toMillis)内发出的消息全部丢失，可靠通道在窗口结束后重传
+     */
+    @Synchronized
+    fun addOutage(fromMillis: Long, toMillis: Long) {
+        require(toMillis > fromMillis)
+        outages.add(fromMillis until toMillis)
+    }
+
+    @Synchronized
+    fun stats(): LinkStats = LinkStats(
+        sentCount, sentBytes, deliveredCount, lostCount, retransmitCount, rejectedCount, bufferedBytes
+    )
+
+    /**
+     * @param deliver 消息到达对端时在时钟线程上回调
+     * @return CommonConstants.DC_SEND_DATA_*
+     */
+    @Synchronized
+    fun transmit(data: ByteArray, deliver: (ByteArray) -> Unit): Int {
+        val profile = profile
+        val size = data.size.toLong()
+        if (bufferedBytes + size > profile.bufferSize) {
+            rejectedCount++
+            return CommonConstants.DC_SEND_DATA_CACHE_FULL
+        }
+        bufferedBytes += size
+        sentCount++
+        sentBytes += size
+
+        // 串行化：消息排在前一条之后发出，发完之前计入bufferedAmount
+        val startMicros = maxOf(clock.nowMillis * MICROS_PER_MILLI, wireFreeAtMicros)
+        val serializeMicros = if (profile.bandwidthBytesPerSecond > 0) size * MICROS_PER_SECOND / profile.bandwidthBytesPerSecond else 0
+        wireFreeAtMicros = startMicros + serializeMicros
+        val sentAtMillis = (wireFreeAtMicros + MICROS_PER_MILLI - 1) / MICROS_PER_MILLI
+        clock.scheduleAt(sentAtMillis) { onSerialized(size) }
+
+        var attemptMillis = sentAtMillis
+        while (true) {
+            val outage = outages.firstOrNull { attemptMillis in it }
+            val lost = outage != null || (profile.lossRate > 0 && random.nextDouble() < profile.lossRate)
+            if (!lost) {
+                break
+            }
+            if (!profile.reliable) {
+                lostCount++
+                return CommonConstants.DC_SEND_DATA_OK
+            }
+            retransmitCount++
+            attemptMillis = if (outage != null) {
+                maxOf(outage.last + 1, attemptMillis + profile.retransmitTimeoutMillis)
+            } else {
+                attemptMillis + profile.retransmitTimeoutMillis
+            }
+        }
+
+        val jitter = if (profile.jitterMillis > 0) random.nextInt((2 * profile.jitterMillis + 1).toInt()) - profile.jitterMillis else 0
+        var arrivalMillis = maxOf(attemptMillis, attemptMillis + profile.latencyMillis + jitter)
+        if (profile.ordered) {
+            arrivalMillis = maxOf(arrivalMillis, lastArrivalMillis)
+            lastArrivalMillis = arrivalMillis
+        }
+        clock.scheduleAt(arrivalMillis) {
+            synchronized(this) { deliveredCount++ }
+            deliver(data)
+        }
+        return CommonConstants.DC_SEND_DATA_OK
+    }
+
+    @Synchronized
+    private fun onSerialized(size: Long) {
+        bufferedBytes -= size
+    }
+}
+
+/**
+ * 链路统计
+ */
+data class LinkStats(
+    val sentCount: Long,
+    val sentBytes: Long,
+    val deliveredCount: Long,
+    val lostCount: Long,
+    val retransmitCount: Long,
+    val rejectedCount: Long,
+    val bufferedAmount: Long
+)
@@ -0,0 +1,94 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.testing.sim
+
+import com.ct.ertclib.dc.feature.testing.TestImsDataChannelImpl
+import java.util.Random
+
+/**
+ * 数据通道网络模拟器
+ *
+ * 所有通道共用一个[VirtualClock]，每条链路的随机源由[seed]派生，时间和随机数都可复现，
+ * 可以在没有设备的CI上确定性地回放RTT、丢包、限速、断链等场景。
+ */
+class SimulatedNetwork(seed: Long, val clock: VirtualClock = VirtualClock()) {
+
+    private val seeds = Random(seed)
+
+    /**
+     * 创建一条连到模拟服务端的通道，如BDC
+     *
+     * @param peer 服务端逻辑，回复经过与上行相同参数的下行链路
+     */
+    fun createChannel(
+        label: String,
+        profile: LinkProfile,
+        peer: SimulatedDataChannel.Peer,
+        dcType: Int = TestImsDataChannelImpl.DC_TYPE_BDC,
+        telecomCallId: String = "",
+        streamId: String = "0",
+        phoneNumber: String = ""
+    ): SimulatedDataChannel {
+        val channel = newChannel(label, profile, dcType, telecomCallId, streamId, phoneNumber)
+        val downlink = newLink(profile)
+        channel.remoteReceiver = { data ->
+            peer.onMessage(data) { reply -> downlink.transmit(reply) { channel.receive(it) } }
+        }
+        scheduleOpen(profile, channel)
+        return channel
+    }
+
+    /**
+     * 创建一对互联的通道，如双方的ADC，两个方向参数相同但链路独立
+     */
+    fun createChannelPair(
+        label: String,
+        profile: LinkProfile,
+        dcType: Int = TestImsDataChannelImpl.DC_TYPE_ADC,
+        telecomCallId: String = "",
+        streamId: String = "0"
+    ): Pair<SimulatedDataChannel, SimulatedDataChannel> {
+        val local = newChannel(label, profile, dcType, telecomCallId, streamId, "")
+        val remote = newChannel(label, profile, dcType, telecomCallId, streamId, "")
+        local.remoteChannel = remote
+        remote.remoteChannel = local
+        local.remoteReceiver = { remote.receive(it) }
+        remote.remoteReceiver = { local.receive(it) }
+        scheduleOpen(profile, local, remote)
+        return local to remote
+    }
+
+    private fun newChannel(
+        label: String,
+        profile: LinkProfile,
+        dcType: Int,
+        telecomCallId: String,
+        streamId: String,
+        phoneNumber: String
+    ): SimulatedDataChannel {
+        return SimulatedDataChannel(clock, label, dcType, telecomCallId, streamId, phoneNumber, null, newLink(profile))
+    }
+
+    private fun newLink(profile: LinkProfile): SimulatedLink {
+        val random = synchronized(seeds) { Random(seeds.nextLong()) }
+        return SimulatedLink(clock, random, profile)
+    }
+
+    private fun scheduleOpen(profile: LinkProfile, vararg channels: SimulatedDataChannel) {
+        clock.schedule(profile.setupDelayMillis) { channels.forEach { it.open() } }
+    }
+}
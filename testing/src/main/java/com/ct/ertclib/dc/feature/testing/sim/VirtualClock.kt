@@ -0,0 +1,97 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.testing.sim
+
+import java.util.PriorityQueue
+
+/**
+ * 虚拟时钟
+ *
+ * 时间只在调用[advanceBy]/[advanceTo]/[runUntilIdle]时前进，到期任务按（时间，提交顺序）依次在调用线程上执行，
+ * 相同的输入总是得到相同的执行顺序。
+ */
+class VirtualClock(startMillis: Long = 0) {
+
+    private class Task(val timeMillis: Long, val sequence: Long, val action: () -> Unit) : Comparable<Task> {
+        override fun compareTo(other: Task): Int {
+            val byTime = timeMillis.compareTo(other.timeMillis)
+            return if (byTime != 0) byTime else sequence.compareTo(other.sequence)
+        }
+    }
+
+    private val tasks = PriorityQueue<Task>()
+    private var nextSequence = 0L
+
+    @Volatile
+    var nowMillis: Long = startMillis
+        private set
+
+    val pendingTaskCount: Int
+        @Synchronized get() = tasks.size
+
+    @Synchronized
+    fun schedule(delayMillis: Long, action: () -> Unit) {
+        tasks.add(Task(nowMillis + delayMillis.coerceAtLeast(0), nextSequence++, action))
+    }
+
+    @Synchronized
+    fun scheduleAt(timeMillis: Long, action: () -> Unit) {
+        tasks.add(Task(maxOf(timeMillis, nowMillis), nextSequence++, action))
+    }
+
+    /**
+     * @return 执行的任务数
+     */
+    fun advanceBy(millis: Long): Int = advanceTo(nowMillis + millis)
+
+    fun advanceTo(timeMillis: Long): Int {
+        var count = 0
+        while (true) {
+            val task = synchronized(this) {
+                val head = tasks.peek()
+                if (head == null || head.timeMillis > timeMillis) {
+                    nowMillis = maxOf(nowMillis, timeMillis)
+                    null
+                } else {
+                    tasks.poll()
+                    nowMillis = head.timeMillis
+                    head
+                }
+            } ?: return count
+            // 任务在锁外执行，可以继续调度新任务
+            task.action()
+            count++
+        }
+    }
+
+    /**
+     * 执行所有任务（包括执行过程中新调度的），直到队列为空
+     *
+     * @param maxTasks 防止周期任务导致死循环
+     */
+    fun runUntilIdle(maxTasks: Int = 1_000_000): Int {
+        var count = 0
+        while (count < maxTasks) {
+            val task = synchronized(this) {
+                tasks.poll()?.also { nowMillis = it.timeMillis }
+            } ?: return count
+            task.action()
+            count++
+        }
+        throw IllegalStateException("more than $maxTasks tasks executed, clock is not idle")
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.testing.socket
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 测试桥接的二进制帧
+ *
+ * @param type 1:创建ADC,2:普通数据,3:呼叫,4:挂断,5:接听
+ * @param label 收发数据ADC的label，其他类型为空
+ * @param payload 普通数据为原始字节，创建ADC为换行分隔的labels
+ */
+class DCFrame(val type: Int, val label: String, val payload: ByteArray) {
+
+    companion object {
+        const val TYPE_CREATE_ADC = 1
+        const val TYPE_DATA = 2
+        const val TYPE_CALL_ADDED = 3
+        const val TYPE_HANG_UP = 4
+        const val TYPE_CALL_ACTIVE = 5
+    }
+}
+
+/**
+ * 帧格式：int 帧长（不含自身） | byte 类型 | short label长度 | label(UTF-8) | payload
+ */
+object DCFrameCodec {
+
+    const val LENGTH_FIELD_BYTES = 4
+    private const val FIXED_BYTES = 1 + 2
+    const val MAX_FRAME_BYTES = 16 * 1024 * 1024
+
+    private val labelBytesCache = ConcurrentHashMap<String, ByteArray>()
+
+    fun labelBytes(label: String): ByteArray {
+        return labelBytesCache.getOrPut(label) {
+            val bytes = label.toByteArray(StandardCharsets.UTF_8)
+            require(bytes.size <= Short.MAX_VALUE) { "label too long" }
+            bytes
+        }
+    }
+
+    /**
+     * 编码后的总字节数（含帧长字段）
+     */
+    fun encodedSize(labelBytes: ByteArray, payloadLength: Int): Int {
+        return LENGTH_FIELD_BYTES + FIXED_BYTES + labelBytes.size + payloadLength
+    }
+
+    fun encode(type: Int, labelBytes: ByteArray, payload: ByteArray, offset: Int, length: Int, target: ByteBuffer) {
+        val frameLength = FIXED_BYTES + labelBytes.size + length
+        require(frameLength <= MAX_FRAME_BYTES) { "frame too large: $frameLength" }
+        target.putInt(frameLength)
+        target.put(type.toByte())
+        target.putShort(labelBytes.size.toShort())
+        target.put(labelBytes)
+        target.put(payload, offset, length)
+    }
+
+    fun encode(frame: DCFrame): ByteArray {
+        val labelBytes = labelBytes(frame.label)
+        val buffer = ByteBuffer.allocate(encodedSize(labelBytes, frame.payload.size))
+        encode(frame.type, labelBytes, frame.payload, 0, frame.payload.size, buffer)
+        return buffer.array()
+    }
+
+    /**
+     * 从[buffer]的position开始解码一帧，数据不完整时返回null且不移动position
+     *
+     * @throws IllegalStateException 帧长非法
+     */
+    fun decode(buffer: ByteBuffer): DCFrame? {
+        if (buffer.remaining() < LENGTH_FIELD_BYTES) {
+            return null
+        }
+        val start = buffer.position()
+        val frameLength = buffer.getInt(start)
+        check(frameLength in FIXED_BYTES..MAX_FRAME_BYTES) { "invalid frame length: $frameLength" }
+        if (buffer.remaining() < LENGTH_FIELD_BYTES + frameLength) {
+            return null
+        }
+        buffer.position(start + LENGTH_FIELD_BYTES)
+        val type = buffer.get().toInt()
+        val labelLength = buffer.getShort().toInt()
+        check(labelLength in 0..frameLength - FIXED_BYTES) { "invalid label length: $labelLength" }
+        val label = if (labelLength == 0) {
+            ""
+        } else {
+            val labelBytes = ByteArray(labelLength)
+            buffer.get(labelBytes)
+            String(labelBytes, StandardCharsets.UTF_8)
+        }
+        val payload = ByteArray(frameLength - FIXED_BYTES - labelLength)
+        buffer.get(payload)
+        return DCFrame(type, label, payload)
+    }
+
+    /**
+     * 已读到帧长时返回整帧字节数（含帧长字段），用于扩容读缓存
+     */
+    fun pendingFrameSize(buffer: ByteBuffer): Int {
+        if (buffer.remaining() < LENGTH_FIELD_BYTES) {
+            return LENGTH_FIELD_BYTES
+        }
+        return LENGTH_FIELD_BYTES + buffer.getInt(buffer.position())
+    }
+}
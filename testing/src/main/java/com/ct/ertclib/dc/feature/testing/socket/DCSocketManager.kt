@@ -17,34 +17,38 @@
 package com.ct.ertclib.dc.feature.testing.socket
 
 import com.blankj.utilcode.util.SPUtils
-import com.ct.ertclib.dc.core.utils.common.JsonUtil
+import com.ct.ertclib.dc.core.constants.CommonConstants
 import com.ct.ertclib.dc.core.utils.logger.Logger
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
-import java.io.DataInputStream
-import java.io.DataOutputStream
-import java.net.ServerSocket
-import java.net.Socket
-import java.util.Base64
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ConcurrentHashMap
 
-object DCSocketManager {
+/**
+ * 两台测试机之间的DC桥接
+ *
+ * 服务端可同时接入多个对端，ADC数据按label复用连接：收到过某个label数据的连接就是该label的去向，
+ * 未知label的数据和呼叫事件发给所有连接。
+ */
+object DCSocketManager : NioSocketTransport.Listener {
     private val TAG = "DCSocket"
     private val sLogger = Logger.getLogger(TAG)
-    private val msgObserverMap: HashMap<String, (ByteArray) -> Unit> = HashMap()
+    private val msgObserverMap = ConcurrentHashMap<String, (ByteArray) -> Unit>()
+    private val labelRoutes = ConcurrentHashMap<String, NioSocketTransport.Connection>()
+    const val DEFAULT_PORT = 9001
     private var role = ""
+    @Volatile
     private var isInitSocket = false
-    private val port = 9001
 
-    // Socket 相关变量
-    private var serverSocket: ServerSocket? = null
-    private var clientSocket: Socket? = null
-    private var dataInputStream: DataInputStream? = null
-    private var dataOutputStream: DataOutputStream? = null
+    @Volatile
+    private var transport: NioSocketTransport? = null
 
+    @Volatile
     private var adcObserver: ((ArrayList<String>?) -> Unit)? = null
+    @Volatile
     private var callObserver: ((String) -> Unit)? = null
 
     private val scope: CoroutineScope = CoroutineScope(Dispatchers.Default + SupervisorJob())
@@ -63,168 +67,125 @@ object DCSocketManager {
                 val host = SPUtils.getInstance().getString("host")
                 connectToServer(host)
             } else if (role == "server") {
-                // 启动ServerSocket
                 startServer()
             }
         }
     }
 
+    private fun obtainTransport(): NioSocketTransport {
+        return transport ?: synchronized(this) {
+            transport ?: NioSocketTransport(this).also { transport = it }
+        }
+    }
 
-    private fun connectToServer(host: String) {
-        scope.launch(Dispatchers.IO) {
-            try {
-                clientSocket = Socket(host, port)
-                sLogger.info("Connecting to server...")
-                dataInputStream = DataInputStream(clientSocket!!.getInputStream())
-                dataOutputStream = DataOutputStream(clientSocket!!.getOutputStream())
-                sLogger.info("Connected to server.")
-                // 启动接收数据的协程
-                startReceivingData()
-            } catch (e: Exception) {
-                e.printStackTrace()
-                // 连接失败，可以尝试重连
-                reconnectToServer(host)
+    private suspend fun connectToServer(host: String) {
+        while (isInitSocket && role == "client") {
+            if (connect(host)) {
+                return
             }
+            // 5秒后重试
+            delay(5000)
         }
     }
 
-    private fun reconnectToServer(host: String) {
-        scope.launch(Dispatchers.IO) {
-            while (isInitSocket && role == "client") {
-                try {
-                    delay(5000) // 5秒后重试
-                    clientSocket = Socket(host, port)
-                    dataInputStream = DataInputStream(clientSocket!!.getInputStream())
-                    dataOutputStream = DataOutputStream(clientSocket!!.getOutputStream())
-                    startReceivingData()
-                    break // 连接成功，退出重连循环
-                } catch (e: Exception) {
-                    e.printStackTrace()
-                }
-            }
+    /**
+     * 作为服务端监听，可接入多个对端
+     *
+     * @return 实际监听的端口，失败返回-1
+     */
+    fun startServer(port: Int = DEFAULT_PORT): Int {
+        return try {
+            obtainTransport().listen(port).also { sLogger.info("server listening on $it") }
+        } catch (e: Exception) {
+            sLogger.error("Failed to start server.", e)
+            -1
         }
     }
 
-    private fun startServer() {
-        scope.launch(Dispatchers.IO) {
-            try {
-                serverSocket = ServerSocket(port)
-                while (isInitSocket && role == "server") {
-                    try {
-                        val socket = serverSocket!!.accept()
-                        sLogger.info("Accepted connection from ${socket.inetAddress.hostAddress}.")
-                        // 处理新连接，关闭之前的连接
-                        clientSocket?.close()
-                        clientSocket = socket
-                        dataInputStream = DataInputStream(socket.getInputStream())
-                        dataOutputStream = DataOutputStream(socket.getOutputStream())
-                        sLogger.info("Accepted connection.")
-                        startReceivingData()
-                    } catch (e: Exception) {
-                        e.printStackTrace()
-                    }
-                }
-            } catch (e: Exception) {
-                e.printStackTrace()
-                sLogger.error("Failed to start server.", e)
-            }
+    /**
+     * 连接对端，不重试
+     */
+    fun connect(host: String, port: Int = DEFAULT_PORT): Boolean {
+        return try {
+            obtainTransport().connect(host, port)
+            sLogger.info("Connected to server.")
+            true
+        } catch (e: Exception) {
+            sLogger.warn("connect to server failed: ${e.message}")
+            false
         }
     }
 
-    private fun startReceivingData() {
-        scope.launch(Dispatchers.IO) {
-            while (isInitSocket && clientSocket != null && clientSocket!!.isConnected) {
-                try {
-                    val length = dataInputStream!!.readInt()
-                    if (length > 0) {
-                        val buffer = ByteArray(length)
-                        dataInputStream!!.readFully(buffer)
-                        val jsonString = String(buffer)
-                        dealSocketData(jsonString.toByteArray())
-                    }
-                } catch (e: Exception) {
-                    e.printStackTrace()
-                    break
-                }
+    override fun onConnected(connection: NioSocketTransport.Connection) {
+        sLogger.info("connection ${connection.id} established, remote:${connection.remoteAddress}")
+    }
+
+    override fun onDisconnected(connection: NioSocketTransport.Connection) {
+        sLogger.info("connection ${connection.id} closed")
+        labelRoutes.values.removeIf { it === connection }
+        if (isInitSocket && role == "client" && transport?.connections.isNullOrEmpty()) {
+            scope.launch(Dispatchers.IO) {
+                delay(5000)
+                connectToServer(SPUtils.getInstance().getString("host"))
             }
         }
     }
 
-    private fun dealSocketData(byteArray: ByteArray) {
-        try {
-            val jsonStringOrg = String(byteArray)
-            sLogger.info("Received data: $jsonStringOrg")
-            val jsonString = if (jsonStringOrg.contains("remote_")) jsonStringOrg.replace("remote_","local_") else jsonStringOrg.replace("local_","remote_")
-            sLogger.info("Received data change label: $jsonString")
-            val socketData = parseSocketData(jsonString)
-
-            when (socketData?.type) {
-                1 -> { // 对端创建ADC
-                    adcObserver?.invoke(socketData.createLabels)
-                }
-                2 -> { // 普通数据
-                    val label = socketData.dataLabel ?: ""
-                    val data = socketData.data ?: ""
-                    val decodedData = Base64.getDecoder().decode(data)
-                    msgObserverMap[label]?.invoke(decodedData)
-                }
-                3 -> { // 对方发起呼叫
-                    callObserver?.invoke("added")
-                }
-                4 -> { // 对方挂断
-                    callObserver?.invoke("hangup")
-                }
-                5 -> { // 对方接听
-                    callObserver?.invoke("active")
-                }
+    override fun onFrame(connection: NioSocketTransport.Connection, frame: DCFrame) {
+        sLogger.debug { "Received frame type:${frame.type}, label:${frame.label}, size:${frame.payload.size}" }
+        when (frame.type) {
+            DCFrame.TYPE_CREATE_ADC -> { // 对端创建ADC
+                val labels = String(frame.payload, StandardCharsets.UTF_8).split('\n').filter { it.isNotEmpty() }.map { swapLabel(it) }
+                labels.forEach { labelRoutes[it] = connection }
+                adcObserver?.invoke(ArrayList(labels))
+            }
+            DCFrame.TYPE_DATA -> { // 普通数据
+                val label = swapLabel(frame.label)
+                labelRoutes[label] = connection
+                msgObserverMap[label]?.invoke(frame.payload)
+            }
+            DCFrame.TYPE_CALL_ADDED -> { // 对方发起呼叫
+                callObserver?.invoke("added")
+            }
+            DCFrame.TYPE_HANG_UP -> { // 对方挂断
+                callObserver?.invoke("hangup")
+            }
+            DCFrame.TYPE_CALL_ACTIVE -> { // 对方接听
+                callObserver?.invoke("active")
             }
-        } catch (e: Exception) {
-            e.printStackTrace()
         }
     }
 
-    private fun parseSocketData(jsonString: String): SocketData? {
-        val socketData = JsonUtil.fromJson(jsonString, SocketData::class.java)
-        return socketData
+    /**
+     * 对端的local_即本端的remote_，反之亦然
+     */
+    private fun swapLabel(label: String): String {
+        return when {
+            label.startsWith("remote_") -> "local_" + label.substring("remote_".length)
+            label.startsWith("local_") -> "remote_" + label.substring("local_".length)
+            else -> label
+        }
     }
 
     fun notifyCallAdded() {
-        val socketData = SocketData().apply {
-            type = 3
-            data = ""
-        }
-        sendSocketData(socketData)
+        broadcast(DCFrame.TYPE_CALL_ADDED, "", ByteArray(0))
     }
 
     fun notifyCallActive() {
-        val socketData = SocketData().apply {
-            type = 5
-            data = ""
-        }
-        sendSocketData(socketData)
+        broadcast(DCFrame.TYPE_CALL_ACTIVE, "", ByteArray(0))
     }
 
     fun notifyHangUp() {
-        val socketData = SocketData().apply {
-            type = 4
-            data = ""
-        }
-        sendSocketData(socketData)
+        broadcast(DCFrame.TYPE_HANG_UP, "", ByteArray(0))
     }
 
     fun notifyCreateADC(labels: ArrayList<String>) {
         if (labels.isNotEmpty()) {
-            val socketData = SocketData().apply {
-                type = 1
-                createLabels = labels
-                data = ""
-            }
-            sendSocketData(socketData)
+            broadcast(DCFrame.TYPE_CREATE_ADC, "", labels.joinToString("\n").toByteArray(StandardCharsets.UTF_8))
         }
     }
 
     fun registerADCObserver(adcObserver: (ArrayList<String>?) -> Unit) {
-//        sLogger.info("registerADCObserver")
         this.adcObserver = adcObserver
     }
 
@@ -239,57 +200,43 @@ object DCSocketManager {
     fun unRegisterCallObserver() {
         this.callObserver = null
     }
+
     fun registerMsgObserver(label: String, observer: (ByteArray) -> Unit) {
         msgObserverMap[label] = observer
     }
 
-    fun sendData(label: String, byteArray: ByteArray) {
-        val encodedData = Base64.getEncoder().encodeToString(byteArray)
-        val socketData = SocketData().apply {
-            type = 2
-            dataLabel = label
-            data = encodedData
+    /**
+     * @return CommonConstants.DC_SEND_DATA_OK；未连接对端返回DC_SEND_DATA_CLOSED，连接积压过多返回DC_SEND_DATA_CACHE_FULL
+     */
+    fun sendData(label: String, byteArray: ByteArray): Int {
+        val connection = labelRoutes[label]
+        if (connection != null && connection.isOpen) {
+            return if (connection.send(DCFrame.TYPE_DATA, label, byteArray)) CommonConstants.DC_SEND_DATA_OK else CommonConstants.DC_SEND_DATA_CACHE_FULL
         }
-        sendSocketData(socketData)
+        return broadcast(DCFrame.TYPE_DATA, label, byteArray)
     }
 
-    private fun sendSocketData(socketData: SocketData) {
-        scope.launch(Dispatchers.IO) {
-            try {
-                val jsonString = JsonUtil.toJson(socketData)
-                sLogger.info("Sending data: $jsonString")
-                val data = jsonString.toByteArray()
-                dataOutputStream?.apply {
-                    writeInt(data.size)
-                    write(data)
-                    flush()
-                }
-            } catch (e: Exception) {
-                e.printStackTrace()
-            }
+    private fun broadcast(type: Int, label: String, payload: ByteArray): Int {
+        val connections = transport?.connections
+        if (connections.isNullOrEmpty()) {
+            sLogger.debug { "no connection, drop frame type:$type, label:$label" }
+            return CommonConstants.DC_SEND_DATA_CLOSED
         }
+        var sent = false
+        connections.forEach { sent = it.send(type, label, payload) || sent }
+        return if (sent) CommonConstants.DC_SEND_DATA_OK else CommonConstants.DC_SEND_DATA_CACHE_FULL
     }
 
     fun destroy() {
         role = ""
         msgObserverMap.clear()
+        labelRoutes.clear()
         adcObserver = null
-
-        try {
-            dataInputStream?.close()
-            dataOutputStream?.close()
-            clientSocket?.close()
-            serverSocket?.close()
-        } catch (e: Exception) {
-            e.printStackTrace()
-        }
-
-        dataInputStream = null
-        dataOutputStream = null
-        clientSocket = null
-        serverSocket = null
-
         isInitSocket = false
+        synchronized(this) {
+            transport?.close()
+            transport = null
+        }
         sLogger.info("destroy")
     }
-}
\ No newline at end of file
+}
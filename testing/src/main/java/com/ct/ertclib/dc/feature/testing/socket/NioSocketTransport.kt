@@ -0,0 +1,410 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.testing.socket
+
+import com.ct.ertclib.dc.core.utils.logger.Logger
+import java.io.Closeable
+import java.io.IOException
+import java.net.InetSocketAddress
+import java.net.SocketAddress
+import java.net.StandardSocketOptions
+import java.nio.ByteBuffer
+import java.nio.channels.CancelledKeyException
+import java.nio.channels.SelectionKey
+import java.nio.channels.Selector
+import java.nio.channels.ServerSocketChannel
+import java.nio.channels.SocketChannel
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 基于Selector的多连接传输
+ *
+ * 一个线程负责所有连接的accept/read/write。发送方把帧编码进连接的直接内存写块，同一轮select内的多帧合并成
+ * 一次（gather）写；连接积压超过[highWatermark]时send返回false，降到[lowWatermark]以下后回调
+ * [Listener.onWritable]。
+ */
+class NioSocketTransport(
+    private val listener: Listener,
+    private val highWatermark: Long = DEFAULT_HIGH_WATERMARK,
+    private val lowWatermark: Long = highWatermark / 2,
+    threadName: String = TAG
+) : Closeable {
+
+    companion object {
+        private const val TAG = "DCSocketTransport"
+        private val sLogger = Logger.getLogger(TAG)
+        const val DEFAULT_HIGH_WATERMARK = 1L shl 20
+        private const val READ_BUFFER_BYTES = 64 * 1024
+        private const val WRITE_BLOCK_BYTES = 64 * 1024
+        private const val MAX_GATHER_BUFFERS = 64
+        private const val MAX_POOLED_BLOCKS = 64
+    }
+
+    interface Listener {
+        fun onConnected(connection: Connection) {}
+
+        fun onDisconnected(connection: Connection) {}
+
+        /**
+         * 在传输线程上回调，不要阻塞
+         */
+        fun onFrame(connection: Connection, frame: DCFrame)
+
+        fun onWritable(connection: Connection) {}
+    }
+
+    private val selector = Selector.open()
+    private val tasks = ConcurrentLinkedQueue<() -> Unit>()
+    private val connectionSet = ConcurrentHashMap.newKeySet<Connection>()
+    private val servers = ConcurrentHashMap.newKeySet<ServerSocketChannel>()
+    private val blockPool = ConcurrentLinkedQueue<ByteBuffer>()
+    private val pooledBlocks = AtomicInteger()
+    private val nextConnectionId = AtomicInteger()
+
+    @Volatile
+    private var running = true
+
+    private val thread = Thread(::runLoop, threadName).apply {
+        isDaemon = true
+        start()
+    }
+
+    val connections: Collection<Connection>
+        get() = connectionSet
+
+    /**
+     * @param port 0表示由系统分配
+     * @return 实际监听的端口
+     */
+    @Throws(IOException::class)
+    fun listen(port: Int, host: String? = null): Int {
+        val server = ServerSocketChannel.open()
+        try {
+            server.setOption(StandardSocketOptions.SO_REUSEADDR, true)
+            server.bind(if (host == null) InetSocketAddress(port) else InetSocketAddress(host, port))
+            server.configureBlocking(false)
+        } catch (e: IOException) {
+            server.close()
+            throw e
+        }
+        servers.add(server)
+        runOnSelector { server.register(selector, SelectionKey.OP_ACCEPT) }
+        return (server.localAddress as InetSocketAddress).port
+    }
+
+    /**
+     * 阻塞地建立连接，之后的读写都在传输线程上进行
+     */
+    @Throws(IOException::class)
+    fun connect(host: String, port: Int): Connection {
+        val channel = SocketChannel.open(InetSocketAddress(host, port))
+        return register(channel)
+    }
+
+    override fun close() {
+        running = false
+        selector.wakeup()
+        if (Thread.currentThread() !== thread) {
+            thread.join(1000)
+        }
+    }
+
+    private fun register(channel: SocketChannel): Connection {
+        channel.configureBlocking(false)
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true)
+        val connection = Connection(channel)
+        connectionSet.add(connection)
+        runOnSelector {
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection)
+            notifyListener { listener.onConnected(connection) }
+        }
+        return connection
+    }
+
+    private fun runOnSelector(task: () -> Unit) {
+        if (Thread.currentThread() === thread) {
+            task()
+        } else {
+            tasks.add(task)
+            selector.wakeup()
+        }
+    }
+
+    private fun runLoop() {
+        while (running) {
+            try {
+                selector.select()
+            } catch (e: IOException) {
+                sLogger.error("select", e)
+                break
+            }
+            while (true) {
+                val task = tasks.poll() ?: break
+                try {
+                    task()
+                } catch (e: IOException) {
+                    sLogger.warn("transport task", e)
+                }
+            }
+            val iterator = selector.selectedKeys().iterator()
+            while (iterator.hasNext()) {
+                val key = iterator.next()
+                iterator.remove()
+                handleKey(key)
+            }
+        }
+        connectionSet.toList().forEach { it.closeOnSelector() }
+        servers.forEach { runCatching { it.close() } }
+        servers.clear()
+        runCatching { selector.close() }
+        sLogger.info("transport stopped")
+    }
+
+    private fun handleKey(key: SelectionKey) {
+        val connection = key.attachment() as? Connection
+        try {
+            if (!key.isValid) {
+                connection?.closeOnSelector()
+                return
+            }
+            if (key.isAcceptable) {
+                val channel = (key.channel() as ServerSocketChannel).accept() ?: return
+                val accepted = register(channel)
+                sLogger.info("accepted connection ${accepted.id} from ${accepted.remoteAddress}")
+                return
+            }
+            if (key.isReadable) {
+                connection?.read()
+            }
+            if (key.isValid && key.isWritable) {
+                connection?.flush()
+            }
+        } catch (e: IOException) {
+            sLogger.info("connection ${connection?.id} closed: ${e.message}")
+            connection?.closeOnSelector()
+        } catch (e: CancelledKeyException) {
+            connection?.closeOnSelector()
+        } catch (e: IllegalStateException) {
+            sLogger.warn("connection ${connection?.id} protocol error", e)
+            connection?.closeOnSelector()
+        }
+    }
+
+    private inline fun notifyListener(block: () -> Unit) {
+        try {
+            block()
+        } catch (e: RuntimeException) {
+            sLogger.error("transport listener", e)
+        }
+    }
+
+    private fun acquireBlock(): ByteBuffer {
+        val block = blockPool.poll()
+        if (block != null) {
+            pooledBlocks.decrementAndGet()
+            return block
+        }
+        return ByteBuffer.allocateDirect(WRITE_BLOCK_BYTES)
+    }
+
+    private fun releaseBlock(block: ByteBuffer) {
+        if (block.isDirect && block.capacity() == WRITE_BLOCK_BYTES && pooledBlocks.incrementAndGet() <= MAX_POOLED_BLOCKS) {
+            block.clear()
+            blockPool.add(block)
+        } else if (block.isDirect && block.capacity() == WRITE_BLOCK_BYTES) {
+            pooledBlocks.decrementAndGet()
+        }
+    }
+
+    inner class Connection internal constructor(private val channel: SocketChannel) {
+
+        val id = nextConnectionId.incrementAndGet()
+
+        val remoteAddress: SocketAddress? = channel.remoteAddress
+
+        internal var key: SelectionKey? = null
+
+        /**
+         * 只在传输线程上访问
+         */
+        private var readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES)
+
+        /**
+         * 以下写状态受this保护：filling为正在追加的写块，flushing为已封口待写出的缓存
+         */
+        private var filling: ByteBuffer? = null
+        private val flushing = ArrayDeque<ByteBuffer>()
+        private val gather = arrayOfNulls<ByteBuffer>(MAX_GATHER_BUFFERS)
+        private var writeRequested = false
+
+        private val pending = AtomicLong()
+
+        @Volatile
+        private var blocked = false
+
+        @Volatile
+        var isOpen = true
+            private set
+
+        /**
+         * 已提交但未写入socket的字节数
+         */
+        val pendingBytes: Long
+            get() = pending.get()
+
+        val isWritable: Boolean
+            get() = isOpen && pending.get() < highWatermark
+
+        /**
+         * 线程安全
+         *
+         * @return 连接已关闭或积压超过高水位时返回false，帧未发送
+         */
+        fun send(type: Int, label: String, payload: ByteArray, offset: Int = 0, length: Int = payload.size): Boolean {
+            if (!isOpen) {
+                return false
+            }
+            if (pending.get() >= highWatermark) {
+                blocked = true
+                return false
+            }
+            val labelBytes = DCFrameCodec.labelBytes(label)
+            val size = DCFrameCodec.encodedSize(labelBytes, length)
+            val requestWrite: Boolean
+            synchronized(this) {
+                if (size > WRITE_BLOCK_BYTES) {
+                    sealFilling()
+                    val buffer = ByteBuffer.allocate(size)
+                    DCFrameCodec.encode(type, labelBytes, payload, offset, length, buffer)
+                    buffer.flip()
+                    flushing.addLast(buffer)
+                } else {
+                    var block = filling
+                    if (block == null || block.remaining() < size) {
+                        sealFilling()
+                        block = acquireBlock()
+                        filling = block
+                    }
+                    DCFrameCodec.encode(type, labelBytes, payload, offset, length, block)
+                }
+                pending.addAndGet(size.toLong())
+                requestWrite = !writeRequested
+                writeRequested = true
+            }
+            if (requestWrite) {
+                runOnSelector { enableWrite() }
+            }
+            return true
+        }
+
+        fun close() {
+            runOnSelector { closeOnSelector() }
+        }
+
+        private fun enableWrite() {
+            val key = key ?: return
+            if (key.isValid) {
+                key.interestOps(key.interestOps() or SelectionKey.OP_WRITE)
+            }
+        }
+
+        private fun sealFilling() {
+            val block = filling ?: return
+            if (block.position() > 0) {
+                block.flip()
+                flushing.addLast(block)
+                filling = null
+            }
+        }
+
+        internal fun read() {
+            val count = channel.read(readBuffer)
+            if (count < 0) {
+                closeOnSelector()
+                return
+            }
+            readBuffer.flip()
+            while (isOpen) {
+                val frame = DCFrameCodec.decode(readBuffer) ?: break
+                notifyListener { listener.onFrame(this, frame) }
+            }
+            val needed = DCFrameCodec.pendingFrameSize(readBuffer)
+            if (needed > readBuffer.capacity()) {
+                val larger = ByteBuffer.allocateDirect(Integer.highestOneBit(needed - 1) shl 1)
+                larger.put(readBuffer)
+                readBuffer = larger
+            } else {
+                readBuffer.compact()
+            }
+        }
+
+        internal fun flush() {
+            synchronized(this) {
+                sealFilling()
+                while (flushing.isNotEmpty()) {
+                    var count = 0
+                    for (buffer in flushing) {
+                        if (count == MAX_GATHER_BUFFERS) break
+                        gather[count++] = buffer
+                    }
+                    val written = channel.write(gather, 0, count)
+                    gather.fill(null, 0, count)
+                    pending.addAndGet(-written)
+                    while (flushing.isNotEmpty() && !flushing.first().hasRemaining()) {
+                        releaseBlock(flushing.removeFirst())
+                    }
+                    if (flushing.isNotEmpty() && flushing.first().position() > 0) {
+                        // socket发送缓存已满，等待下一次OP_WRITE
+                        break
+                    }
+                    if (written == 0L) {
+                        break
+                    }
+                }
+                if (flushing.isEmpty()) {
+                    writeRequested = false
+                    key?.let { if (it.isValid) it.interestOps(SelectionKey.OP_READ) }
+                }
+            }
+            if (blocked && pending.get() <= lowWatermark) {
+                blocked = false
+                notifyListener { listener.onWritable(this) }
+            }
+        }
+
+        internal fun closeOnSelector() {
+            if (!isOpen) {
+                return
+            }
+            isOpen = false
+            key?.cancel()
+            runCatching { channel.close() }
+            connectionSet.remove(this)
+            synchronized(this) {
+                filling?.let { releaseBlock(it) }
+                filling = null
+                flushing.forEach { releaseBlock(it) }
+                flushing.clear()
+                pending.set(0)
+            }
+            notifyListener { listener.onDisconnected(this) }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.testing.sim
+
+import com.ct.ertclib.dc.core.constants.CommonConstants
+import com.newcalllib.datachannel.V1_0.IDCSendDataCallback
+import com.newcalllib.datachannel.V1_0.IImsDCObserver
+import com.newcalllib.datachannel.V1_0.ImsDCStatus
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class SimulatedNetworkTest {
+
+    private class RecordingObserver(private val clock: VirtualClock) : IImsDCObserver.Stub() {
+        val arrivals = mutableListOf<Pair<Long, Int>>()
+        val states = mutableListOf<ImsDCStatus>()
+
+        override fun onDataChannelStateChange(status: ImsDCStatus, errCode: Int) {
+            states.add(status)
+        }
+
+        override fun onMessage(data: ByteArray, length: Int) {
+            arrivals.add(clock.nowMillis to data[0].toInt())
+        }
+    }
+
+    private class RecordingCallback : IDCSendDataCallback.Stub() {
+        val results = mutableListOf<Int>()
+
+        override fun onSendDataResult(state: Int) {
+            results.add(state)
+        }
+    }
+
+    @Test
+    fun send_shapesByBandwidthAndLatency() {
+        val network = SimulatedNetwork(1)
+        val profile = LinkProfile(latencyMillis = 20, bandwidthBytesPerSecond = 10_000, bufferSize = 2500)
+        val (local, remote) = network.createChannelPair("adc", profile)
+        val observer = RecordingObserver(network.clock)
+        remote.registerObserver(observer)
+        val callback = RecordingCallback()
+        assertFalse(local.send(ByteArray(1000), 1000, callback))
+        network.clock.advanceBy(0)
+        assertEquals(listOf(CommonConstants.DC_SEND_DATA_CLOSED), callback.results)
+
+        network.clock.runUntilIdle()
+        assertEquals(ImsDCStatus.DC_STATE_OPEN, local.state)
+        assertTrue(local.send(ByteArray(1000) { 1 }, 1000, callback))
+        assertTrue(local.send(ByteArray(1000) { 2 }, 1000, callback))
+        assertEquals(2000, local.bufferedAmount())
+        assertFalse(local.send(ByteArray(1000), 1000, callback))
+
+        network.clock.advanceTo(100)
+        assertEquals(1000, local.bufferedAmount())
+        network.clock.runUntilIdle()
+        assertEquals(0, local.bufferedAmount())
+        assertEquals(listOf(120L to 1, 220L to 2), observer.arrivals)
+        assertEquals(
+            listOf(CommonConstants.DC_SEND_DATA_CLOSED, CommonConstants.DC_SEND_DATA_OK, CommonConstants.DC_SEND_DATA_OK, CommonConstants.DC_SEND_DATA_CACHE_FULL),
+            callback.results
+        )
+    }
+
+    @Test
+    fun seed_reproducesLossJitterAndOrder() {
+        val first = runVolte(seed = 7)
+        assertEquals(first, runVolte(seed = 7))
+        assertNotEquals(first, runVolte(seed = 8))
+        // 可靠有序通道：全部到达且不乱序，丢包体现为重传时延
+        assertEquals((0 until 200).map { it.toByte().toInt() }, first.map { it.second })
+        assertTrue(first.zipWithNext().all { (a, b) -> a.first <= b.first })
+    }
+
+    @Test
+    fun unreliableUnordered_dropsAndReorders() {
+        val network = SimulatedNetwork(3)
+        val profile = LinkProfile(latencyMillis = 20, jitterMillis = 10, lossRate = 0.2, reliable = false, ordered = false)
+        val (local, remote) = network.createChannelPair("adc", profile)
+        val observer = RecordingObserver(network.clock)
+        remote.registerObserver(observer)
+        network.clock.runUntilIdle()
+        repeat(200) {
+            local.send(byteArrayOf(it.toByte()), 1, null)
+            network.clock.advanceBy(1)
+        }
+        network.clock.runUntilIdle()
+        val stats = local.stats
+        assertTrue(stats.lostCount > 0)
+        assertEquals(stats.sentCount, stats.deliveredCount + stats.lostCount)
+        val order = observer.arrivals.map { it.second and 0xff }
+        assertNotEquals(order.sorted(), order)
+    }
+
+    @Test
+    fun outageAndRemoteClose() {
+        val network = SimulatedNetwork(5)
+        val profile = LinkProfile(latencyMillis = 20)
+        val (local, remote) = network.createChannelPair("adc", profile)
+        val observer = RecordingObserver(network.clock)
+        local.registerObserver(observer)
+        val remoteObserver = RecordingObserver(network.clock)
+        remote.registerObserver(remoteObserver)
+        network.clock.runUntilIdle()
+
+        local.scheduleOutage(0, 500)
+        local.send(byteArrayOf(1), 1, null)
+        network.clock.runUntilIdle()
+        assertEquals(listOf(520L to 1), remoteObserver.arrivals)
+        assertEquals(1, local.stats.retransmitCount)
+
+        local.scheduleRemoteClose(1000)
+        network.clock.advanceTo(1000)
+        assertEquals(ImsDCStatus.DC_STATE_CLOSING, remote.state)
+        assertEquals(ImsDCStatus.DC_STATE_OPEN, local.state)
+        network.clock.runUntilIdle()
+        assertEquals(listOf(ImsDCStatus.DC_STATE_OPEN, ImsDCStatus.DC_STATE_CLOSING, ImsDCStatus.DC_STATE_CLOSED), observer.states)
+        assertFalse(local.send(byteArrayOf(1), 1, null))
+    }
+
+    @Test
+    fun peer_repliesOverDownlink() {
+        val network = SimulatedNetwork(9)
+        val profile = LinkProfile(latencyMillis = 20, setupDelayMillis = 40)
+        val bdc = network.createChannel("bdc0", profile, { data, reply -> reply(byteArrayOf((data[0] + 1).toByte())) })
+        val observer = RecordingObserver(network.clock)
+        bdc.registerObserver(observer)
+        network.clock.advanceTo(40)
+        assertEquals(ImsDCStatus.DC_STATE_OPEN, bdc.state)
+        bdc.send(byteArrayOf(1), 1, null)
+        network.clock.runUntilIdle()
+        assertEquals(listOf(80L to 2), observer.arrivals)
+    }
+
+    private fun runVolte(seed: Long): List<Pair<Long, Int>> {
+        val network = SimulatedNetwork(seed)
+        val (local, remote) = network.createChannelPair("adc", LinkProfile.VOLTE)
+        val observer = RecordingObserver(network.clock)
+        remote.registerObserver(observer)
+        network.clock.runUntilIdle()
+        repeat(200) {
+            local.send(ByteArray(256) { _ -> it.toByte() }, 256, null)
+            network.clock.advanceBy(5)
+        }
+        network.clock.runUntilIdle()
+        return observer.arrivals.map { it.first to it.second }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ *   Copyright 2025-China Telecom Research Institute.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.ct.ertclib.dc.feature.testing.socket
+
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.nio.ByteBuffer
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class NioSocketTransportTest {
+
+    private val transports = mutableListOf<NioSocketTransport>()
+
+    @After
+    fun tearDown() {
+        transports.forEach { it.close() }
+    }
+
+    @Test
+    fun codec_decodesOnlyCompleteFrames() {
+        val bytes = DCFrameCodec.encode(DCFrame(DCFrame.TYPE_DATA, "local_adc", byteArrayOf(1, 2, 3)))
+        val buffer = ByteBuffer.allocate(bytes.size)
+        buffer.put(bytes, 0, bytes.size - 1).flip()
+        assertNull(DCFrameCodec.decode(buffer))
+        assertEquals(0, buffer.position())
+        assertEquals(bytes.size, DCFrameCodec.pendingFrameSize(buffer))
+
+        buffer.clear()
+        buffer.put(bytes).flip()
+        val frame = DCFrameCodec.decode(buffer)!!
+        assertEquals(DCFrame.TYPE_DATA, frame.type)
+        assertEquals("local_adc", frame.label)
+        assertArrayEquals(byteArrayOf(1, 2, 3), frame.payload)
+        assertFalse(buffer.hasRemaining())
+    }
+
+    @Test
+    fun multiplePeers_multiplexLabelsInOrder() {
+        val peers = 3
+        val labels = 4
+        val messages = 2000
+        val received = ConcurrentHashMap<String, MutableList<Int>>()
+        val done = CountDownLatch(peers * labels * messages)
+        val server = newTransport(object : NioSocketTransport.Listener {
+            override fun onFrame(connection: NioSocketTransport.Connection, frame: DCFrame) {
+                received.computeIfAbsent(frame.label) { mutableListOf() }.add(ByteBuffer.wrap(frame.payload).getInt())
+                done.countDown()
+            }
+        })
+        val port = server.listen(0, "127.0.0.1")
+        val client = newTransport(object : NioSocketTransport.Listener {
+            override fun onFrame(connection: NioSocketTransport.Connection, frame: DCFrame) {}
+        })
+        val threads = (0 until peers).map { peer ->
+            val connection = client.connect("127.0.0.1", port)
+            Thread {
+                for (i in 0 until messages) {
+                    for (label in 0 until labels) {
+                        val payload = ByteBuffer.allocate(64).putInt(i).array()
+                        while (!connection.send(DCFrame.TYPE_DATA, "peer$peer-label$label", payload)) {
+                            Thread.sleep(1)
+                        }
+                    }
+                }
+            }.apply { start() }
+        }
+        threads.forEach { it.join() }
+        assertTrue(done.await(10, TimeUnit.SECONDS))
+        assertEquals(peers * labels, received.size)
+        received.values.forEach { assertEquals((0 until messages).toList(), it) }
+        assertEquals(peers, server.connections.size)
+    }
+
+    @Test
+    fun largeFrame_andBackpressure() {
+        val frames = CountDownLatch(3)
+        val sizes = mutableListOf<Int>()
+        val server = newTransport(object : NioSocketTransport.Listener {
+            override fun onFrame(connection: NioSocketTransport.Connection, frame: DCFrame) {
+                sizes.add(frame.payload.size)
+                frames.countDown()
+            }
+        })
+        val port = server.listen(0, "127.0.0.1")
+        val writable = AtomicInteger()
+        val client = newTransport(object : NioSocketTransport.Listener {
+            override fun onFrame(connection: NioSocketTransport.Connection, frame: DCFrame) {}
+
+            override fun onWritable(connection: NioSocketTransport.Connection) {
+                writable.incrementAndGet()
+            }
+        }, highWatermark = 1)
+        val connection = client.connect("127.0.0.1", port)
+        val large = ByteArray(300 * 1024) { it.toByte() }
+        assertTrue(connection.send(DCFrame.TYPE_DATA, "adc", large))
+        // 第一帧未写出前超过高水位，拒绝发送
+        var rejected = false
+        while (!connection.send(DCFrame.TYPE_DATA, "adc", ByteArray(10))) {
+            rejected = true
+            Thread.sleep(1)
+        }
+        while (!connection.send(DCFrame.TYPE_DATA, "adc", ByteArray(20))) {
+            Thread.sleep(1)
+        }
+        assertTrue(frames.await(10, TimeUnit.SECONDS))
+        assertEquals(listOf(large.size, 10, 20), sizes)
+        // 被拒绝过就一定收到过可写回调
+        assertEquals(rejected, writable.get() > 0)
+    }
+
+    private fun newTransport(listener: NioSocketTransport.Listener, highWatermark: Long = NioSocketTransport.DEFAULT_HIGH_WATERMARK): NioSocketTransport {
+        return NioSocketTransport(listener, highWatermark).also { transports.add(it) }
+    }
+}